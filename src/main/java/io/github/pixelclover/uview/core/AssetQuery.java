@@ -0,0 +1,293 @@
+package io.github.pixelclover.uview.core;
+
+import io.github.pixelclover.uview.model.UnityAsset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A parsed asset search. A query is a list of terms separated by white space, all of which an asset
+ * must match:
+ *
+ * <ul>
+ *   <li>{@code text} - the path contains the text, ignoring case
+ *   <li>{@code ext:cs} or {@code ext:png,jpg} - the file has one of the extensions
+ *   <li>{@code size:>1mb}, {@code size:<=10kb} or {@code size:1kb..2mb} - the content size is in
+ *       the range; the units are b, kb, mb and gb
+ *   <li>{@code path:Assets/Art} - the path starts with the prefix, respecting case
+ *   <li>{@code guid:ab12*} - the GUID starts with the prefix, or equals the value without a star
+ *   <li>{@code has:preview} - the asset has a preview image
+ * </ul>
+ *
+ * <p>A term preceded by {@code -} excludes the assets it matches, and a value that contains spaces
+ * can be put in double quotes. A query without any of these is a plain path search for the whole
+ * text, spaces included, as it always has been.
+ */
+public final class AssetQuery {
+
+  private static final long KB = 1024;
+
+  private final String text;
+  private final List<Term> terms;
+  private final boolean pathSearch;
+
+  private AssetQuery(String text, List<Term> terms, boolean pathSearch) {
+    this.text = text;
+    this.terms = terms;
+    this.pathSearch = pathSearch;
+  }
+
+  /**
+   * Parses a query.
+   *
+   * @param text The query as typed.
+   * @return The parsed query.
+   * @throws IllegalArgumentException if a term has an invalid value, e.g. a size without a number.
+   */
+  public static AssetQuery parse(String text) {
+    List<Term> terms = new ArrayList<>();
+    boolean pathSearch = true;
+    int position = 0;
+    while (position < text.length()) {
+      if (Character.isWhitespace(text.charAt(position))) {
+        position++;
+        continue;
+      }
+      boolean negated = false;
+      if (text.charAt(position) == '-'
+          && position + 1 < text.length()
+          && !Character.isWhitespace(text.charAt(position + 1))) {
+        negated = true;
+        position++;
+      }
+      StringBuilder token = new StringBuilder();
+      boolean quoted = false;
+      boolean inQuotes = false;
+      while (position < text.length()
+          && (inQuotes || !Character.isWhitespace(text.charAt(position)))) {
+        char c = text.charAt(position++);
+        if (c == '"') {
+          quoted = true;
+          inQuotes = !inQuotes;
+        } else {
+          token.append(c);
+        }
+      }
+      Term term = parseTerm(token.toString(), negated);
+      if (negated || quoted || !(term instanceof Text)) {
+        pathSearch = false;
+      }
+      terms.add(term);
+    }
+    return new AssetQuery(text, List.copyOf(terms), pathSearch);
+  }
+
+  /**
+   * Checks whether this query is a plain path search, which {@link PathIndex#search(String)} can
+   * answer on its own.
+   *
+   * @return {@code true} if the query has no keys, negations or quotes.
+   */
+  public boolean isPathSearch() {
+    return pathSearch;
+  }
+
+  /**
+   * Checks whether this query matches every asset.
+   *
+   * @return {@code true} if the query is blank.
+   */
+  public boolean isBlank() {
+    return terms.isEmpty();
+  }
+
+  /**
+   * Gets the query as it was typed.
+   *
+   * @return The text of the query.
+   */
+  public String text() {
+    return text;
+  }
+
+  List<Term> terms() {
+    return terms;
+  }
+
+  /**
+   * Checks whether an asset matches this query.
+   *
+   * @param asset The asset.
+   * @return {@code true} if the asset matches every term.
+   */
+  public boolean matches(UnityAsset asset) {
+    if (pathSearch) {
+      return text.isBlank() || contains(asset.assetPath(), text.toLowerCase(Locale.ROOT));
+    }
+    for (Term term : terms) {
+      if (!term.matches(asset)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    return text;
+  }
+
+  private static Term parseTerm(String token, boolean negated) {
+    int colon = token.indexOf(':');
+    String key = colon < 0 ? "" : token.substring(0, colon).toLowerCase(Locale.ROOT);
+    String value = colon < 0 ? token : token.substring(colon + 1);
+    switch (key) {
+      case "ext" -> {
+        List<String> extensions =
+            Arrays.stream(value.split(","))
+                .map(e -> e.startsWith(".") ? e.substring(1) : e)
+                .filter(e -> !e.isEmpty())
+                .map(e -> e.toLowerCase(Locale.ROOT))
+                .distinct()
+                .toList();
+        if (extensions.isEmpty()) {
+          throw new IllegalArgumentException("ext: needs an extension, e.g. ext:cs");
+        }
+        return new Extension(extensions, negated);
+      }
+      case "size" -> {
+        return parseSize(value, negated);
+      }
+      case "path" -> {
+        String prefix = value.endsWith("*") ? value.substring(0, value.length() - 1) : value;
+        if (prefix.isEmpty()) {
+          throw new IllegalArgumentException("path: needs a path, e.g. path:Assets/Art");
+        }
+        return new PathPrefix(prefix, negated);
+      }
+      case "guid" -> {
+        boolean prefix = value.endsWith("*");
+        String guid = (prefix ? value.substring(0, value.length() - 1) : value);
+        if (guid.isEmpty()) {
+          throw new IllegalArgumentException("guid: needs a GUID or a prefix, e.g. guid:ab12*");
+        }
+        return new Guid(guid.toLowerCase(Locale.ROOT), prefix, negated);
+      }
+      case "has" -> {
+        if (!value.equalsIgnoreCase("preview")) {
+          throw new IllegalArgumentException("has: only supports has:preview");
+        }
+        return new HasPreview(negated);
+      }
+      default -> {
+        return new Text(token.toLowerCase(Locale.ROOT), negated);
+      }
+    }
+  }
+
+  private static Size parseSize(String value, boolean negated) {
+    int range = value.indexOf("..");
+    if (range >= 0) {
+      return new Size(
+          parseBytes(value.substring(0, range)), parseBytes(value.substring(range + 2)), negated);
+    }
+    if (value.startsWith(">=")) {
+      return new Size(parseBytes(value.substring(2)), Long.MAX_VALUE, negated);
+    }
+    if (value.startsWith("<=")) {
+      return new Size(0, parseBytes(value.substring(2)), negated);
+    }
+    if (value.startsWith(">")) {
+      return new Size(parseBytes(value.substring(1)) + 1, Long.MAX_VALUE, negated);
+    }
+    if (value.startsWith("<")) {
+      return new Size(0, parseBytes(value.substring(1)) - 1, negated);
+    }
+    long size = parseBytes(value.startsWith("=") ? value.substring(1) : value);
+    return new Size(size, size, negated);
+  }
+
+  private static long parseBytes(String value) {
+    String lower = value.trim().toLowerCase(Locale.ROOT);
+    long unit = 1;
+    if (lower.endsWith("kb") || lower.endsWith("k")) {
+      unit = KB;
+    } else if (lower.endsWith("mb") || lower.endsWith("m")) {
+      unit = KB * KB;
+    } else if (lower.endsWith("gb") || lower.endsWith("g")) {
+      unit = KB * KB * KB;
+    }
+    String number = lower.replaceFirst("[kmg]?b?$", "");
+    try {
+      double amount = Double.parseDouble(number);
+      if (amount < 0 || Double.isNaN(amount)) {
+        throw new NumberFormatException(number);
+      }
+      return (long) Math.ceil(amount * unit);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(
+          "size: needs a size such as >1mb, <=10kb or 1kb..2mb, not '" + value + "'");
+    }
+  }
+
+  private static boolean contains(String path, String folded) {
+    return path.toLowerCase(Locale.ROOT).contains(folded);
+  }
+
+  /** One condition of a query. */
+  sealed interface Term permits Text, Extension, Size, PathPrefix, Guid, HasPreview {
+    boolean negated();
+
+    boolean test(UnityAsset asset);
+
+    default boolean matches(UnityAsset asset) {
+      return test(asset) != negated();
+    }
+  }
+
+  record Text(String folded, boolean negated) implements Term {
+    @Override
+    public boolean test(UnityAsset asset) {
+      return contains(asset.assetPath(), folded);
+    }
+  }
+
+  record Extension(List<String> extensions, boolean negated) implements Term {
+    @Override
+    public boolean test(UnityAsset asset) {
+      return !asset.isDirectory() && extensions.contains(AssetTypes.extensionOf(asset.assetPath()));
+    }
+  }
+
+  // An inclusive range of content sizes in bytes. Directories have no size, so they never match.
+  record Size(long min, long max, boolean negated) implements Term {
+    @Override
+    public boolean test(UnityAsset asset) {
+      long size = asset.contentLength();
+      return size >= 0 && size >= min && size <= max;
+    }
+  }
+
+  record PathPrefix(String prefix, boolean negated) implements Term {
+    @Override
+    public boolean test(UnityAsset asset) {
+      return asset.assetPath().startsWith(prefix);
+    }
+  }
+
+  record Guid(String value, boolean prefix, boolean negated) implements Term {
+    @Override
+    public boolean test(UnityAsset asset) {
+      String guid = asset.guid().toLowerCase(Locale.ROOT);
+      return prefix ? guid.startsWith(value) : guid.equals(value);
+    }
+  }
+
+  record HasPreview(boolean negated) implements Term {
+    @Override
+    public boolean test(UnityAsset asset) {
+      return asset.hasPreview();
+    }
+  }
+}
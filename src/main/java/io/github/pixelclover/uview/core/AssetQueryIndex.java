@@ -0,0 +1,285 @@
+package io.github.pixelclover.uview.core;
+
+import io.github.pixelclover.uview.model.UnityAsset;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Answers {@link AssetQuery queries} over the assets of a {@link PathIndex}. Besides the path order
+ * of the index itself, which puts every path prefix into one range, it keeps the assets grouped by
+ * extension, sorted by content size and by GUID, and the assets with a preview image.
+ *
+ * <p>A query is planned by estimating, from these indexes, how many assets each of its terms
+ * matches. The assets of the most selective term are the only ones the other terms are tested on,
+ * so a narrow term keeps even a long query over a large package fast.
+ */
+public final class AssetQueryIndex {
+
+  private static final int PARALLEL_FILTER_THRESHOLD = 32768;
+  private static final int[] NONE = new int[0];
+
+  private final PathIndex index;
+  // The positions of the files with each extension, in ascending order.
+  private final Map<String, int[]> idsByExtension;
+  // The content sizes of all files in ascending order, and the position of the file of each size.
+  private final long[] sizes;
+  private final int[] idsBySize;
+  // The lower-case GUIDs of all assets in ascending order, and the position of the asset of each.
+  private final String[] guids;
+  private final int[] idsByGuid;
+  // The positions of the assets with a preview image, in ascending order.
+  private final int[] idsWithPreview;
+
+  private AssetQueryIndex(
+      PathIndex index,
+      Map<String, int[]> idsByExtension,
+      long[] sizes,
+      int[] idsBySize,
+      String[] guids,
+      int[] idsByGuid,
+      int[] idsWithPreview) {
+    this.index = index;
+    this.idsByExtension = idsByExtension;
+    this.sizes = sizes;
+    this.idsBySize = idsBySize;
+    this.guids = guids;
+    this.idsByGuid = idsByGuid;
+    this.idsWithPreview = idsWithPreview;
+  }
+
+  /**
+   * Builds the indexes for the assets of a path index.
+   *
+   * @param index The path index.
+   * @return The new query index.
+   */
+  public static AssetQueryIndex of(PathIndex index) {
+    int size = index.size();
+    String[] extensions = new String[size];
+    // A size and a position packed into one long sort together without boxing.
+    long[] sizeKeys = new long[size];
+    String[] guidOf = new String[size];
+    IntStream.range(0, size)
+        .parallel()
+        .forEach(
+            id -> {
+              UnityAsset asset = index.get(id);
+              extensions[id] =
+                  asset.isDirectory() ? null : AssetTypes.extensionOf(asset.assetPath());
+              sizeKeys[id] =
+                  asset.isDirectory() ? Long.MAX_VALUE : (long) asset.contentLength() << 32 | id;
+              guidOf[id] = asset.guid().toLowerCase(Locale.ROOT);
+            });
+
+    Map<String, int[]> idsByExtension = new HashMap<>();
+    Map<String, Integer> counts = new HashMap<>();
+    for (String extension : extensions) {
+      if (extension != null) {
+        counts.merge(extension, 1, Integer::sum);
+      }
+    }
+    counts.forEach((extension, count) -> idsByExtension.put(extension, new int[count]));
+    Map<String, Integer> filled = new HashMap<>();
+    for (int id = 0; id < size; id++) {
+      if (extensions[id] != null) {
+        int position = filled.merge(extensions[id], 1, Integer::sum) - 1;
+        idsByExtension.get(extensions[id])[position] = id;
+      }
+    }
+
+    Arrays.parallelSort(sizeKeys);
+    int files = 0;
+    while (files < size && sizeKeys[files] != Long.MAX_VALUE) {
+      files++;
+    }
+    long[] sizes = new long[files];
+    int[] idsBySize = new int[files];
+    for (int i = 0; i < files; i++) {
+      sizes[i] = sizeKeys[i] >>> 32;
+      idsBySize[i] = (int) sizeKeys[i];
+    }
+
+    int[] idsByGuid =
+        IntStream.range(0, size)
+            .boxed()
+            .parallel()
+            .sorted(Comparator.comparing((Integer id) -> guidOf[id]))
+            .mapToInt(Integer::intValue)
+            .toArray();
+    String[] guids = new String[size];
+    for (int i = 0; i < size; i++) {
+      guids[i] = guidOf[idsByGuid[i]];
+    }
+    int[] idsWithPreview =
+        IntStream.range(0, size).parallel().filter(id -> index.get(id).hasPreview()).toArray();
+    return new AssetQueryIndex(
+        index, idsByExtension, sizes, idsBySize, guids, idsByGuid, idsWithPreview);
+  }
+
+  /**
+   * Gets the path index this index was built for.
+   *
+   * @return The path index.
+   */
+  public PathIndex index() {
+    return index;
+  }
+
+  /**
+   * Finds the assets that match a query. A plain path search is passed on to the path index, which
+   * can refine a previous result of it.
+   *
+   * @param query The query.
+   * @param previous A previous result to refine, or null.
+   * @return The matching assets, in path order.
+   */
+  public PathIndex.Result search(AssetQuery query, PathIndex.Result previous) {
+    if (query.isPathSearch()) {
+      return index.search(query.text(), previous);
+    }
+    List<AssetQuery.Term> terms = query.terms();
+    AssetQuery.Term source = null;
+    long fewest = index.size();
+    for (AssetQuery.Term term : terms) {
+      long estimate = term.negated() ? Long.MAX_VALUE : estimate(term);
+      if (estimate < fewest) {
+        source = term;
+        fewest = estimate;
+      }
+    }
+
+    AssetQuery.Term chosen = source;
+    IntStream candidates =
+        source == null ? IntStream.range(0, index.size()) : Arrays.stream(idsOf(source));
+    if (fewest >= PARALLEL_FILTER_THRESHOLD) {
+      candidates = candidates.parallel();
+    }
+    int[] ids =
+        candidates
+            .filter(
+                id -> {
+                  UnityAsset asset = index.get(id);
+                  for (AssetQuery.Term term : terms) {
+                    if (term != chosen && !term.matches(asset)) {
+                      return false;
+                    }
+                  }
+                  return true;
+                })
+            .toArray();
+    return index.resultOf(ids, ids.length);
+  }
+
+  // The number of assets a term matches, or an upper bound on it for a path text search, which can
+  // only be counted by scanning.
+  private long estimate(AssetQuery.Term term) {
+    if (term instanceof AssetQuery.Extension extension) {
+      long count = 0;
+      for (String name : extension.extensions()) {
+        count += idsByExtension.getOrDefault(name, NONE).length;
+      }
+      return count;
+    } else if (term instanceof AssetQuery.Size size) {
+      return Math.max(0, sizeEnd(size.max()) - sizeStart(size.min()));
+    } else if (term instanceof AssetQuery.PathPrefix path) {
+      return index.prefixEnd(path.prefix()) - index.lowerBound(path.prefix());
+    } else if (term instanceof AssetQuery.Guid guid) {
+      return guidEnd(guid) - guidStart(guid);
+    } else if (term instanceof AssetQuery.HasPreview) {
+      return idsWithPreview.length;
+    } else if (term instanceof AssetQuery.Text) {
+      // A scan of the packed paths is still much cheaper than testing every asset.
+      return index.size() - 1L;
+    }
+    return Long.MAX_VALUE;
+  }
+
+  // The positions of the assets a term matches, in ascending order.
+  private int[] idsOf(AssetQuery.Term term) {
+    if (term instanceof AssetQuery.Extension extension) {
+      int[] ids = NONE;
+      for (String name : extension.extensions()) {
+        int[] bucket = idsByExtension.getOrDefault(name, NONE);
+        int[] merged = Arrays.copyOf(ids, ids.length + bucket.length);
+        System.arraycopy(bucket, 0, merged, ids.length, bucket.length);
+        ids = merged;
+      }
+      if (extension.extensions().size() > 1) {
+        Arrays.sort(ids);
+      }
+      return ids;
+    } else if (term instanceof AssetQuery.Size size) {
+      int from = sizeStart(size.min());
+      int to = Math.max(from, sizeEnd(size.max()));
+      int[] ids = Arrays.copyOfRange(idsBySize, from, to);
+      Arrays.parallelSort(ids);
+      return ids;
+    } else if (term instanceof AssetQuery.PathPrefix path) {
+      int from = index.lowerBound(path.prefix());
+      return IntStream.range(from, Math.max(from, index.prefixEnd(path.prefix()))).toArray();
+    } else if (term instanceof AssetQuery.Guid guid) {
+      int from = guidStart(guid);
+      int[] ids = Arrays.copyOfRange(idsByGuid, from, Math.max(from, guidEnd(guid)));
+      Arrays.sort(ids);
+      return ids;
+    } else if (term instanceof AssetQuery.HasPreview) {
+      return idsWithPreview;
+    } else if (term instanceof AssetQuery.Text text) {
+      PathIndex.Result result = index.search(text.folded());
+      int[] ids = new int[result.size()];
+      Arrays.setAll(ids, result::id);
+      return ids;
+    }
+    return IntStream.range(0, index.size()).toArray();
+  }
+
+  // The first file with at least the given size.
+  private int sizeStart(long min) {
+    int low = 0;
+    int high = sizes.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (sizes[middle] < min) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  // The first file larger than the given size.
+  private int sizeEnd(long max) {
+    return max == Long.MAX_VALUE ? sizes.length : sizeStart(max + 1);
+  }
+
+  private int guidStart(AssetQuery.Guid guid) {
+    return guidLowerBound(guid.value());
+  }
+
+  // GUIDs are hexadecimal, so no GUID that starts with the value sorts after the value followed by
+  // the largest character, and none that equals it sorts after the value followed by the smallest.
+  private int guidEnd(AssetQuery.Guid guid) {
+    return guidLowerBound(
+        guid.value() + (guid.prefix() ? Character.MAX_VALUE : Character.MIN_VALUE));
+  }
+
+  private int guidLowerBound(String value) {
+    int low = 0;
+    int high = guids.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (guids[middle].compareTo(value) < 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+}
@@ -0,0 +1,133 @@
+package io.github.pixelclover.uview.core;
+
+import io.github.pixelclover.uview.model.UnityAsset;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Set;
+
+/** The kinds of assets the application treats differently, told apart by file extension. */
+public final class AssetTypes {
+
+  /** The extensions of assets whose content is text, shown in a text editor and searchable. */
+  public static final Set<String> TEXT_EXTENSIONS =
+      Set.of(
+          "cs",
+          "java",
+          "js",
+          "txt",
+          "json",
+          "asmdef",
+          "xml",
+          "shader",
+          "mat",
+          "unity",
+          "asset",
+          "prefab",
+          "html",
+          "css",
+          "uss",
+          "sql",
+          "sh",
+          "yaml",
+          "md",
+          "controller",
+          "meta",
+          "lighting");
+
+  /** The extensions of assets whose content is an image, shown in the image viewer. */
+  public static final Set<String> IMAGE_EXTENSIONS =
+      Set.of(
+          "png", "jpg", "jpeg", "gif", "tga", "bmp", "webp", "svg", "ico", "avif", "tiff", "tif");
+
+  /** The extensions of assets whose content is audio, played by the audio player. */
+  public static final Set<String> AUDIO_EXTENSIONS = Set.of("wav", "mp3", "ogg");
+
+  private static final byte[] YAML_HEADER = "%YAML".getBytes(StandardCharsets.US_ASCII);
+  // How much of the content is checked for a NUL byte to tell binary content from text.
+  private static final int BINARY_CHECK_BYTES = 8000;
+
+  private AssetTypes() {}
+
+  /**
+   * Gets the extension of a file path.
+   *
+   * @param path The asset path.
+   * @return The lower-case text after the last dot of the file name, or an empty string if there is
+   *     none or the path is a directory.
+   */
+  public static String extensionOf(String path) {
+    int slash = path.lastIndexOf('/');
+    int dot = path.lastIndexOf('.');
+    if (dot <= slash + 1 || dot == path.length() - 1) {
+      return "";
+    }
+    return path.substring(dot + 1).toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * Checks whether an asset is a text file.
+   *
+   * @param asset The asset.
+   * @return {@code true} if the asset is a file with one of the {@link #TEXT_EXTENSIONS}.
+   */
+  public static boolean isText(UnityAsset asset) {
+    return !asset.isDirectory() && TEXT_EXTENSIONS.contains(extensionOf(asset.assetPath()));
+  }
+
+  /**
+   * Checks whether an asset is an image.
+   *
+   * @param asset The asset.
+   * @return {@code true} if the asset is a file with one of the {@link #IMAGE_EXTENSIONS}.
+   */
+  public static boolean isImage(UnityAsset asset) {
+    return !asset.isDirectory() && IMAGE_EXTENSIONS.contains(extensionOf(asset.assetPath()));
+  }
+
+  /**
+   * Checks whether an asset is audio.
+   *
+   * @param asset The asset.
+   * @return {@code true} if the asset is a file with one of the {@link #AUDIO_EXTENSIONS}.
+   */
+  public static boolean isAudio(UnityAsset asset) {
+    return !asset.isDirectory() && AUDIO_EXTENSIONS.contains(extensionOf(asset.assetPath()));
+  }
+
+  /**
+   * Checks whether an asset is serialized by Unity as YAML text, like scenes, prefabs and
+   * materials. Unity writes a {@code %YAML} directive first in such files, whatever their
+   * extension.
+   *
+   * @param asset The asset.
+   * @return {@code true} if the asset is a file whose content starts with {@code %YAML}.
+   */
+  public static boolean isUnityYaml(UnityAsset asset) {
+    ByteBuffer content = asset.contentBuffer();
+    if (content == null || content.limit() < YAML_HEADER.length) {
+      return false;
+    }
+    for (int i = 0; i < YAML_HEADER.length; i++) {
+      if (content.get(i) != YAML_HEADER[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Checks whether an asset's content is binary even if its extension is that of a text file, as
+   * with assets that Unity serialized in its binary format. Like git, this looks for a NUL byte,
+   * which text does not contain, near the start of the content.
+   *
+   * @param asset The asset.
+   * @return {@code true} if the asset is a file whose first few kilobytes contain a NUL byte.
+   */
+  public static boolean isBinary(UnityAsset asset) {
+    ByteBuffer content = asset.contentBuffer();
+    return content != null
+        && ByteSearch.indexOf(content, 0, Math.min(content.limit(), BINARY_CHECK_BYTES), (byte) 0)
+            >= 0;
+  }
+}
@@ -0,0 +1,200 @@
+package io.github.pixelclover.uview.core;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * Opens WAV, MP3 and Ogg Vorbis files as streams of 16-bit PCM, decoded as they are read. The file
+ * is read in place, and a stream can start at any position: with an {@link AudioSeekIndex}, an
+ * encoded file is decoded from the nearest checkpoint before it rather than from its start.
+ */
+public final class AudioDecoder {
+
+  // The Vorbis decoder decodes one page of an Ogg file after each read, and stops at the end of
+  // the file even if it has read more pages than it has decoded. So its first read, which must
+  // hold the whole first page, reads just that page of the identification header, and later ones
+  // no more than the 27-byte header every page starts with, which cannot hold all of another page.
+  private static final int OGG_FIRST_PAGE_LENGTH = 27 + 1 + 30;
+  private static final int OGG_PAGE_HEADER_LENGTH = 27;
+  // A converting stream that reads nothing this many times in a row is taken to be at its end.
+  private static final int MAX_EMPTY_READS = 64;
+
+  private AudioDecoder() {}
+
+  /**
+   * Opens an audio file for decoding from its start.
+   *
+   * @param content The file, from index 0 to its limit. It must not change while the stream is
+   *     read.
+   * @return The PCM stream, which the caller closes.
+   * @throws UnsupportedAudioFileException if the file is not in a known format.
+   * @throws IOException if the file cannot be read.
+   */
+  public static AudioInputStream open(ByteBuffer content)
+      throws UnsupportedAudioFileException, IOException {
+    return open(content, null, 0);
+  }
+
+  /**
+   * Opens an audio file for decoding from a position.
+   *
+   * @param content The file, from index 0 to its limit. It must not change while the stream is
+   *     read.
+   * @param index The checkpoints of the file, or null to decode from its start.
+   * @param frame The sample frame the stream starts at.
+   * @return The PCM stream, which the caller closes.
+   * @throws UnsupportedAudioFileException if the file is not in a known format.
+   * @throws IOException if the file cannot be read.
+   */
+  public static AudioInputStream open(ByteBuffer content, AudioSeekIndex index, long frame)
+      throws UnsupportedAudioFileException, IOException {
+    InputStream encoded;
+    long startFrame = 0;
+    if (index != null && frame > 0) {
+      AudioSeekIndex.Checkpoint checkpoint = index.checkpointBefore(frame);
+      encoded = new BufferInputStream(content, checkpoint.offset(), content.limit());
+      if (index.headerLength() > 0) {
+        encoded =
+            new SequenceInputStream(
+                new BufferInputStream(content, 0, index.headerLength()), encoded);
+      }
+      startFrame = checkpoint.frame();
+    } else {
+      encoded = new BufferInputStream(content, 0, content.limit());
+    }
+    // The format readers need to mark and reset the stream to look at its start.
+    ShortReadInputStream input = new ShortReadInputStream(new BufferedInputStream(encoded));
+    AudioInputStream source = AudioSystem.getAudioInputStream(input);
+    if (isOgg(content)) {
+      input.limitReads(OGG_FIRST_PAGE_LENGTH, OGG_PAGE_HEADER_LENGTH);
+    }
+    AudioInputStream pcm;
+    try {
+      pcm = AudioSystem.getAudioInputStream(pcmFormat(source.getFormat()), source);
+    } catch (IllegalArgumentException e) {
+      source.close();
+      throw new UnsupportedAudioFileException("Cannot decode " + source.getFormat());
+    }
+    // A stream of the file's own PCM skips by seeking. Converting streams, such as the MP3
+    // decoder, skip a share of the encoded bytes, which is not exact, so what they skip is decoded
+    // and dropped instead; but only from the checkpoint on.
+    long skip = (frame - startFrame) * pcm.getFormat().getFrameSize();
+    byte[] scratch = pcm == source ? null : new byte[(int) Math.min(skip, 64 * 1024)];
+    int emptyReads = 0;
+    while (skip > 0) {
+      long skipped;
+      if (scratch == null) {
+        skipped = pcm.skip(skip);
+        if (skipped <= 0) {
+          break; // The position is past the end; the stream is at its end now.
+        }
+      } else {
+        // A converting stream can read nothing while it decodes, but at a truncated page it can
+        // also read nothing forever.
+        skipped = pcm.read(scratch, 0, (int) Math.min(skip, scratch.length));
+        if (skipped < 0 || (skipped == 0 && ++emptyReads == MAX_EMPTY_READS)) {
+          break; // Past the end, as above.
+        }
+        if (skipped > 0) {
+          emptyReads = 0;
+        }
+      }
+      skip -= skipped;
+    }
+    return pcm;
+  }
+
+  /**
+   * Gets the format files of a format are decoded to.
+   *
+   * @param format The format of the file.
+   * @return Signed 16-bit little-endian PCM, with the sample rate and channels of the file.
+   */
+  public static AudioFormat pcmFormat(AudioFormat format) {
+    return new AudioFormat(
+        AudioFormat.Encoding.PCM_SIGNED,
+        format.getSampleRate(),
+        16,
+        format.getChannels(),
+        format.getChannels() * 2,
+        format.getSampleRate(),
+        false);
+  }
+
+  private static boolean isOgg(ByteBuffer content) {
+    return content.limit() >= 4
+        && content.get(0) == 'O'
+        && content.get(1) == 'g'
+        && content.get(2) == 'g'
+        && content.get(3) == 'S';
+  }
+
+  /** A stream that can be made to read at most a number of bytes at a time from another. */
+  private static final class ShortReadInputStream extends FilterInputStream {
+    private int maxRead = Integer.MAX_VALUE;
+    private int laterMaxRead = Integer.MAX_VALUE;
+
+    ShortReadInputStream(InputStream in) {
+      super(in);
+    }
+
+    void limitReads(int next, int later) {
+      maxRead = next;
+      laterMaxRead = later;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+      int count = super.read(bytes, offset, Math.min(length, maxRead));
+      maxRead = laterMaxRead;
+      return count;
+    }
+  }
+
+  /** A stream of a range of a buffer, without copying it. */
+  private static final class BufferInputStream extends InputStream {
+    private final ByteBuffer buffer;
+
+    BufferInputStream(ByteBuffer content, int start, int end) {
+      this.buffer = content.duplicate().limit(end).position(start);
+    }
+
+    @Override
+    public int read() {
+      return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) {
+      if (length == 0) {
+        return 0;
+      }
+      if (!buffer.hasRemaining()) {
+        return -1;
+      }
+      int count = Math.min(length, buffer.remaining());
+      buffer.get(bytes, offset, count);
+      return count;
+    }
+
+    @Override
+    public long skip(long count) {
+      int skipped = (int) Math.max(0, Math.min(count, buffer.remaining()));
+      buffer.position(buffer.position() + skipped);
+      return skipped;
+    }
+
+    @Override
+    public int available() {
+      return buffer.remaining();
+    }
+  }
+}
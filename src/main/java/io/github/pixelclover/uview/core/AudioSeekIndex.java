@@ -0,0 +1,458 @@
+package io.github.pixelclover.uview.core;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * The places in an MP3 or Ogg Vorbis file where decoding can start, found by reading the headers of
+ * its frames or pages without decoding any audio. Playback seeks by starting the decoder at the
+ * nearest such place before the position it wants, and discarding what is decoded before that
+ * position, instead of decoding the file from its start. The index is sparse, with a place about
+ * every half second, and also tells the length of the audio, which the files themselves often do
+ * not.
+ *
+ * <p>An MP3 decoder can start at any frame. A Vorbis decoder needs the three header packets at the
+ * start of the stream first, so starting at a place means decoding {@link #headerLength()} bytes of
+ * headers and then the bytes from the place on; the decoder skips over the missing pages.
+ */
+public final class AudioSeekIndex {
+
+  /**
+   * A place where decoding can start.
+   *
+   * @param offset The index of the first byte to decode.
+   * @param frame The number of the first sample frame decoding there gives, counted from the start
+   *     of the audio.
+   */
+  public record Checkpoint(int offset, long frame) {}
+
+  private static final double CHECKPOINT_SECONDS = 0.5;
+  // MP3 frames may use bits of the frames before them, so decoding starts this many frames ahead.
+  private static final int MP3_PREROLL_FRAMES = 2;
+  // How far into the file the first MP3 frame is looked for, after any ID3 tag.
+  private static final int MP3_SYNC_SEARCH_BYTES = 64 * 1024;
+  private static final int OGG_CAPTURE_PATTERN = 0x5367674F; // OggS, read little-endian.
+  private static final int VORBIS_HEADER_PACKETS = 3;
+  private static final int MAX_VORBIS_MODES = 64;
+
+  // In kbit/s, by version (MPEG-1, or MPEG-2 and 2.5), layer (I, II, III) and bitrate index.
+  private static final int[][][] MP3_BITRATES = {
+    {
+      {0, 32, 64, 96, 128, 160, 192, 224, 256, 288, 320, 352, 384, 416, 448},
+      {0, 32, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320, 384},
+      {0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320}
+    },
+    {
+      {0, 32, 48, 56, 64, 80, 96, 112, 128, 144, 160, 176, 192, 224, 256},
+      {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160},
+      {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160}
+    }
+  };
+  // By version bits (MPEG-2.5, reserved, MPEG-2, MPEG-1) and sample rate index.
+  private static final int[][] MP3_SAMPLE_RATES = {
+    {11025, 12000, 8000}, null, {22050, 24000, 16000}, {44100, 48000, 32000}
+  };
+
+  private final float sampleRate;
+  private final long frameCount;
+  private final int headerLength;
+  private final int[] offsets;
+  private final long[] frames;
+
+  private AudioSeekIndex(
+      float sampleRate, long frameCount, int headerLength, int[] offsets, long[] frames) {
+    this.sampleRate = sampleRate;
+    this.frameCount = frameCount;
+    this.headerLength = headerLength;
+    this.offsets = offsets;
+    this.frames = frames;
+  }
+
+  /**
+   * Indexes an MP3 or Ogg Vorbis file.
+   *
+   * @param content The file, from index 0 to its limit.
+   * @return The index, or null if the file is neither MP3 nor Ogg Vorbis, or has no audio.
+   */
+  public static AudioSeekIndex of(ByteBuffer content) {
+    content = content.duplicate();
+    try {
+      if (content.limit() >= 4
+          && content.order(ByteOrder.LITTLE_ENDIAN).getInt(0) == OGG_CAPTURE_PATTERN) {
+        return ofOgg(content.order(ByteOrder.LITTLE_ENDIAN));
+      }
+      return ofMp3(content.order(ByteOrder.BIG_ENDIAN));
+    } catch (IndexOutOfBoundsException e) {
+      return null; // A header that claims more bytes than the file has.
+    }
+  }
+
+  /**
+   * Gets the sample rate of the audio.
+   *
+   * @return The number of sample frames per second.
+   */
+  public float sampleRate() {
+    return sampleRate;
+  }
+
+  /**
+   * Gets the length of the audio, as the decoder gives it.
+   *
+   * @return The number of sample frames of the whole audio.
+   */
+  public long frameCount() {
+    return frameCount;
+  }
+
+  /**
+   * Gets the length of the headers a decoder must read before it can start at a checkpoint.
+   *
+   * @return The number of bytes at the start of the file that must be decoded before any
+   *     checkpoint; 0 if decoding can start at a checkpoint right away.
+   */
+  public int headerLength() {
+    return headerLength;
+  }
+
+  /**
+   * Finds where to start decoding to reach a position.
+   *
+   * @param frame The sample frame to reach.
+   * @return The last checkpoint at or before the frame.
+   */
+  public Checkpoint checkpointBefore(long frame) {
+    int i = Arrays.binarySearch(frames, frame);
+    if (i < 0) {
+      i = Math.max(0, -i - 2);
+    }
+    return new Checkpoint(offsets[i], frames[i]);
+  }
+
+  private static AudioSeekIndex ofMp3(ByteBuffer content) {
+    int start = 0;
+    if (content.limit() >= 10 && (content.getInt(0) >>> 8) == 0x494433) { // ID3
+      int size =
+          (content.get(6) & 0x7F) << 21
+              | (content.get(7) & 0x7F) << 14
+              | (content.get(8) & 0x7F) << 7
+              | (content.get(9) & 0x7F);
+      boolean footer = (content.get(5) & 0x10) != 0;
+      start = 10 + size + (footer ? 10 : 0);
+    }
+    // The first frame is the first header that another one follows, since the bytes of a header
+    // can also occur by chance, e.g. in an image embedded in the tag.
+    int first = -1;
+    int searchEnd = (int) Math.min(content.limit() - 4L, (long) start + MP3_SYNC_SEARCH_BYTES);
+    for (int i = start; i < searchEnd && first < 0; i++) {
+      int header = content.getInt(i);
+      int length = mp3FrameLength(header);
+      if (length > 0
+          && i + length + 4 <= content.limit()
+          && sameStream(header, content.getInt(i + length))) {
+        first = i;
+      }
+    }
+    if (first < 0) {
+      return null;
+    }
+    int firstHeader = content.getInt(first);
+    int sampleRate = mp3SampleRate(firstHeader);
+    long spacing = (long) (sampleRate * CHECKPOINT_SECONDS);
+    Checkpoints checkpoints = new Checkpoints();
+    int[] recentOffsets = new int[MP3_PREROLL_FRAMES + 1];
+    long[] recentFrames = new long[MP3_PREROLL_FRAMES + 1];
+    int frameNumber = 0;
+    long frame = 0;
+    long nextCheckpoint = 0;
+    int position = first;
+    while (position + 4 <= content.limit()) {
+      int header = content.getInt(position);
+      int length = mp3FrameLength(header);
+      if (length <= 0 || !sameStream(firstHeader, header)) {
+        // Junk between frames, or the ID3v1 tag at the end: look for the next frame.
+        position++;
+        continue;
+      }
+      if (position + length > content.limit()) {
+        break; // A truncated last frame.
+      }
+      int slot = frameNumber % recentOffsets.length;
+      recentOffsets[slot] = position;
+      recentFrames[slot] = frame;
+      if (frame >= nextCheckpoint) {
+        int preroll =
+            (frameNumber - Math.min(frameNumber, MP3_PREROLL_FRAMES)) % recentOffsets.length;
+        checkpoints.add(recentOffsets[preroll], recentFrames[preroll]);
+        nextCheckpoint = frame + spacing;
+      }
+      frame += mp3SamplesPerFrame(header);
+      frameNumber++;
+      position += length;
+    }
+    return checkpoints.toIndex(sampleRate, frame, 0);
+  }
+
+  private static AudioSeekIndex ofOgg(ByteBuffer content) {
+    int serial = 0;
+    int sampleRate = 0;
+    int[] blocksizes = new int[2];
+    int[] modeBlocksizes = null;
+    int modeBits = 0;
+    int packets = 0;
+    ByteArrayOutputStream setup = new ByteArrayOutputStream();
+    int headerLength = -1;
+    // Whether the packet being read goes on on the next page, and its block size if it is audio.
+    boolean inPacket = false;
+    int packetBlocksize = 0;
+    // The granule position and block size of the last audio packet that ended.
+    long lastGranule = 0;
+    int lastBlocksize = 0;
+    // How far the decoder's frames are ahead of granule positions; see below.
+    long lead = 0;
+    long nextCheckpoint = 0;
+    long spacing = 0;
+    Checkpoints checkpoints = new Checkpoints();
+    int position = 0;
+    while (position + 27 <= content.limit()) {
+      if (content.getInt(position) != OGG_CAPTURE_PATTERN || content.get(position + 4) != 0) {
+        break; // Not a page; the rest of the file cannot be indexed.
+      }
+      long granule = content.getLong(position + 6);
+      int pageSerial = content.getInt(position + 14);
+      int segments = content.get(position + 26) & 0xFF;
+      int body = position + 27 + segments;
+      int bodyLength = 0;
+      for (int s = 0; s < segments; s++) {
+        bodyLength += content.get(position + 27 + s) & 0xFF;
+      }
+      int pageEnd = body + bodyLength;
+      if (position == 0) {
+        // The identification header: packet type 1, "vorbis", version, channels, sample rate,
+        // bitrates, and the two block sizes as powers of two.
+        if (content.get(body) != 1 || content.get(body + 1) != 'v') {
+          return null; // Another codec, such as Opus.
+        }
+        serial = pageSerial;
+        sampleRate = content.getInt(body + 12);
+        blocksizes[0] = 1 << (content.get(body + 28) & 0xF);
+        blocksizes[1] = 1 << ((content.get(body + 28) >> 4) & 0xF);
+        spacing = (long) (sampleRate * CHECKPOINT_SECONDS);
+      }
+      if (pageSerial == serial) {
+        boolean headers = headerLength < 0;
+        int blocksizeBefore = lastBlocksize;
+        boolean continued = inPacket;
+        int continuedBlocksize = packetBlocksize;
+        boolean packetStarts = false;
+        int segment = body;
+        for (int s = 0; s < segments; s++) {
+          int lacing = content.get(position + 27 + s) & 0xFF;
+          if (!inPacket) {
+            inPacket = true;
+            packetBlocksize =
+                headers || lacing == 0
+                    ? 0
+                    : blocksize(content.get(segment), modeBlocksizes, modeBits);
+            if (packetBlocksize > 0 && !packetStarts) {
+              packetStarts = true;
+              if (blocksizeBefore == 0 && !continued) {
+                lead = packetBlocksize / 4 - blocksizes[0] / 4;
+              }
+            }
+          }
+          if (headers && packets == VORBIS_HEADER_PACKETS - 1) {
+            byte[] bytes = new byte[lacing];
+            content.get(segment, bytes);
+            setup.writeBytes(bytes);
+          }
+          segment += lacing;
+          if (lacing < 255) {
+            inPacket = false;
+            if (headers) {
+              packets++;
+            } else if (packetBlocksize > 0) {
+              lastBlocksize = packetBlocksize;
+            }
+          }
+        }
+        if (headers && packets >= VORBIS_HEADER_PACKETS) {
+          // The last header packet ends its page; audio starts on the next one.
+          headerLength = pageEnd;
+          boolean[] longModes = longModes(setup.toByteArray());
+          if (longModes == null) {
+            return null;
+          }
+          modeBlocksizes = new int[longModes.length];
+          for (int m = 0; m < longModes.length; m++) {
+            modeBlocksizes[m] = blocksizes[longModes[m] ? 1 : 0];
+          }
+          modeBits = 32 - Integer.numberOfLeadingZeros(longModes.length - 1);
+        } else if (!headers) {
+          // A packet ends a quarter of its block and a quarter of the block before it after the
+          // packet before it, which is where its granule position is. Started afresh, the decoder
+          // takes a short block to have come first, so its first packet gives a quarter of its
+          // block less a quarter of a short one; from the start of the file, that puts its frames
+          // ahead of granule positions by as much. Started on a later page, it drops the packet
+          // the page goes on with and decodes the first one that begins on it, so it starts that
+          // much before where that packet ends.
+          if (packetStarts) {
+            long frame = 0;
+            if (blocksizeBefore > 0) {
+              frame =
+                  lead
+                      + lastGranule
+                      + blocksizeBefore / 4
+                      + (continued ? continuedBlocksize / 2 : 0)
+                      + blocksizes[0] / 4;
+            }
+            if (frame >= nextCheckpoint) {
+              checkpoints.add(position, frame);
+              nextCheckpoint = frame + spacing;
+            }
+          }
+          // A page where no packet ends has no granule position.
+          if (granule != -1) {
+            lastGranule = granule;
+          }
+        }
+      }
+      position = pageEnd;
+    }
+    if (headerLength < 0 || sampleRate <= 0) {
+      return null;
+    }
+    return checkpoints.toIndex(sampleRate, lead + lastGranule, headerLength);
+  }
+
+  // The block size of an audio packet, from the mode its first bits name; 0 if it is not audio.
+  private static int blocksize(byte first, int[] modeBlocksizes, int modeBits) {
+    if ((first & 1) != 0) {
+      return 0;
+    }
+    int mode = (first >> 1) & ((1 << modeBits) - 1);
+    return mode < modeBlocksizes.length ? modeBlocksizes[mode] : 0;
+  }
+
+  // Whether each mode of a Vorbis setup header uses long blocks, or null if the modes cannot be
+  // found. The modes are the last thing in the header, after codebooks, floors and residues that
+  // cannot be skipped without decoding them, so they are read backwards from the framing bit at
+  // its end: each mode is 41 bits of which 32 are always zero, after a 6-bit count of the modes.
+  // Zero bits before the modes can pass for more of them; like other players, the longest run of
+  // modes whose count matches is taken.
+  private static boolean[] longModes(byte[] setup) {
+    if (setup.length == 0 || setup[setup.length - 1] == 0) {
+      return null;
+    }
+    int end =
+        (setup.length - 1) * 8 + 31 - Integer.numberOfLeadingZeros(setup[setup.length - 1] & 0xFF);
+    // Before the modes are at least the packet type, "vorbis" and the codebook count.
+    int start = 7 * 8 + 8;
+    boolean[] flags = new boolean[MAX_VORBIS_MODES];
+    int count = 0;
+    int found = 0;
+    while (count < MAX_VORBIS_MODES && end - 41 - 6 >= start) {
+      if (bits(setup, end - 8, 8) > 63
+          || bits(setup, end - 24, 16) != 0
+          || bits(setup, end - 40, 16) != 0) {
+        break;
+      }
+      end -= 41;
+      flags[count++] = bits(setup, end, 1) != 0;
+      if (bits(setup, end - 6, 6) + 1 == count) {
+        found = count;
+      }
+    }
+    if (found == 0) {
+      return null;
+    }
+    // Read backwards, the last mode came first.
+    boolean[] longModes = new boolean[found];
+    for (int m = 0; m < found; m++) {
+      longModes[m] = flags[found - 1 - m];
+    }
+    return longModes;
+  }
+
+  // Reads bits of a Vorbis packet, which are packed from the lowest bit of each byte up.
+  private static int bits(byte[] packet, int offset, int count) {
+    int value = 0;
+    for (int i = 0; i < count; i++) {
+      int bit = offset + i;
+      value |= ((packet[bit >> 3] >> (bit & 7)) & 1) << i;
+    }
+    return value;
+  }
+
+  // The length in bytes of the MP3 frame a header starts, or -1 if it is not a valid header.
+  private static int mp3FrameLength(int header) {
+    if ((header >>> 21) != 0x7FF) {
+      return -1;
+    }
+    int version = (header >>> 19) & 3;
+    int layer = (header >>> 17) & 3;
+    int bitrateIndex = (header >>> 12) & 0xF;
+    int sampleRateIndex = (header >>> 10) & 3;
+    if (version == 1 || layer == 0 || bitrateIndex == 0 || bitrateIndex == 15) {
+      return -1;
+    }
+    if (sampleRateIndex == 3) {
+      return -1;
+    }
+    int bitrate = MP3_BITRATES[version == 3 ? 0 : 1][3 - layer][bitrateIndex] * 1000;
+    int sampleRate = MP3_SAMPLE_RATES[version][sampleRateIndex];
+    int padding = (header >>> 9) & 1;
+    return switch (layer) {
+      case 3 -> (12 * bitrate / sampleRate + padding) * 4; // Layer I
+      case 2 -> 144 * bitrate / sampleRate + padding; // Layer II
+      default -> (version == 3 ? 144 : 72) * bitrate / sampleRate + padding; // Layer III
+    };
+  }
+
+  private static int mp3SampleRate(int header) {
+    return MP3_SAMPLE_RATES[(header >>> 19) & 3][(header >>> 10) & 3];
+  }
+
+  private static int mp3SamplesPerFrame(int header) {
+    int version = (header >>> 19) & 3;
+    int layer = (header >>> 17) & 3;
+    return layer == 3 ? 384 : layer == 2 || version == 3 ? 1152 : 576;
+  }
+
+  // Whether two headers belong to the same stream: same version, layer and sample rate.
+  private static boolean sameStream(int header, int other) {
+    int mask = 0xFFFE0C00;
+    return mp3FrameLength(other) > 0 && (header & mask) == (other & mask);
+  }
+
+  /** The checkpoints found so far, in growing arrays. */
+  private static final class Checkpoints {
+    private int[] offsets = new int[64];
+    private long[] frames = new long[64];
+    private int count;
+
+    void add(int offset, long frame) {
+      if (count == offsets.length) {
+        offsets = Arrays.copyOf(offsets, count * 2);
+        frames = Arrays.copyOf(frames, count * 2);
+      }
+      offsets[count] = offset;
+      frames[count] = frame;
+      count++;
+    }
+
+    AudioSeekIndex toIndex(float sampleRate, long frameCount, int headerLength) {
+      if (count == 0) {
+        return null;
+      }
+      return new AudioSeekIndex(
+          sampleRate,
+          frameCount,
+          headerLength,
+          Arrays.copyOf(offsets, count),
+          Arrays.copyOf(frames, count));
+    }
+  }
+}
@@ -0,0 +1,109 @@
+package io.github.pixelclover.uview.core;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.stream.IntStream;
+
+/**
+ * A sequence of bytes to find in binary content, such as a magic number or a string in a DLL. Large
+ * contents are searched in chunks in parallel on the common fork/join pool, each with {@link
+ * ByteSearch}, and the first occurrence wins.
+ */
+public final class BytePattern {
+
+  // The size of the chunks searched in parallel; a smaller range is searched on the calling thread.
+  private static final int CHUNK_BYTES = 4 * 1024 * 1024;
+
+  private final byte[] bytes;
+
+  private BytePattern(byte[] bytes) {
+    this.bytes = bytes;
+  }
+
+  /**
+   * Creates a pattern from hex digits, such as {@code 4D 5A} or {@code 0x4d5a90}.
+   *
+   * @param hex Pairs of hex digits; spaces between them and a leading {@code 0x} are ignored.
+   * @return The pattern.
+   * @throws IllegalArgumentException if the text is not whole bytes of hex digits, or is empty.
+   */
+  public static BytePattern ofHex(String hex) {
+    String digits = hex.strip();
+    if (digits.startsWith("0x") || digits.startsWith("0X")) {
+      digits = digits.substring(2);
+    }
+    digits = digits.replaceAll("\\s+", "");
+    if (digits.isEmpty() || digits.length() % 2 != 0) {
+      throw new IllegalArgumentException("Enter whole bytes, two hex digits each.");
+    }
+    return new BytePattern(HexFormat.of().parseHex(digits));
+  }
+
+  /**
+   * Creates a pattern from a text.
+   *
+   * @param text The text, which is matched as UTF-8.
+   * @return The pattern.
+   * @throws IllegalArgumentException if the text is empty.
+   */
+  public static BytePattern ofText(String text) {
+    if (text.isEmpty()) {
+      throw new IllegalArgumentException("Enter a text to find.");
+    }
+    return new BytePattern(text.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Gets the length of the pattern.
+   *
+   * @return The number of bytes of the pattern.
+   */
+  public int length() {
+    return bytes.length;
+  }
+
+  /**
+   * Finds the next occurrence of the pattern, wrapping around to the start of the content.
+   *
+   * @param content The content to search, from index 0 to its limit.
+   * @param from The index to start searching at.
+   * @return The index of the first occurrence at or after {@code from}, or else of the first
+   *     occurrence before it, or -1 if the pattern does not occur.
+   */
+  public int findNext(ByteBuffer content, int from) {
+    int found = indexIn(content, from, content.limit());
+    if (found < 0 && from > 0) {
+      found = indexIn(content, 0, Math.min(content.limit(), from + bytes.length - 1));
+    }
+    return found;
+  }
+
+  /**
+   * Finds the first occurrence of the pattern in a range of content.
+   *
+   * @param content The content to search.
+   * @param from The first index an occurrence may start at.
+   * @param to The index an occurrence must end before.
+   * @return The index of the first occurrence, or -1 if there is none.
+   */
+  public int indexIn(ByteBuffer content, int from, int to) {
+    if (to - from <= CHUNK_BYTES) {
+      return ByteSearch.indexOf(content, from, to, bytes, false);
+    }
+    int chunks = (int) (((long) to - from + CHUNK_BYTES - 1) / CHUNK_BYTES);
+    return IntStream.range(0, chunks)
+        .parallel()
+        .map(
+            chunk -> {
+              int start = from + chunk * CHUNK_BYTES;
+              // Chunks overlap, so that an occurrence that starts in one chunk and ends in the
+              // next is found.
+              int end = (int) Math.min(to, (long) start + CHUNK_BYTES + bytes.length - 1);
+              return ByteSearch.indexOf(content, start, end, bytes, false);
+            })
+        .filter(found -> found >= 0)
+        .findFirst()
+        .orElse(-1);
+  }
+}
@@ -0,0 +1,122 @@
+package io.github.pixelclover.uview.core;
+
+/**
+ * A bounded buffer of bytes between one thread that produces them and one that consumes them, such
+ * as a decoder that works ahead of audio playback. The producer waits while the buffer is full and
+ * the consumer while it is empty, so the producer never gets more than the capacity ahead.
+ *
+ * <p>The producer calls {@link #finish()} after its last bytes; either side calls {@link #close()}
+ * to stop both, which wakes a waiting thread at once.
+ */
+public final class ByteRingBuffer {
+
+  private final byte[] buffer;
+  // The next byte to read, and how many bytes follow it, wrapping around the end of the array.
+  private int head;
+  private int size;
+  private boolean finished;
+  private boolean closed;
+
+  /**
+   * Constructs an empty buffer.
+   *
+   * @param capacity The most bytes the buffer holds.
+   */
+  public ByteRingBuffer(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("The capacity must be positive.");
+    }
+    this.buffer = new byte[capacity];
+  }
+
+  /**
+   * Adds bytes, waiting for room as needed.
+   *
+   * @param bytes The array holding the bytes.
+   * @param offset The index of the first byte.
+   * @param length The number of bytes.
+   * @return {@code true} if all bytes were added, {@code false} if the buffer was closed.
+   * @throws InterruptedException if the thread is interrupted while waiting.
+   */
+  public synchronized boolean write(byte[] bytes, int offset, int length)
+      throws InterruptedException {
+    while (length > 0) {
+      while (size == buffer.length && !closed) {
+        wait();
+      }
+      if (closed) {
+        return false;
+      }
+      int tail = (head + size) % buffer.length;
+      int count = Math.min(length, Math.min(buffer.length - size, buffer.length - tail));
+      System.arraycopy(bytes, offset, buffer, tail, count);
+      size += count;
+      offset += count;
+      length -= count;
+      notifyAll();
+    }
+    return true;
+  }
+
+  /**
+   * Takes bytes, waiting until there are some.
+   *
+   * @param bytes The array to copy the bytes to.
+   * @param offset The index to copy the first byte to.
+   * @param length The most bytes to take.
+   * @return The number of bytes taken, or -1 if the buffer is closed, or finished and empty.
+   * @throws InterruptedException if the thread is interrupted while waiting.
+   */
+  public synchronized int read(byte[] bytes, int offset, int length) throws InterruptedException {
+    while (size == 0 && !finished && !closed) {
+      wait();
+    }
+    if (closed || size == 0) {
+      return -1;
+    }
+    int count = Math.min(length, Math.min(size, buffer.length - head));
+    System.arraycopy(buffer, head, bytes, offset, count);
+    head = (head + count) % buffer.length;
+    size -= count;
+    notifyAll();
+    return count;
+  }
+
+  /**
+   * Waits until the buffer holds a number of bytes, or no more will come.
+   *
+   * @param count The number of bytes to wait for; more than the capacity waits for a full buffer.
+   * @return {@code true} if the buffer holds the bytes or is finished, {@code false} if it was
+   *     closed.
+   * @throws InterruptedException if the thread is interrupted while waiting.
+   */
+  public synchronized boolean awaitAvailable(int count) throws InterruptedException {
+    int target = Math.min(count, buffer.length);
+    while (size < target && !finished && !closed) {
+      wait();
+    }
+    return !closed;
+  }
+
+  /**
+   * Gets how many bytes the consumer can take without waiting.
+   *
+   * @return The number of bytes the buffer holds.
+   */
+  public synchronized int available() {
+    return size;
+  }
+
+  /** Tells that no more bytes will be added; the consumer still takes those that are held. */
+  public synchronized void finish() {
+    finished = true;
+    notifyAll();
+  }
+
+  /** Stops both sides: waiting threads return at once, and held bytes are dropped. */
+  public synchronized void close() {
+    closed = true;
+    size = 0;
+    notifyAll();
+  }
+}
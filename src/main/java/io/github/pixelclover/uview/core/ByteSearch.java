@@ -0,0 +1,226 @@
+package io.github.pixelclover.uview.core;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Byte scanning primitives used by the search indexes. Scans read eight bytes at a time and test
+ * all of them with a few arithmetic operations (SWAR, "SIMD within a register"), which is several
+ * times faster than comparing byte by byte and needs no special JVM flags.
+ */
+final class ByteSearch {
+
+  private static final VarHandle LONGS =
+      MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+  private static final VarHandle BUFFER_LONGS =
+      MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+  private static final long ONES = 0x0101010101010101L;
+  private static final long HIGHS = 0x8080808080808080L;
+
+  private ByteSearch() {}
+
+  /**
+   * Finds the first occurrence of a byte in a range of an array.
+   *
+   * @param data The array to search.
+   * @param from The first index to search, inclusive.
+   * @param to The last index to search, exclusive.
+   * @param value The byte to find.
+   * @return The index of the first occurrence, or -1 if the byte does not occur in the range.
+   */
+  static int indexOf(byte[] data, int from, int to, byte value) {
+    long pattern = (value & 0xFFL) * ONES;
+    int i = from;
+    for (; i + Long.BYTES <= to; i += Long.BYTES) {
+      long word = (long) LONGS.get(data, i) ^ pattern;
+      // Sets the high bit of every byte that is zero, i.e. of every byte equal to the value.
+      long found = (word - ONES) & ~word & HIGHS;
+      if (found != 0) {
+        return i + (Long.numberOfTrailingZeros(found) >>> 3);
+      }
+    }
+    for (; i < to; i++) {
+      if (data[i] == value) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Finds the first occurrence of a byte in a range of a buffer. The buffer's position and limit
+   * are ignored; all indexes are absolute.
+   *
+   * @param data The buffer to search.
+   * @param from The first index to search, inclusive.
+   * @param to The last index to search, exclusive.
+   * @param value The byte to find.
+   * @return The index of the first occurrence, or -1 if the byte does not occur in the range.
+   */
+  static int indexOf(ByteBuffer data, int from, int to, byte value) {
+    long pattern = (value & 0xFFL) * ONES;
+    int i = from;
+    for (; i + Long.BYTES <= to; i += Long.BYTES) {
+      long found = zeroBytes((long) BUFFER_LONGS.get(data, i) ^ pattern);
+      if (found != 0) {
+        // The lowest bit that is set is always exact.
+        return i + (Long.numberOfTrailingZeros(found) >>> 3);
+      }
+    }
+    for (; i < to; i++) {
+      if (data.get(i) == value) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Checks if a byte sequence occurs at a given position of an array.
+   *
+   * @param data The array to check.
+   * @param offset The position in the array.
+   * @param pattern The byte sequence.
+   * @return true if the array contains the whole pattern at the position.
+   */
+  static boolean matchesAt(byte[] data, int offset, byte[] pattern) {
+    if (offset < 0 || offset + pattern.length > data.length) {
+      return false;
+    }
+    for (int i = 0; i < pattern.length; i++) {
+      if (data[offset + i] != pattern[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Checks if a byte sequence occurs anywhere in another one.
+   *
+   * @param data The sequence to search.
+   * @param pattern The sequence to find.
+   * @return true if the pattern occurs in the data.
+   */
+  static boolean contains(byte[] data, byte[] pattern) {
+    if (pattern.length == 0) {
+      return true;
+    }
+    int last = data.length - pattern.length;
+    for (int i = indexOf(data, 0, last + 1, pattern[0]);
+        i >= 0;
+        i = indexOf(data, i + 1, last + 1, pattern[0])) {
+      if (matchesAt(data, i, pattern)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Finds the first occurrence of a byte sequence in a range of a buffer. The buffer's position and
+   * limit are ignored; all indexes are absolute.
+   *
+   * @param data The buffer to search.
+   * @param from The first index where the sequence may start.
+   * @param to The index the whole sequence must end before.
+   * @param pattern The sequence to find. When ignoring case, its letters must be lower case.
+   * @param ignoreCase Whether ASCII letters match regardless of their case.
+   * @return The index where the first occurrence starts, or -1 if there is none.
+   */
+  static int indexOf(ByteBuffer data, int from, int to, byte[] pattern, boolean ignoreCase) {
+    int last = to - pattern.length;
+    if (pattern.length == 0) {
+      return from <= to ? from : -1;
+    }
+    long first = (pattern[0] & 0xFFL) * ONES;
+    long otherFirst = ((ignoreCase ? toUpperCase(pattern[0]) : pattern[0]) & 0xFFL) * ONES;
+    int i = from;
+    // Every byte of a word read here can start a match that ends in range.
+    for (; i + Long.BYTES <= last + 1; i += Long.BYTES) {
+      long word = (long) BUFFER_LONGS.get(data, i);
+      long found = zeroBytes(word ^ first) | zeroBytes(word ^ otherFirst);
+      while (found != 0) {
+        int position = i + (Long.numberOfTrailingZeros(found) >>> 3);
+        if (matchesAt(data, position, pattern, ignoreCase)) {
+          return position;
+        }
+        found &= found - 1;
+      }
+    }
+    for (; i <= last; i++) {
+      if (matchesAt(data, i, pattern, ignoreCase)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Counts the occurrences of a byte in a range of a buffer. The buffer's position and limit are
+   * ignored; all indexes are absolute.
+   *
+   * @param data The buffer to search.
+   * @param from The first index to search, inclusive.
+   * @param to The last index to search, exclusive.
+   * @param value The byte to count.
+   * @return The number of occurrences in the range.
+   */
+  static int count(ByteBuffer data, int from, int to, byte value) {
+    long pattern = (value & 0xFFL) * ONES;
+    int count = 0;
+    int i = from;
+    for (; i + Long.BYTES <= to; i += Long.BYTES) {
+      long word = (long) BUFFER_LONGS.get(data, i) ^ pattern;
+      // Unlike zeroBytes, this cannot borrow across bytes, so every bit that is set is exact.
+      long low = (word & ~HIGHS) + ~HIGHS;
+      count += Long.bitCount(~(low | word | ~HIGHS));
+    }
+    for (; i < to; i++) {
+      if (data.get(i) == value) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Converts the ASCII letters of a byte sequence to lower case.
+   *
+   * @param bytes The bytes to convert; the array is changed in place.
+   * @return The same array.
+   */
+  static byte[] toLowerCase(byte[] bytes) {
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = toLowerCase(bytes[i]);
+    }
+    return bytes;
+  }
+
+  static byte toLowerCase(byte value) {
+    return value >= 'A' && value <= 'Z' ? (byte) (value + ('a' - 'A')) : value;
+  }
+
+  private static byte toUpperCase(byte value) {
+    return value >= 'a' && value <= 'z' ? (byte) (value - ('a' - 'A')) : value;
+  }
+
+  private static boolean matchesAt(
+      ByteBuffer data, int offset, byte[] pattern, boolean ignoreCase) {
+    for (int i = 0; i < pattern.length; i++) {
+      byte value = data.get(offset + i);
+      if ((ignoreCase ? toLowerCase(value) : value) != pattern[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // Sets the high bit of every zero byte of the word. Bits above the lowest set one can be wrong,
+  // since the subtraction borrows from the byte above a zero byte; callers check every candidate.
+  private static long zeroBytes(long word) {
+    return (word - ONES) & ~word & HIGHS;
+  }
+}
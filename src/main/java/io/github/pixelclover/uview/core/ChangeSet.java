@@ -0,0 +1,101 @@
+package io.github.pixelclover.uview.core;
+
+import io.github.pixelclover.uview.model.UnityAsset;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable description of how the active package differs from the state it was last loaded or
+ * saved in. All sets contain asset GUIDs. An asset whose content and meta file were both changed
+ * appears in both {@link #contentModified()} and {@link #metaModified()}.
+ *
+ * @param added GUIDs of assets that did not exist in the original package.
+ * @param removed GUIDs of original assets that no longer exist.
+ * @param contentModified GUIDs of original assets whose content was changed.
+ * @param metaModified GUIDs of original assets whose meta file was changed.
+ * @param originals The original version of every removed or modified asset, keyed by GUID.
+ */
+public record ChangeSet(
+    Set<String> added,
+    Set<String> removed,
+    Set<String> contentModified,
+    Set<String> metaModified,
+    Map<String, UnityAsset> originals) {
+
+  /** A change set that describes no changes. */
+  public static final ChangeSet EMPTY =
+      new ChangeSet(Set.of(), Set.of(), Set.of(), Set.of(), Map.of());
+
+  /** Canonical constructor that makes unmodifiable copies of all collections. */
+  public ChangeSet {
+    added = Set.copyOf(added);
+    removed = Set.copyOf(removed);
+    contentModified = Set.copyOf(contentModified);
+    metaModified = Set.copyOf(metaModified);
+    originals = Map.copyOf(originals);
+  }
+
+  /**
+   * Gets the original version of an asset, as it was when the package was last loaded or saved.
+   *
+   * @param guid The GUID of the asset.
+   * @return The original asset, or {@code null} if the asset was added or is unchanged.
+   */
+  public UnityAsset getOriginal(String guid) {
+    return originals.get(guid);
+  }
+
+  /**
+   * Gets the GUIDs of all assets that were added, removed, or modified.
+   *
+   * @return An unmodifiable set of changed GUIDs.
+   */
+  public Set<String> changedGuids() {
+    Set<String> guids = new HashSet<>(added);
+    guids.addAll(removed);
+    guids.addAll(contentModified);
+    guids.addAll(metaModified);
+    return Set.copyOf(guids);
+  }
+
+  /**
+   * Checks if the given asset was added, removed, or modified.
+   *
+   * @param guid The GUID of the asset.
+   * @return true if the asset is part of this change set.
+   */
+  public boolean contains(String guid) {
+    return added.contains(guid)
+        || removed.contains(guid)
+        || contentModified.contains(guid)
+        || metaModified.contains(guid);
+  }
+
+  /**
+   * Checks if this change set describes no changes at all.
+   *
+   * @return true if nothing was added, removed, or modified.
+   */
+  public boolean isEmpty() {
+    return added.isEmpty()
+        && removed.isEmpty()
+        && contentModified.isEmpty()
+        && metaModified.isEmpty();
+  }
+
+  /**
+   * Returns a short, human-readable summary, e.g. "2 added, 1 removed, 3 modified".
+   *
+   * @return The summary string, or "No changes" if the change set is empty.
+   */
+  public String summary() {
+    if (isEmpty()) {
+      return "No changes";
+    }
+    Set<String> modified = new HashSet<>(contentModified);
+    modified.addAll(metaModified);
+    return String.format(
+        "%,d added, %,d removed, %,d modified", added.size(), removed.size(), modified.size());
+  }
+}
@@ -0,0 +1,224 @@
+package io.github.pixelclover.uview.core;
+
+import io.github.pixelclover.uview.model.UnityAsset;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * A search of asset contents that reads every asset, for what the {@link ContentIndex} cannot
+ * answer: regular expressions, and texts in assets that are not text files. The assets are scanned
+ * in parallel on the common fork/join pool, and occurrences are reported while the scan runs. A
+ * literal text is found with {@link ByteSearch}, which tests eight bytes at a time for the first
+ * byte of the text and only compares the rest where it occurs.
+ *
+ * <p>Contents are searched as bytes. A regular expression sees every byte as one character, and is
+ * itself encoded as UTF-8 the same way, so literal non-ASCII characters match their UTF-8 bytes but
+ * a character class of them does not.
+ */
+public final class ContentGrep {
+
+  static final int MAX_HITS_PER_ASSET = 100;
+  private static final int MAX_LINE_LENGTH = 200;
+
+  private final byte[] literal;
+  private final boolean ignoreCase;
+  private final Pattern pattern;
+
+  private ContentGrep(byte[] literal, boolean ignoreCase, Pattern pattern) {
+    this.literal = literal;
+    this.ignoreCase = ignoreCase;
+    this.pattern = pattern;
+  }
+
+  /**
+   * Creates a search for a literal text.
+   *
+   * @param text The text to find. It is matched as UTF-8.
+   * @param matchCase Whether letters must match in case; only ASCII letters are folded otherwise.
+   * @return The search.
+   */
+  public static ContentGrep literal(String text, boolean matchCase) {
+    byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+    return new ContentGrep(matchCase ? bytes : ByteSearch.toLowerCase(bytes), !matchCase, null);
+  }
+
+  /**
+   * Creates a search for a regular expression. {@code ^} and {@code $} match at the start and end
+   * of every line.
+   *
+   * @param regex The regular expression, in the syntax of {@link Pattern}.
+   * @param matchCase Whether letters must match in case; only ASCII letters are folded otherwise.
+   * @return The search.
+   * @throws PatternSyntaxException if the expression is invalid.
+   */
+  public static ContentGrep regex(String regex, boolean matchCase) {
+    String bytes = new String(regex.getBytes(StandardCharsets.UTF_8), StandardCharsets.ISO_8859_1);
+    int flags = Pattern.MULTILINE | (matchCase ? 0 : Pattern.CASE_INSENSITIVE);
+    return new ContentGrep(null, !matchCase, Pattern.compile(bytes, flags));
+  }
+
+  /**
+   * Starts scanning the contents of assets on the common fork/join pool. Cancelling the returned
+   * future stops the scan soon after.
+   *
+   * @param assets The assets to search; directories are skipped.
+   * @param maxHits The maximum number of occurrences to report.
+   * @param listener Called with the occurrences found in an asset, ordered by position, as soon as
+   *     the asset was searched. It is called on the threads of the pool, possibly concurrently, and
+   *     assets are reported in no particular order.
+   * @return A future that completes with the number of occurrences reported once all assets were
+   *     searched or {@code maxHits} were found.
+   */
+  public CompletableFuture<Integer> scan(
+      Collection<UnityAsset> assets, int maxHits, Consumer<List<ContentIndex.Hit>> listener) {
+    CompletableFuture<Integer> result = new CompletableFuture<>();
+    AtomicInteger reported = new AtomicInteger();
+    CompletableFuture.runAsync(
+        () -> {
+          try {
+            assets.parallelStream()
+                .filter(asset -> !asset.isDirectory())
+                .forEach(
+                    asset -> {
+                      int remaining = maxHits - reported.get();
+                      if (remaining <= 0 || result.isDone()) {
+                        return;
+                      }
+                      List<ContentIndex.Hit> hits =
+                          find(asset, Math.min(remaining, MAX_HITS_PER_ASSET), result::isDone);
+                      if (hits.isEmpty()) {
+                        return;
+                      }
+                      // Assets searched at the same time may together find more than asked for.
+                      int before = reported.getAndAdd(hits.size());
+                      int kept = Math.min(hits.size(), maxHits - before);
+                      if (kept > 0) {
+                        listener.accept(hits.subList(0, kept));
+                      }
+                    });
+            result.complete(Math.min(reported.get(), maxHits));
+          } catch (CancellationException e) {
+            result.cancel(false);
+          } catch (RuntimeException | Error e) {
+            result.completeExceptionally(e);
+          }
+        });
+    return result;
+  }
+
+  /**
+   * Finds the occurrences in the content of one asset.
+   *
+   * @param asset The asset; it must not be a directory.
+   * @param max The maximum number of occurrences to return.
+   * @param cancelled Checked now and then during a long regular expression search.
+   * @return The occurrences, ordered by position.
+   * @throws CancellationException if {@code cancelled} said so.
+   */
+  List<ContentIndex.Hit> find(UnityAsset asset, int max, BooleanSupplier cancelled) {
+    ByteBuffer content = asset.contentBuffer();
+    int length = content.limit();
+    List<ContentIndex.Hit> hits = new ArrayList<>();
+    if (literal != null && literal.length == 0) {
+      return hits;
+    }
+    Matcher matcher =
+        pattern == null ? null : pattern.matcher(new Latin1Sequence(content, 0, length, cancelled));
+    int line = 1;
+    int counted = 0;
+    while (hits.size() < max) {
+      int position;
+      if (matcher == null) {
+        int from = hits.isEmpty() ? 0 : hits.get(hits.size() - 1).offset() + 1;
+        position = ByteSearch.indexOf(content, from, length, literal, ignoreCase);
+      } else {
+        position = matcher.find() ? matcher.start() : -1;
+      }
+      if (position < 0) {
+        break;
+      }
+      line += ByteSearch.count(content, counted, position, (byte) '\n');
+      counted = position;
+      hits.add(new ContentIndex.Hit(asset, position, line, lineAt(content, position)));
+    }
+    return hits;
+  }
+
+  private static String lineAt(ByteBuffer content, int position) {
+    int start = position;
+    while (start > 0 && position - start < MAX_LINE_LENGTH && content.get(start - 1) != '\n') {
+      start--;
+    }
+    int end = position;
+    while (end < content.limit() && end - start < MAX_LINE_LENGTH && content.get(end) != '\n') {
+      end++;
+    }
+    byte[] bytes = new byte[end - start];
+    content.get(start, bytes);
+    // Binary content would otherwise put control characters into the line.
+    char[] line = new String(bytes, StandardCharsets.UTF_8).toCharArray();
+    for (int i = 0; i < line.length; i++) {
+      if (Character.isISOControl(line[i]) && line[i] != '\t') {
+        line[i] = ' ';
+      }
+    }
+    return new String(line).strip();
+  }
+
+  /**
+   * A view of bytes as ISO-8859-1 characters, so that a regular expression can search content
+   * without decoding it first. Reading it throws a {@link CancellationException} once the search
+   * was cancelled.
+   */
+  private static final class Latin1Sequence implements CharSequence {
+    private static final int CHECK_INTERVAL = 0x10000;
+
+    private final ByteBuffer bytes;
+    private final int offset;
+    private final int length;
+    private final BooleanSupplier cancelled;
+
+    Latin1Sequence(ByteBuffer bytes, int offset, int length, BooleanSupplier cancelled) {
+      this.bytes = bytes;
+      this.offset = offset;
+      this.length = length;
+      this.cancelled = cancelled;
+    }
+
+    @Override
+    public int length() {
+      return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+      if ((index & (CHECK_INTERVAL - 1)) == 0 && cancelled.getAsBoolean()) {
+        throw new CancellationException();
+      }
+      return (char) (bytes.get(offset + index) & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+      return new Latin1Sequence(bytes, offset + start, end - start, cancelled);
+    }
+
+    @Override
+    public String toString() {
+      byte[] copy = new byte[length];
+      bytes.get(offset, copy);
+      return new String(copy, StandardCharsets.ISO_8859_1);
+    }
+  }
+}
@@ -0,0 +1,333 @@
+package io.github.pixelclover.uview.core;
+
+import io.github.pixelclover.uview.model.UnityAsset;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+import org.pcollections.HashTreePMap;
+import org.pcollections.HashTreePSet;
+import org.pcollections.PMap;
+import org.pcollections.PSet;
+
+/**
+ * A full-text index over the contents of the text assets of a package (see {@link
+ * AssetTypes#TEXT_EXTENSIONS}). For every trigram, three consecutive bytes of content, it lists the
+ * assets that contain it, so a search only has to check the assets that contain all trigrams of the
+ * text. Letters are compared as lower case, so the index serves searches with and without case.
+ *
+ * <p>The bulk of the index is a segment that is built once, in parallel and in the background, for
+ * all assets of a package. Edits do not change the segment: assets added or changed since it was
+ * built are kept aside and checked directly, and the segment's copies of changed or removed assets
+ * are skipped. Once too many assets were edited, {@link #isFragmented()} says the index should be
+ * built again. Deriving an index for an edit is cheap, and an index never changes, so a search can
+ * run on any thread.
+ */
+public final class ContentIndex {
+
+  /** An index without any assets. */
+  public static final ContentIndex EMPTY =
+      new ContentIndex(
+          CompletableFuture.completedFuture(Segment.EMPTY),
+          HashTreePMap.empty(),
+          HashTreePSet.empty());
+
+  // Trigrams are hashed into this many posting lists. The few that share a list only add candidates
+  // that the check of the content rules out.
+  private static final int BUCKET_BITS = 20;
+  private static final int BUCKETS = 1 << BUCKET_BITS;
+  // Larger assets would make the index much larger for little gain; they are always scanned.
+  private static final int MAX_INDEXED_LENGTH = 16 * 1024 * 1024;
+  private static final int MAX_EDITED_ASSETS = 1000;
+  private static final int BATCH_SIZE = 256;
+
+  private final CompletableFuture<Segment> segment;
+  // Text assets added or changed since the segment was built, by GUID.
+  private final PMap<String, UnityAsset> edited;
+  // GUIDs of the assets whose copy in the segment is out of date.
+  private final PSet<String> stale;
+
+  private ContentIndex(
+      CompletableFuture<Segment> segment, PMap<String, UnityAsset> edited, PSet<String> stale) {
+    this.segment = segment;
+    this.edited = edited;
+    this.stale = stale;
+  }
+
+  /**
+   * Starts building an index over the text assets of a collection. The index is returned at once
+   * and can be searched and updated right away; a search waits until the build has finished.
+   *
+   * @param assets The assets to index; assets that are not text are left out.
+   * @return The new index.
+   */
+  public static ContentIndex build(Collection<UnityAsset> assets) {
+    UnityAsset[] texts = assets.stream().filter(AssetTypes::isText).toArray(UnityAsset[]::new);
+    CompletableFuture<Segment> segment = new CompletableFuture<>();
+    CompletableFuture.runAsync(
+        () -> {
+          try {
+            segment.complete(Segment.of(texts, segment));
+          } catch (RuntimeException | Error e) {
+            segment.completeExceptionally(e);
+          }
+        });
+    return new ContentIndex(segment, HashTreePMap.empty(), HashTreePSet.empty());
+  }
+
+  /**
+   * Derives an index with some assets removed and others added. Updated assets are passed in both
+   * collections: the old version as removed, the new one as added.
+   *
+   * @param removed The assets to remove.
+   * @param added The assets to add.
+   * @return The new index.
+   */
+  public ContentIndex withChanges(Collection<UnityAsset> removed, Collection<UnityAsset> added) {
+    PMap<String, UnityAsset> newEdited = edited;
+    PSet<String> newStale = stale;
+    for (UnityAsset asset : removed) {
+      newEdited = newEdited.minus(asset.guid());
+      newStale = newStale.plus(asset.guid());
+    }
+    for (UnityAsset asset : added) {
+      if (AssetTypes.isText(asset)) {
+        newEdited = newEdited.plus(asset.guid(), asset);
+      }
+    }
+    if (newEdited == edited && newStale == stale) {
+      return this;
+    }
+    return new ContentIndex(segment, newEdited, newStale);
+  }
+
+  /**
+   * Checks whether the build of this index has finished, so that a search does not wait.
+   *
+   * @return {@code true} if the index is ready.
+   */
+  public boolean isReady() {
+    return segment.isDone();
+  }
+
+  /**
+   * Checks whether so many assets were edited since this index was built that building it again
+   * would make searches faster.
+   *
+   * @return {@code true} if the index should be built again.
+   */
+  public boolean isFragmented() {
+    return Math.max(edited.size(), stale.size()) > MAX_EDITED_ASSETS;
+  }
+
+  /**
+   * Stops building this index if the build has not finished yet. A search of it then fails.
+   *
+   * @return {@code true} if the build was stopped.
+   */
+  public boolean cancel() {
+    return segment.cancel(false);
+  }
+
+  /**
+   * Finds where a text occurs in the contents of the text assets, waiting for the build of the
+   * index to finish first.
+   *
+   * @param text The text to find. It is matched as UTF-8 and cannot span lines.
+   * @param matchCase Whether letters must match in case; only ASCII letters are folded otherwise.
+   * @param maxHits The maximum number of occurrences to return.
+   * @return The occurrences, ordered by asset path and position, at most {@code maxHits} in total
+   *     and 100 per asset.
+   * @throws CancellationException if the build of the index was cancelled.
+   */
+  public List<Hit> search(String text, boolean matchCase, int maxHits) {
+    byte[] pattern = text.getBytes(StandardCharsets.UTF_8);
+    if (pattern.length == 0) {
+      return List.of();
+    }
+    byte[] folded = ByteSearch.toLowerCase(pattern.clone());
+    Segment current = segment.join();
+
+    List<UnityAsset> candidates = new ArrayList<>();
+    for (int doc : current.candidates(folded)) {
+      UnityAsset asset = current.docs[doc];
+      if (!stale.contains(asset.guid())) {
+        candidates.add(asset);
+      }
+    }
+    candidates.addAll(edited.values());
+    candidates.sort(Comparator.comparing(UnityAsset::assetPath).thenComparing(UnityAsset::guid));
+
+    ContentGrep grep = ContentGrep.literal(text, matchCase);
+    int maxPerAsset = Math.min(maxHits, ContentGrep.MAX_HITS_PER_ASSET);
+    List<Hit> result = new ArrayList<>();
+    // The candidates are checked in parallel a batch at a time, so that a text that occurs almost
+    // everywhere stops the search as soon as enough occurrences were found.
+    for (int from = 0; from < candidates.size() && result.size() < maxHits; from += BATCH_SIZE) {
+      List<List<Hit>> hits =
+          candidates.subList(from, Math.min(from + BATCH_SIZE, candidates.size())).parallelStream()
+              .map(asset -> grep.find(asset, maxPerAsset, () -> false))
+              .toList();
+      for (List<Hit> assetHits : hits) {
+        result.addAll(assetHits.subList(0, Math.min(assetHits.size(), maxHits - result.size())));
+      }
+    }
+    return result;
+  }
+
+  private static int bucket(int trigram) {
+    return (trigram * 0x9E3779B1) >>> (Integer.SIZE - BUCKET_BITS);
+  }
+
+  /**
+   * An occurrence of the searched text.
+   *
+   * @param asset The asset whose content contains the text.
+   * @param offset The position of the text in the content, in bytes.
+   * @param line The number of the line that contains the text, starting at 1.
+   * @param lineText The line, shortened if it is very long.
+   */
+  public record Hit(UnityAsset asset, int offset, int line, String lineText) {}
+
+  /** The posting lists of the indexed assets, built all at once. */
+  private static final class Segment {
+    static final Segment EMPTY = new Segment(new UnityAsset[0], new int[BUCKETS + 1], new int[0]);
+
+    // The assets, by document number. Those too large to index are not in any posting list.
+    final UnityAsset[] docs;
+    // The document numbers of each bucket's posting list, ascending, in one array.
+    final int[] bucketStarts;
+    final int[] postings;
+    final int[] unindexed;
+
+    private Segment(UnityAsset[] docs, int[] bucketStarts, int[] postings) {
+      this.docs = docs;
+      this.bucketStarts = bucketStarts;
+      this.postings = postings;
+      this.unindexed =
+          IntStream.range(0, docs.length)
+              .filter(doc -> docs[doc].contentLength() > MAX_INDEXED_LENGTH)
+              .toArray();
+    }
+
+    static Segment of(UnityAsset[] docs, CompletableFuture<?> build) {
+      ThreadLocal<BucketSet> sets = ThreadLocal.withInitial(BucketSet::new);
+      int[][] docBuckets =
+          IntStream.range(0, docs.length)
+              .parallel()
+              .mapToObj(
+                  doc -> {
+                    if (build.isCancelled()) {
+                      throw new CancellationException();
+                    }
+                    return sets.get().bucketsOf(docs[doc]);
+                  })
+              .toArray(int[][]::new);
+
+      int[] bucketStarts = new int[BUCKETS + 1];
+      for (int[] buckets : docBuckets) {
+        for (int bucket : buckets) {
+          bucketStarts[bucket + 1]++;
+        }
+      }
+      for (int b = 0; b < BUCKETS; b++) {
+        bucketStarts[b + 1] += bucketStarts[b];
+      }
+      int[] postings = new int[bucketStarts[BUCKETS]];
+      int[] filled = Arrays.copyOf(bucketStarts, BUCKETS);
+      for (int doc = 0; doc < docs.length; doc++) {
+        for (int bucket : docBuckets[doc]) {
+          postings[filled[bucket]++] = doc;
+        }
+      }
+      return new Segment(docs, bucketStarts, postings);
+    }
+
+    // The documents that may contain a lower-case pattern: those with all of its trigrams.
+    int[] candidates(byte[] folded) {
+      if (folded.length < 3) {
+        return IntStream.range(0, docs.length).toArray();
+      }
+      int[] buckets =
+          IntStream.range(0, folded.length - 2)
+              .map(i -> bucket(trigram(folded, i)))
+              .distinct()
+              .boxed()
+              .sorted(Comparator.comparingInt(b -> bucketStarts[b + 1] - bucketStarts[b]))
+              .mapToInt(Integer::intValue)
+              .toArray();
+      // Intersect the shortest posting lists first, so the candidates shrink as fast as possible.
+      int[] result =
+          Arrays.copyOfRange(postings, bucketStarts[buckets[0]], bucketStarts[buckets[0] + 1]);
+      int count = result.length;
+      for (int i = 1; i < buckets.length && count > 0; i++) {
+        count = intersect(result, count, buckets[i]);
+      }
+      int[] withUnindexed = Arrays.copyOf(result, count + unindexed.length);
+      System.arraycopy(unindexed, 0, withUnindexed, count, unindexed.length);
+      return withUnindexed;
+    }
+
+    // Keeps the documents of the sorted array that are also in a posting list; returns how many.
+    private int intersect(int[] sorted, int count, int bucket) {
+      int position = bucketStarts[bucket];
+      int end = bucketStarts[bucket + 1];
+      int kept = 0;
+      for (int i = 0; i < count && position < end; i++) {
+        int doc = sorted[i];
+        while (position < end && postings[position] < doc) {
+          position++;
+        }
+        if (position < end && postings[position] == doc) {
+          sorted[kept++] = doc;
+        }
+      }
+      return kept;
+    }
+  }
+
+  private static int trigram(byte[] bytes, int i) {
+    return (bytes[i] & 0xFF) << 16 | (bytes[i + 1] & 0xFF) << 8 | (bytes[i + 2] & 0xFF);
+  }
+
+  /** Collects the distinct buckets of the trigrams of an asset; one is reused per thread. */
+  private static final class BucketSet {
+    private final long[] seen = new long[BUCKETS / Long.SIZE];
+    private int[] buckets = new int[1024];
+
+    int[] bucketsOf(UnityAsset asset) {
+      ByteBuffer content = asset.contentBuffer();
+      int length = content.limit();
+      if (length > MAX_INDEXED_LENGTH || length < 3) {
+        return new int[0];
+      }
+      int count = 0;
+      int trigram =
+          ByteSearch.toLowerCase(content.get(0)) << 8
+              | ByteSearch.toLowerCase(content.get(1)) & 0xFF;
+      for (int i = 2; i < length; i++) {
+        trigram = (trigram << 8 | ByteSearch.toLowerCase(content.get(i)) & 0xFF) & 0xFFFFFF;
+        int bucket = bucket(trigram);
+        long bit = 1L << bucket;
+        if ((seen[bucket >>> 6] & bit) == 0) {
+          seen[bucket >>> 6] |= bit;
+          if (count == buckets.length) {
+            buckets = Arrays.copyOf(buckets, count * 2);
+          }
+          buckets[count++] = bucket;
+        }
+      }
+      int[] result = Arrays.copyOf(buckets, count);
+      for (int bucket : result) {
+        seen[bucket >>> 6] = 0;
+      }
+      return result;
+    }
+  }
+}
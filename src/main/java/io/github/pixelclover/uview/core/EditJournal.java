@@ -0,0 +1,785 @@
+package io.github.pixelclover.uview.core;
+
+import io.github.pixelclover.uview.model.UnityAsset;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * An append-only write-ahead journal of the edits made to a package since it was last loaded or
+ * saved. Each edit is written exactly once, as a checksummed record at the end of the file, so
+ * keeping a journal costs one sequential append per edit. After a crash, replaying the journal over
+ * the original package file restores the unsaved work.
+ *
+ * <p>The journal header records the size and modification time of the package file it applies to,
+ * and a journal is only replayed over that exact file version. A record that was only partially
+ * written when the application stopped is detected by its checksum and discarded.
+ *
+ * <p>Records are written and forced to storage by a writer thread of the journal's own, so an edit
+ * never waits for the disk; records queued while the disk is busy are forced together. An undo or
+ * redo does not write the assets it brings back again: it refers to their version in the package
+ * file, or to the numbered record that produced them, and only an asset known to neither, such as
+ * one from before the last save, is written in full. If a write fails, the journal stops taking
+ * records but its file is kept, so the edits recorded up to then can still be recovered.
+ */
+final class EditJournal implements Closeable {
+
+  private static final Logger LOGGER = LogManager.getLogger(EditJournal.class);
+  private static final int MAGIC = 0x55564a32; // "UVJ2"
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final byte TYPE_ADD = 1;
+  private static final byte TYPE_REMOVE = 2;
+  private static final byte TYPE_CONTENT = 3;
+  private static final byte TYPE_META = 4;
+  private static final byte TYPE_RESTORE = 5;
+  // How a restore record stores each asset.
+  private static final byte STATE_FULL = 0;
+  private static final byte STATE_ORIGINAL = 1;
+  private static final byte STATE_VERSION = 2;
+  // Queued by close() after the last record.
+  private static final Pending CLOSE = new Pending(null, null, null);
+  // The versions of assets are swept of collected ones after this many are registered.
+  private static final int VERSION_SWEEP_INTERVAL = 256;
+
+  private final Path file;
+  // Only used by the writer thread once it runs.
+  private final FileChannel channel;
+  private final DataOutputStream out;
+  private final CRC32 crc = new CRC32();
+  private final DataOutputStream checkedOut;
+  // The assets of the package file the journal applies to, by GUID.
+  private final Function<String, UnityAsset> originals;
+  // The record that produced each version of an asset still in memory, by GUID. Only used by the
+  // thread that appends.
+  private final Map<String, List<Version>> versions = new HashMap<>();
+  private int registeredVersions;
+  private int recordCount;
+  private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+  private Thread writer;
+  private long queuedCount;
+  // The number of queued records the writer is done with; guarded by the queue.
+  private long doneCount;
+  private volatile boolean failed;
+  private volatile boolean discarded;
+  private boolean closed;
+
+  private EditJournal(
+      Path file, FileChannel channel, Function<String, UnityAsset> originals, int recordCount) {
+    this.file = file;
+    this.channel = channel;
+    this.originals = originals;
+    this.recordCount = recordCount;
+    this.out =
+        new DataOutputStream(
+            new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+    this.checkedOut = new DataOutputStream(new CheckedOutputStream(out, crc));
+  }
+
+  /**
+   * Gets the journal file used for a package file. The name is derived from the package's absolute
+   * path, so reopening the same package finds its journal again.
+   *
+   * @param journalDir The directory that holds all journals.
+   * @param packageFile The package file.
+   * @return The path of the journal file.
+   */
+  static Path fileFor(Path journalDir, File packageFile) {
+    String key = packageFile.toPath().toAbsolutePath().normalize().toString();
+    UUID id = UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8));
+    return journalDir.resolve(id + ".journal");
+  }
+
+  /**
+   * Creates a new, empty journal for a package file, replacing any existing journal.
+   *
+   * @param journalFile The journal file to create.
+   * @param packageFile The package file the journaled edits apply to.
+   * @param originals Gets the assets of the package file by GUID.
+   * @return The open journal.
+   * @throws IOException If the journal cannot be created.
+   */
+  static EditJournal create(
+      Path journalFile, File packageFile, Function<String, UnityAsset> originals)
+      throws IOException {
+    Files.createDirectories(journalFile.getParent());
+    FileChannel channel =
+        FileChannel.open(
+            journalFile,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+    EditJournal journal = new EditJournal(journalFile, channel, originals, 0);
+    try {
+      journal.out.writeInt(MAGIC);
+      journal.out.writeUTF(packageFile.getAbsolutePath());
+      journal.out.writeLong(Files.size(packageFile.toPath()));
+      journal.out.writeLong(Files.getLastModifiedTime(packageFile.toPath()).toMillis());
+      journal.sync();
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+    journal.startWriter();
+    return journal;
+  }
+
+  /**
+   * Checks if a journal exists for the current version of a package file and holds at least one
+   * edit.
+   *
+   * @param journalFile The journal file.
+   * @param packageFile The package file.
+   * @return true if the journal can be replayed over the package file.
+   */
+  static boolean isRecoverable(Path journalFile, File packageFile) {
+    if (!Files.isRegularFile(journalFile)) {
+      return false;
+    }
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(journalFile)))) {
+      return readHeader(in, packageFile) && in.read() != -1;
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Replays all complete records of a journal, then reopens it so that new edits are appended after
+   * them. A torn record at the end of the file is truncated away.
+   *
+   * @param journalFile The journal file.
+   * @param packageFile The package file the journal applies to.
+   * @param originals Gets the assets of the package file by GUID.
+   * @param consumer Applies each recorded edit, in the order it was made, and returns the assets as
+   *     they are after it.
+   * @return The journal, open for appending.
+   * @throws IOException If the journal cannot be read or does not match the package file.
+   */
+  static EditJournal replay(
+      Path journalFile,
+      File packageFile,
+      Function<String, UnityAsset> originals,
+      Function<Entry, List<UnityAsset>> consumer)
+      throws IOException {
+    // A first pass finds the versions that restores refer to, so that only those are kept in
+    // memory while the records are applied.
+    Map<VersionKey, Integer> references = new HashMap<>();
+    read(
+        journalFile,
+        packageFile,
+        (number, record) -> {
+          for (AssetState state : record.states()) {
+            if (state instanceof AssetState.Version version) {
+              references.merge(new VersionKey(version.record(), version.guid()), 1, Integer::sum);
+            }
+          }
+        });
+
+    List<Version> produced = new ArrayList<>();
+    Map<VersionKey, UnityAsset> referenced = new HashMap<>();
+    int[] recordCount = new int[1];
+    long validLength =
+        read(
+            journalFile,
+            packageFile,
+            (number, record) -> {
+              Entry entry = record.entry();
+              if (entry == null) {
+                entry =
+                    new Entry.Restore(
+                        resolve(record, originals, references, referenced), record.removedPaths());
+              }
+              for (UnityAsset asset : consumer.apply(entry)) {
+                produced.add(new Version(new WeakReference<>(asset), number));
+                VersionKey key = new VersionKey(number, asset.guid());
+                if (references.containsKey(key)) {
+                  referenced.put(key, asset);
+                }
+              }
+              recordCount[0] = number + 1;
+            });
+
+    FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.WRITE);
+    channel.truncate(validLength);
+    channel.position(validLength);
+    EditJournal journal = new EditJournal(journalFile, channel, originals, recordCount[0]);
+    for (Version version : produced) {
+      UnityAsset asset = version.asset().get();
+      if (asset != null && journal.recordOf(asset) < 0) {
+        journal.registerVersion(asset, version.record());
+      }
+    }
+    journal.startWriter();
+    return journal;
+  }
+
+  /**
+   * Queues an edit to be appended to the journal and forced to storage in the background. Nothing
+   * is queued once a write has failed.
+   *
+   * @param entry The edit to record.
+   * @param results The assets as they are after the edit; later restores can refer to them.
+   */
+  void append(Entry entry, List<UnityAsset> results) {
+    if (failed || closed) {
+      return;
+    }
+    int number = recordCount++;
+    List<AssetState> states = null;
+    if (entry instanceof Entry.Restore restore) {
+      states = new ArrayList<>(restore.assets().size());
+      for (UnityAsset asset : restore.assets()) {
+        states.add(stateOf(asset));
+      }
+    }
+    for (UnityAsset asset : results) {
+      if (originals.apply(asset.guid()) != asset && recordOf(asset) < 0) {
+        registerVersion(asset, number);
+      }
+    }
+    queuedCount++;
+    queue.add(new Pending(entry, states, results));
+  }
+
+  /**
+   * Checks whether writing the journal failed. The records written before the failure stay in the
+   * file, but no more are written.
+   *
+   * @return true if a record could not be written.
+   */
+  boolean hasFailed() {
+    return failed;
+  }
+
+  /**
+   * Waits until all queued records are written and forced to storage, or writing failed.
+   *
+   * @throws InterruptedException If the thread is interrupted while waiting.
+   */
+  void flush() throws InterruptedException {
+    long target = queuedCount;
+    synchronized (queue) {
+      while (doneCount < target) {
+        queue.wait();
+      }
+    }
+  }
+
+  /**
+   * Drops the queued records, closes the journal and deletes its file, once its edits are saved or
+   * knowingly discarded.
+   */
+  void delete() {
+    discarded = true;
+    try {
+      close();
+    } catch (IOException e) {
+      LOGGER.warn("Could not close edit journal {}", file, e);
+    }
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      LOGGER.warn("Could not delete edit journal {}", file, e);
+    }
+  }
+
+  /**
+   * Writes the queued records, then closes the journal.
+   *
+   * @throws IOException If the journal cannot be closed.
+   */
+  @Override
+  public void close() throws IOException {
+    closed = true;
+    if (writer != null && writer.isAlive()) {
+      queue.add(CLOSE);
+      boolean interrupted = false;
+      while (writer.isAlive()) {
+        try {
+          writer.join();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    channel.close();
+  }
+
+  private void startWriter() {
+    writer = new Thread(this::writeQueued, "edit-journal");
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  // Runs on the writer thread: writes records as they are queued, and forces each batch of records
+  // that were queued together to storage at once.
+  private void writeQueued() {
+    while (true) {
+      Pending pending;
+      try {
+        pending = queue.take();
+      } catch (InterruptedException e) {
+        return;
+      }
+      int count = 0;
+      boolean closing = false;
+      try {
+        while (pending != null && !closing) {
+          if (pending == CLOSE) {
+            closing = true;
+          } else {
+            count++;
+            if (!failed && !discarded) {
+              write(pending);
+            }
+            pending = queue.poll();
+          }
+        }
+        if (!failed && !discarded) {
+          sync();
+        }
+      } catch (IOException e) {
+        LOGGER.warn("Could not write edit journal {}, no more edits are recorded", file, e);
+        failed = true;
+      }
+      synchronized (queue) {
+        doneCount += count;
+        queue.notifyAll();
+      }
+      if (closing) {
+        return;
+      }
+    }
+  }
+
+  private void write(Pending pending) throws IOException {
+    crc.reset();
+    switch (pending.entry()) {
+      case Entry.Add add -> {
+        checkedOut.writeByte(TYPE_ADD);
+        writeAsset(add.asset());
+      }
+      case Entry.Remove remove -> {
+        checkedOut.writeByte(TYPE_REMOVE);
+        writeStrings(remove.assetPaths());
+      }
+        // Written from the updated asset, which cannot change while it waits in the queue.
+      case Entry.ContentUpdate update -> {
+        checkedOut.writeByte(TYPE_CONTENT);
+        writeString(update.assetPath());
+        writeBuffer(pending.results().get(0).contentBuffer());
+      }
+      case Entry.MetaUpdate update -> {
+        checkedOut.writeByte(TYPE_META);
+        writeString(update.assetPath());
+        writeBuffer(pending.results().get(0).metaBuffer());
+      }
+      case Entry.Restore restore -> {
+        checkedOut.writeByte(TYPE_RESTORE);
+        checkedOut.writeInt(pending.states().size());
+        for (AssetState state : pending.states()) {
+          switch (state) {
+            case AssetState.Full full -> {
+              checkedOut.writeByte(STATE_FULL);
+              writeAsset(full.asset());
+            }
+            case AssetState.Original original -> {
+              checkedOut.writeByte(STATE_ORIGINAL);
+              checkedOut.writeUTF(original.guid());
+            }
+            case AssetState.Version version -> {
+              checkedOut.writeByte(STATE_VERSION);
+              checkedOut.writeInt(version.record());
+              checkedOut.writeUTF(version.guid());
+            }
+          }
+        }
+        writeStrings(restore.removedPaths());
+      }
+    }
+    out.writeInt((int) crc.getValue());
+  }
+
+  private void sync() throws IOException {
+    out.flush();
+    channel.force(false);
+  }
+
+  // How a restore stores an asset: by reference if the package file or an earlier record has it.
+  private AssetState stateOf(UnityAsset asset) {
+    if (originals.apply(asset.guid()) == asset) {
+      return new AssetState.Original(asset.guid());
+    }
+    int record = recordOf(asset);
+    return record >= 0 ? new AssetState.Version(record, asset.guid()) : new AssetState.Full(asset);
+  }
+
+  private int recordOf(UnityAsset asset) {
+    List<Version> known = versions.get(asset.guid());
+    if (known != null) {
+      for (Version version : known) {
+        if (version.asset().get() == asset) {
+          return version.record();
+        }
+      }
+    }
+    return -1;
+  }
+
+  private void registerVersion(UnityAsset asset, int record) {
+    versions
+        .computeIfAbsent(asset.guid(), guid -> new ArrayList<>(2))
+        .add(new Version(new WeakReference<>(asset), record));
+    if (++registeredVersions % VERSION_SWEEP_INTERVAL == 0) {
+      for (Iterator<List<Version>> lists = versions.values().iterator(); lists.hasNext(); ) {
+        List<Version> known = lists.next();
+        known.removeIf(version -> version.asset().get() == null);
+        if (known.isEmpty()) {
+          lists.remove();
+        }
+      }
+    }
+  }
+
+  private static List<UnityAsset> resolve(
+      StoredRecord record,
+      Function<String, UnityAsset> originals,
+      Map<VersionKey, Integer> references,
+      Map<VersionKey, UnityAsset> referenced)
+      throws IOException {
+    List<UnityAsset> assets = new ArrayList<>(record.states().size());
+    for (AssetState state : record.states()) {
+      UnityAsset asset =
+          switch (state) {
+            case AssetState.Full full -> full.asset();
+            case AssetState.Original original -> originals.apply(original.guid());
+            case AssetState.Version version -> {
+              VersionKey key = new VersionKey(version.record(), version.guid());
+              UnityAsset known = referenced.get(key);
+              // A version is let go after the last restore that refers to it.
+              if (references.merge(key, -1, Integer::sum) == 0) {
+                references.remove(key);
+                referenced.remove(key);
+              }
+              yield known;
+            }
+          };
+      if (asset == null) {
+        throw new IOException("The journal refers to an asset version it does not hold");
+      }
+      assets.add(asset);
+    }
+    return assets;
+  }
+
+  // Reads the header and the complete records of a journal, and returns the length of the valid
+  // part of the file.
+  private static long read(Path journalFile, File packageFile, RecordReader reader)
+      throws IOException {
+    long validLength;
+    try (CountingInputStream counted =
+        new CountingInputStream(
+            new BufferedInputStream(Files.newInputStream(journalFile), BUFFER_SIZE))) {
+      DataInputStream raw = new DataInputStream(counted);
+      if (!readHeader(raw, packageFile)) {
+        throw new IOException("The journal does not belong to this version of the package");
+      }
+      validLength = counted.count;
+      CRC32 checksum = new CRC32();
+      DataInputStream checked = new DataInputStream(new CheckedInputStream(counted, checksum));
+      for (int number = 0; ; number++) {
+        checksum.reset();
+        StoredRecord record;
+        try {
+          int type = checked.read();
+          if (type == -1) {
+            break;
+          }
+          record = readRecord((byte) type, checked);
+          if (raw.readInt() != (int) checksum.getValue()) {
+            break;
+          }
+        } catch (EOFException e) {
+          break; // A record that was cut short by a crash.
+        }
+        reader.accept(number, record);
+        validLength = counted.count;
+      }
+    }
+    return validLength;
+  }
+
+  private void writeAsset(UnityAsset asset) throws IOException {
+    checkedOut.writeUTF(asset.guid());
+    writeString(asset.assetPath());
+    writeBuffer(asset.contentBuffer());
+    writeBuffer(asset.metaBuffer());
+    writeBytes(asset.previewContent());
+  }
+
+  private void writeStrings(List<String> values) throws IOException {
+    checkedOut.writeInt(values.size());
+    for (String value : values) {
+      writeString(value);
+    }
+  }
+
+  private void writeString(String value) throws IOException {
+    writeBytes(value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private void writeBuffer(ByteBuffer value) throws IOException {
+    if (value == null) {
+      checkedOut.writeInt(-1);
+      return;
+    }
+    checkedOut.writeInt(value.remaining());
+    byte[] chunk = new byte[Math.min(value.remaining(), BUFFER_SIZE)];
+    while (value.hasRemaining()) {
+      int count = Math.min(chunk.length, value.remaining());
+      value.get(chunk, 0, count);
+      checkedOut.write(chunk, 0, count);
+    }
+  }
+
+  private void writeBytes(byte[] value) throws IOException {
+    if (value == null) {
+      checkedOut.writeInt(-1);
+      return;
+    }
+    checkedOut.writeInt(value.length);
+    checkedOut.write(value);
+  }
+
+  private static boolean readHeader(DataInputStream in, File packageFile) throws IOException {
+    if (in.readInt() != MAGIC) {
+      return false;
+    }
+    in.readUTF(); // The original path, kept for diagnostics only.
+    long size = in.readLong();
+    long lastModified = in.readLong();
+    Path packagePath = packageFile.toPath();
+    return Files.isRegularFile(packagePath)
+        && Files.size(packagePath) == size
+        && Files.getLastModifiedTime(packagePath).toMillis() == lastModified;
+  }
+
+  private static StoredRecord readRecord(byte type, DataInputStream in) throws IOException {
+    return switch (type) {
+      case TYPE_ADD -> new StoredRecord(new Entry.Add(readAsset(in)), List.of(), List.of());
+      case TYPE_REMOVE -> new StoredRecord(new Entry.Remove(readStrings(in)), List.of(), List.of());
+      case TYPE_CONTENT -> new StoredRecord(
+          new Entry.ContentUpdate(readString(in), readBytes(in)), List.of(), List.of());
+      case TYPE_META -> new StoredRecord(
+          new Entry.MetaUpdate(readString(in), readBytes(in)), List.of(), List.of());
+      case TYPE_RESTORE -> {
+        int count = readCount(in);
+        List<AssetState> states = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+          byte state = in.readByte();
+          states.add(
+              switch (state) {
+                case STATE_FULL -> new AssetState.Full(readAsset(in));
+                case STATE_ORIGINAL -> new AssetState.Original(in.readUTF());
+                case STATE_VERSION -> new AssetState.Version(in.readInt(), in.readUTF());
+                default -> throw new EOFException("Unknown asset state " + state);
+              });
+        }
+        yield new StoredRecord(null, states, readStrings(in));
+      }
+      default -> throw new EOFException("Unknown journal record type " + type);
+    };
+  }
+
+  private static UnityAsset readAsset(DataInputStream in) throws IOException {
+    String guid = in.readUTF();
+    String path = readString(in);
+    byte[] content = readBytes(in);
+    byte[] meta = readBytes(in);
+    byte[] preview = readBytes(in);
+    return new UnityAsset(guid, path, content, meta, preview);
+  }
+
+  private static List<String> readStrings(DataInputStream in) throws IOException {
+    int count = readCount(in);
+    List<String> values = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      values.add(readString(in));
+    }
+    return values;
+  }
+
+  private static int readCount(DataInputStream in) throws IOException {
+    int count = in.readInt();
+    if (count < 0) {
+      throw new EOFException("Corrupt journal record");
+    }
+    return count;
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    byte[] bytes = readBytes(in);
+    if (bytes == null) {
+      throw new EOFException("Missing string in journal record");
+    }
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static byte[] readBytes(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return bytes;
+  }
+
+  /** A single journaled edit. */
+  sealed interface Entry {
+    /**
+     * An asset was added to the package.
+     *
+     * @param asset The added asset, including its generated GUID.
+     */
+    record Add(UnityAsset asset) implements Entry {}
+
+    /**
+     * One or more assets were removed from the package in a single step.
+     *
+     * @param assetPaths The paths of the removed assets.
+     */
+    record Remove(List<String> assetPaths) implements Entry {}
+
+    /**
+     * The content of an asset was replaced.
+     *
+     * @param assetPath The path of the asset.
+     * @param content The new content.
+     */
+    record ContentUpdate(String assetPath, byte[] content) implements Entry {}
+
+    /**
+     * The meta file of an asset was replaced.
+     *
+     * @param assetPath The path of the asset.
+     * @param metaContent The new meta file content.
+     */
+    record MetaUpdate(String assetPath, byte[] metaContent) implements Entry {}
+
+    /**
+     * An undo or redo returned some assets to an earlier state. The resulting state is recorded
+     * rather than the operation itself, because the undo history can reach back past the package
+     * version the journal applies to.
+     *
+     * @param assets The assets as they are after the undo or redo.
+     * @param removedPaths The paths of the assets that no longer exist after the undo or redo.
+     */
+    record Restore(List<UnityAsset> assets, List<String> removedPaths) implements Entry {}
+  }
+
+  /**
+   * A record as it is stored.
+   *
+   * @param entry The edit, or null for a restore, whose assets are only known once the records
+   *     before it are applied.
+   * @param states How a restore stores its assets.
+   * @param removedPaths The paths a restore removes.
+   */
+  private record StoredRecord(Entry entry, List<AssetState> states, List<String> removedPaths) {}
+
+  /** How a restore record stores one of its assets. */
+  private sealed interface AssetState {
+    /** The whole asset. */
+    record Full(UnityAsset asset) implements AssetState {}
+
+    /** The asset as it is in the package file. */
+    record Original(String guid) implements AssetState {}
+
+    /** The asset as an earlier record of the journal left it. */
+    record Version(int record, String guid) implements AssetState {}
+  }
+
+  /**
+   * An asset as a record left it, if it is still in memory.
+   *
+   * @param asset The asset, weakly held so that the journal keeps no content alive.
+   * @param record The number of the record, counted from 0.
+   */
+  private record Version(WeakReference<UnityAsset> asset, int record) {}
+
+  private record VersionKey(int record, String guid) {}
+
+  /**
+   * A record queued for the writer thread.
+   *
+   * @param entry The edit.
+   * @param states How a restore stores its assets, or null for other edits.
+   * @param results The assets as they are after the edit.
+   */
+  private record Pending(Entry entry, List<AssetState> states, List<UnityAsset> results) {}
+
+  /** Receives the records read from a journal. */
+  private interface RecordReader {
+    void accept(int number, StoredRecord record) throws IOException;
+  }
+
+  /** Counts the bytes consumed from the underlying stream. */
+  private static final class CountingInputStream extends FilterInputStream {
+    private long count;
+
+    CountingInputStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = in.read();
+      if (b != -1) {
+        count++;
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int n = in.read(b, off, len);
+      if (n > 0) {
+        count += n;
+      }
+      return n;
+    }
+  }
+}
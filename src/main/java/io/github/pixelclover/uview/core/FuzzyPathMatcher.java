@@ -0,0 +1,442 @@
+package io.github.pixelclover.uview.core;
+
+import io.github.pixelclover.uview.model.UnityAsset;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Ranks the assets of a {@link PathIndex} by how well their path matches an abbreviated query, as
+ * in the "quick open" of code editors: the characters of the query must occur in the path in order,
+ * but not necessarily next to each other. Matches at the start of a path segment, a word or a
+ * camel-case hump, and runs of consecutive characters, score higher; gaps cost a little. So {@code
+ * plctrl} finds {@code PlayerController.cs} before {@code Plugins/Collections/Tree.cs}. The scoring
+ * follows the one of the fzf command line tool.
+ *
+ * <p>The case-folded paths and the bonus of every character are computed once, in parallel, when
+ * the matcher is created. A search scores the paths in parallel chunks, each of which keeps only
+ * its best few matches. Like {@link PathIndex}, a search can refine a previous result: when the new
+ * query contains the old one as a subsequence, only the previous matches are scored again.
+ */
+public final class FuzzyPathMatcher {
+
+  private static final int SCORE_MATCH = 16;
+  private static final int SCORE_GAP_START = -3;
+  private static final int SCORE_GAP_EXTENSION = -1;
+  private static final int BONUS_BOUNDARY = SCORE_MATCH / 2;
+  private static final int BONUS_NON_WORD = SCORE_MATCH / 2;
+  private static final int BONUS_CAMEL_CASE = BONUS_BOUNDARY + SCORE_GAP_EXTENSION;
+  private static final int BONUS_CONSECUTIVE = -(SCORE_GAP_START + SCORE_GAP_EXTENSION);
+  private static final int BONUS_FIRST_CHAR_MULTIPLIER = 2;
+  // Per matched character of the file name, so that a match in the name beats one in the folders.
+  private static final int BONUS_FILE_NAME = 2;
+  private static final int NO_MATCH = Integer.MIN_VALUE;
+  private static final int CHUNK_SIZE = 4096;
+
+  private final PathIndex index;
+  // The case-folded paths, one after the other.
+  private final char[] chars;
+  // The bonus for matching each character of chars.
+  private final byte[] bonuses;
+  // Start of each path in chars; offsets[size] is the length of chars.
+  private final int[] offsets;
+  // Start of the file name (the last path segment) of each path in chars.
+  private final int[] nameStarts;
+  // Which characters occur in each path, one bit per character modulo 64, to reject paths quickly.
+  private final long[] charMasks;
+
+  private FuzzyPathMatcher(PathIndex index) {
+    this.index = index;
+    int size = index.size();
+    offsets = new int[size + 1];
+    for (int id = 0; id < size; id++) {
+      offsets[id + 1] = offsets[id] + index.get(id).assetPath().length();
+    }
+    chars = new char[offsets[size]];
+    bonuses = new byte[offsets[size]];
+    nameStarts = new int[size];
+    charMasks = new long[size];
+    IntStream.range(0, size).parallel().forEach(this::prepare);
+  }
+
+  /**
+   * Creates a matcher over the assets of an index.
+   *
+   * @param index The index.
+   * @return The new matcher.
+   */
+  public static FuzzyPathMatcher of(PathIndex index) {
+    return new FuzzyPathMatcher(index);
+  }
+
+  /**
+   * Gets the index this matcher searches.
+   *
+   * @return The index.
+   */
+  public PathIndex index() {
+    return index;
+  }
+
+  /**
+   * Finds the assets whose path matches a query and ranks them. If the query contains the query of
+   * a previous result of this matcher as a subsequence, only the matches of that result are scored.
+   *
+   * @param query The abbreviated path to search for; case and white space are ignored.
+   * @param previous A previous result to refine, or null to search all assets.
+   * @param limit The maximum number of ranked matches to return.
+   * @return The result, with the best matches first. A blank query matches nothing.
+   */
+  public Result search(String query, Result previous, int limit) {
+    char[] pattern = fold(query);
+    if (pattern.length == 0) {
+      return new Result(this, pattern, new int[0], 0, new int[0], new int[0]);
+    }
+    int[] candidates;
+    int candidateCount;
+    if (previous != null
+        && previous.matcher == this
+        && previous.pattern.length > 0
+        && isSubsequence(previous.pattern, pattern)) {
+      candidates = previous.matches;
+      candidateCount = previous.matchCount;
+    } else {
+      candidates = null;
+      candidateCount = index.size();
+    }
+
+    long patternMask = maskOf(pattern, 0, pattern.length);
+    int chunks = (candidateCount + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    TopMatches[] results =
+        IntStream.range(0, chunks)
+            .parallel()
+            .mapToObj(
+                chunk -> {
+                  int from = chunk * CHUNK_SIZE;
+                  int to = Math.min(from + CHUNK_SIZE, candidateCount);
+                  TopMatches top = new TopMatches(Math.min(limit, to - from), to - from);
+                  for (int i = from; i < to; i++) {
+                    int id = candidates == null ? i : candidates[i];
+                    if ((charMasks[id] & patternMask) != patternMask) {
+                      continue;
+                    }
+                    int score = score(id, pattern);
+                    if (score != NO_MATCH) {
+                      top.add(id, score);
+                    }
+                  }
+                  return top;
+                })
+            .toArray(TopMatches[]::new);
+
+    int matchCount = 0;
+    for (TopMatches top : results) {
+      matchCount += top.matchCount;
+    }
+    int[] matches = new int[matchCount];
+    TopMatches best = new TopMatches(Math.min(limit, matchCount), 0);
+    int position = 0;
+    for (TopMatches top : results) {
+      System.arraycopy(top.matches, 0, matches, position, top.matchCount);
+      position += top.matchCount;
+      for (int i = 0; i < top.size; i++) {
+        best.add(top.ids[i], top.scores[i]);
+      }
+    }
+    return best.toResult(this, pattern, matches, matchCount);
+  }
+
+  private void prepare(int id) {
+    String path = index.get(id).assetPath();
+    int offset = offsets[id];
+    nameStarts[id] = offset + path.lastIndexOf('/', path.length() - 2) + 1;
+    char previous = '/';
+    for (int i = 0; i < path.length(); i++) {
+      char c = path.charAt(i);
+      chars[offset + i] = Character.toLowerCase(c);
+      bonuses[offset + i] = (byte) bonusOf(previous, c);
+      previous = c;
+    }
+    charMasks[id] = maskOf(chars, offset, offsets[id + 1]);
+  }
+
+  private static int bonusOf(char previous, char c) {
+    if (!Character.isLetterOrDigit(c)) {
+      return 0;
+    }
+    if (previous == '/') {
+      return BONUS_BOUNDARY;
+    }
+    if (!Character.isLetterOrDigit(previous)) {
+      return BONUS_NON_WORD; // After '_', '-', '.' (the extension), a space, ...
+    }
+    if ((Character.isLowerCase(previous) && Character.isUpperCase(c))
+        || (!Character.isDigit(previous) && Character.isDigit(c))) {
+      return BONUS_CAMEL_CASE;
+    }
+    return 0;
+  }
+
+  // Scores the file name first: if the whole query matches there, that is the match users mean.
+  private int score(int id, char[] pattern) {
+    int end = offsets[id + 1];
+    int nameStart = nameStarts[id];
+    int score = nameStart > offsets[id] ? scoreFrom(nameStart, end, nameStart, pattern) : NO_MATCH;
+    return score != NO_MATCH ? score : scoreFrom(offsets[id], end, nameStart, pattern);
+  }
+
+  /**
+   * Finds the first complete occurrence of the pattern after a position, shrinks it from the end to
+   * the shortest window that still contains the pattern, and scores that window.
+   */
+  private int scoreFrom(int from, int end, int nameStart, char[] pattern) {
+    int p = 0;
+    int last = -1;
+    for (int i = from; i < end; i++) {
+      if (chars[i] == pattern[p] && ++p == pattern.length) {
+        last = i;
+        break;
+      }
+    }
+    if (last < 0) {
+      return NO_MATCH;
+    }
+    p = pattern.length - 1;
+    int first = last;
+    for (int i = last; i >= from; i--) {
+      if (chars[i] == pattern[p]) {
+        first = i;
+        if (--p < 0) {
+          break;
+        }
+      }
+    }
+
+    int score = 0;
+    p = 0;
+    boolean inGap = false;
+    int consecutive = 0;
+    int firstBonus = 0;
+    for (int i = first; i <= last; i++) {
+      if (p < pattern.length && chars[i] == pattern[p]) {
+        int bonus = bonuses[i];
+        if (consecutive == 0) {
+          firstBonus = bonus;
+        } else {
+          // A run of consecutive matches keeps the bonus of the boundary it started at.
+          if (bonus >= BONUS_BOUNDARY && bonus > firstBonus) {
+            firstBonus = bonus;
+          }
+          bonus = Math.max(bonus, Math.max(firstBonus, BONUS_CONSECUTIVE));
+        }
+        score += SCORE_MATCH + (p == 0 ? bonus * BONUS_FIRST_CHAR_MULTIPLIER : bonus);
+        if (i >= nameStart) {
+          score += BONUS_FILE_NAME;
+        }
+        consecutive++;
+        inGap = false;
+        p++;
+      } else {
+        score += inGap ? SCORE_GAP_EXTENSION : SCORE_GAP_START;
+        inGap = true;
+        consecutive = 0;
+      }
+    }
+    return score;
+  }
+
+  private static char[] fold(String query) {
+    StringBuilder folded = new StringBuilder(query.length());
+    for (int i = 0; i < query.length(); i++) {
+      char c = query.charAt(i);
+      if (!Character.isWhitespace(c)) {
+        folded.append(Character.toLowerCase(c));
+      }
+    }
+    char[] pattern = new char[folded.length()];
+    folded.getChars(0, pattern.length, pattern, 0);
+    return pattern;
+  }
+
+  private static long maskOf(char[] text, int from, int to) {
+    long mask = 0;
+    for (int i = from; i < to; i++) {
+      mask |= 1L << text[i];
+    }
+    return mask;
+  }
+
+  private static boolean isSubsequence(char[] shorter, char[] longer) {
+    int s = 0;
+    for (int l = 0; l < longer.length && s < shorter.length; l++) {
+      if (longer[l] == shorter[s]) {
+        s++;
+      }
+    }
+    return s == shorter.length;
+  }
+
+  /**
+   * An asset that matches a query.
+   *
+   * @param asset The asset.
+   * @param score How well its path matches; higher is better.
+   */
+  public record Match(UnityAsset asset, int score) {}
+
+  /** The result of a search of a {@link FuzzyPathMatcher}. */
+  public static final class Result {
+    private final FuzzyPathMatcher matcher;
+    private final char[] pattern;
+    // All matches, for refining the search; only their number is public.
+    private final int[] matches;
+    private final int matchCount;
+    private final int[] bestIds;
+    private final int[] bestScores;
+
+    private Result(
+        FuzzyPathMatcher matcher,
+        char[] pattern,
+        int[] matches,
+        int matchCount,
+        int[] bestIds,
+        int[] bestScores) {
+      this.matcher = matcher;
+      this.pattern = pattern;
+      this.matches = matches;
+      this.matchCount = matchCount;
+      this.bestIds = bestIds;
+      this.bestScores = bestScores;
+    }
+
+    /**
+     * Gets the number of assets that match the query, including those that were not ranked.
+     *
+     * @return The number of matches.
+     */
+    public int matchCount() {
+      return matchCount;
+    }
+
+    /**
+     * Gets the best matches, best first.
+     *
+     * @return An unmodifiable list of at most the requested number of matches.
+     */
+    public List<Match> best() {
+      return new AbstractList<>() {
+        @Override
+        public Match get(int i) {
+          return new Match(matcher.index.get(bestIds[i]), bestScores[i]);
+        }
+
+        @Override
+        public int size() {
+          return bestIds.length;
+        }
+      };
+    }
+  }
+
+  /**
+   * Collects all matches of a chunk and keeps the best few in a min-heap, whose root is the worst
+   * of the kept matches. Equal scores prefer the shorter path, then the earlier one.
+   */
+  private final class TopMatches {
+    private final int limit;
+    private final int[] ids;
+    private final int[] scores;
+    private final int[] matches;
+    private int size;
+    private int matchCount;
+
+    TopMatches(int limit, int capacity) {
+      this.limit = limit;
+      this.ids = new int[limit];
+      this.scores = new int[limit];
+      this.matches = new int[capacity];
+    }
+
+    void add(int id, int score) {
+      if (matchCount < matches.length) {
+        matches[matchCount++] = id;
+      }
+      if (limit == 0) {
+        return;
+      }
+      if (size < limit) {
+        ids[size] = id;
+        scores[size] = score;
+        siftUp(size++);
+      } else if (isBetter(id, score, ids[0], scores[0])) {
+        ids[0] = id;
+        scores[0] = score;
+        siftDown(0);
+      }
+    }
+
+    Result toResult(FuzzyPathMatcher matcher, char[] pattern, int[] allMatches, int count) {
+      Integer[] order = new Integer[size];
+      Arrays.setAll(order, i -> i);
+      Arrays.sort(
+          order,
+          (a, b) -> a.equals(b) ? 0 : isBetter(ids[a], scores[a], ids[b], scores[b]) ? -1 : 1);
+      int[] bestIds = new int[size];
+      int[] bestScores = new int[size];
+      for (int i = 0; i < size; i++) {
+        bestIds[i] = ids[order[i]];
+        bestScores[i] = scores[order[i]];
+      }
+      return new Result(matcher, pattern, allMatches, count, bestIds, bestScores);
+    }
+
+    private boolean isBetter(int id, int score, int otherId, int otherScore) {
+      if (score != otherScore) {
+        return score > otherScore;
+      }
+      int length = offsets[id + 1] - offsets[id];
+      int otherLength = offsets[otherId + 1] - offsets[otherId];
+      if (length != otherLength) {
+        return length < otherLength;
+      }
+      return id < otherId;
+    }
+
+    private void siftUp(int i) {
+      while (i > 0) {
+        int parent = (i - 1) / 2;
+        if (!isBetter(ids[parent], scores[parent], ids[i], scores[i])) {
+          return;
+        }
+        swap(i, parent);
+        i = parent;
+      }
+    }
+
+    private void siftDown(int i) {
+      while (true) {
+        int worst = i;
+        for (int child = 2 * i + 1; child <= 2 * i + 2 && child < size; child++) {
+          if (isBetter(ids[worst], scores[worst], ids[child], scores[child])) {
+            worst = child;
+          }
+        }
+        if (worst == i) {
+          return;
+        }
+        swap(i, worst);
+        i = worst;
+      }
+    }
+
+    private void swap(int a, int b) {
+      int id = ids[a];
+      ids[a] = ids[b];
+      ids[b] = id;
+      int score = scores[a];
+      scores[a] = scores[b];
+      scores[b] = score;
+    }
+  }
+}
@@ -0,0 +1,211 @@
+package io.github.pixelclover.uview.core;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.Locale;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageInputStreamImpl;
+
+/**
+ * Decodes an image asset at a reduced resolution, for showing images far larger than the screen.
+ * The image is read with ImageIO straight from the asset's content, and {@link
+ * ImageReadParam#setSourceSubsampling subsampling} keeps only every n-th pixel of every n-th row
+ * while decoding, so the full-resolution raster is never held.
+ *
+ * <p>A decoder only holds the content and the size of the image; each read uses a reader of its
+ * own, so reads may run concurrently on several threads.
+ */
+public final class ImageDecoder {
+
+  private final ByteBuffer content;
+  private final String formatName;
+  private final int width;
+  private final int height;
+
+  private ImageDecoder(ByteBuffer content, String formatName, int width, int height) {
+    this.content = content;
+    this.formatName = formatName;
+    this.width = width;
+    this.height = height;
+  }
+
+  /**
+   * Opens an image by reading only its header.
+   *
+   * @param content The encoded image, from index 0 to its limit.
+   * @return The decoder.
+   * @throws IOException if no ImageIO reader knows the format, or the header cannot be read.
+   */
+  public static ImageDecoder open(ByteBuffer content) throws IOException {
+    ImageReader reader = readerFor(content);
+    try {
+      return new ImageDecoder(
+          content,
+          reader.getFormatName().toUpperCase(Locale.ROOT),
+          reader.getWidth(0),
+          reader.getHeight(0));
+    } finally {
+      reader.dispose();
+    }
+  }
+
+  /**
+   * Gets the width of the image.
+   *
+   * @return The width of the image in pixels, at full resolution.
+   */
+  public int width() {
+    return width;
+  }
+
+  /**
+   * Gets the height of the image.
+   *
+   * @return The height of the image in pixels, at full resolution.
+   */
+  public int height() {
+    return height;
+  }
+
+  /**
+   * Gets the format of the image, as read from its header.
+   *
+   * @return The name of the image format, e.g. {@code PNG}.
+   */
+  public String formatName() {
+    return formatName;
+  }
+
+  /**
+   * Chooses the subsampling that fits an image into a box, i.e. the largest that still gives at
+   * least as many pixels as the box holds.
+   *
+   * @param width The width of the image.
+   * @param height The height of the image.
+   * @param maxWidth The width of the box.
+   * @param maxHeight The height of the box.
+   * @return Every how many pixels to keep; 1 to keep all.
+   */
+  public static int subsamplingFor(int width, int height, int maxWidth, int maxHeight) {
+    double scale =
+        Math.min((double) Math.max(1, maxWidth) / width, (double) Math.max(1, maxHeight) / height);
+    return scale >= 1 ? 1 : (int) Math.floor(1 / scale);
+  }
+
+  /**
+   * Decodes the whole image, keeping every n-th pixel of every n-th row.
+   *
+   * @param subsampling Every how many pixels to keep; 1 for the full resolution.
+   * @return The image, of about {@code width / subsampling} by {@code height / subsampling} pixels.
+   * @throws IOException if the image cannot be decoded.
+   */
+  public BufferedImage read(int subsampling) throws IOException {
+    ImageReader reader = readerFor(content);
+    try {
+      ImageReadParam param = reader.getDefaultReadParam();
+      if (subsampling > 1) {
+        param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+      }
+      return reader.read(0, param);
+    } finally {
+      reader.dispose();
+    }
+  }
+
+  /**
+   * Decodes a region of the image, keeping every n-th pixel of every n-th row of it. Formats that
+   * can be read at random, like tiled or striped TIFF, read only the part of the file the region
+   * needs; others decode from the start of the image up to the region, but still hold only the
+   * region.
+   *
+   * @param region The region to decode, in pixels of the full-resolution image.
+   * @param subsampling Every how many pixels to keep, counted from the corner of the region.
+   * @return The region, of about {@code region.width / subsampling} by {@code region.height /
+   *     subsampling} pixels.
+   * @throws IOException if the image cannot be decoded.
+   */
+  public BufferedImage readRegion(Rectangle region, int subsampling) throws IOException {
+    ImageReader reader = readerFor(content);
+    try {
+      ImageReadParam param = reader.getDefaultReadParam();
+      param.setSourceRegion(region);
+      if (subsampling > 1) {
+        param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+      }
+      return reader.read(0, param);
+    } finally {
+      reader.dispose();
+    }
+  }
+
+  /**
+   * Reads the thumbnail that some formats, like JPEG with EXIF data, embed in the file. It is read
+   * without decoding the image.
+   *
+   * @return The thumbnail, or null if the file has none.
+   * @throws IOException if the thumbnail cannot be read.
+   */
+  public BufferedImage readThumbnail() throws IOException {
+    ImageReader reader = readerFor(content);
+    try {
+      return reader.readerSupportsThumbnails() && reader.hasThumbnails(0)
+          ? reader.readThumbnail(0, 0)
+          : null;
+    } finally {
+      reader.dispose();
+    }
+  }
+
+  private static ImageReader readerFor(ByteBuffer content) throws IOException {
+    ImageInputStream input = new ByteBufferImageInputStream(content);
+    Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+    if (!readers.hasNext()) {
+      throw new IOException("No decoder for this image format.");
+    }
+    ImageReader reader = readers.next();
+    reader.setInput(input, true, true);
+    return reader;
+  }
+
+  /**
+   * An image input stream that reads a buffer in place. The streams ImageIO creates for an {@link
+   * java.io.InputStream} copy everything they read into a cache, which for an image of hundreds of
+   * megabytes is as much memory again.
+   */
+  private static final class ByteBufferImageInputStream extends ImageInputStreamImpl {
+    private final ByteBuffer buffer;
+
+    ByteBufferImageInputStream(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+      bitOffset = 0;
+      return streamPos < buffer.limit() ? buffer.get((int) streamPos++) & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) {
+      bitOffset = 0;
+      if (streamPos >= buffer.limit()) {
+        return length == 0 ? 0 : -1;
+      }
+      int count = (int) Math.min(length, buffer.limit() - streamPos);
+      buffer.get((int) streamPos, bytes, offset, count);
+      streamPos += count;
+      return count;
+    }
+
+    @Override
+    public long length() {
+      return buffer.limit();
+    }
+  }
+}
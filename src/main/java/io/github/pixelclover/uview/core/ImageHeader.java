@@ -0,0 +1,308 @@
+package io.github.pixelclover.uview.core;
+
+import io.github.pixelclover.uview.model.UnityAsset;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Set;
+
+/**
+ * The size and pixel format of an image, read from the first bytes of its file without decoding it.
+ * PNG, JPEG, GIF, BMP, PSD, TIFF and TGA files are understood; only the header, and for JPEG and
+ * TIFF the few structures that lead to the image size, are read.
+ *
+ * @param format The name of the file format, e.g. {@code PNG}.
+ * @param width The width of the image in pixels.
+ * @param height The height of the image in pixels.
+ * @param pixelFormat The channels of the pixels, e.g. {@code RGBA} or {@code Indexed}, followed by
+ *     the bits per channel if they are more than 8.
+ */
+public record ImageHeader(String format, int width, int height, String pixelFormat) {
+
+  private static final Set<String> PROBED_EXTENSIONS =
+      Set.of("png", "jpg", "jpeg", "gif", "bmp", "psd", "psb", "tif", "tiff", "tga");
+  private static final long PNG_SIGNATURE = 0x89504E470D0A1A0AL;
+  private static final int TIFF_WIDTH = 256;
+  private static final int TIFF_HEIGHT = 257;
+  private static final int TIFF_BITS_PER_SAMPLE = 258;
+  private static final int TIFF_PHOTOMETRIC = 262;
+  private static final int TIFF_SAMPLES_PER_PIXEL = 277;
+
+  /**
+   * Gets the size and pixel format for showing them, e.g. {@code 2048×2048 RGBA}.
+   *
+   * @return The description.
+   */
+  public String describe() {
+    return width + "×" + height + " " + pixelFormat;
+  }
+
+  /**
+   * Reads the header of an image asset. Only assets with the extension of a format this reads are
+   * probed, since the signatures of some formats, like the {@code BM} of BMP, could also start a
+   * text, and TGA has none at all.
+   *
+   * @param asset The asset.
+   * @return The header, or null if the asset is not an image or its header cannot be read.
+   */
+  public static ImageHeader read(UnityAsset asset) {
+    if (!isProbed(asset)) {
+      return null;
+    }
+    ByteBuffer content = asset.contentBuffer();
+    try {
+      ImageHeader header = read(content);
+      if (header == null && "tga".equals(AssetTypes.extensionOf(asset.assetPath()))) {
+        header = readTga(content.order(ByteOrder.LITTLE_ENDIAN));
+      }
+      return header;
+    } catch (IndexOutOfBoundsException e) {
+      return null; // A truncated file.
+    }
+  }
+
+  /**
+   * Tells whether {@link #read(UnityAsset)} reads an asset at all, by its extension.
+   *
+   * @param asset The asset.
+   * @return True if the asset is a file with the extension of a format this reads.
+   */
+  static boolean isProbed(UnityAsset asset) {
+    return !asset.isDirectory()
+        && PROBED_EXTENSIONS.contains(AssetTypes.extensionOf(asset.assetPath()));
+  }
+
+  /**
+   * Reads the header of an image by the signature it starts with. TGA files have no signature, so
+   * they are only read by {@link #read(UnityAsset)}.
+   *
+   * @param content The image file, from index 0 to its limit.
+   * @return The header, or null if the format is not known.
+   * @throws IndexOutOfBoundsException if the file ends within its header.
+   */
+  public static ImageHeader read(ByteBuffer content) {
+    content = content.duplicate().order(ByteOrder.BIG_ENDIAN);
+    if (content.limit() < 12) {
+      return null;
+    }
+    if (content.getLong(0) == PNG_SIGNATURE) {
+      return readPng(content);
+    }
+    int magic = content.getInt(0);
+    if ((magic >>> 16) == 0xFFD8) {
+      return readJpeg(content);
+    }
+    if (magic == 0x47494638) { // GIF8
+      return readGif(content.order(ByteOrder.LITTLE_ENDIAN));
+    }
+    if (magic == 0x38425053) { // 8BPS
+      return readPsd(content);
+    }
+    if (magic == 0x49492A00) { // II*\0
+      return readTiff(content.order(ByteOrder.LITTLE_ENDIAN));
+    }
+    if (magic == 0x4D4D002A) { // MM\0*
+      return readTiff(content);
+    }
+    if ((magic >>> 16) == 0x424D) { // BM
+      return readBmp(content.order(ByteOrder.LITTLE_ENDIAN));
+    }
+    return null;
+  }
+
+  private static ImageHeader readPng(ByteBuffer content) {
+    // The IHDR chunk always comes first, right after the signature and the chunk length and type.
+    if (content.getInt(12) != 0x49484452) { // IHDR
+      return null;
+    }
+    int bitDepth = content.get(24) & 0xFF;
+    String channels =
+        switch (content.get(25)) {
+          case 0 -> "Gray";
+          case 2 -> "RGB";
+          case 3 -> "Indexed";
+          case 4 -> "Gray+Alpha";
+          case 6 -> "RGBA";
+          default -> null;
+        };
+    if (channels == null) {
+      return null;
+    }
+    return new ImageHeader(
+        "PNG", content.getInt(16), content.getInt(20), withDepth(channels, bitDepth));
+  }
+
+  private static ImageHeader readJpeg(ByteBuffer content) {
+    // The size is in the start of frame segment, which follows the metadata segments; each
+    // segment tells its length, so the metadata is skipped, not read.
+    int position = 2;
+    while (position + 4 <= content.limit()) {
+      if ((content.get(position) & 0xFF) != 0xFF) {
+        return null;
+      }
+      int marker = content.get(position + 1) & 0xFF;
+      if (marker == 0xFF) {
+        position++; // Fill byte.
+        continue;
+      }
+      if (marker == 0x01 || (marker >= 0xD0 && marker <= 0xD7)) {
+        position += 2; // A marker without a segment.
+        continue;
+      }
+      if (marker == 0xD9 || marker == 0xDA) {
+        return null; // The image data, or its end, before any frame.
+      }
+      boolean startOfFrame =
+          marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC;
+      if (startOfFrame) {
+        int precision = content.get(position + 4) & 0xFF;
+        int height = content.getShort(position + 5) & 0xFFFF;
+        int width = content.getShort(position + 7) & 0xFFFF;
+        String channels =
+            switch (content.get(position + 9)) {
+              case 1 -> "Gray";
+              case 3 -> "RGB";
+              case 4 -> "CMYK";
+              default -> null;
+            };
+        return channels == null
+            ? null
+            : new ImageHeader("JPEG", width, height, withDepth(channels, precision));
+      }
+      position += 2 + (content.getShort(position + 2) & 0xFFFF);
+    }
+    return null;
+  }
+
+  private static ImageHeader readGif(ByteBuffer content) {
+    return new ImageHeader(
+        "GIF", content.getShort(6) & 0xFFFF, content.getShort(8) & 0xFFFF, "Indexed");
+  }
+
+  private static ImageHeader readBmp(ByteBuffer content) {
+    // Two letters are a weak signature, so the reserved field must be zero as well.
+    if (content.getInt(6) != 0) {
+      return null;
+    }
+    int headerSize = content.getInt(14);
+    int width;
+    int height;
+    int bitsPerPixel;
+    if (headerSize == 12) { // The OS/2 header of 16 bit fields.
+      width = content.getShort(18) & 0xFFFF;
+      height = content.getShort(20) & 0xFFFF;
+      bitsPerPixel = content.getShort(24) & 0xFFFF;
+    } else if (headerSize >= 40) {
+      width = content.getInt(18);
+      height = Math.abs(content.getInt(22)); // Negative for rows stored top to bottom.
+      bitsPerPixel = content.getShort(28) & 0xFFFF;
+    } else {
+      return null;
+    }
+    if (!Set.of(1, 4, 8, 16, 24, 32).contains(bitsPerPixel)) {
+      return null;
+    }
+    // Only headers from version 4 on have an alpha mask; the older ones ignore the fourth byte.
+    boolean alpha = bitsPerPixel == 32 && headerSize >= 56 && content.getInt(14 + 52) != 0;
+    String channels = bitsPerPixel <= 8 ? "Indexed" : alpha ? "RGBA" : "RGB";
+    return width > 0 && height > 0 ? new ImageHeader("BMP", width, height, channels) : null;
+  }
+
+  private static ImageHeader readPsd(ByteBuffer content) {
+    int version = content.getShort(4);
+    if (content.limit() < 26 || (version != 1 && version != 2)) {
+      return null;
+    }
+    int channelCount = content.getShort(12) & 0xFFFF;
+    int height = content.getInt(14);
+    int width = content.getInt(18);
+    int depth = content.getShort(22) & 0xFFFF;
+    int mode = content.getShort(24) & 0xFFFF;
+    String channels =
+        switch (mode) {
+          case 0 -> "Bitmap";
+          case 1 -> channelCount > 1 ? "Gray+Alpha" : "Gray";
+          case 2 -> "Indexed";
+          case 3 -> channelCount > 3 ? "RGBA" : "RGB";
+          case 4 -> channelCount > 4 ? "CMYKA" : "CMYK";
+          case 7 -> "Multichannel";
+          case 8 -> "Duotone";
+          case 9 -> "Lab";
+          default -> null;
+        };
+    return channels == null
+        ? null
+        : new ImageHeader(version == 1 ? "PSD" : "PSB", width, height, withDepth(channels, depth));
+  }
+
+  private static ImageHeader readTiff(ByteBuffer content) {
+    // Only the first directory is read: it describes the full-resolution image, where later ones
+    // hold pages or reduced versions.
+    int directory = content.getInt(4);
+    int entryCount = content.getShort(directory) & 0xFFFF;
+    int width = -1;
+    int height = -1;
+    int bitsPerSample = 1;
+    int photometric = -1;
+    int samplesPerPixel = 1;
+    for (int i = 0; i < entryCount; i++) {
+      int entry = directory + 2 + 12 * i;
+      int tag = content.getShort(entry) & 0xFFFF;
+      int type = content.getShort(entry + 2);
+      // The first value is stored in the entry itself if it fits; a SHORT is in its first half.
+      int value = type == 3 ? content.getShort(entry + 8) & 0xFFFF : content.getInt(entry + 8);
+      switch (tag) {
+        case TIFF_WIDTH -> width = value;
+        case TIFF_HEIGHT -> height = value;
+        case TIFF_BITS_PER_SAMPLE -> {
+          // One value per sample; more than two do not fit in the entry, but they are all equal
+          // in the images one comes across.
+          int count = content.getInt(entry + 4);
+          bitsPerSample =
+              count > 2 && type == 3 ? content.getShort(content.getInt(entry + 8)) & 0xFFFF : value;
+        }
+        case TIFF_PHOTOMETRIC -> photometric = value;
+        case TIFF_SAMPLES_PER_PIXEL -> samplesPerPixel = value;
+        default -> {}
+      }
+    }
+    String channels =
+        switch (photometric) {
+          case 0, 1 -> samplesPerPixel > 1 ? "Gray+Alpha" : "Gray";
+          case 2, 6 -> samplesPerPixel > 3 ? "RGBA" : "RGB";
+          case 3 -> "Indexed";
+          case 5 -> samplesPerPixel > 4 ? "CMYKA" : "CMYK";
+          default -> null;
+        };
+    if (width <= 0 || height <= 0 || channels == null) {
+      return null;
+    }
+    return new ImageHeader("TIFF", width, height, withDepth(channels, bitsPerSample));
+  }
+
+  private static ImageHeader readTga(ByteBuffer content) {
+    if (content.limit() < 18 || content.get(1) > 1) {
+      return null;
+    }
+    int imageType = content.get(2);
+    int width = content.getShort(12) & 0xFFFF;
+    int height = content.getShort(14) & 0xFFFF;
+    int pixelDepth = content.get(16) & 0xFF;
+    int alphaBits = content.get(17) & 0x0F;
+    String channels =
+        switch (imageType) {
+          case 1, 9 -> "Indexed";
+          case 2, 10 -> pixelDepth == 32 || alphaBits > 0 ? "RGBA" : "RGB";
+          case 3, 11 -> alphaBits > 0 ? "Gray+Alpha" : "Gray";
+          default -> null;
+        };
+    boolean knownDepth = Set.of(8, 15, 16, 24, 32).contains(pixelDepth);
+    if (channels == null || !knownDepth || width == 0 || height == 0) {
+      return null;
+    }
+    return new ImageHeader("TGA", width, height, channels);
+  }
+
+  private static String withDepth(String channels, int bitsPerChannel) {
+    return bitsPerChannel > 8 ? channels + " " + bitsPerChannel + "-bit" : channels;
+  }
+}
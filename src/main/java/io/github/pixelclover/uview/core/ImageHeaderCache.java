@@ -0,0 +1,48 @@
+package io.github.pixelclover.uview.core;
+
+import io.github.pixelclover.uview.model.UnityAsset;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@link ImageHeader}s of the assets of a package, keyed by GUID, so that views can show the
+ * size and format of every image without reading its header each time they paint. All headers can
+ * be read ahead in parallel after loading; an asset that was not read yet, or was edited since, is
+ * read when it is first asked for. Only assets with the extension of an image are kept. It is safe
+ * to use from several threads.
+ */
+public final class ImageHeaderCache {
+
+  private final ConcurrentHashMap<String, VersionedEntry<ImageHeader>> entries =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Reads the headers of some assets in parallel on the common fork/join pool, for instance of all
+   * assets right after a package was loaded.
+   *
+   * @param assets The assets.
+   */
+  public void readAll(Collection<UnityAsset> assets) {
+    assets.parallelStream().forEach(this::get);
+  }
+
+  /**
+   * Gets the header of an asset.
+   *
+   * @param asset The asset.
+   * @return The header, or null if the asset is not an image whose header can be read.
+   */
+  public ImageHeader get(UnityAsset asset) {
+    if (!ImageHeader.isProbed(asset)) {
+      // Also drops the entry of an image that was renamed to something else.
+      entries.remove(asset.guid());
+      return null;
+    }
+    VersionedEntry<ImageHeader> entry = entries.get(asset.guid());
+    if (entry == null || !entry.isOf(asset)) {
+      entry = new VersionedEntry<>(asset, ImageHeader.read(asset));
+      entries.put(asset.guid(), entry);
+    }
+    return entry.value();
+  }
+}
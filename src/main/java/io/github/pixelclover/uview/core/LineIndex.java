@@ -0,0 +1,270 @@
+package io.github.pixelclover.uview.core;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Where the lines of a text start, for viewing texts too large to decode whole. The content is
+ * scanned once for line breaks without decoding it, and each line is decoded only when asked for.
+ *
+ * <p>The index is made of rows. A row is usually a whole line, but a line longer than {@link
+ * #MAX_ROW_BYTES} is split into several rows, so that showing a row never has to decode a whole
+ * megabyte-long line of, say, minified JSON. Rows are split between characters, never inside one.
+ *
+ * <p>An index is immutable. While the content is being scanned, {@link #build} hands out indexes of
+ * the rows found so far, which share their arrays with the final index.
+ */
+public final class LineIndex {
+
+  /** The most bytes of a line that one row holds. */
+  public static final int MAX_ROW_BYTES = 4096;
+
+  // How much content is scanned between two progress reports.
+  private static final int CHUNK_BYTES = 8 * 1024 * 1024;
+  private static final int[] NONE = new int[0];
+
+  private final ByteBuffer content;
+  // The starts of the rows, followed by the end of the last one.
+  private final int[] starts;
+  private final int rowCount;
+  // The rows that continue the line of the row before them, in ascending order.
+  private final int[] continuations;
+  private final int continuationCount;
+  private final int longestRow;
+  private final boolean complete;
+
+  private LineIndex(Builder builder, boolean complete) {
+    this.content = builder.content;
+    this.starts = builder.starts;
+    this.rowCount = builder.rowCount;
+    this.continuations = builder.continuations;
+    this.continuationCount = builder.continuationCount;
+    this.longestRow = builder.longestRow;
+    this.complete = complete;
+  }
+
+  /**
+   * Indexes the lines of a text.
+   *
+   * @param content The UTF-8 encoded text, from index 0 to its limit.
+   * @return The index of all lines.
+   */
+  public static LineIndex of(ByteBuffer content) {
+    return build(content, index -> {}, () -> false);
+  }
+
+  /**
+   * Indexes the lines of a text, reporting the lines found so far every few megabytes.
+   *
+   * @param content The UTF-8 encoded text, from index 0 to its limit.
+   * @param progress Called, on the calling thread, with the index of the lines found so far; the
+   *     last line of such an index is complete.
+   * @param cancelled Tells whether to stop scanning.
+   * @return The index of all lines.
+   * @throws CancellationException if scanning was cancelled.
+   */
+  public static LineIndex build(
+      ByteBuffer content, Consumer<LineIndex> progress, BooleanSupplier cancelled) {
+    Builder builder = new Builder(content);
+    int limit = content.limit();
+    int lineStart = 0;
+    for (int chunkStart = 0, chunkEnd = Math.min(CHUNK_BYTES, limit); ; ) {
+      // A line may span chunks, but the part of it in earlier chunks is not searched again.
+      int newline =
+          ByteSearch.indexOf(content, Math.max(lineStart, chunkStart), chunkEnd, (byte) '\n');
+      while (newline >= 0) {
+        builder.addLine(lineStart, newline + 1);
+        lineStart = newline + 1;
+        newline = ByteSearch.indexOf(content, lineStart, chunkEnd, (byte) '\n');
+      }
+      if (chunkEnd == limit) {
+        break;
+      }
+      if (cancelled.getAsBoolean()) {
+        throw new CancellationException();
+      }
+      progress.accept(new LineIndex(builder, false));
+      chunkStart = chunkEnd;
+      chunkEnd = (int) Math.min((long) chunkEnd + CHUNK_BYTES, limit);
+    }
+    // Like a text editor, a text that ends with a line break ends with an empty line.
+    builder.addLine(lineStart, limit);
+    return new LineIndex(builder, true);
+  }
+
+  /**
+   * Gets the number of rows indexed so far.
+   *
+   * @return The number of rows.
+   */
+  public int rowCount() {
+    return rowCount;
+  }
+
+  /**
+   * Gets the length of the longest row, which sets how wide the rows are shown.
+   *
+   * @return The number of bytes of the longest row, at most {@link #MAX_ROW_BYTES}.
+   */
+  public int longestRow() {
+    return longestRow;
+  }
+
+  /**
+   * Checks if the index covers the whole content.
+   *
+   * @return Whether the whole content has been scanned; if not, more rows follow the last one.
+   */
+  public boolean isComplete() {
+    return complete;
+  }
+
+  /**
+   * Gets how far into the content the rows reach.
+   *
+   * @return The number of bytes of the content that the rows cover.
+   */
+  public int indexedBytes() {
+    return starts[rowCount];
+  }
+
+  /**
+   * Gets the size of the content being indexed.
+   *
+   * @return The size of the whole content in bytes.
+   */
+  public int contentBytes() {
+    return content.limit();
+  }
+
+  /**
+   * Gets where a row starts.
+   *
+   * @param row The number of the row.
+   * @return The index of the content where the row starts.
+   */
+  public int start(int row) {
+    return starts[row];
+  }
+
+  /**
+   * Gets where a row ends.
+   *
+   * @param row The number of the row.
+   * @return The index of the content where the row ends, before its line break if it has one.
+   */
+  public int end(int row) {
+    int end = starts[row + 1];
+    if (end > starts[row] && content.get(end - 1) == '\n') {
+      end--;
+      if (end > starts[row] && content.get(end - 1) == '\r') {
+        end--;
+      }
+    }
+    return end;
+  }
+
+  /**
+   * Decodes the text of a row, without its line break.
+   *
+   * @param row The number of the row.
+   * @return The text of the row.
+   */
+  public String text(int row) {
+    byte[] bytes = new byte[end(row) - starts[row]];
+    content.get(starts[row], bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Checks if a row continues the line of the row before it, as the line was too long for one row.
+   *
+   * @param row The number of the row.
+   * @return Whether the row is a continuation.
+   */
+  public boolean isContinuation(int row) {
+    return Arrays.binarySearch(continuations, 0, continuationCount, row) >= 0;
+  }
+
+  /**
+   * Gets the line a row is part of.
+   *
+   * @param row The number of the row.
+   * @return The number of the line, counting from 1.
+   */
+  public int lineNumber(int row) {
+    int found = Arrays.binarySearch(continuations, 0, continuationCount, row);
+    int continuationsUpTo = found >= 0 ? found + 1 : -found - 1;
+    return row + 1 - continuationsUpTo;
+  }
+
+  /**
+   * Finds the row a line starts on.
+   *
+   * @param lineNumber The number of the line, counting from 1.
+   * @return The row that starts the line, or the last row if there are fewer lines.
+   */
+  public int rowOfLine(int lineNumber) {
+    // The row of a line is its number minus one plus the number of continuations of the lines
+    // before it. The line of each continuation grows with its position, so they are counted by a
+    // binary search.
+    int low = 0;
+    int high = continuationCount;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (continuations[middle] - middle <= lineNumber - 1) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return Math.max(0, Math.min(lineNumber - 1 + low, rowCount - 1));
+  }
+
+  /**
+   * Collects the rows of an index. Entries of the arrays are only ever added, never changed, so the
+   * indexes handed out while scanning stay valid.
+   */
+  private static final class Builder {
+    private final ByteBuffer content;
+    private int[] starts = new int[1024];
+    private int rowCount;
+    private int[] continuations = NONE;
+    private int continuationCount;
+    private int longestRow;
+
+    Builder(ByteBuffer content) {
+      this.content = content;
+    }
+
+    void addLine(int start, int end) {
+      while (end - start > MAX_ROW_BYTES) {
+        int split = start + MAX_ROW_BYTES;
+        // Moves back over continuation bytes, so that the split falls before a UTF-8 character.
+        while (split > start + MAX_ROW_BYTES - 4 && (content.get(split) & 0xC0) == 0x80) {
+          split--;
+        }
+        addRow(start, split);
+        if (continuationCount == continuations.length) {
+          continuations = Arrays.copyOf(continuations, Math.max(16, continuationCount * 2));
+        }
+        continuations[continuationCount++] = rowCount;
+        start = split;
+      }
+      addRow(start, end);
+    }
+
+    private void addRow(int start, int end) {
+      if (rowCount + 2 > starts.length) {
+        starts = Arrays.copyOf(starts, starts.length * 2);
+      }
+      // Rows follow each other, so the start of this row is already set as the end of the last.
+      starts[++rowCount] = end;
+      longestRow = Math.max(longestRow, end - start);
+    }
+  }
+}
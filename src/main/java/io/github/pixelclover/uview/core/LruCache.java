@@ -0,0 +1,87 @@
+package io.github.pixelclover.uview.core;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * A cache that holds values up to a total size in bytes, such as decoded images, and drops the
+ * least recently used values to make room for new ones. It is safe to use from several threads.
+ *
+ * @param <K> The type of the keys.
+ * @param <V> The type of the values.
+ */
+public final class LruCache<K, V> {
+
+  private final long maxBytes;
+  private final ToLongFunction<V> sizeOf;
+  // In access order: the least recently used entry comes first.
+  private final LinkedHashMap<K, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private long bytes;
+
+  /**
+   * Constructs an empty cache.
+   *
+   * @param maxBytes The most bytes the values may take together.
+   * @param sizeOf Tells how many bytes a value takes.
+   */
+  public LruCache(long maxBytes, ToLongFunction<V> sizeOf) {
+    this.maxBytes = maxBytes;
+    this.sizeOf = sizeOf;
+  }
+
+  /**
+   * Gets a value, making it the most recently used one.
+   *
+   * @param key The key of the value.
+   * @return The value, or null if the cache does not hold it.
+   */
+  public synchronized V get(K key) {
+    return entries.get(key);
+  }
+
+  /**
+   * Adds a value, or replaces the value of its key, and drops the least recently used values until
+   * the cache is within its size again. A value larger than the whole cache is not kept.
+   *
+   * @param key The key of the value.
+   * @param value The value.
+   */
+  public synchronized void put(K key, V value) {
+    V replaced = entries.put(key, value);
+    if (replaced != null) {
+      bytes -= sizeOf.applyAsLong(replaced);
+    }
+    bytes += sizeOf.applyAsLong(value);
+    Iterator<Map.Entry<K, V>> eldest = entries.entrySet().iterator();
+    while (bytes > maxBytes && eldest.hasNext()) {
+      bytes -= sizeOf.applyAsLong(eldest.next().getValue());
+      eldest.remove();
+    }
+  }
+
+  /**
+   * Gets how many values the cache holds.
+   *
+   * @return The number of values held.
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * Gets how much the values the cache holds take.
+   *
+   * @return The number of bytes the values held take together.
+   */
+  public synchronized long bytes() {
+    return bytes;
+  }
+
+  /** Drops all values. */
+  public synchronized void clear() {
+    entries.clear();
+    bytes = 0;
+  }
+}
@@ -0,0 +1,55 @@
+package io.github.pixelclover.uview.core;
+
+import io.github.pixelclover.uview.model.UnityAsset;
+import java.util.List;
+
+/**
+ * A sealed interface describing a change to the active package of a {@link PackageManager}. Events
+ * carry only the affected assets, so that views can update themselves in proportion to the size of
+ * the change instead of reloading the whole package.
+ */
+public sealed interface PackageChangeEvent
+    permits PackageChangeEvent.AssetsAdded,
+        PackageChangeEvent.AssetsRemoved,
+        PackageChangeEvent.AssetsUpdated,
+        PackageChangeEvent.PackageReplaced {
+
+  /**
+   * Assets were added to the package.
+   *
+   * @param assets The added assets.
+   */
+  record AssetsAdded(List<UnityAsset> assets) implements PackageChangeEvent {
+    public AssetsAdded {
+      assets = List.copyOf(assets);
+    }
+  }
+
+  /**
+   * Assets were removed from the package.
+   *
+   * @param assets The removed assets, as they were before the removal.
+   */
+  record AssetsRemoved(List<UnityAsset> assets) implements PackageChangeEvent {
+    public AssetsRemoved {
+      assets = List.copyOf(assets);
+    }
+  }
+
+  /**
+   * The content or metadata of existing assets changed. Their GUIDs and paths are unchanged.
+   *
+   * @param assets The assets as they are after the change.
+   */
+  record AssetsUpdated(List<UnityAsset> assets) implements PackageChangeEvent {
+    public AssetsUpdated {
+      assets = List.copyOf(assets);
+    }
+  }
+
+  /**
+   * The whole package was replaced, for example by loading a file or creating a new package.
+   * Listeners should re-read all assets.
+   */
+  record PackageReplaced() implements PackageChangeEvent {}
+}
@@ -0,0 +1,13 @@
+package io.github.pixelclover.uview.core;
+
+/** A listener that is notified of changes to the active package of a {@link PackageManager}. */
+@FunctionalInterface
+public interface PackageChangeListener {
+  /**
+   * Called after the package has changed. The listener is called on the thread that made the
+   * change.
+   *
+   * @param event The change.
+   */
+  void packageChanged(PackageChangeEvent event);
+}
@@ -7,24 +7,64 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 /**
  * Manages the state of an active Unity package. This class acts as a controller, handling all
- * business logic related to creating, loading, modifying, and saving packages. It maintains an
- * "isModified" flag to track unsaved changes.
+ * business logic related to creating, loading, modifying, and saving packages. It keeps a versioned
+ * undo/redo history of package snapshots and tracks unsaved changes by comparing the current
+ * snapshot with the one that was last loaded or saved.
+ *
+ * <p>When a journal directory is configured, every edit to a package loaded from or saved to a file
+ * is also appended to an {@link EditJournal}, so that unsaved work can be recovered after a crash
+ * without rewriting the package on each edit.
  */
 public class PackageManager {
   private static final Logger LOGGER = LogManager.getLogger(PackageManager.class);
-  private static final long DEFAULT_MAX_ASSET_SIZE_BYTES = 512 * 1024 * 1024; // 512 MB limit
+
+  /** The default maximum size of an asset that can be added to a package. */
+  public static final long DEFAULT_MAX_ASSET_SIZE_BYTES = 512 * 1024 * 1024; // 512 MB limit
+
+  private static final int MAX_UNDO_HISTORY = 100;
   private final PackageIO packageIo;
   private final long maxAssetSizeBytes;
+  // Snapshots share structure, so each history entry only costs memory for what it changed.
+  private final Deque<Revision> undoHistory = new ArrayDeque<>();
+  private final Deque<Revision> redoHistory = new ArrayDeque<>();
+  // GUIDs touched since the last load or save; the change set is derived from these alone.
+  private final Set<String> touchedGuids = new HashSet<>();
   private UnityPackage activePackage = new UnityPackage();
-  private boolean isModified = false;
+  private UnityPackage.Snapshot savedSnapshot = activePackage.snapshot();
+  // The file that savedSnapshot was loaded from or saved to, or null for a new package.
+  private File savedFile;
+  // Where edit journals are kept, or null if edits are not journaled.
+  private final Path journalDir;
+  private EditJournal journal;
+  // A journal left behind by an earlier session for the loaded file, until recovered or discarded.
+  private Path recoverableJournal;
+  private boolean replaying;
+  private boolean journalFailed;
+  private final List<PackageChangeListener> listeners = new CopyOnWriteArrayList<>();
+  // The indexes are brought up to date lazily, from the GUIDs changed since they were built. The
+  // content index is built again in the background whenever the whole package is replaced.
+  private PathIndex pathIndex = PathIndex.EMPTY;
+  private ContentIndex contentIndex = ContentIndex.EMPTY;
+  private UnityPackage.Snapshot indexedSnapshot = activePackage.snapshot();
+  private final Set<String> unindexedGuids = new HashSet<>();
+  private PathIndex.Result lastSearch;
 
   /**
    * Constructs a PackageManager with a given PackageIO handler and default max asset size.
@@ -42,14 +82,32 @@ public class PackageManager {
    * @param maxAssetSizeBytes The maximum allowed size for an asset in bytes.
    */
   public PackageManager(PackageIO packageIo, long maxAssetSizeBytes) {
+    this(packageIo, maxAssetSizeBytes, null);
+  }
+
+  /**
+   * Constructs a PackageManager that journals edits for crash recovery.
+   *
+   * @param packageIo The I/O handler for reading and writing package files.
+   * @param maxAssetSizeBytes The maximum allowed size for an asset in bytes.
+   * @param journalDir The directory to keep edit journals in, or null to disable journaling.
+   */
+  public PackageManager(PackageIO packageIo, long maxAssetSizeBytes, Path journalDir) {
     this.packageIo = packageIo;
     this.maxAssetSizeBytes = maxAssetSizeBytes;
+    this.journalDir = journalDir;
   }
 
-  /** Creates a new, empty package, discarding any existing active package data. */
+  /**
+   * Creates a new, empty package, discarding any existing active package data. Edits to a new
+   * package are not journaled until it has been saved to a file.
+   */
   public void createNew() {
+    discardJournal();
     activePackage.clear();
-    isModified = false;
+    resetHistory();
+    savedFile = null;
+    fireChange(new PackageChangeEvent.PackageReplaced());
   }
 
   /**
@@ -59,20 +117,117 @@ public class PackageManager {
    * @throws IOException If an error occurs during file loading.
    */
   public void loadPackage(File packageFile) throws IOException {
-    activePackage = packageIo.load(packageFile);
-    isModified = false;
+    UnityPackage loadedPackage = packageIo.load(packageFile);
+    discardJournal();
+    activePackage = loadedPackage;
+    resetHistory();
+    savedFile = packageFile;
+    if (journalDir != null) {
+      Path journalFile = EditJournal.fileFor(journalDir, packageFile);
+      if (EditJournal.isRecoverable(journalFile, packageFile)) {
+        recoverableJournal = journalFile;
+        LOGGER.info("Found unsaved edits for package: {}", packageFile.getAbsolutePath());
+      } else {
+        deleteJournalFile(journalFile);
+      }
+    }
     LOGGER.info("Loaded package: {}", packageFile.getAbsolutePath());
+    fireChange(new PackageChangeEvent.PackageReplaced());
+  }
+
+  /**
+   * Registers a listener to be notified of every change to the active package.
+   *
+   * @param listener The listener to add.
+   */
+  public void addChangeListener(PackageChangeListener listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * Unregisters a previously added change listener.
+   *
+   * @param listener The listener to remove.
+   */
+  public void removeChangeListener(PackageChangeListener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * Checks if edits from an earlier session that ended without saving were found for the loaded
+   * package.
+   *
+   * @return true if {@link #recoverEdits()} can restore unsaved edits.
+   */
+  public boolean hasRecoverableEdits() {
+    return recoverableJournal != null;
+  }
+
+  /**
+   * Re-applies the edits that were journaled for the loaded package by an earlier session. The
+   * recovered edits can be undone like any other edit, and new edits are appended to the same
+   * journal.
+   *
+   * @throws IOException If the journal cannot be read.
+   */
+  public void recoverEdits() throws IOException {
+    if (recoverableJournal == null) {
+      return;
+    }
+    Path journalFile = recoverableJournal;
+    recoverableJournal = null;
+    replaying = true;
+    try {
+      journal =
+          EditJournal.replay(
+              journalFile, savedFile, savedSnapshot::getAsset, this::applyJournalEntry);
+    } finally {
+      replaying = false;
+      // Recovered edits are reported as one change rather than one event per journal record.
+      fireChange(new PackageChangeEvent.PackageReplaced());
+    }
+    LOGGER.info("Recovered unsaved edits for package: {}", savedFile.getAbsolutePath());
+  }
+
+  /** Deletes the unsaved edits that were found for the loaded package, if any. */
+  public void discardRecoverableEdits() {
+    if (recoverableJournal != null) {
+      deleteJournalFile(recoverableJournal);
+      recoverableJournal = null;
+    }
+  }
+
+  /**
+   * Closes the active package and deletes its edit journal. This should be called once unsaved
+   * changes have been saved or knowingly discarded.
+   */
+  public void close() {
+    discardJournal();
+    contentIndex.cancel();
   }
 
   /**
-   * Saves the active package to the specified file.
+   * Saves the active package to the specified file. Assets that are unchanged since the package was
+   * last loaded or saved are copied from that file in compressed form, so the cost of a save is
+   * proportional to the size of the edit rather than the size of the package.
    *
    * @param packageFile The file to save the package to.
    * @throws IOException If an error occurs during file saving.
    */
   public void savePackage(File packageFile) throws IOException {
-    packageIo.save(activePackage, packageFile);
-    isModified = false;
+    UnityPackage.Snapshot snapshot = activePackage.snapshot();
+    UnityPackage packageToSave = new UnityPackage();
+    packageToSave.restore(snapshot);
+    Set<String> changedGuids = getChangeSet().changedGuids();
+    packageIo.saveIncremental(packageToSave, savedFile, packageFile, changedGuids);
+    // The journaled edits are now part of the file, so the next edit starts a fresh journal.
+    discardJournal();
+    savedSnapshot = snapshot;
+    savedFile = packageFile;
+    if (activePackage.snapshot() == snapshot) {
+      // Otherwise keep the touched GUIDs: edits made during the save are relative to them too.
+      touchedGuids.clear();
+    }
     LOGGER.info("Saved package: {}", packageFile.getAbsolutePath());
   }
 
@@ -87,19 +242,85 @@ public class PackageManager {
 
   /**
    * Filters the assets based on a search query. The search is case-insensitive and checks for the
-   * query's presence in the asset path.
+   * query's presence in the asset path. It uses the {@link PathIndex} of the package, and a query
+   * that extends the previous one only re-checks the assets that matched before.
    *
    * @param query The text to search for in asset paths.
-   * @return A collection of matching assets.
+   * @return A collection of matching assets, sorted by path.
    */
   public Collection<UnityAsset> getFilteredAssets(String query) {
     if (query == null || query.trim().isEmpty()) {
       return getAssets(); // Return all assets if query is empty
     }
-    String lowerCaseQuery = query.toLowerCase();
-    return getAssets().stream()
-        .filter(asset -> asset.assetPath().toLowerCase().contains(lowerCaseQuery))
-        .collect(Collectors.toList());
+    lastSearch = getPathIndex().search(query, lastSearch);
+    return lastSearch.assets();
+  }
+
+  /**
+   * Gets the path index of the active package, bringing it up to date first. The returned index is
+   * immutable and can be searched from any thread.
+   *
+   * @return The current {@link PathIndex}.
+   */
+  public PathIndex getPathIndex() {
+    updateIndexes();
+    return pathIndex;
+  }
+
+  /**
+   * Gets the content index of the active package, bringing it up to date first. The returned index
+   * is immutable and can be searched from any thread, but after a package was loaded it may still
+   * be being built; see {@link ContentIndex#isReady()}.
+   *
+   * @return The current {@link ContentIndex}.
+   */
+  public ContentIndex getContentIndex() {
+    updateIndexes();
+    return contentIndex;
+  }
+
+  private void updateIndexes() {
+    UnityPackage.Snapshot current = activePackage.snapshot();
+    if (indexedSnapshot == current) {
+      return;
+    }
+    List<UnityAsset> removed = new ArrayList<>();
+    List<UnityAsset> added = new ArrayList<>();
+    for (String guid : unindexedGuids) {
+      UnityAsset oldAsset = indexedSnapshot.getAsset(guid);
+      UnityAsset newAsset = current.getAsset(guid);
+      if (oldAsset != newAsset) {
+        if (oldAsset != null) {
+          removed.add(oldAsset);
+        }
+        if (newAsset != null) {
+          added.add(newAsset);
+        }
+      }
+    }
+    pathIndex = pathIndex.withChanges(removed, added);
+    contentIndex = contentIndex.withChanges(removed, added);
+    if (contentIndex.isFragmented()) {
+      contentIndex.cancel();
+      contentIndex = ContentIndex.build(current.getAssets().values());
+    }
+    indexedSnapshot = current;
+    unindexedGuids.clear();
+  }
+
+  /**
+   * Checks if a single asset matches a search query, using the same rules as {@link
+   * #getFilteredAssets(String)}.
+   *
+   * @param asset The asset to check.
+   * @param query The text to search for in the asset path.
+   * @return true if the asset would be included in the filtered assets.
+   */
+  public static boolean matchesQuery(UnityAsset asset, String query) {
+    if (query == null || query.trim().isEmpty()) {
+      return true;
+    }
+    return asset.assetPath().toLowerCase(Locale.ROOT).contains(query.toLowerCase(Locale.ROOT));
   }
 
   /**
@@ -132,8 +353,8 @@ public class PackageManager {
     String metaGuid = java.util.UUID.randomUUID().toString().replace("-", "");
     String metaContent = String.format("fileFormatVersion: 2\nguid: %s\n", metaGuid);
     UnityAsset newAsset = UnityAsset.createNew(assetPath, content, metaContent.getBytes(), null);
-    activePackage.addAsset(newAsset);
-    isModified = true;
+    putAsset(newAsset);
+    journal(new EditJournal.Entry.Add(newAsset), List.of(newAsset));
     LOGGER.info("Staged asset {} for addition", assetPath);
   }
 
@@ -156,8 +377,8 @@ public class PackageManager {
             newContent,
             oldAsset.metaContent(),
             oldAsset.previewContent());
-    activePackage.addAsset(updatedAsset);
-    isModified = true;
+    putAsset(updatedAsset);
+    journal(new EditJournal.Entry.ContentUpdate(assetPath, newContent), List.of(updatedAsset));
     LOGGER.info("Updated content for asset {}", assetPath);
   }
 
@@ -184,8 +405,8 @@ public class PackageManager {
             newMetaContent,
             oldAsset.previewContent());
 
-    activePackage.addAsset(updatedAsset); // Overwrites the old asset due to same GUID
-    isModified = true;
+    putAsset(updatedAsset); // Overwrites the old asset due to same GUID
+    journal(new EditJournal.Entry.MetaUpdate(assetPath, newMetaContent), List.of(updatedAsset));
     LOGGER.info("Updated metadata for asset {}", assetPath);
   }
 
@@ -195,8 +416,13 @@ public class PackageManager {
    * @param assetPath The path of the asset to remove.
    */
   public void removeAsset(String assetPath) {
-    activePackage.removeAssetByPath(assetPath);
-    isModified = true;
+    UnityAsset asset = activePackage.getAssetByPath(assetPath);
+    if (asset == null) {
+      LOGGER.warn("Attempted to remove non-existent asset: {}", assetPath);
+      return;
+    }
+    removeAssets(List.of(asset));
+    journal(new EditJournal.Entry.Remove(List.of(assetPath)), List.of());
     LOGGER.info("Staged asset {} for removal", assetPath);
   }
 
@@ -208,17 +434,17 @@ public class PackageManager {
   public void removeDirectory(String pathPrefix) {
     // Ensure the prefix ends with a slash to avoid matching "Assets/Tex" with "Assets/Texture"
     String normalizedPrefix = pathPrefix.endsWith("/") ? pathPrefix : pathPrefix + "/";
-    List<String> pathsToRemove =
-        getAssets().stream()
-            .map(UnityAsset::assetPath)
-            .filter(p -> p.startsWith(normalizedPrefix))
-            .toList();
-
-    if (!pathsToRemove.isEmpty()) {
-      pathsToRemove.forEach(activePackage::removeAssetByPath);
-      isModified = true;
+    List<UnityAsset> assetsToRemove =
+        getAssets().stream().filter(a -> a.assetPath().startsWith(normalizedPrefix)).toList();
+
+    if (!assetsToRemove.isEmpty()) {
+      // The whole directory is removed as a single undoable step.
+      removeAssets(assetsToRemove);
+      journal(
+          new EditJournal.Entry.Remove(assetsToRemove.stream().map(UnityAsset::assetPath).toList()),
+          List.of());
       LOGGER.info(
-          "Staged directory {} and its {} contents for removal", pathPrefix, pathsToRemove.size());
+          "Staged directory {} and its {} contents for removal", pathPrefix, assetsToRemove.size());
     }
   }
 
@@ -228,9 +454,334 @@ public class PackageManager {
    * @return true if there are unsaved changes, false otherwise.
    */
   public boolean isModified() {
-    return isModified;
+    return activePackage.snapshot() != savedSnapshot;
+  }
+
+  /**
+   * Checks if there is a modification that can be undone.
+   *
+   * @return true if {@link #undo()} would change the package, false otherwise.
+   */
+  public boolean canUndo() {
+    return !undoHistory.isEmpty();
+  }
+
+  /**
+   * Checks if there is an undone modification that can be redone.
+   *
+   * @return true if {@link #redo()} would change the package, false otherwise.
+   */
+  public boolean canRedo() {
+    return !redoHistory.isEmpty();
+  }
+
+  /**
+   * Reverts the most recent modification of the package. This is an O(1) operation regardless of
+   * the kind or size of the modification.
+   *
+   * @return true if a modification was undone, false if there was nothing to undo.
+   */
+  public boolean undo() {
+    Revision previous = undoHistory.pollFirst();
+    if (previous == null) {
+      return false;
+    }
+    UnityPackage.Snapshot current = activePackage.snapshot();
+    redoHistory.addFirst(new Revision(current, previous.changedGuids()));
+    activePackage.restore(previous.snapshot());
+    touchedGuids.addAll(previous.changedGuids());
+    unindexedGuids.addAll(previous.changedGuids());
+    journalRestore(current, previous.changedGuids());
+    fireRestore(current, previous.changedGuids());
+    LOGGER.info("Undid last package modification");
+    return true;
+  }
+
+  /**
+   * Re-applies the most recently undone modification of the package. This is an O(1) operation.
+   *
+   * @return true if a modification was redone, false if there was nothing to redo.
+   */
+  public boolean redo() {
+    Revision next = redoHistory.pollFirst();
+    if (next == null) {
+      return false;
+    }
+    UnityPackage.Snapshot current = activePackage.snapshot();
+    undoHistory.addFirst(new Revision(current, next.changedGuids()));
+    activePackage.restore(next.snapshot());
+    touchedGuids.addAll(next.changedGuids());
+    unindexedGuids.addAll(next.changedGuids());
+    journalRestore(current, next.changedGuids());
+    fireRestore(current, next.changedGuids());
+    LOGGER.info("Redid package modification");
+    return true;
+  }
+
+  /**
+   * Computes the set of assets that were added, removed, or modified since the package was last
+   * loaded or saved. The cost is proportional to the number of assets touched by edits, not to the
+   * size of the package. Assets that were changed and later restored (for example by undo) are not
+   * reported.
+   *
+   * @return The current {@link ChangeSet}.
+   */
+  public ChangeSet getChangeSet() {
+    if (touchedGuids.isEmpty()) {
+      return ChangeSet.EMPTY;
+    }
+    UnityPackage.Snapshot current = activePackage.snapshot();
+    Set<String> added = new HashSet<>();
+    Set<String> removed = new HashSet<>();
+    Set<String> contentModified = new HashSet<>();
+    Set<String> metaModified = new HashSet<>();
+    Map<String, UnityAsset> originals = new HashMap<>();
+    for (String guid : touchedGuids) {
+      UnityAsset original = savedSnapshot.getAsset(guid);
+      UnityAsset now = current.getAsset(guid);
+      if (original == now) {
+        continue;
+      }
+      if (original == null) {
+        added.add(guid);
+        continue;
+      }
+      if (now == null) {
+        removed.add(guid);
+        originals.put(guid, original);
+        continue;
+      }
+      boolean contentChanged = !now.hasSameContent(original);
+      boolean metaChanged = !now.hasSameMeta(original);
+      if (contentChanged) {
+        contentModified.add(guid);
+      }
+      if (metaChanged) {
+        metaModified.add(guid);
+      }
+      if (contentChanged || metaChanged) {
+        originals.put(guid, original);
+      }
+    }
+    return new ChangeSet(added, removed, contentModified, metaModified, originals);
+  }
+
+  private void putAsset(UnityAsset asset) {
+    boolean exists = activePackage.snapshot().getAsset(asset.guid()) != null;
+    recordUndoPoint(Set.of(asset.guid()));
+    activePackage.addAsset(asset);
+    fireChange(
+        exists
+            ? new PackageChangeEvent.AssetsUpdated(List.of(asset))
+            : new PackageChangeEvent.AssetsAdded(List.of(asset)));
+  }
+
+  private void removeAssets(List<UnityAsset> assets) {
+    Set<String> guids = new HashSet<>();
+    assets.forEach(a -> guids.add(a.guid()));
+    recordUndoPoint(guids);
+    assets.forEach(a -> activePackage.removeAssetByPath(a.assetPath()));
+    fireChange(new PackageChangeEvent.AssetsRemoved(assets));
+  }
+
+  private void fireRestore(UnityPackage.Snapshot before, Set<String> changedGuids) {
+    if (listeners.isEmpty()) {
+      return;
+    }
+    UnityPackage.Snapshot after = activePackage.snapshot();
+    List<UnityAsset> added = new ArrayList<>();
+    List<UnityAsset> removed = new ArrayList<>();
+    List<UnityAsset> updated = new ArrayList<>();
+    for (String guid : changedGuids) {
+      UnityAsset oldAsset = before.getAsset(guid);
+      UnityAsset newAsset = after.getAsset(guid);
+      if (oldAsset == newAsset) {
+        continue;
+      }
+      if (oldAsset == null) {
+        added.add(newAsset);
+      } else if (newAsset == null) {
+        removed.add(oldAsset);
+      } else {
+        updated.add(newAsset);
+      }
+    }
+    if (!removed.isEmpty()) {
+      fireChange(new PackageChangeEvent.AssetsRemoved(removed));
+    }
+    if (!added.isEmpty()) {
+      fireChange(new PackageChangeEvent.AssetsAdded(added));
+    }
+    if (!updated.isEmpty()) {
+      fireChange(new PackageChangeEvent.AssetsUpdated(updated));
+    }
+  }
+
+  private void fireChange(PackageChangeEvent event) {
+    if (replaying) {
+      return;
+    }
+    for (PackageChangeListener listener : listeners) {
+      listener.packageChanged(event);
+    }
+  }
+
+  // Returns the assets as the entry left them, which later journal records can refer to.
+  private List<UnityAsset> applyJournalEntry(EditJournal.Entry entry) {
+    switch (entry) {
+      case EditJournal.Entry.Add add -> {
+        putAsset(add.asset());
+        return List.of(add.asset());
+      }
+      case EditJournal.Entry.Remove remove -> {
+        List<UnityAsset> assets = new ArrayList<>();
+        for (String path : remove.assetPaths()) {
+          UnityAsset asset = activePackage.getAssetByPath(path);
+          if (asset != null) {
+            assets.add(asset);
+          }
+        }
+        if (!assets.isEmpty()) {
+          removeAssets(assets);
+        }
+        return List.of();
+      }
+      case EditJournal.Entry.ContentUpdate update -> {
+        updateAssetContent(update.assetPath(), update.content());
+        return assetsAt(update.assetPath());
+      }
+      case EditJournal.Entry.MetaUpdate update -> {
+        updateAssetMeta(update.assetPath(), update.metaContent());
+        return assetsAt(update.assetPath());
+      }
+      case EditJournal.Entry.Restore restore -> {
+        Set<String> guids = new HashSet<>();
+        restore.assets().forEach(a -> guids.add(a.guid()));
+        for (String path : restore.removedPaths()) {
+          UnityAsset asset = activePackage.getAssetByPath(path);
+          if (asset != null) {
+            guids.add(asset.guid());
+          }
+        }
+        recordUndoPoint(guids);
+        restore.removedPaths().forEach(activePackage::removeAssetByPath);
+        restore.assets().forEach(activePackage::addAsset);
+        return restore.assets();
+      }
+    }
+  }
+
+  private List<UnityAsset> assetsAt(String assetPath) {
+    UnityAsset asset = activePackage.getAssetByPath(assetPath);
+    return asset != null ? List.of(asset) : List.of();
+  }
+
+  private void journalRestore(UnityPackage.Snapshot before, Set<String> changedGuids) {
+    if (!isJournaling()) {
+      return;
+    }
+    UnityPackage.Snapshot after = activePackage.snapshot();
+    List<UnityAsset> assets = new ArrayList<>();
+    List<String> removedPaths = new ArrayList<>();
+    for (String guid : changedGuids) {
+      UnityAsset asset = after.getAsset(guid);
+      if (asset != null) {
+        assets.add(asset);
+      } else if (before.getAsset(guid) != null) {
+        removedPaths.add(before.getAsset(guid).assetPath());
+      }
+    }
+    journal(new EditJournal.Entry.Restore(assets, removedPaths), assets);
+  }
+
+  private boolean isJournaling() {
+    return journalDir != null && savedFile != null && !replaying && !journalFailed;
+  }
+
+  private void journal(EditJournal.Entry entry, List<UnityAsset> results) {
+    if (!isJournaling()) {
+      return;
+    }
+    if (journal != null && journal.hasFailed()) {
+      // The edits journaled before the failure stay recoverable until the next save or close.
+      journalFailed = true;
+      return;
+    }
+    try {
+      if (journal == null) {
+        // Editing without recovering starts over; the old edits no longer apply.
+        recoverableJournal = null;
+        journal =
+            EditJournal.create(
+                EditJournal.fileFor(journalDir, savedFile), savedFile, savedSnapshot::getAsset);
+      }
+    } catch (IOException e) {
+      LOGGER.warn("Could not create edit journal, crash recovery is off until the next save", e);
+      journalFailed = true;
+      return;
+    }
+    journal.append(entry, results);
+  }
+
+  /**
+   * Waits until the journaled edits are written to storage, for tests that inspect the journal.
+   *
+   * @throws InterruptedException If the thread is interrupted while waiting.
+   */
+  void flushJournal() throws InterruptedException {
+    if (journal != null) {
+      journal.flush();
+    }
+  }
+
+  private void discardJournal() {
+    recoverableJournal = null;
+    journalFailed = false;
+    if (journal == null) {
+      return;
+    }
+    journal.delete();
+    journal = null;
   }
 
+  private static void deleteJournalFile(Path journalFile) {
+    try {
+      Files.deleteIfExists(journalFile);
+    } catch (IOException e) {
+      LOGGER.warn("Could not delete edit journal {}", journalFile, e);
+    }
+  }
+
+  private void recordUndoPoint(Set<String> changedGuids) {
+    undoHistory.addFirst(new Revision(activePackage.snapshot(), changedGuids));
+    if (undoHistory.size() > MAX_UNDO_HISTORY) {
+      undoHistory.removeLast();
+    }
+    redoHistory.clear();
+    touchedGuids.addAll(changedGuids);
+    unindexedGuids.addAll(changedGuids);
+  }
+
+  private void resetHistory() {
+    undoHistory.clear();
+    redoHistory.clear();
+    touchedGuids.clear();
+    savedSnapshot = activePackage.snapshot();
+    // The whole package was replaced, so the indexes are rebuilt rather than updated.
+    pathIndex = PathIndex.of(activePackage.getAssets().values());
+    contentIndex.cancel();
+    contentIndex = ContentIndex.build(activePackage.getAssets().values());
+    indexedSnapshot = savedSnapshot;
+    unindexedGuids.clear();
+    lastSearch = null;
+  }
+
+  /**
+   * An entry in the undo or redo history: the package state to return to, and the GUIDs of the
+   * assets that differ between that state and the one it was recorded from.
+   */
+  private record Revision(UnityPackage.Snapshot snapshot, Set<String> changedGuids) {}
+
   /**
    * Extracts a collection of assets to a specified directory on the filesystem.
    *
@@ -242,11 +793,32 @@ public class PackageManager {
    */
   public void extractAssets(Collection<UnityAsset> assets, Path outputDir, String pathPrefixToStrip)
       throws IOException {
+    extractAssets(assets, outputDir, pathPrefixToStrip, false);
+  }
+
+  /**
+   * Extracts a collection of assets to a specified directory on the filesystem, optionally with
+   * their .meta files. The .meta files carry the GUIDs that other assets use to refer to them, so
+   * they are needed for extracted assets to keep their references in a Unity project.
+   *
+   * @param assets The collection of assets to extract.
+   * @param outputDir The destination directory.
+   * @param pathPrefixToStrip A common path prefix to remove from the asset paths, preserving the
+   *     relative structure within the output directory.
+   * @param includeMeta true to also write the meta file of each asset, including folders, next to
+   *     it as {@code <path>.meta}.
+   * @throws IOException If an error occurs during file writing.
+   */
+  public void extractAssets(
+      Collection<UnityAsset> assets, Path outputDir, String pathPrefixToStrip, boolean includeMeta)
+      throws IOException {
     if (!Files.exists(outputDir)) {
       Files.createDirectories(outputDir);
     }
     for (UnityAsset asset : assets) {
-      if (asset.content() == null) {
+      byte[] content = asset.content();
+      byte[] meta = includeMeta ? asset.metaContent() : null;
+      if (content == null && meta == null) {
         continue;
       }
 
@@ -261,7 +833,14 @@ public class PackageManager {
 
       Path targetPath = outputDir.resolve(relativePath);
       Files.createDirectories(targetPath.getParent());
-      Files.write(targetPath, asset.content());
+      if (content != null) {
+        Files.write(targetPath, content);
+      } else {
+        Files.createDirectories(targetPath); // A folder.
+      }
+      if (meta != null) {
+        Files.write(targetPath.resolveSibling(targetPath.getFileName() + ".meta"), meta);
+      }
     }
   }
 }
@@ -0,0 +1,552 @@
+package io.github.pixelclover.uview.core;
+
+import io.github.pixelclover.uview.model.UnityAsset;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * An immutable search index over the asset paths of a package. Assets are kept sorted by path and
+ * identified by their position in that order. The case-folded paths are stored as UTF-8 in
+ * contiguous byte arrays, so a search is a sequential scan that allocates nothing per asset.
+ *
+ * <p>A search can be refined: when a query contains the query of a previous result (as it does
+ * while the user keeps typing), only the assets of that result are scanned again.
+ *
+ * <p>The paths are split into blocks of a few thousand. Deriving an index for an edit only rebuilds
+ * the blocks the edit touches, and a full scan of a large index searches the blocks in parallel.
+ */
+public final class PathIndex {
+
+  private static final Comparator<UnityAsset> BY_PATH =
+      Comparator.comparing(UnityAsset::assetPath).thenComparing(UnityAsset::guid);
+  // Terminates every folded path, so that a match can never span two paths.
+  private static final byte SEPARATOR = 0;
+  private static final int BLOCK_SIZE = 4096;
+  private static final int PARALLEL_SCAN_THRESHOLD = 8 * BLOCK_SIZE;
+
+  /** An index without any assets. */
+  public static final PathIndex EMPTY = of(List.of());
+
+  private final Block[] blocks;
+  // Position of the first asset of each block; blockStarts[blocks.length] is the size.
+  private final int[] blockStarts;
+  // How often each byte value occurs in the folded paths, for choosing where to anchor a scan.
+  private final int[] byteCounts;
+
+  private PathIndex(Block[] blocks, int[] byteCounts) {
+    this.blocks = blocks;
+    this.byteCounts = byteCounts;
+    this.blockStarts = new int[blocks.length + 1];
+    for (int b = 0; b < blocks.length; b++) {
+      blockStarts[b + 1] = blockStarts[b] + blocks[b].assets.length;
+    }
+  }
+
+  /**
+   * Builds an index over a collection of assets.
+   *
+   * @param assets The assets to index.
+   * @return The new index.
+   */
+  public static PathIndex of(Collection<UnityAsset> assets) {
+    UnityAsset[] sorted = assets.toArray(new UnityAsset[0]);
+    Arrays.parallelSort(sorted, BY_PATH);
+    int[] byteCounts = new int[256];
+    List<Block> blocks = new ArrayList<>();
+    addBlocks(blocks, sorted, byteCounts, null);
+    return new PathIndex(blocks.toArray(new Block[0]), byteCounts);
+  }
+
+  /**
+   * Derives an index with some assets removed and others added. Updated assets are passed in both
+   * collections: the old version as removed, the new one as added. Only the blocks that contain
+   * changed assets are rebuilt; all others are shared with this index.
+   *
+   * @param removed The assets to remove, matched by identity.
+   * @param added The assets to add.
+   * @return The new index.
+   */
+  public PathIndex withChanges(Collection<UnityAsset> removed, Collection<UnityAsset> added) {
+    if (removed.isEmpty() && added.isEmpty()) {
+      return this;
+    }
+    if (blocks.length == 0) {
+      return of(added);
+    }
+    Map<Integer, List<UnityAsset>> removedByBlock = new HashMap<>();
+    for (UnityAsset asset : removed) {
+      int b = blockFor(asset);
+      int i = Arrays.binarySearch(blocks[b].assets, asset, BY_PATH);
+      if (i >= 0 && blocks[b].assets[i] == asset) {
+        removedByBlock.computeIfAbsent(b, k -> new ArrayList<>()).add(asset);
+      }
+    }
+    Map<Integer, List<UnityAsset>> addedByBlock = new HashMap<>();
+    for (UnityAsset asset : added) {
+      addedByBlock.computeIfAbsent(blockFor(asset), k -> new ArrayList<>()).add(asset);
+    }
+
+    int[] counts = byteCounts.clone();
+    List<Block> newBlocks = new ArrayList<>(blocks.length + 1);
+    for (int b = 0; b < blocks.length; b++) {
+      Block block = blocks[b];
+      List<UnityAsset> blockRemoved = removedByBlock.getOrDefault(b, List.of());
+      List<UnityAsset> blockAdded = addedByBlock.getOrDefault(b, List.of());
+      if (blockRemoved.isEmpty() && blockAdded.isEmpty()) {
+        newBlocks.add(block);
+        continue;
+      }
+      Block merged = block.withChanges(blockRemoved, blockAdded, counts);
+      if (merged.assets.length > 2 * BLOCK_SIZE) {
+        addBlocks(newBlocks, merged.assets, counts, merged);
+      } else if (merged.assets.length > 0) {
+        newBlocks.add(merged);
+      }
+    }
+    return new PathIndex(newBlocks.toArray(new Block[0]), counts);
+  }
+
+  /**
+   * Gets the number of indexed assets.
+   *
+   * @return The number of assets.
+   */
+  public int size() {
+    return blockStarts[blocks.length];
+  }
+
+  /**
+   * Gets an asset by its position in path order.
+   *
+   * @param id The position of the asset, from 0 to {@link #size()} - 1.
+   * @return The asset.
+   */
+  public UnityAsset get(int id) {
+    int b = blockOf(id);
+    return blocks[b].assets[id - blockStarts[b]];
+  }
+
+  /**
+   * Finds the position of the first asset whose path is not less than a given path. Together with
+   * {@link #prefixEnd(String)} this gives the range of assets under a directory: all paths that
+   * start with the same prefix are adjacent in path order.
+   *
+   * @param path The path to look up.
+   * @return The position of the first asset whose path is greater than or equal to the path, or
+   *     {@link #size()} if there is none.
+   */
+  public int lowerBound(String path) {
+    int low = 0;
+    int high = size();
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (get(middle).assetPath().compareTo(path) < 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Finds the position just after the last asset whose path starts with a prefix.
+   *
+   * @param prefix The path prefix, e.g. a directory path ending with a slash.
+   * @return The position of the first asset after all paths that start with the prefix.
+   */
+  public int prefixEnd(String prefix) {
+    int low = 0;
+    int high = size();
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      String path = get(middle).assetPath();
+      if (path.compareTo(prefix) < 0 || path.startsWith(prefix)) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Finds the assets whose path contains a query, ignoring case. A blank query matches every asset.
+   *
+   * @param query The text to search for.
+   * @return The matching assets, in path order.
+   */
+  public Result search(String query) {
+    return search(query, null);
+  }
+
+  /**
+   * Finds the assets whose path contains a query, ignoring case. If the query contains the query of
+   * a previous result from this index, only the assets of that result are scanned.
+   *
+   * @param query The text to search for.
+   * @param previous A previous result to refine, or null to search all assets.
+   * @return The matching assets, in path order.
+   */
+  public Result search(String query, Result previous) {
+    if (query == null || query.trim().isEmpty()) {
+      int[] all = new int[size()];
+      Arrays.setAll(all, i -> i);
+      return new Result(this, new byte[0], all, all.length);
+    }
+    byte[] pattern = fold(query);
+    int anchor = rarestByte(pattern);
+    if (previous != null
+        && previous.index == this
+        && previous.pattern != null
+        && previous.count < size()
+        && ByteSearch.contains(pattern, previous.pattern)) {
+      return refine(pattern, anchor, previous);
+    }
+    return scan(pattern, anchor);
+  }
+
+  /**
+   * Wraps positions found by other means, such as an {@link AssetQuery}, as a result of this index.
+   * Such a result is never refined by a later path search.
+   *
+   * @param ids The positions of the matching assets, in ascending order.
+   * @param count The number of positions in the array that are used.
+   * @return The result.
+   */
+  Result resultOf(int[] ids, int count) {
+    return new Result(this, null, ids, count);
+  }
+
+  private Result scan(byte[] pattern, int anchor) {
+    IntStream blockNumbers = IntStream.range(0, blocks.length);
+    if (size() >= PARALLEL_SCAN_THRESHOLD) {
+      blockNumbers = blockNumbers.parallel();
+    }
+    int[][] matches =
+        blockNumbers
+            .mapToObj(b -> blocks[b].scan(pattern, anchor, blockStarts[b]))
+            .toArray(int[][]::new);
+    int count = 0;
+    for (int[] blockMatches : matches) {
+      count += blockMatches.length;
+    }
+    int[] ids = new int[count];
+    int position = 0;
+    for (int[] blockMatches : matches) {
+      System.arraycopy(blockMatches, 0, ids, position, blockMatches.length);
+      position += blockMatches.length;
+    }
+    return new Result(this, pattern, ids, count);
+  }
+
+  private Result refine(byte[] pattern, int anchor, Result previous) {
+    int[] ids = new int[previous.count];
+    int count = 0;
+    int b = 0;
+    for (int i = 0; i < previous.count; i++) {
+      int id = previous.ids[i];
+      // The previous matches are in path order, so the block only ever moves forward.
+      while (blockStarts[b + 1] <= id) {
+        b++;
+      }
+      if (blocks[b].matches(id - blockStarts[b], pattern, anchor)) {
+        ids[count++] = id;
+      }
+    }
+    return new Result(this, pattern, ids, count);
+  }
+
+  // Finds the block an asset belongs in: the last block that starts at or before it.
+  private int blockFor(UnityAsset asset) {
+    int low = 0;
+    int high = blocks.length - 1;
+    while (low < high) {
+      int middle = (low + high + 1) >>> 1;
+      if (BY_PATH.compare(blocks[middle].assets[0], asset) <= 0) {
+        low = middle;
+      } else {
+        high = middle - 1;
+      }
+    }
+    return low;
+  }
+
+  private int blockOf(int id) {
+    int found = Arrays.binarySearch(blockStarts, 0, blocks.length, id);
+    return found >= 0 ? found : -found - 2;
+  }
+
+  // Scanning for the least common byte of the query produces the fewest candidate positions.
+  private int rarestByte(byte[] pattern) {
+    int rarest = 0;
+    for (int i = 1; i < pattern.length; i++) {
+      if (byteCounts[pattern[i] & 0xFF] < byteCounts[pattern[rarest] & 0xFF]) {
+        rarest = i;
+      }
+    }
+    return rarest;
+  }
+
+  // Splits sorted assets into blocks. If their paths were already folded into a block that is being
+  // split, its bytes are reused and the byte counts are left as they are.
+  private static void addBlocks(
+      List<Block> blocks, UnityAsset[] sorted, int[] byteCounts, Block source) {
+    for (int from = 0; from < sorted.length; from += BLOCK_SIZE) {
+      int to = Math.min(from + BLOCK_SIZE, sorted.length);
+      // Keep a short remainder in the previous block rather than creating a tiny block.
+      if (sorted.length - to < BLOCK_SIZE / 2) {
+        to = sorted.length;
+      }
+      blocks.add(
+          source != null
+              ? source.slice(from, to)
+              : Block.of(Arrays.copyOfRange(sorted, from, to), byteCounts));
+      from = to - BLOCK_SIZE;
+    }
+  }
+
+  private static byte[] fold(String text) {
+    // Most paths are ASCII, which can be folded without creating an intermediate string.
+    byte[] bytes = new byte[text.length()];
+    for (int i = 0; i < bytes.length; i++) {
+      char c = text.charAt(i);
+      if (c >= 0x80) {
+        return text.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8);
+      }
+      bytes[i] = (byte) (c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c);
+    }
+    return bytes;
+  }
+
+  /** A run of consecutive assets with their folded paths packed into one byte array. */
+  private static final class Block {
+    private final UnityAsset[] assets;
+    private final byte[] folded;
+    // Start of each folded path in the byte array; offsets[assets.length] is the array length.
+    private final int[] offsets;
+
+    private Block(UnityAsset[] assets, byte[] folded, int[] offsets) {
+      this.assets = assets;
+      this.folded = folded;
+      this.offsets = offsets;
+    }
+
+    static Block of(UnityAsset[] assets, int[] byteCounts) {
+      byte[][] paths = new byte[assets.length][];
+      int length = 0;
+      for (int i = 0; i < assets.length; i++) {
+        paths[i] = fold(assets[i].assetPath());
+        length += paths[i].length + 1;
+      }
+      byte[] folded = new byte[length];
+      int[] offsets = new int[assets.length + 1];
+      int position = 0;
+      for (int i = 0; i < assets.length; i++) {
+        offsets[i] = position;
+        System.arraycopy(paths[i], 0, folded, position, paths[i].length);
+        position += paths[i].length;
+        folded[position++] = SEPARATOR;
+      }
+      offsets[assets.length] = position;
+      for (byte value : folded) {
+        byteCounts[value & 0xFF]++;
+      }
+      return new Block(assets, folded, offsets);
+    }
+
+    // Merges changes into a copy of this block. Kept paths are copied, not folded again.
+    Block withChanges(List<UnityAsset> removed, List<UnityAsset> added, int[] byteCounts) {
+      Set<UnityAsset> removedSet = Collections.newSetFromMap(new IdentityHashMap<>());
+      removedSet.addAll(removed);
+      UnityAsset[] newAssets = added.toArray(new UnityAsset[0]);
+      Arrays.sort(newAssets, BY_PATH);
+      byte[][] newPaths = new byte[newAssets.length][];
+      int length = folded.length;
+      for (int i = 0; i < newAssets.length; i++) {
+        newPaths[i] = fold(newAssets[i].assetPath());
+        length += newPaths[i].length + 1;
+      }
+      UnityAsset[] mergedAssets = new UnityAsset[assets.length + newAssets.length];
+      int[] mergedOffsets = new int[mergedAssets.length + 1];
+      byte[] mergedFolded = new byte[length];
+      int count = 0;
+      int position = 0;
+      int oldIndex = 0;
+      int newIndex = 0;
+      while (oldIndex < assets.length || newIndex < newAssets.length) {
+        if (oldIndex < assets.length && removedSet.contains(assets[oldIndex])) {
+          for (int i = offsets[oldIndex]; i < offsets[oldIndex + 1]; i++) {
+            byteCounts[folded[i] & 0xFF]--;
+          }
+          oldIndex++;
+          continue;
+        }
+        mergedOffsets[count] = position;
+        if (newIndex == newAssets.length
+            || (oldIndex < assets.length
+                && BY_PATH.compare(assets[oldIndex], newAssets[newIndex]) <= 0)) {
+          int pathLength = offsets[oldIndex + 1] - offsets[oldIndex];
+          System.arraycopy(folded, offsets[oldIndex], mergedFolded, position, pathLength);
+          position += pathLength;
+          mergedAssets[count++] = assets[oldIndex++];
+        } else {
+          byte[] path = newPaths[newIndex];
+          System.arraycopy(path, 0, mergedFolded, position, path.length);
+          position += path.length;
+          mergedFolded[position++] = SEPARATOR;
+          for (byte value : path) {
+            byteCounts[value & 0xFF]++;
+          }
+          byteCounts[SEPARATOR]++;
+          mergedAssets[count++] = newAssets[newIndex++];
+        }
+      }
+      mergedOffsets[count] = position;
+      return new Block(
+          Arrays.copyOf(mergedAssets, count),
+          Arrays.copyOf(mergedFolded, position),
+          Arrays.copyOf(mergedOffsets, count + 1));
+    }
+
+    Block slice(int from, int to) {
+      int[] sliceOffsets = new int[to - from + 1];
+      for (int i = 0; i < sliceOffsets.length; i++) {
+        sliceOffsets[i] = offsets[from + i] - offsets[from];
+      }
+      return new Block(
+          Arrays.copyOfRange(assets, from, to),
+          Arrays.copyOfRange(folded, offsets[from], offsets[to]),
+          sliceOffsets);
+    }
+
+    // Scans all paths of the block at once. After a match, the rest of that path is skipped.
+    int[] scan(byte[] pattern, int anchor, int firstId) {
+      byte anchorByte = pattern[anchor];
+      int[] ids = new int[assets.length];
+      int count = 0;
+      int i = 0;
+      int position = ByteSearch.indexOf(folded, anchor, folded.length, anchorByte);
+      while (position >= 0) {
+        while (offsets[i + 1] <= position) {
+          i++;
+        }
+        int start = position - anchor;
+        if (start >= offsets[i] && ByteSearch.matchesAt(folded, start, pattern)) {
+          ids[count++] = firstId + i;
+          position = offsets[++i];
+        } else {
+          position++;
+        }
+        position = ByteSearch.indexOf(folded, position, folded.length, anchorByte);
+      }
+      return Arrays.copyOf(ids, count);
+    }
+
+    boolean matches(int i, byte[] pattern, int anchor) {
+      byte anchorByte = pattern[anchor];
+      // The last possible match ends just before the separator.
+      int end = offsets[i + 1] - 1 - (pattern.length - 1 - anchor);
+      int position = ByteSearch.indexOf(folded, offsets[i] + anchor, end, anchorByte);
+      while (position >= 0) {
+        if (ByteSearch.matchesAt(folded, position - anchor, pattern)) {
+          return true;
+        }
+        position = ByteSearch.indexOf(folded, position + 1, end, anchorByte);
+      }
+      return false;
+    }
+  }
+
+  /** The assets found by a search of a {@link PathIndex}, in path order. */
+  public static final class Result {
+    private final PathIndex index;
+    private final byte[] pattern;
+    private final int[] ids;
+    private final int count;
+
+    private Result(PathIndex index, byte[] pattern, int[] ids, int count) {
+      this.index = index;
+      this.pattern = pattern;
+      this.ids = ids;
+      this.count = count;
+    }
+
+    /**
+     * Gets the index that was searched.
+     *
+     * @return The index.
+     */
+    public PathIndex index() {
+      return index;
+    }
+
+    /**
+     * Gets the number of matching assets.
+     *
+     * @return The number of matches.
+     */
+    public int size() {
+      return count;
+    }
+
+    /**
+     * Gets the position in the index of a matching asset.
+     *
+     * @param i The number of the match, from 0 to {@link #size()} - 1.
+     * @return The position of the asset in the index.
+     */
+    public int id(int i) {
+      return ids[i];
+    }
+
+    /**
+     * Gets the positions of the matching assets as a bit set, with one bit for each asset of the
+     * index.
+     *
+     * @return A new bit set of the matches.
+     */
+    public BitSet mask() {
+      BitSet mask = new BitSet(index.size());
+      for (int i = 0; i < count; i++) {
+        mask.set(ids[i]);
+      }
+      return mask;
+    }
+
+    /**
+     * Gets the matching assets as a list. The list is a view of this result; creating it is O(1).
+     *
+     * @return An unmodifiable list of the matching assets.
+     */
+    public List<UnityAsset> assets() {
+      return new AbstractList<>() {
+        @Override
+        public UnityAsset get(int i) {
+          if (i >= count) {
+            throw new IndexOutOfBoundsException(i);
+          }
+          return index.get(ids[i]);
+        }
+
+        @Override
+        public int size() {
+          return count;
+        }
+      };
+    }
+  }
+}
@@ -0,0 +1,351 @@
+package io.github.pixelclover.uview.core;
+
+import io.github.pixelclover.uview.model.UnityAsset;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * The references between the assets of a {@link PathIndex}. Unity's YAML assets, such as prefabs,
+ * scenes and materials, and the .meta files of all assets refer to other assets by writing {@code
+ * guid: } and their 32 hexadecimal digit GUID. The graph finds these references once, reading the
+ * assets in parallel, and keeps them both ways, from an asset to the assets it depends on and to
+ * the assets that use it. References to assets that are not in the package, such as Unity's
+ * built-in resources, are left out.
+ *
+ * <p>Both directions are stored as arrays of asset positions in the index, with one range of a
+ * shared array per asset, so even millions of references take little memory and are walked without
+ * allocation.
+ */
+public final class ReferenceGraph {
+
+  private static final byte[] GUID_KEY = "guid: ".getBytes(StandardCharsets.US_ASCII);
+  private static final int GUID_LENGTH = 32;
+  private static final int[] NONE = new int[0];
+
+  private final PathIndex index;
+  // The assets that asset i depends on are
+  // dependencies[dependencyStarts[i]..dependencyStarts[i+1]].
+  private final int[] dependencyStarts;
+  private final int[] dependencies;
+  // The same for the assets that use asset i.
+  private final int[] usageStarts;
+  private final int[] usages;
+
+  private ReferenceGraph(
+      PathIndex index,
+      int[] dependencyStarts,
+      int[] dependencies,
+      int[] usageStarts,
+      int[] usages) {
+    this.index = index;
+    this.dependencyStarts = dependencyStarts;
+    this.dependencies = dependencies;
+    this.usageStarts = usageStarts;
+    this.usages = usages;
+  }
+
+  /**
+   * Finds the references between the assets of a path index.
+   *
+   * @param index The path index.
+   * @return The new graph.
+   */
+  public static ReferenceGraph of(PathIndex index) {
+    int size = index.size();
+    GuidTable guids = new GuidTable(index);
+    int[][] targets = new int[size][];
+    IntStream.range(0, size)
+        .parallel()
+        .forEach(id -> targets[id] = referencesOf(index.get(id), id, guids));
+
+    int[] dependencyStarts = new int[size + 1];
+    for (int id = 0; id < size; id++) {
+      dependencyStarts[id + 1] = dependencyStarts[id] + targets[id].length;
+    }
+    int[] dependencies = new int[dependencyStarts[size]];
+    int[] usageStarts = new int[size + 1];
+    for (int id = 0; id < size; id++) {
+      System.arraycopy(targets[id], 0, dependencies, dependencyStarts[id], targets[id].length);
+      for (int target : targets[id]) {
+        usageStarts[target + 1]++;
+      }
+    }
+    for (int id = 0; id < size; id++) {
+      usageStarts[id + 1] += usageStarts[id];
+    }
+    // Filling the users in order of the using asset keeps each range in path order.
+    int[] usages = new int[dependencies.length];
+    int[] filled = Arrays.copyOf(usageStarts, size);
+    for (int id = 0; id < size; id++) {
+      for (int target : targets[id]) {
+        usages[filled[target]++] = id;
+      }
+    }
+    return new ReferenceGraph(index, dependencyStarts, dependencies, usageStarts, usages);
+  }
+
+  /**
+   * Gets the path index this graph was built for.
+   *
+   * @return The path index.
+   */
+  public PathIndex index() {
+    return index;
+  }
+
+  /**
+   * Gets the number of references between different assets of the package.
+   *
+   * @return The number of references.
+   */
+  public int referenceCount() {
+    return dependencies.length;
+  }
+
+  /**
+   * Gets the assets that an asset refers to directly.
+   *
+   * @param asset An asset of the index.
+   * @return The assets it depends on, in path order; empty if the asset is not in the index.
+   */
+  public List<UnityAsset> dependenciesOf(UnityAsset asset) {
+    int id = idOf(asset);
+    return id < 0
+        ? List.of()
+        : assets(dependencies, dependencyStarts[id], dependencyStarts[id + 1]);
+  }
+
+  /**
+   * Gets the assets that refer directly to an asset.
+   *
+   * @param asset An asset of the index.
+   * @return The assets that use it, in path order; empty if the asset is not in the index.
+   */
+  public List<UnityAsset> usagesOf(UnityAsset asset) {
+    int id = idOf(asset);
+    return id < 0 ? List.of() : assets(usages, usageStarts[id], usageStarts[id + 1]);
+  }
+
+  /**
+   * Gets some assets together with everything they depend on, directly or through other assets.
+   *
+   * @param assets Assets of the index; those that are not in it are left out.
+   * @return The assets and all their dependencies, each once, in path order.
+   */
+  public List<UnityAsset> withDependencies(Collection<UnityAsset> assets) {
+    BitSet found = new BitSet(index.size());
+    Deque<Integer> pending = new ArrayDeque<>();
+    for (UnityAsset asset : assets) {
+      int id = idOf(asset);
+      if (id >= 0 && !found.get(id)) {
+        found.set(id);
+        pending.push(id);
+      }
+    }
+    while (!pending.isEmpty()) {
+      int id = pending.pop();
+      for (int i = dependencyStarts[id]; i < dependencyStarts[id + 1]; i++) {
+        if (!found.get(dependencies[i])) {
+          found.set(dependencies[i]);
+          pending.push(dependencies[i]);
+        }
+      }
+    }
+    return assets(found.stream().toArray(), 0, found.cardinality());
+  }
+
+  private List<UnityAsset> assets(int[] ids, int from, int to) {
+    return new AbstractList<>() {
+      @Override
+      public UnityAsset get(int i) {
+        return index.get(ids[from + i]);
+      }
+
+      @Override
+      public int size() {
+        return to - from;
+      }
+    };
+  }
+
+  // The position of an asset in the index, or -1 if this exact asset is not in it.
+  private int idOf(UnityAsset asset) {
+    for (int id = index.lowerBound(asset.assetPath()); id < index.size(); id++) {
+      UnityAsset candidate = index.get(id);
+      if (!candidate.assetPath().equals(asset.assetPath())) {
+        break;
+      }
+      if (candidate.guid().equals(asset.guid())) {
+        return id;
+      }
+    }
+    return -1;
+  }
+
+  // The distinct assets, other than the asset itself, whose GUIDs the asset or its meta file name.
+  private static int[] referencesOf(UnityAsset asset, int self, GuidTable guids) {
+    IntList found = new IntList();
+    if (AssetTypes.isUnityYaml(asset)) {
+      collect(asset.contentBuffer(), guids, found);
+    }
+    ByteBuffer meta = asset.metaBuffer();
+    if (meta != null) {
+      collect(meta, guids, found);
+    }
+    if (found.size == 0) {
+      return NONE;
+    }
+    int[] ids = Arrays.copyOf(found.values, found.size);
+    Arrays.sort(ids);
+    int distinct = 0;
+    for (int i = 0; i < ids.length; i++) {
+      if (ids[i] != self && (distinct == 0 || ids[distinct - 1] != ids[i])) {
+        ids[distinct++] = ids[i];
+      }
+    }
+    return distinct == ids.length ? ids : Arrays.copyOf(ids, distinct);
+  }
+
+  private static void collect(ByteBuffer data, GuidTable guids, IntList found) {
+    int length = data.limit();
+    int position = ByteSearch.indexOf(data, 0, length, GUID_KEY, false);
+    while (position >= 0) {
+      int start = position + GUID_KEY.length;
+      int id = guids.lookup(data, start, length);
+      if (id >= 0) {
+        found.add(id);
+      }
+      position = ByteSearch.indexOf(data, start, length, GUID_KEY, false);
+    }
+  }
+
+  // The value of a hexadecimal digit, or -1 if the byte is not one.
+  private static int hexValue(int value) {
+    if (value >= '0' && value <= '9') {
+      return value - '0';
+    }
+    if (value >= 'a' && value <= 'f') {
+      return value - 'a' + 10;
+    }
+    if (value >= 'A' && value <= 'F') {
+      return value - 'A' + 10;
+    }
+    return -1;
+  }
+
+  /**
+   * The GUIDs of the assets of an index as pairs of longs in ascending order, so that a GUID read
+   * from content is looked up without creating a string.
+   */
+  private static final class GuidTable {
+    private final long[] highs;
+    private final long[] lows;
+    private final int[] ids;
+
+    GuidTable(PathIndex index) {
+      int size = index.size();
+      long[] highOf = new long[size];
+      long[] lowOf = new long[size];
+      boolean[] valid = new boolean[size];
+      IntStream.range(0, size)
+          .parallel()
+          .forEach(
+              id -> {
+                ByteBuffer guid =
+                    ByteBuffer.wrap(index.get(id).guid().getBytes(StandardCharsets.US_ASCII));
+                if (guid.limit() == GUID_LENGTH && isHex(guid, 0) && isHex(guid, GUID_LENGTH / 2)) {
+                  valid[id] = true;
+                  highOf[id] = half(guid, 0);
+                  lowOf[id] = half(guid, GUID_LENGTH / 2);
+                }
+              });
+      ids =
+          IntStream.range(0, size)
+              .filter(id -> valid[id])
+              .boxed()
+              .sorted(
+                  Comparator.comparingLong((Integer id) -> highOf[id])
+                      .thenComparingLong(id -> lowOf[id]))
+              .mapToInt(Integer::intValue)
+              .toArray();
+      highs = new long[ids.length];
+      lows = new long[ids.length];
+      for (int i = 0; i < ids.length; i++) {
+        highs[i] = highOf[ids[i]];
+        lows[i] = lowOf[ids[i]];
+      }
+    }
+
+    // The position of the asset whose GUID starts at an offset of the data, or -1 if there is no
+    // complete GUID there or no asset has it. Of two assets with the same GUID, either is returned.
+    int lookup(ByteBuffer data, int offset, int limit) {
+      if (offset + GUID_LENGTH > limit
+          || !isHex(data, offset)
+          || !isHex(data, offset + GUID_LENGTH / 2)
+          || (offset + GUID_LENGTH < limit && hexValue(data.get(offset + GUID_LENGTH)) >= 0)) {
+        return -1;
+      }
+      long high = half(data, offset);
+      long low = half(data, offset + GUID_LENGTH / 2);
+      int lo = 0;
+      int hi = ids.length;
+      while (lo < hi) {
+        int mid = (lo + hi) >>> 1;
+        int order = Long.compare(highs[mid], high);
+        if (order == 0) {
+          order = Long.compare(lows[mid], low);
+        }
+        if (order == 0) {
+          return ids[mid];
+        }
+        if (order < 0) {
+          lo = mid + 1;
+        } else {
+          hi = mid;
+        }
+      }
+      return -1;
+    }
+
+    // Whether the 16 bytes at an offset are all hexadecimal digits.
+    private static boolean isHex(ByteBuffer data, int offset) {
+      for (int i = offset; i < offset + GUID_LENGTH / 2; i++) {
+        if (hexValue(data.get(i)) < 0) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    // The value of the 16 hexadecimal digits at an offset.
+    private static long half(ByteBuffer data, int offset) {
+      long value = 0;
+      for (int i = offset; i < offset + GUID_LENGTH / 2; i++) {
+        value = value << 4 | hexValue(data.get(i));
+      }
+      return value;
+    }
+  }
+
+  /** A growable list of ints. */
+  private static final class IntList {
+    private int[] values = new int[16];
+    private int size;
+
+    void add(int value) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = value;
+    }
+  }
+}
@@ -0,0 +1,489 @@
+package io.github.pixelclover.uview.core;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The outline of a Unity YAML file, such as a scene or a prefab: its documents, each of which
+ * starts with a {@code --- !u!<classID> &<fileID>} line, and the hierarchy of GameObjects with
+ * their components that the documents describe. The content is read once, line by line and without
+ * decoding it, to find where each document starts and the few fields the hierarchy needs: {@code
+ * m_Name}, the {@code m_GameObject} a component belongs to and the {@code m_Father} of a transform.
+ * Everything else, including the names and text of the documents, is decoded only when asked for,
+ * so even a scene of hundreds of megabytes can be outlined without holding its text.
+ *
+ * <p>Documents are numbered in file order. The outline refers to them, and to the GameObjects they
+ * describe, by these numbers.
+ */
+public final class SceneOutline {
+
+  private static final byte[] NEWLINE = {'\n'};
+  private static final byte[] DOCUMENT_START = ascii("--- !u!");
+  private static final byte[] NAME_KEY = ascii("  m_Name: ");
+  private static final byte[] GAME_OBJECT_KEY = ascii("  m_GameObject: {fileID: ");
+  private static final byte[] FATHER_KEY = ascii("  m_Father: {fileID: ");
+  private static final int GAME_OBJECT_CLASS_ID = 1;
+  private static final int[] NONE = new int[0];
+
+  private final ByteBuffer content;
+  private final int count;
+  private final int[] starts;
+  private final int[] classIds;
+  private final long[] fileIds;
+  // The line that names the type of each document, e.g. "GameObject:", and the value of its m_Name,
+  // as ranges of the content; -1 if the document has none.
+  private final int[] typeStarts;
+  private final int[] typeEnds;
+  private final int[] nameStarts;
+  private final int[] nameEnds;
+  private final FileIdTable documentsById;
+  // The document of the GameObject that each document belongs to, and of the parent of each
+  // GameObject, or -1.
+  private final int[] owners;
+  private final int[] parents;
+  // The documents shown at the top level and under each document, as ranges of one array.
+  private final int[] roots;
+  private final int[] childStarts;
+  private final int[] children;
+  // The position of each document among the top level or the documents under its GameObject.
+  private final int[] indexesInParent;
+
+  private SceneOutline(Parser parser) {
+    content = parser.content;
+    count = parser.count;
+    // One more start, at the end of the content, gives the end of the last document.
+    starts = Arrays.copyOf(parser.starts, count + 1);
+    starts[count] = content.limit();
+    classIds = Arrays.copyOf(parser.classIds, count);
+    fileIds = Arrays.copyOf(parser.fileIds, count);
+    typeStarts = Arrays.copyOf(parser.typeStarts, count);
+    typeEnds = Arrays.copyOf(parser.typeEnds, count);
+    nameStarts = Arrays.copyOf(parser.nameStarts, count);
+    nameEnds = Arrays.copyOf(parser.nameEnds, count);
+
+    documentsById = new FileIdTable(fileIds);
+    owners = new int[count];
+    for (int doc = 0; doc < count; doc++) {
+      int owner = documentsById.find(parser.gameObjectIds[doc]);
+      owners[doc] = owner >= 0 && classIds[owner] == GAME_OBJECT_CLASS_ID ? owner : -1;
+    }
+    // A GameObject's parent is the GameObject of the father of its transform.
+    parents = new int[count];
+    Arrays.fill(parents, -1);
+    for (int doc = 0; doc < count; doc++) {
+      int father = documentsById.find(parser.fatherIds[doc]);
+      if (owners[doc] >= 0 && father >= 0 && owners[father] >= 0) {
+        parents[owners[doc]] = owners[father];
+      }
+    }
+    // Under a GameObject come its components, then its child GameObjects, each in file order.
+    int[] childCounts = new int[count + 1];
+    int rootCount = 0;
+    for (int doc = 0; doc < count; doc++) {
+      int parent = parent(doc);
+      if (parent >= 0) {
+        childCounts[parent + 1]++;
+      } else {
+        rootCount++;
+      }
+    }
+    childStarts = new int[count + 1];
+    for (int doc = 0; doc < count; doc++) {
+      childStarts[doc + 1] = childStarts[doc] + childCounts[doc + 1];
+    }
+    children = new int[childStarts[count]];
+    roots = new int[rootCount];
+    indexesInParent = new int[count];
+    int[] filled = Arrays.copyOf(childStarts, count);
+    int rootsFilled = 0;
+    for (boolean components : new boolean[] {true, false}) {
+      for (int doc = 0; doc < count; doc++) {
+        if (isGameObject(doc) == components) {
+          continue;
+        }
+        int parent = parent(doc);
+        if (parent >= 0) {
+          indexesInParent[doc] = filled[parent] - childStarts[parent];
+          children[filled[parent]++] = doc;
+        } else if (!components) {
+          indexesInParent[doc] = rootsFilled;
+          roots[rootsFilled++] = doc;
+        }
+      }
+    }
+    // Documents outside the hierarchy, such as the settings of a scene, come after the GameObjects.
+    for (int doc = 0; doc < count; doc++) {
+      if (!isGameObject(doc) && owners[doc] < 0) {
+        indexesInParent[doc] = rootsFilled;
+        roots[rootsFilled++] = doc;
+      }
+    }
+  }
+
+  /**
+   * Reads the outline of a Unity YAML file.
+   *
+   * @param content The content of the file. Its position and limit are ignored; the outline reads
+   *     from index 0 to the capacity, and keeps the buffer to decode names and documents later.
+   * @return The outline.
+   */
+  public static SceneOutline parse(ByteBuffer content) {
+    Parser parser = new Parser(content.duplicate().clear());
+    parser.run();
+    return new SceneOutline(parser);
+  }
+
+  /**
+   * Gets the number of documents.
+   *
+   * @return The number of documents.
+   */
+  public int size() {
+    return count;
+  }
+
+  /**
+   * Gets the Unity class ID of a document, e.g. 1 for a GameObject or 4 for a Transform.
+   *
+   * @param doc The number of the document.
+   * @return The class ID.
+   */
+  public int classId(int doc) {
+    return classIds[doc];
+  }
+
+  /**
+   * Gets the file ID of a document, by which other documents refer to it.
+   *
+   * @param doc The number of the document.
+   * @return The file ID.
+   */
+  public long fileId(int doc) {
+    return fileIds[doc];
+  }
+
+  /**
+   * Gets the position in the content where a document starts, at its {@code ---} line.
+   *
+   * @param doc The number of the document.
+   * @return The offset in bytes.
+   */
+  public int start(int doc) {
+    return starts[doc];
+  }
+
+  /**
+   * Gets the position in the content where a document ends, at the start of the next one.
+   *
+   * @param doc The number of the document.
+   * @return The offset in bytes, exclusive.
+   */
+  public int end(int doc) {
+    return starts[doc + 1];
+  }
+
+  /**
+   * Checks whether a document describes a GameObject.
+   *
+   * @param doc The number of the document.
+   * @return {@code true} for a GameObject.
+   */
+  public boolean isGameObject(int doc) {
+    return classIds[doc] == GAME_OBJECT_CLASS_ID;
+  }
+
+  /**
+   * Gets the type of a document, as named by its first line, e.g. {@code MonoBehaviour}.
+   *
+   * @param doc The number of the document.
+   * @return The type name, or {@code "!u!<classID>"} if the document does not name it.
+   */
+  public String typeName(int doc) {
+    if (typeStarts[doc] < 0) {
+      return "!u!" + classIds[doc];
+    }
+    return decode(typeStarts[doc], typeEnds[doc]);
+  }
+
+  /**
+   * Gets the {@code m_Name} of a document.
+   *
+   * @param doc The number of the document.
+   * @return The name, or an empty string if it has none.
+   */
+  public String name(int doc) {
+    return nameStarts[doc] < 0 ? "" : decode(nameStarts[doc], nameEnds[doc]);
+  }
+
+  /**
+   * Gets the text of a document, from its {@code ---} line up to the next document.
+   *
+   * @param doc The number of the document.
+   * @return The text.
+   */
+  public String text(int doc) {
+    return decode(start(doc), end(doc));
+  }
+
+  /**
+   * Gets the GameObject a component belongs to.
+   *
+   * @param doc The number of the document.
+   * @return The number of the GameObject's document, or -1 if the document is not a component of a
+   *     GameObject in this file.
+   */
+  public int owner(int doc) {
+    return owners[doc];
+  }
+
+  /**
+   * Gets the documents at the top level of the outline: the GameObjects without a parent, then the
+   * documents that are not part of a GameObject.
+   *
+   * @return The numbers of the documents; the array must not be changed.
+   */
+  public int[] roots() {
+    return roots;
+  }
+
+  /**
+   * Gets the documents under a GameObject in the outline: its components, then its children.
+   *
+   * @param doc The number of the document.
+   * @return The numbers of the documents, empty for documents that are not GameObjects; the array
+   *     is a copy.
+   */
+  public int[] children(int doc) {
+    int from = childStarts[doc];
+    int to = childStarts[doc + 1];
+    return from == to ? NONE : Arrays.copyOfRange(children, from, to);
+  }
+
+  /**
+   * Gets the number of documents under a GameObject in the outline.
+   *
+   * @param doc The number of the document.
+   * @return The number of components and child GameObjects.
+   */
+  public int childCount(int doc) {
+    return childStarts[doc + 1] - childStarts[doc];
+  }
+
+  /**
+   * Gets a document under a GameObject in the outline.
+   *
+   * @param doc The number of the GameObject's document.
+   * @param index The position among its components and children.
+   * @return The number of the document at that position.
+   */
+  public int child(int doc, int index) {
+    return children[childStarts[doc] + index];
+  }
+
+  /**
+   * Gets the position of a document in the outline, among the documents under its GameObject or, if
+   * it has none, among the top level.
+   *
+   * @param doc The number of the document.
+   * @return The index of the document in {@link #children} of its {@link #parent}, or in {@link
+   *     #roots}.
+   */
+  public int indexInParent(int doc) {
+    return indexesInParent[doc];
+  }
+
+  /**
+   * Gets the GameObject a document is shown under in the outline: the parent of a GameObject, or
+   * the GameObject a component belongs to.
+   *
+   * @param doc The number of the document.
+   * @return The number of the GameObject's document, or -1 if the document is at the top level.
+   */
+  public int parent(int doc) {
+    return isGameObject(doc) ? parents[doc] : owners[doc];
+  }
+
+  /**
+   * Finds a document by its file ID.
+   *
+   * @param fileId The file ID.
+   * @return The number of the first document with that file ID, or -1 if there is none.
+   */
+  public int documentOf(long fileId) {
+    return documentsById.find(fileId);
+  }
+
+  private String decode(int from, int to) {
+    byte[] bytes = new byte[to - from];
+    content.get(from, bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static byte[] ascii(String text) {
+    return text.getBytes(StandardCharsets.US_ASCII);
+  }
+
+  /**
+   * The documents by file ID, in an open addressing hash table, so that the many references of a
+   * large file are resolved without boxing. File ID 0, which means "none" in Unity, is never found.
+   */
+  private static final class FileIdTable {
+    private final long[] keys;
+    private final int[] documents;
+    private final int mask;
+
+    FileIdTable(long[] fileIds) {
+      int capacity = Integer.highestOneBit(Math.max(fileIds.length, 1) * 2 + 1) * 2;
+      keys = new long[capacity];
+      documents = new int[capacity];
+      mask = capacity - 1;
+      for (int doc = 0; doc < fileIds.length; doc++) {
+        long fileId = fileIds[doc];
+        if (fileId == 0) {
+          continue;
+        }
+        int slot = slot(fileId);
+        while (keys[slot] != 0 && keys[slot] != fileId) {
+          slot = (slot + 1) & mask;
+        }
+        // Of two documents with the same file ID, the first one is kept.
+        if (keys[slot] == 0) {
+          keys[slot] = fileId;
+          documents[slot] = doc;
+        }
+      }
+    }
+
+    // The document with a file ID, or -1 if there is none.
+    int find(long fileId) {
+      if (fileId == 0) {
+        return -1;
+      }
+      for (int slot = slot(fileId); keys[slot] != 0; slot = (slot + 1) & mask) {
+        if (keys[slot] == fileId) {
+          return documents[slot];
+        }
+      }
+      return -1;
+    }
+
+    private int slot(long fileId) {
+      return (int) ((fileId * 0x9E3779B97F4A7C15L) >>> 33) & mask;
+    }
+  }
+
+  /** Reads the content line by line and collects the fields of each document. */
+  private static final class Parser {
+    private final ByteBuffer content;
+    private int count;
+    private int[] starts = new int[64];
+    private int[] classIds = new int[64];
+    private long[] fileIds = new long[64];
+    private int[] typeStarts = new int[64];
+    private int[] typeEnds = new int[64];
+    private int[] nameStarts = new int[64];
+    private int[] nameEnds = new int[64];
+    private long[] gameObjectIds = new long[64];
+    private long[] fatherIds = new long[64];
+
+    Parser(ByteBuffer content) {
+      this.content = content;
+    }
+
+    void run() {
+      int length = content.limit();
+      int lineStart = 0;
+      while (lineStart < length) {
+        int lineEnd = ByteSearch.indexOf(content, lineStart, length, NEWLINE, false);
+        if (lineEnd < 0) {
+          lineEnd = length;
+        }
+        int end = lineEnd > lineStart && content.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+        if (startsWith(lineStart, end, DOCUMENT_START)) {
+          startDocument(lineStart, end);
+        } else if (count > 0) {
+          readField(lineStart, end);
+        }
+        lineStart = lineEnd + 1;
+      }
+    }
+
+    private void startDocument(int lineStart, int lineEnd) {
+      if (count == classIds.length) {
+        grow();
+      }
+      int doc = count++;
+      starts[doc] = lineStart;
+      int position = lineStart + DOCUMENT_START.length;
+      long classId = 0;
+      while (position < lineEnd && isDigit(content.get(position))) {
+        classId = classId * 10 + (content.get(position++) - '0');
+      }
+      classIds[doc] = (int) classId;
+      while (position < lineEnd && content.get(position) != '&') {
+        position++;
+      }
+      fileIds[doc] = parseLong(position + 1, lineEnd);
+      typeStarts[doc] = -1;
+      nameStarts[doc] = -1;
+    }
+
+    private void readField(int lineStart, int lineEnd) {
+      int doc = count - 1;
+      if (typeStarts[doc] < 0) {
+        if (lineEnd > lineStart && content.get(lineStart) != ' ' && content.get(lineStart) != '%') {
+          typeStarts[doc] = lineStart;
+          typeEnds[doc] = content.get(lineEnd - 1) == ':' ? lineEnd - 1 : lineEnd;
+        }
+      } else if (nameStarts[doc] < 0 && startsWith(lineStart, lineEnd, NAME_KEY)) {
+        nameStarts[doc] = lineStart + NAME_KEY.length;
+        nameEnds[doc] = lineEnd;
+      } else if (gameObjectIds[doc] == 0 && startsWith(lineStart, lineEnd, GAME_OBJECT_KEY)) {
+        gameObjectIds[doc] = parseLong(lineStart + GAME_OBJECT_KEY.length, lineEnd);
+      } else if (fatherIds[doc] == 0 && startsWith(lineStart, lineEnd, FATHER_KEY)) {
+        fatherIds[doc] = parseLong(lineStart + FATHER_KEY.length, lineEnd);
+      }
+    }
+
+    private boolean startsWith(int from, int to, byte[] prefix) {
+      if (to - from < prefix.length) {
+        return false;
+      }
+      for (int i = 0; i < prefix.length; i++) {
+        if (content.get(from + i) != prefix[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    // Reads an optionally negative decimal number, or 0 if there is none.
+    private long parseLong(int from, int to) {
+      boolean negative = from < to && content.get(from) == '-';
+      int position = negative ? from + 1 : from;
+      long value = 0;
+      while (position < to && isDigit(content.get(position))) {
+        value = value * 10 + (content.get(position++) - '0');
+      }
+      return negative ? -value : value;
+    }
+
+    private static boolean isDigit(byte value) {
+      return value >= '0' && value <= '9';
+    }
+
+    private void grow() {
+      int capacity = starts.length * 2;
+      starts = Arrays.copyOf(starts, capacity);
+      classIds = Arrays.copyOf(classIds, capacity);
+      fileIds = Arrays.copyOf(fileIds, capacity);
+      typeStarts = Arrays.copyOf(typeStarts, capacity);
+      typeEnds = Arrays.copyOf(typeEnds, capacity);
+      nameStarts = Arrays.copyOf(nameStarts, capacity);
+      nameEnds = Arrays.copyOf(nameEnds, capacity);
+      gameObjectIds = Arrays.copyOf(gameObjectIds, capacity);
+      fatherIds = Arrays.copyOf(fatherIds, capacity);
+    }
+  }
+}
@@ -3,6 +3,7 @@ package io.github.pixelclover.uview.core;
 import io.github.pixelclover.uview.App;
 import java.awt.Font;
 import java.io.File;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.prefs.Preferences;
@@ -134,6 +135,15 @@ public class SettingsManager {
     }
   }
 
+  /**
+   * Gets the directory where journals of unsaved package edits are kept for crash recovery.
+   *
+   * @return The journal directory inside the user's home directory.
+   */
+  public Path getJournalDirectory() {
+    return Path.of(System.getProperty("user.home"), ".uview", "journal");
+  }
+
   /**
    * Gets the list of recently opened package files.
    *
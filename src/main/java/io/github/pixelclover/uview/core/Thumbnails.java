@@ -0,0 +1,62 @@
+package io.github.pixelclover.uview.core;
+
+import io.github.pixelclover.uview.model.UnityAsset;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Makes the small images that stand for assets in a thumbnail grid. The preview that Unity stored
+ * with an asset is used if there is one; otherwise an image asset is decoded with {@link
+ * ImageDecoder} at the lowest resolution that still fills the thumbnail, and scaled down from
+ * there.
+ */
+public final class Thumbnails {
+
+  private Thumbnails() {}
+
+  /**
+   * Makes the thumbnail of an asset. This decodes an image, so call it off the event dispatch
+   * thread.
+   *
+   * @param asset The asset.
+   * @param size The width and height of the square the thumbnail must fit in.
+   * @return The thumbnail, at most {@code size} pixels wide and high, or null if the asset has no
+   *     preview and is not an image.
+   * @throws IOException if the preview or the image cannot be decoded.
+   */
+  public static BufferedImage of(UnityAsset asset, int size) throws IOException {
+    ByteBuffer content;
+    if (asset.hasPreview()) {
+      content = ByteBuffer.wrap(asset.previewContent());
+    } else if (AssetTypes.isImage(asset)) {
+      content = asset.contentBuffer();
+    } else {
+      return null;
+    }
+    ImageDecoder decoder = ImageDecoder.open(content);
+    BufferedImage image =
+        decoder.read(ImageDecoder.subsamplingFor(decoder.width(), decoder.height(), size, size));
+    return scaleToFit(image, size);
+  }
+
+  // Scales an image down to fit a square, in a format that is quick to paint. The image is at most
+  // twice the size of the square after subsampling, so one bilinear step loses little detail.
+  private static BufferedImage scaleToFit(BufferedImage image, int size) {
+    double scale = Math.min(1, (double) size / Math.max(image.getWidth(), image.getHeight()));
+    int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+    int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+    BufferedImage thumbnail = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+    Graphics2D g = thumbnail.createGraphics();
+    try {
+      g.setRenderingHint(
+          RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+      g.drawImage(image, 0, 0, width, height, null);
+    } finally {
+      g.dispose();
+    }
+    return thumbnail;
+  }
+}
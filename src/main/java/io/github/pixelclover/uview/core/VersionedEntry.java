@@ -0,0 +1,73 @@
+package io.github.pixelclover.uview.core;
+
+import io.github.pixelclover.uview.model.UnityAsset;
+import java.lang.ref.WeakReference;
+
+/**
+ * A value made from one version of an asset, for the caches that keep such values by GUID, like
+ * thumbnails or image headers. An entry made from an older version of an asset does not match the
+ * current one, so the cache makes it again. The asset is only weakly held, so that a cache does not
+ * keep the content of closed packages, or of removed and edited assets, in memory.
+ *
+ * @param <V> The type of the value.
+ */
+public final class VersionedEntry<V> {
+
+  // What an entry takes in a cache besides its value, roughly its own size.
+  private static final long ENTRY_BYTES = 64;
+
+  private final WeakReference<UnityAsset> asset;
+  private final V value;
+  private final long bytes;
+
+  /**
+   * Constructs an entry for a cache that does not count the size of its values.
+   *
+   * @param asset The version of the asset the value was made from.
+   * @param value The value, or null if the asset has none.
+   */
+  public VersionedEntry(UnityAsset asset, V value) {
+    this(asset, value, 0);
+  }
+
+  /**
+   * Constructs an entry.
+   *
+   * @param asset The version of the asset the value was made from.
+   * @param value The value, or null if the asset has none.
+   * @param valueBytes How many bytes the value takes.
+   */
+  public VersionedEntry(UnityAsset asset, V value, long valueBytes) {
+    this.asset = new WeakReference<>(asset);
+    this.value = value;
+    this.bytes = valueBytes + ENTRY_BYTES;
+  }
+
+  /**
+   * Tells whether the entry was made from a version of an asset.
+   *
+   * @param version The version of the asset.
+   * @return True if the value was made from that very version.
+   */
+  public boolean isOf(UnityAsset version) {
+    return asset.get() == version;
+  }
+
+  /**
+   * Gets the value the entry was made with.
+   *
+   * @return The value, or null if the asset has none.
+   */
+  public V value() {
+    return value;
+  }
+
+  /**
+   * Gets how many bytes the entry takes in a cache, its value included.
+   *
+   * @return The size in bytes.
+   */
+  public long bytes() {
+    return bytes;
+  }
+}
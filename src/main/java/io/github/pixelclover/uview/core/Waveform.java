@@ -0,0 +1,194 @@
+package io.github.pixelclover.uview.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * An overview of the loudness of an audio file over time: the lowest and highest sample of each
+ * short stretch, or bucket, of the audio. It is made in one pass over the decoded audio, which is
+ * not kept, and takes about a kilobyte per second of audio. The buckets are also merged into
+ * coarser levels, so that drawing the overview at any width only reads a few buckets per column.
+ */
+public final class Waveform {
+
+  // The number of sample frames of a bucket of the finest level.
+  private static final int BUCKET_FRAMES = 128;
+  // The number of buckets of a level merged into one of the next coarser level.
+  private static final int LEVEL_FACTOR = 4;
+  // Levels are made until one has no more buckets than this.
+  private static final int COARSEST_BUCKETS = 256;
+
+  private final long frameCount;
+  private final float sampleRate;
+  // The lowest and highest sample of each bucket, as the high byte of a 16-bit sample, by level
+  // from the finest.
+  private final List<byte[]> minimums;
+  private final List<byte[]> maximums;
+
+  private Waveform(
+      long frameCount, float sampleRate, List<byte[]> minimums, List<byte[]> maximums) {
+    this.frameCount = frameCount;
+    this.sampleRate = sampleRate;
+    this.minimums = minimums;
+    this.maximums = maximums;
+  }
+
+  /**
+   * Makes the waveform of an audio file by decoding it.
+   *
+   * @param content A WAV, MP3 or Ogg Vorbis file, from index 0 to its limit.
+   * @return The waveform.
+   * @throws UnsupportedAudioFileException if the file is not in a known format.
+   * @throws IOException if the file cannot be decoded.
+   */
+  public static Waveform of(ByteBuffer content) throws UnsupportedAudioFileException, IOException {
+    try (AudioInputStream stream = AudioDecoder.open(content)) {
+      int channels = stream.getFormat().getChannels();
+      int frameSize = stream.getFormat().getFrameSize();
+      byte[] chunk = new byte[4096 * frameSize];
+      byte[] minimum = new byte[1024];
+      byte[] maximum = new byte[1024];
+      int buckets = 0;
+      long frame = 0;
+      int low = Short.MAX_VALUE;
+      int high = Short.MIN_VALUE;
+      int count;
+      while ((count = stream.readNBytes(chunk, 0, chunk.length)) > 0) {
+        // Whole frames of little-endian 16-bit samples, of all channels alike.
+        for (int i = 0; i + frameSize <= count; i += frameSize) {
+          for (int c = 0; c < channels; c++) {
+            int sample = (chunk[i + 2 * c + 1] << 8) | (chunk[i + 2 * c] & 0xFF);
+            low = Math.min(low, sample);
+            high = Math.max(high, sample);
+          }
+          frame++;
+          if (frame % BUCKET_FRAMES == 0) {
+            if (buckets == minimum.length) {
+              minimum = Arrays.copyOf(minimum, buckets * 2);
+              maximum = Arrays.copyOf(maximum, buckets * 2);
+            }
+            minimum[buckets] = (byte) (low >> 8);
+            maximum[buckets] = (byte) (high >> 8);
+            buckets++;
+            low = Short.MAX_VALUE;
+            high = Short.MIN_VALUE;
+          }
+        }
+      }
+      if (frame % BUCKET_FRAMES != 0) {
+        // The last, shorter bucket.
+        minimum = Arrays.copyOf(minimum, buckets + 1);
+        maximum = Arrays.copyOf(maximum, buckets + 1);
+        minimum[buckets] = (byte) (low >> 8);
+        maximum[buckets] = (byte) (high >> 8);
+        buckets++;
+      }
+
+      List<byte[]> minimums = new ArrayList<>();
+      List<byte[]> maximums = new ArrayList<>();
+      minimums.add(Arrays.copyOf(minimum, buckets));
+      maximums.add(Arrays.copyOf(maximum, buckets));
+      while (buckets > COARSEST_BUCKETS) {
+        byte[] finerMinimum = minimums.get(minimums.size() - 1);
+        byte[] finerMaximum = maximums.get(maximums.size() - 1);
+        buckets = (buckets + LEVEL_FACTOR - 1) / LEVEL_FACTOR;
+        byte[] coarserMinimum = new byte[buckets];
+        byte[] coarserMaximum = new byte[buckets];
+        for (int b = 0; b < buckets; b++) {
+          int from = b * LEVEL_FACTOR;
+          int to = Math.min(from + LEVEL_FACTOR, finerMinimum.length);
+          coarserMinimum[b] = min(finerMinimum, from, to);
+          coarserMaximum[b] = max(finerMaximum, from, to);
+        }
+        minimums.add(coarserMinimum);
+        maximums.add(coarserMaximum);
+      }
+      return new Waveform(frame, stream.getFormat().getSampleRate(), minimums, maximums);
+    }
+  }
+
+  /**
+   * Gets the length of the audio the waveform was made from.
+   *
+   * @return The number of sample frames of the audio.
+   */
+  public long frameCount() {
+    return frameCount;
+  }
+
+  /**
+   * Gets the sample rate of the audio the waveform was made from.
+   *
+   * @return The number of sample frames per second.
+   */
+  public float sampleRate() {
+    return sampleRate;
+  }
+
+  /**
+   * Gets how much memory the waveform takes, for sizing caches.
+   *
+   * @return The number of bytes of its buckets.
+   */
+  public long bytes() {
+    long bytes = 0;
+    for (byte[] level : minimums) {
+      bytes += 2L * level.length;
+    }
+    return bytes;
+  }
+
+  /**
+   * Gets the lowest and highest sample of each of a number of equal stretches of the whole audio,
+   * such as the columns of pixels the waveform is drawn in. They are read from the coarsest level
+   * that still has a bucket for every stretch.
+   *
+   * @param minimum Receives the lowest sample of each stretch, from -1 to 1; its length is the
+   *     number of stretches.
+   * @param maximum Receives the highest sample of each stretch, from -1 to 1; at least as long as
+   *     {@code minimum}.
+   */
+  public void peaks(float[] minimum, float[] maximum) {
+    int columns = minimum.length;
+    int level = minimums.size() - 1;
+    while (level > 0 && minimums.get(level).length < columns) {
+      level--;
+    }
+    byte[] levelMinimum = minimums.get(level);
+    byte[] levelMaximum = maximums.get(level);
+    int buckets = levelMinimum.length;
+    for (int c = 0; c < columns; c++) {
+      if (buckets == 0) {
+        minimum[c] = 0;
+        maximum[c] = 0;
+        continue;
+      }
+      // Audio shorter than a bucket per column repeats buckets over several columns.
+      int from = (int) ((long) c * buckets / columns);
+      int to = Math.max(from + 1, (int) ((long) (c + 1) * buckets / columns));
+      minimum[c] = min(levelMinimum, from, to) / 128f;
+      maximum[c] = max(levelMaximum, from, to) / 128f;
+    }
+  }
+
+  private static byte min(byte[] values, int from, int to) {
+    byte result = Byte.MAX_VALUE;
+    for (int i = from; i < to; i++) {
+      result = (byte) Math.min(result, values[i]);
+    }
+    return result;
+  }
+
+  private static byte max(byte[] values, int from, int to) {
+    byte result = Byte.MIN_VALUE;
+    for (int i = from; i < to; i++) {
+      result = (byte) Math.max(result, values[i]);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,130 @@
+package io.github.pixelclover.uview.gui;
+
+import io.github.pixelclover.uview.model.UnityAsset;
+import java.awt.BorderLayout;
+import java.awt.Component;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+import java.util.function.Consumer;
+import javax.swing.AbstractAction;
+import javax.swing.BorderFactory;
+import javax.swing.DefaultListCellRenderer;
+import javax.swing.JComponent;
+import javax.swing.JDialog;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JScrollPane;
+import javax.swing.KeyStroke;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingUtilities;
+
+/**
+ * A dialog that lists some assets, such as the usages of an asset, and opens the one the user
+ * chooses.
+ */
+public class AssetListDialog extends JDialog {
+
+  private final JList<UnityAsset> assetList;
+  private final Consumer<UnityAsset> onOpen;
+
+  /**
+   * Constructs an AssetListDialog.
+   *
+   * @param owner The parent frame.
+   * @param title The title of the dialog.
+   * @param assets The assets to list.
+   * @param emptyText The text to show when there are no assets.
+   * @param onOpen Called with an asset when the user opens it.
+   */
+  public AssetListDialog(
+      JFrame owner,
+      String title,
+      List<UnityAsset> assets,
+      String emptyText,
+      Consumer<UnityAsset> onOpen) {
+    super(owner, title, false);
+    this.onOpen = onOpen;
+    setLayout(new BorderLayout(0, 4));
+    getRootPane().setBorder(BorderFactory.createEmptyBorder(8, 8, 8, 8));
+
+    assetList = new JList<>(assets.toArray(UnityAsset[]::new));
+    assetList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+    assetList.setCellRenderer(new AssetRenderer());
+    assetList.addMouseListener(
+        new MouseAdapter() {
+          @Override
+          public void mouseClicked(MouseEvent e) {
+            if (e.getClickCount() == 2 && SwingUtilities.isLeftMouseButton(e)) {
+              openSelected();
+            }
+          }
+        });
+    add(new JScrollPane(assetList), BorderLayout.CENTER);
+    add(new JLabel(assets.isEmpty() ? emptyText : assets.size() + " assets"), BorderLayout.SOUTH);
+
+    getRootPane()
+        .getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW)
+        .put(KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), "close");
+    getRootPane()
+        .getActionMap()
+        .put(
+            "close",
+            new AbstractAction() {
+              @Override
+              public void actionPerformed(ActionEvent e) {
+                dispose();
+              }
+            });
+    assetList
+        .getInputMap(JComponent.WHEN_FOCUSED)
+        .put(KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0), "open");
+    assetList
+        .getActionMap()
+        .put(
+            "open",
+            new AbstractAction() {
+              @Override
+              public void actionPerformed(ActionEvent e) {
+                openSelected();
+              }
+            });
+
+    setSize(600, 400);
+    setLocationRelativeTo(owner);
+  }
+
+  private void openSelected() {
+    UnityAsset asset = assetList.getSelectedValue();
+    if (asset != null) {
+      onOpen.accept(asset);
+    }
+  }
+
+  /** Shows the file name of an asset in bold, followed by the folder it is in. */
+  private static class AssetRenderer extends DefaultListCellRenderer {
+    @Override
+    public Component getListCellRendererComponent(
+        JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+      super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+      if (value instanceof UnityAsset asset) {
+        String path = asset.assetPath();
+        int slash = path.lastIndexOf('/');
+        String name = path.substring(slash + 1);
+        String folder = slash < 0 ? "" : path.substring(0, slash);
+        setText(
+            "<html><b>" + escape(name) + "</b>&nbsp;&nbsp;<font color='gray'>" + escape(folder));
+        setIcon(IconManager.getIconForFile(name));
+        setToolTipText(path);
+      }
+      return this;
+    }
+
+    private static String escape(String text) {
+      return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+  }
+}
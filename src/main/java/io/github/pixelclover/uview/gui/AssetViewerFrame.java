@@ -1,5 +1,7 @@
 package io.github.pixelclover.uview.gui;
 
+import io.github.pixelclover.uview.core.AssetTypes;
+import io.github.pixelclover.uview.core.ImageHeader;
 import io.github.pixelclover.uview.core.PackageManager;
 import io.github.pixelclover.uview.model.UnityAsset;
 import java.awt.BorderLayout;
@@ -29,40 +31,16 @@ import javax.swing.JScrollPane;
  */
 public class AssetViewerFrame extends JFrame {
 
-  private static final Set<String> TEXT_EXTENSIONS =
-      Set.of(
-          "cs",
-          "java",
-          "js",
-          "txt",
-          "json",
-          "asmdef",
-          "xml",
-          "shader",
-          "mat",
-          "unity",
-          "asset",
-          "prefab",
-          "html",
-          "css",
-          "uss",
-          "sql",
-          "sh",
-          "yaml",
-          "md",
-          "controller",
-          "meta",
-          "lighting");
-  private static final Set<String> IMAGE_EXTENSIONS =
-      Set.of(
-          "png", "jpg", "jpeg", "gif", "tga", "bmp", "webp", "svg", "ico", "avif", "tiff", "tif");
-  private static final Set<String> AUDIO_EXTENSIONS = Set.of("wav", "mp3", "ogg");
   private static final Set<String> VIDEO_EXTENSIONS = Set.of("mp4", "mov");
   private static final Set<String> PDF_EXTENSIONS = Set.of("pdf");
   private static final DecimalFormat FILE_SIZE_FORMAT = new DecimalFormat("#,##0.0 KB");
+  // Larger text assets are shown read-only, and Unity YAML files as an outline, instead of in a
+  // text editor.
+  private static final int MAX_EDITOR_TEXT_BYTES = 4 * 1024 * 1024;
 
   private final PackageManager packageManager;
   private final Runnable onSaveCallback;
+  private ImageViewerPanel imagePanel;
   private PdfViewerPanel pdfPanel;
   private AudioPlayerPanel audioPanel;
   private VideoPlayerPanel videoPanel;
@@ -100,12 +78,11 @@ public class AssetViewerFrame extends JFrame {
           @Override
           public void windowClosed(WindowEvent e) {
             // Clean up resources used by viewers.
+            if (imagePanel != null) {
+              imagePanel.close();
+            }
             if (pdfPanel != null) {
-              try {
-                pdfPanel.close();
-              } catch (IOException ex) {
-                System.err.println("Failed to close PDF document: " + ex.getMessage());
-              }
+              pdfPanel.close();
             }
             if (audioPanel != null) {
               audioPanel.close();
@@ -126,8 +103,8 @@ public class AssetViewerFrame extends JFrame {
     pathLabel.setToolTipText(asset.assetPath());
 
     String size = "N/A (Directory)";
-    if (asset.content() != null) {
-      double sizeInKb = asset.content().length / 1024.0;
+    if (!asset.isDirectory()) {
+      double sizeInKb = asset.contentLength() / 1024.0;
       size = FILE_SIZE_FORMAT.format(sizeInKb);
     }
     JLabel sizeLabel = new JLabel(size);
@@ -136,6 +113,11 @@ public class AssetViewerFrame extends JFrame {
 
     footer.add(pathLabel);
     footer.add(Box.createHorizontalGlue());
+    ImageHeader header = ImageHeader.read(asset);
+    if (header != null) {
+      footer.add(new JLabel(header.format() + " " + header.describe()));
+      footer.add(Box.createRigidArea(new Dimension(15, 0)));
+    }
     footer.add(guidLabel);
     footer.add(Box.createRigidArea(new Dimension(15, 0)));
     footer.add(sizeLabel);
@@ -144,42 +126,39 @@ public class AssetViewerFrame extends JFrame {
   }
 
   private JPanel createContentPanel(UnityAsset asset) {
-    if (asset.content() == null) {
+    if (asset.isDirectory()) {
       JPanel panel = new JPanel(new BorderLayout());
       panel.add(new JLabel("This is a directory."), BorderLayout.CENTER);
       return panel;
     }
 
-    String extension = getFileExtension(asset.assetPath());
+    String extension = AssetTypes.extensionOf(asset.assetPath());
 
-    if (TEXT_EXTENSIONS.contains(extension)) {
+    if (AssetTypes.TEXT_EXTENSIONS.contains(extension) && !AssetTypes.isBinary(asset)) {
+      if (asset.contentLength() > MAX_EDITOR_TEXT_BYTES) {
+        return AssetTypes.isUnityYaml(asset)
+            ? new SceneOutlinePanel(asset, packageManager, onSaveCallback)
+            : new LargeTextPanel(asset);
+      }
       return createTextEditorPanel(asset);
     }
 
     JPanel contentWrapperPanel = new JPanel(new BorderLayout());
 
-    if (IMAGE_EXTENSIONS.contains(extension)) {
+    if ("gif".equals(extension)) {
+      // An icon plays an animated GIF, which the image viewer would show as its first frame.
       ImageIcon imageIcon = new ImageIcon(asset.content());
       JLabel imageLabel = new JLabel(imageIcon);
       contentWrapperPanel.add(new JScrollPane(imageLabel), BorderLayout.CENTER);
+    } else if (AssetTypes.IMAGE_EXTENSIONS.contains(extension)) {
+      this.imagePanel = new ImageViewerPanel(asset);
+      contentWrapperPanel.add(this.imagePanel, BorderLayout.CENTER);
     } else if (PDF_EXTENSIONS.contains(extension)) {
-      try {
-        this.pdfPanel = new PdfViewerPanel(asset.content());
-        contentWrapperPanel.add(this.pdfPanel, BorderLayout.CENTER);
-      } catch (IOException e) {
-        JLabel errorLabel = new JLabel("Failed to load PDF: " + e.getMessage());
-        errorLabel.setHorizontalAlignment(JLabel.CENTER);
-        contentWrapperPanel.add(errorLabel, BorderLayout.CENTER);
-      }
-    } else if (AUDIO_EXTENSIONS.contains(extension)) {
-      try {
-        this.audioPanel = new AudioPlayerPanel(asset.content());
-        contentWrapperPanel.add(this.audioPanel, BorderLayout.CENTER);
-      } catch (Exception e) {
-        JLabel errorLabel = new JLabel("Failed to load audio: " + e.getMessage());
-        errorLabel.setHorizontalAlignment(JLabel.CENTER);
-        contentWrapperPanel.add(errorLabel, BorderLayout.CENTER);
-      }
+      this.pdfPanel = new PdfViewerPanel(asset.contentBuffer());
+      contentWrapperPanel.add(this.pdfPanel, BorderLayout.CENTER);
+    } else if (AssetTypes.AUDIO_EXTENSIONS.contains(extension)) {
+      this.audioPanel = new AudioPlayerPanel(asset);
+      contentWrapperPanel.add(this.audioPanel, BorderLayout.CENTER);
     } else if (VIDEO_EXTENSIONS.contains(extension)) {
       try {
         File tempFile =
@@ -196,8 +175,7 @@ public class AssetViewerFrame extends JFrame {
         contentWrapperPanel.add(errorLabel, BorderLayout.CENTER);
       }
     } else {
-      contentWrapperPanel.add(
-          new JLabel("Binary content cannot be previewed."), BorderLayout.CENTER);
+      contentWrapperPanel.add(new HexViewPanel(asset), BorderLayout.CENTER);
     }
     return contentWrapperPanel;
   }
@@ -236,12 +214,4 @@ public class AssetViewerFrame extends JFrame {
 
     return editorPanel;
   }
-
-  private String getFileExtension(String filename) {
-    int i = filename.lastIndexOf('.');
-    if (i > 0 && i < filename.length() - 1) {
-      return filename.substring(i + 1).toLowerCase();
-    }
-    return "";
-  }
 }
@@ -1,16 +1,21 @@
 package io.github.pixelclover.uview.gui;
 
+import io.github.pixelclover.uview.core.AudioDecoder;
+import io.github.pixelclover.uview.core.AudioSeekIndex;
+import io.github.pixelclover.uview.core.ByteRingBuffer;
+import io.github.pixelclover.uview.model.UnityAsset;
 import java.awt.BorderLayout;
 import java.awt.FlowLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.io.BufferedInputStream;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import javax.sound.sampled.AudioFormat;
 import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.AudioSystem;
-import javax.sound.sampled.DataLine;
 import javax.sound.sampled.LineUnavailableException;
 import javax.sound.sampled.SourceDataLine;
 import javax.sound.sampled.UnsupportedAudioFileException;
@@ -19,88 +24,170 @@ import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JSlider;
 import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-public class AudioPlayerPanel extends JPanel implements ActionListener, Runnable {
+/**
+ * A panel that plays an audio asset. The audio is decoded while it plays: a decoder thread works a
+ * couple of seconds ahead of playback into a ring buffer, and playback starts as soon as a fraction
+ * of a second is decoded, so even a long track plays at once and takes little memory. Seeking
+ * starts decoding again near the new position, using an {@link AudioSeekIndex} of the file, so it
+ * is as quick at the end of a track as at its start.
+ *
+ * <p>Above the controls, a {@link WaveformStrip} shows the whole track, made in the background and
+ * cached by {@link WaveformCache}.
+ */
+public class AudioPlayerPanel extends JPanel implements ActionListener {
   private static final Logger LOGGER = LogManager.getLogger(AudioPlayerPanel.class);
 
-  private byte[] audioData;
-  private AudioFormat audioFormat;
+  // How far decoding may get ahead of playback.
+  private static final double BUFFER_SECONDS = 2.0;
+  // How much is decoded before playback starts, so that it does not stutter right away.
+  private static final double START_SECONDS = 0.3;
+  // The number of frames passed between the decoder and the line at a time.
+  private static final int CHUNK_FRAMES = 4096;
+  // Loading, decoding and playing all wait on I/O or each other, so each gets its own thread.
+  private static final ExecutorService AUDIO_EXECUTOR =
+      Executors.newCachedThreadPool(
+          runnable -> {
+            Thread thread = new Thread(runnable, "audio-stream");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  private final ByteBuffer audioData;
   private final JSlider slider;
+  private final WaveformStrip waveformStrip = new WaveformStrip(this::seek);
   private final JButton playPauseButton;
   private final JButton stopButton;
+  private final JLabel timeLabel = new JLabel();
+  private final JLabel statusLabel = new JLabel("Loading audio...");
+  private final Timer positionTimer;
+  private final CompletableFuture<Void> waveformRequest;
 
-  private volatile boolean isPlaying = false;
-  private Thread playbackThread;
-  private SourceDataLine line;
-  private int framePosition = 0;
+  // Set on the event thread once the file is opened; the index is null for WAV files.
+  private AudioSeekIndex index;
+  private AudioFormat audioFormat;
+  private long frameCount = -1;
+  // The playback going on, or null; only used on the event thread.
+  private Session session;
+  // The frame playback resumes at when there is no session.
+  private long framePosition;
+  // Set while the slider follows playback, so that it does not seek.
+  private boolean updatingSlider;
+  private volatile boolean closed;
 
-  public AudioPlayerPanel(byte[] audioData)
-      throws UnsupportedAudioFileException, IOException, LineUnavailableException {
+  /**
+   * Constructs an AudioPlayerPanel and opens the audio in the background. Audio that cannot be
+   * decoded is reported in the panel.
+   *
+   * @param asset The WAV, MP3 or Ogg Vorbis asset. Its content is read in place.
+   */
+  public AudioPlayerPanel(UnityAsset asset) {
     super(new BorderLayout());
-
-    LOGGER.debug("Initializing AudioPlayerPanel...");
-
-    try (AudioInputStream audioInputStream =
-        AudioSystem.getAudioInputStream(
-            new BufferedInputStream(new ByteArrayInputStream(audioData)))) {
-      AudioFormat baseFormat = audioInputStream.getFormat();
-      AudioFormat decodedFormat =
-          new AudioFormat(
-              AudioFormat.Encoding.PCM_SIGNED,
-              baseFormat.getSampleRate(),
-              16,
-              baseFormat.getChannels(),
-              baseFormat.getChannels() * 2,
-              baseFormat.getSampleRate(),
-              false);
-      try (AudioInputStream decodedAudioInputStream =
-          AudioSystem.getAudioInputStream(decodedFormat, audioInputStream)) {
-        this.audioData = decodedAudioInputStream.readAllBytes();
-        this.audioFormat = decodedFormat;
-      }
-    }
-
-    String details =
-        String.format(
-            "%.1f kHz, %d-bit, %s",
-            audioFormat.getSampleRate() / 1000.0,
-            audioFormat.getSampleSizeInBits(),
-            audioFormat.getChannels() == 1 ? "Mono" : "Stereo");
-    JLabel statusLabel = new JLabel(details);
-    LOGGER.debug("Audio format: {}", details);
+    this.audioData = asset.contentBuffer();
 
     playPauseButton = new JButton("Play");
     playPauseButton.addActionListener(this);
+    playPauseButton.setEnabled(false);
 
     stopButton = new JButton("Stop");
     stopButton.addActionListener(this);
+    stopButton.setEnabled(false);
 
-    slider = new JSlider(0, this.audioData.length);
-    slider.setValue(0);
+    // In milliseconds, so that long tracks fit into an int.
+    slider = new JSlider(0, 0);
+    slider.setEnabled(false);
     slider.addChangeListener(
         e -> {
-          if (!slider.getValueIsAdjusting()) {
-            seek(slider.getValue());
+          if (updatingSlider) {
+            return;
+          }
+          long frame = frameAt(slider.getValue());
+          if (slider.getValueIsAdjusting()) {
+            waveformStrip.setPosition(frame);
+            updateTimeLabel(frame);
+          } else {
+            seek(frame);
           }
         });
 
     JPanel controlsPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 20, 20));
     controlsPanel.add(playPauseButton);
     controlsPanel.add(stopButton);
+    controlsPanel.add(timeLabel);
+
+    JPanel positionPanel = new JPanel(new BorderLayout());
+    positionPanel.add(waveformStrip, BorderLayout.CENTER);
+    positionPanel.add(slider, BorderLayout.SOUTH);
 
     add(controlsPanel, BorderLayout.CENTER);
-    add(slider, BorderLayout.NORTH);
+    add(positionPanel, BorderLayout.NORTH);
     add(statusLabel, BorderLayout.SOUTH);
 
-    LOGGER.debug("AudioPlayerPanel initialized successfully.");
+    positionTimer = new Timer(100, e -> updatePosition());
+
+    AUDIO_EXECUTOR.execute(this::load);
+    waveformRequest =
+        WaveformCache.request(
+            asset,
+            waveform -> {
+              if (!closed) {
+                waveformStrip.setWaveform(waveform, "No waveform");
+              }
+            });
+  }
+
+  // Runs in the background: indexes the file and reads its format.
+  private void load() {
+    try {
+      AudioSeekIndex seekIndex = AudioSeekIndex.of(audioData);
+      AudioFormat format;
+      long frames;
+      try (AudioInputStream stream = AudioDecoder.open(audioData)) {
+        format = stream.getFormat();
+        frames = seekIndex != null ? seekIndex.frameCount() : stream.getFrameLength();
+      }
+      SwingUtilities.invokeLater(() -> loaded(seekIndex, format, frames));
+    } catch (UnsupportedAudioFileException | IOException | RuntimeException e) {
+      // A decoder can also fail on a broken file with an unchecked exception.
+      LOGGER.error("Failed to load audio", e);
+      SwingUtilities.invokeLater(
+          () -> statusLabel.setText("Failed to load audio: " + e.getMessage()));
+    }
+  }
+
+  private void loaded(AudioSeekIndex seekIndex, AudioFormat format, long frames) {
+    if (closed) {
+      return;
+    }
+    this.index = seekIndex;
+    this.audioFormat = format;
+    this.frameCount = frames;
+
+    String details =
+        String.format(
+            "%.1f kHz, %d-bit, %s",
+            format.getSampleRate() / 1000.0,
+            format.getSampleSizeInBits(),
+            format.getChannels() == 1 ? "Mono" : "Stereo");
+    statusLabel.setText(details);
+    LOGGER.debug("Audio format: {}", details);
+
+    if (frames > 0) {
+      slider.setMaximum((int) Math.min(Integer.MAX_VALUE, millisAt(frames)));
+      slider.setEnabled(true);
+    }
+    playPauseButton.setEnabled(true);
+    stopButton.setEnabled(true);
+    updateTimeLabel(0);
   }
 
   @Override
   public void actionPerformed(ActionEvent e) {
     if (e.getSource() == playPauseButton) {
-      if (isPlaying) {
+      if (session != null) {
         pause();
       } else {
         play();
@@ -111,90 +198,205 @@ public class AudioPlayerPanel extends JPanel implements ActionListener, Runnable
   }
 
   private void play() {
-    if (playbackThread == null || !playbackThread.isAlive()) {
-      playbackThread = new Thread(this);
-      playbackThread.start();
+    if (frameCount > 0 && framePosition >= frameCount) {
+      framePosition = 0;
     }
-    isPlaying = true;
+    session = new Session(framePosition);
+    session.start();
+    positionTimer.start();
     playPauseButton.setText("Pause");
   }
 
   private void pause() {
-    isPlaying = false;
+    framePosition = currentFrame();
+    endSession();
     playPauseButton.setText("Play");
-    if (line != null) {
-      line.stop();
-    }
   }
 
   private void stop() {
-    isPlaying = false;
-    playPauseButton.setText("Play");
-    if (playbackThread != null) {
-      playbackThread.interrupt();
-    }
+    endSession();
     framePosition = 0;
-    slider.setValue(0);
+    playPauseButton.setText("Play");
+    updatePosition();
   }
 
-  private void seek(int position) {
-    framePosition = position;
-    if (isPlaying) {
-      if (playbackThread != null) {
-        playbackThread.interrupt();
-      }
+  private void seek(long frame) {
+    boolean playing = session != null;
+    endSession();
+    framePosition = frame;
+    if (playing) {
       play();
     } else {
-      slider.setValue(position);
+      waveformStrip.setPosition(frame);
+      updateTimeLabel(frame);
     }
   }
 
-  @Override
-  public void run() {
-    try {
-      DataLine.Info info = new DataLine.Info(SourceDataLine.class, audioFormat);
-      line = (SourceDataLine) AudioSystem.getLine(info);
-      line.open(audioFormat);
-      line.start();
-
-      int bufferSize = (int) audioFormat.getSampleRate() * audioFormat.getFrameSize();
-      byte[] buffer = new byte[bufferSize];
-      int bytesRead = 0;
-
-      try (ByteArrayInputStream bis = new ByteArrayInputStream(audioData)) {
-        bis.skip(framePosition);
-        while (isPlaying && (bytesRead = bis.read(buffer, 0, buffer.length)) != -1) {
-          line.write(buffer, 0, bytesRead);
-          framePosition += bytesRead;
-          final int pos = framePosition;
-          SwingUtilities.invokeLater(() -> slider.setValue(pos));
+  private void endSession() {
+    if (session != null) {
+      session.cancel();
+      session = null;
+    }
+    positionTimer.stop();
+  }
+
+  // Called on the event thread when a session has played to the end of the audio.
+  private void finished(Session finished) {
+    if (session == finished) {
+      endSession();
+      framePosition = 0;
+      playPauseButton.setText("Play");
+      updatePosition();
+    }
+  }
+
+  private long currentFrame() {
+    return session != null ? session.position() : framePosition;
+  }
+
+  private void updatePosition() {
+    long frame = currentFrame();
+    if (!slider.getValueIsAdjusting()) {
+      updatingSlider = true;
+      slider.setValue((int) Math.min(Integer.MAX_VALUE, millisAt(frame)));
+      updatingSlider = false;
+    }
+    waveformStrip.setPosition(frame);
+    updateTimeLabel(frame);
+  }
+
+  private void updateTimeLabel(long frame) {
+    String position = formatTime(millisAt(frame));
+    timeLabel.setText(
+        frameCount > 0 ? position + " / " + formatTime(millisAt(frameCount)) : position);
+  }
+
+  private long millisAt(long frame) {
+    return audioFormat == null ? 0 : (long) (frame * 1000 / audioFormat.getFrameRate());
+  }
+
+  private long frameAt(long millis) {
+    return audioFormat == null ? 0 : (long) (millis * audioFormat.getFrameRate() / 1000);
+  }
+
+  private static String formatTime(long millis) {
+    long seconds = millis / 1000;
+    return String.format("%d:%02d", seconds / 60, seconds % 60);
+  }
+
+  /** Stops playback; decoding stops with it, and the waveform is no longer waited for. */
+  public void close() {
+    closed = true;
+    waveformRequest.cancel(false);
+    endSession();
+  }
+
+  /**
+   * One run of playback from a position until the end of the audio or until it is cancelled: a
+   * decoder task fills a ring buffer, which a player task drains into the audio line.
+   */
+  private final class Session {
+    private final long startFrame;
+    private final ByteRingBuffer buffer;
+    private final int frameSize;
+    private volatile SourceDataLine line;
+    private volatile boolean cancelled;
+
+    Session(long startFrame) {
+      this.startFrame = startFrame;
+      this.frameSize = audioFormat.getFrameSize();
+      // A whole number of frames, so that every read from the buffer is as well.
+      int frames = (int) (audioFormat.getFrameRate() * BUFFER_SECONDS);
+      this.buffer = new ByteRingBuffer(Math.max(CHUNK_FRAMES, frames) * frameSize);
+    }
+
+    void start() {
+      AUDIO_EXECUTOR.execute(this::decode);
+      AUDIO_EXECUTOR.execute(this::play);
+    }
+
+    void cancel() {
+      cancelled = true;
+      buffer.close();
+      SourceDataLine current = line;
+      if (current != null) {
+        // Returns a write that waits for room in the line.
+        current.stop();
+        current.flush();
+      }
+    }
+
+    // The frame being heard now.
+    long position() {
+      SourceDataLine current = line;
+      return startFrame + (current == null ? 0 : current.getLongFramePosition());
+    }
+
+    private void decode() {
+      try (AudioInputStream stream = AudioDecoder.open(audioData, index, startFrame)) {
+        byte[] chunk = new byte[CHUNK_FRAMES * frameSize];
+        int count;
+        while ((count = stream.read(chunk)) != -1) {
+          if (!buffer.write(chunk, 0, count)) {
+            return; // Cancelled.
+          }
+        }
+      } catch (UnsupportedAudioFileException | IOException | RuntimeException e) {
+        // Decoding from a checkpoint relies on the decoder resynchronizing, which a broken file
+        // can make it fail at with an unchecked exception.
+        if (!cancelled) {
+          LOGGER.error("Error while decoding audio", e);
+          SwingUtilities.invokeLater(() -> statusLabel.setText("Error while decoding audio"));
         }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        buffer.finish();
       }
+    }
 
-      line.drain();
-      line.close();
-      if (isPlaying) {
+    private void play() {
+      try {
+        SourceDataLine opened = AudioSystem.getSourceDataLine(audioFormat);
+        opened.open(audioFormat);
+        line = opened;
+        int startBytes = (int) (audioFormat.getFrameRate() * START_SECONDS) * frameSize;
+        if (!buffer.awaitAvailable(startBytes) || cancelled) {
+          return;
+        }
+        opened.start();
+        byte[] chunk = new byte[CHUNK_FRAMES * frameSize];
+        int count;
+        while ((count = buffer.read(chunk, 0, chunk.length)) != -1) {
+          opened.write(chunk, 0, count);
+        }
+        if (!cancelled) {
+          opened.drain();
+          SwingUtilities.invokeLater(() -> finished(this));
+        }
+      } catch (LineUnavailableException | IllegalArgumentException e) {
+        LOGGER.error("Error during audio playback", e);
         SwingUtilities.invokeLater(
             () -> {
-              slider.setValue(0);
-              playPauseButton.setText("Play");
+              statusLabel.setText("Audio output unavailable: " + e.getMessage());
+              finished(this);
             });
-        framePosition = 0;
-        isPlaying = false;
-      }
-
-    } catch (LineUnavailableException | IOException e) {
-      LOGGER.error("Error during audio playback", e);
-    } finally {
-      if (line != null) {
-        line.close();
+      } catch (RuntimeException e) {
+        LOGGER.error("Error during audio playback", e);
+        SwingUtilities.invokeLater(
+            () -> {
+              statusLabel.setText("Error during audio playback");
+              finished(this);
+            });
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        buffer.close();
+        SourceDataLine current = line;
+        if (current != null) {
+          current.close();
+        }
       }
-      isPlaying = false;
-      SwingUtilities.invokeLater(() -> playPauseButton.setText("Play"));
     }
   }
-
-  public void close() {
-    stop();
-  }
 }
@@ -0,0 +1,332 @@
+package io.github.pixelclover.uview.gui;
+
+import com.formdev.flatlaf.FlatClientProperties;
+import io.github.pixelclover.uview.core.AssetTypes;
+import io.github.pixelclover.uview.core.ContentGrep;
+import io.github.pixelclover.uview.core.ContentIndex;
+import io.github.pixelclover.uview.model.UnityAsset;
+import java.awt.BorderLayout;
+import java.awt.Component;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.PatternSyntaxException;
+import javax.swing.AbstractAction;
+import javax.swing.BorderFactory;
+import javax.swing.DefaultListCellRenderer;
+import javax.swing.DefaultListModel;
+import javax.swing.JCheckBox;
+import javax.swing.JComponent;
+import javax.swing.JDialog;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextField;
+import javax.swing.KeyStroke;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+/**
+ * A dialog for finding the text assets whose contents contain a text, such as the name of a class.
+ * The search uses the package's {@link ContentIndex} on a background thread, and shows each
+ * occurrence with its line. A regular expression, or a text in assets that are not text files, is
+ * found with a {@link ContentGrep} scan instead, whose occurrences are shown as they are found.
+ */
+public class ContentSearchDialog extends JDialog {
+
+  private static final int MAX_HITS = 1000;
+  private static final ExecutorService SEARCH_EXECUTOR =
+      Executors.newSingleThreadExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "content-search");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  private final Supplier<ContentIndex> contentIndex;
+  private final Supplier<Collection<UnityAsset>> assets;
+  private final Consumer<UnityAsset> onOpen;
+  private final JTextField queryField = new JTextField();
+  private final JCheckBox matchCaseBox = new JCheckBox("Match case");
+  private final JCheckBox regexBox = new JCheckBox("Regex");
+  private final JCheckBox allAssetsBox = new JCheckBox("All assets");
+  private final DefaultListModel<ContentIndex.Hit> results = new DefaultListModel<>();
+  private final JList<ContentIndex.Hit> resultList = new JList<>(results);
+  private final JLabel statusLabel = new JLabel(" ");
+  private final Timer searchDebounceTimer;
+  // Counts the searches; a search or scan stops once a newer one has started.
+  private volatile int searchGeneration;
+  private CompletableFuture<Integer> scan;
+
+  /**
+   * Constructs a ContentSearchDialog.
+   *
+   * @param owner The parent frame.
+   * @param contentIndex Supplies the current content index of the package; it is called on the
+   *     event dispatch thread.
+   * @param assets Supplies the current assets of the package for a scan; it is called on the event
+   *     dispatch thread and the collection must not change afterwards.
+   * @param onOpen Called with the asset of an occurrence when the user opens it.
+   */
+  public ContentSearchDialog(
+      JFrame owner,
+      Supplier<ContentIndex> contentIndex,
+      Supplier<Collection<UnityAsset>> assets,
+      Consumer<UnityAsset> onOpen) {
+    super(owner, "Find in Contents", false);
+    this.contentIndex = contentIndex;
+    this.assets = assets;
+    this.onOpen = onOpen;
+    setLayout(new BorderLayout(0, 4));
+    getRootPane().setBorder(BorderFactory.createEmptyBorder(8, 8, 8, 8));
+
+    searchDebounceTimer = new Timer(300, e -> search());
+    searchDebounceTimer.setRepeats(false);
+    queryField.putClientProperty(
+        FlatClientProperties.PLACEHOLDER_TEXT, "Text to find in scripts, prefabs, scenes...");
+    queryField
+        .getDocument()
+        .addDocumentListener(
+            new DocumentListener() {
+              @Override
+              public void insertUpdate(DocumentEvent e) {
+                searchDebounceTimer.restart();
+              }
+
+              @Override
+              public void removeUpdate(DocumentEvent e) {
+                searchDebounceTimer.restart();
+              }
+
+              @Override
+              public void changedUpdate(DocumentEvent e) {
+                searchDebounceTimer.restart();
+              }
+            });
+    matchCaseBox.addActionListener(e -> search());
+    regexBox.addActionListener(e -> search());
+    allAssetsBox.setToolTipText("Also search assets that are not text, such as binary files");
+    allAssetsBox.addActionListener(e -> search());
+    JPanel optionsPanel = new JPanel(new BorderLayout(4, 0));
+    optionsPanel.add(matchCaseBox, BorderLayout.WEST);
+    optionsPanel.add(regexBox, BorderLayout.CENTER);
+    optionsPanel.add(allAssetsBox, BorderLayout.EAST);
+    JPanel queryPanel = new JPanel(new BorderLayout(4, 0));
+    queryPanel.add(queryField, BorderLayout.CENTER);
+    queryPanel.add(optionsPanel, BorderLayout.EAST);
+    add(queryPanel, BorderLayout.NORTH);
+
+    resultList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+    resultList.setCellRenderer(new HitRenderer());
+    resultList.addMouseListener(
+        new MouseAdapter() {
+          @Override
+          public void mouseClicked(MouseEvent e) {
+            if (e.getClickCount() == 2 && SwingUtilities.isLeftMouseButton(e)) {
+              openSelected();
+            }
+          }
+        });
+    add(new JScrollPane(resultList), BorderLayout.CENTER);
+    add(statusLabel, BorderLayout.SOUTH);
+
+    getRootPane()
+        .getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW)
+        .put(KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), "close");
+    getRootPane()
+        .getActionMap()
+        .put(
+            "close",
+            new AbstractAction() {
+              @Override
+              public void actionPerformed(ActionEvent e) {
+                dispose();
+              }
+            });
+    queryField.addActionListener(e -> search());
+    resultList
+        .getInputMap(JComponent.WHEN_FOCUSED)
+        .put(KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0), "open");
+    resultList
+        .getActionMap()
+        .put(
+            "open",
+            new AbstractAction() {
+              @Override
+              public void actionPerformed(ActionEvent e) {
+                openSelected();
+              }
+            });
+
+    setSize(800, 500);
+    setLocationRelativeTo(owner);
+  }
+
+  @Override
+  public void dispose() {
+    searchGeneration++;
+    cancelScan();
+    super.dispose();
+  }
+
+  private void search() {
+    searchDebounceTimer.stop();
+    cancelScan();
+    String query = queryField.getText();
+    boolean matchCase = matchCaseBox.isSelected();
+    int generation = ++searchGeneration;
+    if (query.isEmpty()) {
+      results.clear();
+      statusLabel.setText(" ");
+      return;
+    }
+    if (regexBox.isSelected() || allAssetsBox.isSelected()) {
+      startScan(query, matchCase, generation);
+      return;
+    }
+    ContentIndex index = contentIndex.get();
+    statusLabel.setText(index.isReady() ? "Searching..." : "Indexing contents...");
+    SEARCH_EXECUTOR.submit(
+        () -> {
+          if (generation != searchGeneration) {
+            return;
+          }
+          long start = System.nanoTime();
+          List<ContentIndex.Hit> hits;
+          try {
+            hits = index.search(query, matchCase, MAX_HITS);
+          } catch (CancellationException e) {
+            return; // The package was closed or replaced.
+          } catch (RuntimeException e) {
+            SwingUtilities.invokeLater(
+                () -> statusLabel.setText("Search failed: " + e.getMessage()));
+            return;
+          }
+          long millis = (System.nanoTime() - start) / 1_000_000;
+          SwingUtilities.invokeLater(
+              () -> {
+                if (generation == searchGeneration) {
+                  showHits(hits, millis);
+                }
+              });
+        });
+  }
+
+  private void startScan(String query, boolean matchCase, int generation) {
+    ContentGrep grep;
+    try {
+      grep =
+          regexBox.isSelected()
+              ? ContentGrep.regex(query, matchCase)
+              : ContentGrep.literal(query, matchCase);
+    } catch (PatternSyntaxException e) {
+      results.clear();
+      statusLabel.setText("Invalid regex: " + e.getDescription());
+      return;
+    }
+    Collection<UnityAsset> scanned = assets.get();
+    if (!allAssetsBox.isSelected()) {
+      scanned = scanned.stream().filter(AssetTypes::isText).toList();
+    }
+    results.clear();
+    statusLabel.setText("Searching...");
+    long start = System.nanoTime();
+    scan =
+        grep.scan(
+            scanned,
+            MAX_HITS,
+            hits ->
+                SwingUtilities.invokeLater(
+                    () -> {
+                      if (generation == searchGeneration) {
+                        results.addAll(hits);
+                        statusLabel.setText("Searching... " + results.size() + " matches");
+                      }
+                    }));
+    scan.whenComplete(
+        (count, error) ->
+            SwingUtilities.invokeLater(
+                () -> {
+                  if (generation != searchGeneration) {
+                    return;
+                  }
+                  if (error != null) {
+                    statusLabel.setText("Search failed: " + error.getMessage());
+                    return;
+                  }
+                  // Occurrences arrive in the order their assets were searched.
+                  List<ContentIndex.Hit> hits = Collections.list(results.elements());
+                  hits.sort(
+                      Comparator.comparing((ContentIndex.Hit hit) -> hit.asset().assetPath())
+                          .thenComparingInt(ContentIndex.Hit::offset));
+                  showHits(hits, (System.nanoTime() - start) / 1_000_000);
+                }));
+  }
+
+  private void cancelScan() {
+    if (scan != null) {
+      scan.cancel(false);
+      scan = null;
+    }
+  }
+
+  private void showHits(List<ContentIndex.Hit> hits, long millis) {
+    results.clear();
+    results.addAll(hits);
+    long assets = hits.stream().map(ContentIndex.Hit::asset).distinct().count();
+    String count = hits.size() >= MAX_HITS ? "The first " + hits.size() : "" + hits.size();
+    statusLabel.setText(count + " matches in " + assets + " assets (" + millis + " ms)");
+  }
+
+  private void openSelected() {
+    ContentIndex.Hit hit = resultList.getSelectedValue();
+    if (hit != null) {
+      onOpen.accept(hit.asset());
+    }
+  }
+
+  /** Shows the file name and line of an occurrence, followed by the text of the line. */
+  private static class HitRenderer extends DefaultListCellRenderer {
+    @Override
+    public Component getListCellRendererComponent(
+        JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+      super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+      if (value instanceof ContentIndex.Hit hit) {
+        String path = hit.asset().assetPath();
+        String name = path.substring(path.lastIndexOf('/') + 1);
+        setText(
+            "<html><b>"
+                + escape(name)
+                + ":"
+                + hit.line()
+                + "</b>&nbsp;&nbsp;"
+                + escape(hit.lineText())
+                + "&nbsp;&nbsp;<font color='gray'>"
+                + escape(path));
+        setIcon(IconManager.getIconForFile(name));
+        setToolTipText(path);
+      }
+      return this;
+    }
+
+    private static String escape(String text) {
+      return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+  }
+}
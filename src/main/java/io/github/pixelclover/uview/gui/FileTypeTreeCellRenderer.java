@@ -1,5 +1,8 @@
 package io.github.pixelclover.uview.gui;
 
+import io.github.pixelclover.uview.core.ImageHeader;
+import io.github.pixelclover.uview.core.ImageHeaderCache;
+import io.github.pixelclover.uview.gui.tree.PackageTreeNode;
 import io.github.pixelclover.uview.gui.tree.TreeEntry;
 import java.awt.Component;
 import javax.swing.JTree;
@@ -8,10 +11,26 @@ import javax.swing.tree.DefaultTreeCellRenderer;
 
 /**
  * A custom tree cell renderer for the package file tree. It displays appropriate icons for
- * different file and directory types.
+ * different file and directory types, and the size and format of images as their tooltip.
  */
 public class FileTypeTreeCellRenderer extends DefaultTreeCellRenderer {
 
+  private final ImageHeaderCache imageHeaders;
+
+  /** Constructs a renderer that shows no image tooltips. */
+  public FileTypeTreeCellRenderer() {
+    this(null);
+  }
+
+  /**
+   * Constructs a renderer that shows the size and format of images as their tooltip.
+   *
+   * @param imageHeaders The headers of the images of the package, or null to show no tooltips.
+   */
+  public FileTypeTreeCellRenderer(ImageHeaderCache imageHeaders) {
+    this.imageHeaders = imageHeaders;
+  }
+
   @Override
   public Component getTreeCellRendererComponent(
       JTree tree,
@@ -23,28 +42,35 @@ public class FileTypeTreeCellRenderer extends DefaultTreeCellRenderer {
       boolean hasFocus) {
 
     super.getTreeCellRendererComponent(tree, value, sel, expanded, leaf, row, hasFocus);
+    setToolTipText(null);
 
-    if (value instanceof DefaultMutableTreeNode node) {
-      Object userObject = node.getUserObject();
-
-      if (userObject instanceof TreeEntry entry) {
-        setText(entry.getDisplayName());
+    Object userObject = null;
+    if (value instanceof PackageTreeNode node) {
+      userObject = node.getEntry();
+    } else if (value instanceof DefaultMutableTreeNode node) {
+      userObject = node.getUserObject(); // A message shown instead of the package.
+    }
+    if (userObject instanceof TreeEntry entry) {
+      setText(entry.getDisplayName());
 
-        // Explicitly check the type of entry to determine the icon, not the leaf status.
-        if (entry instanceof TreeEntry.DirectoryEntry) {
+      // Explicitly check the type of entry to determine the icon, not the leaf status.
+      if (entry instanceof TreeEntry.DirectoryEntry) {
+        setIcon(IconManager.getFolderIcon());
+      } else if (entry instanceof TreeEntry.AssetEntry assetEntry) {
+        // Handle assets that represent directories (e.g., an empty folder asset)
+        if (assetEntry.asset().isDirectory()) {
           setIcon(IconManager.getFolderIcon());
-        } else if (entry instanceof TreeEntry.AssetEntry assetEntry) {
-          // Handle assets that represent directories (e.g., an empty folder asset)
-          if (assetEntry.asset().isDirectory()) {
-            setIcon(IconManager.getFolderIcon());
-          } else {
-            setIcon(IconManager.getIconForFile(entry.getDisplayName()));
+        } else {
+          setIcon(IconManager.getIconForFile(entry.getDisplayName()));
+          ImageHeader header = imageHeaders == null ? null : imageHeaders.get(assetEntry.asset());
+          if (header != null) {
+            setToolTipText(header.describe() + " " + header.format());
           }
         }
-      } else if (userObject instanceof String) {
-        setText((String) userObject);
-        setIcon(IconManager.getFolderIcon());
       }
+    } else if (userObject instanceof String) {
+      setText((String) userObject);
+      setIcon(IconManager.getFolderIcon());
     }
     return this;
   }
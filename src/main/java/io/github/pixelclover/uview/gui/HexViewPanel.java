@@ -0,0 +1,364 @@
+package io.github.pixelclover.uview.gui;
+
+import io.github.pixelclover.uview.core.BytePattern;
+import io.github.pixelclover.uview.model.UnityAsset;
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Toolkit;
+import java.awt.event.ActionEvent;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.function.IntUnaryOperator;
+import javax.swing.AbstractAction;
+import javax.swing.JButton;
+import javax.swing.JComboBox;
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JScrollBar;
+import javax.swing.JTextField;
+import javax.swing.KeyStroke;
+import javax.swing.SwingWorker;
+import javax.swing.UIManager;
+import org.fife.ui.rtextarea.RTextAreaBase;
+
+/**
+ * A hex viewer for binary assets. Each row shows the offset of sixteen bytes, the bytes in hex and
+ * the bytes as ASCII. Rows are painted straight from the asset's content and only while they are in
+ * view, into one reused line buffer, so the viewer costs the same for any size of content.
+ *
+ * <p>The viewer scrolls by rows rather than by pixels: the height of all rows of a content of a few
+ * gigabytes in pixels would overflow the coordinates of a Swing component.
+ */
+public class HexViewPanel extends JPanel {
+
+  private static final int BYTES_PER_ROW = 16;
+  private static final int OFFSET_DIGITS = 8;
+  // The columns of a row, in characters: the offset, the bytes in hex in two groups of eight, and
+  // the bytes as ASCII.
+  private static final int HEX_COLUMN = OFFSET_DIGITS + 2;
+  private static final int ASCII_COLUMN = HEX_COLUMN + BYTES_PER_ROW * 3 + 2;
+  private static final int ROW_CHARS = ASCII_COLUMN + BYTES_PER_ROW;
+  private static final int PADDING = 4;
+  private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+  private final ByteBuffer content;
+  private final int rowCount;
+  private final HexView view = new HexView();
+  private final JScrollBar scrollBar = new JScrollBar(JScrollBar.VERTICAL);
+  private final JTextField searchField = new JTextField(20);
+  private final JComboBox<String> searchMode = new JComboBox<>(new String[] {"Hex", "Text"});
+  private final JLabel statusLabel = new JLabel();
+  private final Font font = RTextAreaBase.getDefaultFont();
+  private final FontMetrics metrics = getFontMetrics(font);
+  private final int rowHeight = metrics.getHeight();
+  private final int charWidth = metrics.charWidth('0');
+  // The bytes that are selected, from a click, a goto or a search; start is -1 if none are.
+  private int selectionStart = -1;
+  private int selectionEnd = -1;
+  private SwingWorker<Integer, Void> search;
+
+  /**
+   * Constructs a HexViewPanel.
+   *
+   * @param asset The asset whose content to show.
+   */
+  public HexViewPanel(UnityAsset asset) {
+    super(new BorderLayout(0, 5));
+    this.content = asset.contentBuffer();
+    this.rowCount = (content.limit() + BYTES_PER_ROW - 1) / BYTES_PER_ROW;
+
+    updateScrollBar();
+    scrollBar.addAdjustmentListener(e -> view.repaint());
+    view.addComponentListener(
+        new ComponentAdapter() {
+          @Override
+          public void componentResized(ComponentEvent e) {
+            updateScrollBar();
+          }
+        });
+    view.addMouseWheelListener(
+        e -> scrollBar.setValue(scrollBar.getValue() + e.getUnitsToScroll()));
+    view.addMouseListener(
+        new MouseAdapter() {
+          @Override
+          public void mousePressed(MouseEvent e) {
+            view.requestFocusInWindow();
+            int offset = offsetAt(e.getX(), e.getY());
+            if (offset >= 0) {
+              select(offset, offset + 1);
+            }
+          }
+        });
+    // The scroll bar keeps the top row in range.
+    bindScrollKey(KeyEvent.VK_UP, 0, top -> top - 1);
+    bindScrollKey(KeyEvent.VK_DOWN, 0, top -> top + 1);
+    bindScrollKey(KeyEvent.VK_PAGE_UP, 0, top -> top - visibleRows());
+    bindScrollKey(KeyEvent.VK_PAGE_DOWN, 0, top -> top + visibleRows());
+    bindScrollKey(KeyEvent.VK_HOME, KeyEvent.CTRL_DOWN_MASK, top -> 0);
+    bindScrollKey(KeyEvent.VK_END, KeyEvent.CTRL_DOWN_MASK, top -> rowCount);
+
+    JPanel viewPanel = new JPanel(new BorderLayout());
+    viewPanel.add(view, BorderLayout.CENTER);
+    viewPanel.add(scrollBar, BorderLayout.EAST);
+    add(viewPanel, BorderLayout.CENTER);
+
+    JButton findButton = new JButton("Find Next");
+    findButton.addActionListener(e -> findNext());
+    searchField.addActionListener(e -> findNext());
+    searchField.setToolTipText("Bytes in hex, e.g. 4D 5A, or a text");
+    JButton goToButton = new JButton("Go to Offset...");
+    goToButton.addActionListener(e -> goToOffset());
+    getInputMap(WHEN_IN_FOCUSED_WINDOW)
+        .put(
+            KeyStroke.getKeyStroke(
+                KeyEvent.VK_G, Toolkit.getDefaultToolkit().getMenuShortcutKeyMaskEx()),
+            "goToOffset");
+    getActionMap()
+        .put(
+            "goToOffset",
+            new AbstractAction() {
+              @Override
+              public void actionPerformed(ActionEvent e) {
+                goToOffset();
+              }
+            });
+    JPanel toolPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+    toolPanel.add(statusLabel);
+    toolPanel.add(searchField);
+    toolPanel.add(searchMode);
+    toolPanel.add(findButton);
+    toolPanel.add(goToButton);
+    add(toolPanel, BorderLayout.SOUTH);
+    showSize();
+  }
+
+  private void bindScrollKey(int keyCode, int modifiers, IntUnaryOperator newTop) {
+    String name = "scroll" + keyCode;
+    view.getInputMap(WHEN_FOCUSED).put(KeyStroke.getKeyStroke(keyCode, modifiers), name);
+    view.getActionMap()
+        .put(
+            name,
+            new AbstractAction() {
+              @Override
+              public void actionPerformed(ActionEvent e) {
+                scrollBar.setValue(newTop.applyAsInt(scrollBar.getValue()));
+              }
+            });
+  }
+
+  private int visibleRows() {
+    return Math.max(1, view.getHeight() / rowHeight);
+  }
+
+  private void updateScrollBar() {
+    int visibleRows = visibleRows();
+    int top = Math.max(0, Math.min(scrollBar.getValue(), rowCount - visibleRows));
+    scrollBar.setValues(top, visibleRows, 0, rowCount);
+    scrollBar.setBlockIncrement(visibleRows);
+    scrollBar.setUnitIncrement(1);
+  }
+
+  private void showSize() {
+    statusLabel.setText(String.format("%,d bytes", content.limit()));
+  }
+
+  private void select(int start, int end) {
+    selectionStart = start;
+    selectionEnd = end;
+    int value = content.get(start) & 0xFF;
+    statusLabel.setText(
+        String.format("Offset 0x%08X (%,d), byte 0x%02X (%d)", start, start, value, value));
+    view.repaint();
+  }
+
+  // Scrolls a row into view, a third of the way down the view if it was out of view.
+  private void reveal(int offset) {
+    int row = offset / BYTES_PER_ROW;
+    int top = scrollBar.getValue();
+    if (row < top || row >= top + visibleRows()) {
+      scrollBar.setValue(Math.max(0, row - visibleRows() / 3));
+    }
+  }
+
+  // The offset of the byte painted at a point of the view, or -1 if there is none.
+  private int offsetAt(int x, int y) {
+    int column = (x - PADDING) / charWidth;
+    int index;
+    if (column >= HEX_COLUMN && column < ASCII_COLUMN - 2) {
+      int hexColumn = column - HEX_COLUMN;
+      // Skips the space between the two groups of eight bytes.
+      index = (hexColumn >= 8 * 3 ? hexColumn - 1 : hexColumn) / 3;
+    } else if (column >= ASCII_COLUMN && column < ROW_CHARS) {
+      index = column - ASCII_COLUMN;
+    } else {
+      return -1;
+    }
+    long offset = (long) (scrollBar.getValue() + y / rowHeight) * BYTES_PER_ROW + index;
+    return offset < content.limit() ? (int) offset : -1;
+  }
+
+  private void goToOffset() {
+    String input = JOptionPane.showInputDialog(this, "Offset (decimal, or hex starting with 0x):");
+    if (input == null || input.isBlank()) {
+      return;
+    }
+    String text = input.strip().toLowerCase(Locale.ROOT);
+    long offset;
+    try {
+      offset =
+          text.startsWith("0x")
+              ? Long.parseLong(text.substring(2), 16)
+              : Long.parseLong(text.replace(",", ""));
+    } catch (NumberFormatException e) {
+      statusLabel.setText("Not an offset: " + input.strip());
+      return;
+    }
+    if (offset < 0 || offset >= content.limit()) {
+      statusLabel.setText(String.format("The offset is past the end, 0x%08X.", content.limit()));
+      return;
+    }
+    select((int) offset, (int) offset + 1);
+    reveal((int) offset);
+  }
+
+  private void findNext() {
+    BytePattern pattern;
+    try {
+      pattern =
+          "Hex".equals(searchMode.getSelectedItem())
+              ? BytePattern.ofHex(searchField.getText())
+              : BytePattern.ofText(searchField.getText());
+    } catch (IllegalArgumentException e) {
+      statusLabel.setText(e.getMessage());
+      return;
+    }
+    if (search != null) {
+      search.cancel(false);
+    }
+    int from = selectionStart + 1;
+    statusLabel.setText("Searching...");
+    search =
+        new SwingWorker<>() {
+          @Override
+          protected Integer doInBackground() {
+            return pattern.findNext(content, from);
+          }
+
+          @Override
+          protected void done() {
+            if (isCancelled()) {
+              return;
+            }
+            try {
+              int found = get();
+              if (found < 0) {
+                statusLabel.setText("Not found.");
+              } else {
+                select(found, found + pattern.length());
+                reveal(found);
+              }
+            } catch (CancellationException e) {
+              // A newer search replaced this one.
+            } catch (Exception e) {
+              statusLabel.setText("Search failed: " + e.getMessage());
+            }
+          }
+        };
+    search.execute();
+  }
+
+  /** Paints the rows in view, and only those. */
+  private class HexView extends JComponent {
+    private final char[] line = new char[ROW_CHARS];
+
+    HexView() {
+      setOpaque(true);
+      setFocusable(true);
+      setFont(font);
+      setBackground(UIManager.getColor("TextArea.background"));
+      setForeground(UIManager.getColor("TextArea.foreground"));
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+      return new Dimension(2 * PADDING + ROW_CHARS * charWidth, 30 * rowHeight);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+      Rectangle clip = g.getClipBounds();
+      g.setColor(getBackground());
+      g.fillRect(clip.x, clip.y, clip.width, clip.height);
+      ((Graphics2D) g)
+          .setRenderingHint(
+              RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+      g.setFont(font);
+      Color selection = UIManager.getColor("TextArea.selectionBackground");
+      Color offsetColor = UIManager.getColor("Label.disabledForeground");
+      int top = scrollBar.getValue();
+      int first = clip.y / rowHeight;
+      int last = (clip.y + clip.height) / rowHeight;
+      for (int visibleRow = first;
+          visibleRow <= last && top + visibleRow < rowCount;
+          visibleRow++) {
+        int rowOffset = (top + visibleRow) * BYTES_PER_ROW;
+        int count = Math.min(BYTES_PER_ROW, content.limit() - rowOffset);
+        int y = visibleRow * rowHeight;
+        fillLine(rowOffset, count);
+        if (selectionStart >= 0 && selectionStart < rowOffset + count && selectionEnd > rowOffset) {
+          g.setColor(selection);
+          int from = Math.max(selectionStart, rowOffset) - rowOffset;
+          int to = Math.min(selectionEnd, rowOffset + count) - rowOffset;
+          for (int i = from; i < to; i++) {
+            g.fillRect(x(hexColumn(i)), y, 2 * charWidth, rowHeight);
+            g.fillRect(x(ASCII_COLUMN + i), y, charWidth, rowHeight);
+          }
+        }
+        int baseline = y + metrics.getAscent();
+        g.setColor(offsetColor);
+        g.drawChars(line, 0, OFFSET_DIGITS, x(0), baseline);
+        g.setColor(getForeground());
+        g.drawChars(line, HEX_COLUMN, ROW_CHARS - HEX_COLUMN, x(HEX_COLUMN), baseline);
+      }
+    }
+
+    private void fillLine(int rowOffset, int count) {
+      Arrays.fill(line, ' ');
+      for (int digit = 0; digit < OFFSET_DIGITS; digit++) {
+        line[OFFSET_DIGITS - 1 - digit] = HEX_DIGITS[(rowOffset >>> (4 * digit)) & 0xF];
+      }
+      for (int i = 0; i < count; i++) {
+        int value = content.get(rowOffset + i) & 0xFF;
+        int column = hexColumn(i);
+        line[column] = HEX_DIGITS[value >>> 4];
+        line[column + 1] = HEX_DIGITS[value & 0xF];
+        line[ASCII_COLUMN + i] = value >= 0x20 && value < 0x7F ? (char) value : '.';
+      }
+    }
+
+    private int hexColumn(int index) {
+      return HEX_COLUMN + index * 3 + (index >= BYTES_PER_ROW / 2 ? 1 : 0);
+    }
+
+    private int x(int column) {
+      return PADDING + column * charWidth;
+    }
+  }
+}
@@ -0,0 +1,544 @@
+package io.github.pixelclover.uview.gui;
+
+import io.github.pixelclover.uview.core.ImageDecoder;
+import io.github.pixelclover.uview.core.LruCache;
+import io.github.pixelclover.uview.model.UnityAsset;
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.swing.JButton;
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JViewport;
+import javax.swing.SwingUtilities;
+
+/**
+ * A zoomable viewer for image assets. Images are decoded on a background pool with an {@link
+ * ImageDecoder}, at no more pixels than the view shows: a large image is first shown from its
+ * embedded thumbnail or a coarse decode, then decoded again to fit the view, and at a higher
+ * resolution only when the user zooms in.
+ *
+ * <p>The whole image is decoded at no more than {@link #MAX_WHOLE_IMAGE_PIXELS}. When a huge
+ * texture is zoomed in further, only the tiles of it that are in view are decoded, at the
+ * resolution of the zoom, and kept in an {@link LruCache}; the whole image, at its lower
+ * resolution, fills in for tiles that are still being decoded.
+ */
+public class ImageViewerPanel extends JPanel {
+
+  private static final ExecutorService DECODE_EXECUTOR =
+      Executors.newFixedThreadPool(
+          2,
+          runnable -> {
+            Thread thread = new Thread(runnable, "image-decode");
+            thread.setDaemon(true);
+            return thread;
+          });
+  // Images with more pixels than this are first decoded at a quarter of the resolution they are
+  // shown at, which shows something quickly.
+  private static final long PREVIEW_PASS_PIXELS = 4_000_000;
+  private static final double ZOOM_STEP = 1.25;
+  private static final double MAX_ZOOM = 32;
+  private static final int CHECKER_SIZE = 8;
+  private static final long MAX_WHOLE_IMAGE_PIXELS = 16L * 1024 * 1024;
+  // The size of a tile, in pixels of the resolution it is decoded at.
+  private static final int TILE_SIZE = 512;
+  private static final long TILE_CACHE_BYTES = 128L * 1024 * 1024;
+
+  private final ByteBuffer content;
+  private final Canvas canvas = new Canvas();
+  private final JScrollPane scrollPane = new JScrollPane(canvas);
+  private final JLabel statusLabel = new JLabel("Decoding...");
+  private ImageDecoder decoder;
+  // The best decode of the image so far, and the subsampling of the decode that is running, if any.
+  private BufferedImage image;
+  private int pendingSubsampling = Integer.MAX_VALUE;
+  private final LruCache<TileKey, BufferedImage> tiles =
+      new LruCache<>(TILE_CACHE_BYTES, tile -> 4L * tile.getWidth() * tile.getHeight());
+  private final Set<TileKey> pendingTiles = new HashSet<>();
+  // Tiles whose region could not be decoded, as in a truncated file; they are not asked for again.
+  private final Set<TileKey> failedTiles = new HashSet<>();
+  // Counts the changes of the tiles in view; a queued decode is skipped once they changed.
+  private final AtomicInteger tileRequests = new AtomicInteger();
+  private Rectangle requestedTiles;
+  private int requestedSubsampling;
+  // Screen pixels per pixel of the full-resolution image.
+  private double zoom = 1;
+  private boolean fit = true;
+  private volatile boolean closed;
+
+  /**
+   * Constructs an ImageViewerPanel. The image is decoded on a background thread.
+   *
+   * @param asset The image asset to show.
+   */
+  public ImageViewerPanel(UnityAsset asset) {
+    super(new BorderLayout(0, 5));
+    this.content = asset.contentBuffer();
+
+    scrollPane
+        .getViewport()
+        .addComponentListener(
+            new ComponentAdapter() {
+              @Override
+              public void componentResized(ComponentEvent e) {
+                if (fit && decoder != null) {
+                  setZoom(fitZoom(), null);
+                }
+              }
+            });
+    canvas.addMouseWheelListener(
+        e -> {
+          if (e.isControlDown() || e.isMetaDown()) {
+            Point anchor =
+                SwingUtilities.convertPoint(canvas, e.getPoint(), scrollPane.getViewport());
+            fit = false;
+            setZoom(zoom * Math.pow(ZOOM_STEP, -e.getPreciseWheelRotation()), anchor);
+          } else {
+            scrollPane.dispatchEvent(SwingUtilities.convertMouseEvent(canvas, e, scrollPane));
+          }
+        });
+    scrollPane
+        .getViewport()
+        .addChangeListener(
+            e -> {
+              if (decoder != null) {
+                requestResolution();
+              }
+            });
+    scrollPane.getVerticalScrollBar().setUnitIncrement(16);
+    scrollPane.getHorizontalScrollBar().setUnitIncrement(16);
+    add(scrollPane, BorderLayout.CENTER);
+
+    JButton fitButton = new JButton("Fit");
+    fitButton.addActionListener(
+        e -> {
+          fit = true;
+          setZoom(fitZoom(), null);
+        });
+    JButton actualSizeButton = new JButton("100%");
+    actualSizeButton.addActionListener(e -> zoomTo(1));
+    JButton zoomOutButton = new JButton("−");
+    zoomOutButton.addActionListener(e -> zoomTo(zoom / ZOOM_STEP));
+    JButton zoomInButton = new JButton("+");
+    zoomInButton.addActionListener(e -> zoomTo(zoom * ZOOM_STEP));
+    JPanel toolPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+    toolPanel.add(statusLabel);
+    toolPanel.add(fitButton);
+    toolPanel.add(actualSizeButton);
+    toolPanel.add(zoomOutButton);
+    toolPanel.add(zoomInButton);
+    add(toolPanel, BorderLayout.SOUTH);
+
+    open();
+  }
+
+  /**
+   * Stops decoding the image once the panel is no longer needed. Decodes that are queued are
+   * skipped, and the results of those that are running are dropped.
+   */
+  public void close() {
+    closed = true;
+    tileRequests.incrementAndGet();
+  }
+
+  private void open() {
+    DECODE_EXECUTOR.execute(
+        () -> {
+          if (closed) {
+            return;
+          }
+          try {
+            ImageDecoder opened = ImageDecoder.open(content);
+            BufferedImage thumbnail = opened.readThumbnail();
+            SwingUtilities.invokeLater(() -> showDecoder(opened, thumbnail));
+          } catch (Exception | OutOfMemoryError e) {
+            SwingUtilities.invokeLater(
+                () -> statusLabel.setText("Failed to decode: " + e.getMessage()));
+          }
+        });
+  }
+
+  private void showDecoder(ImageDecoder opened, BufferedImage thumbnail) {
+    if (closed) {
+      return;
+    }
+    decoder = opened;
+    image = thumbnail;
+    zoom = fit ? fitZoom() : zoom;
+    if (thumbnail == null && (long) opened.width() * opened.height() > PREVIEW_PASS_PIXELS) {
+      decode(4 * subsamplingForZoom());
+    }
+    canvas.revalidate();
+    requestResolution();
+  }
+
+  private void zoomTo(double newZoom) {
+    fit = false;
+    JViewport viewport = scrollPane.getViewport();
+    setZoom(newZoom, new Point(viewport.getWidth() / 2, viewport.getHeight() / 2));
+  }
+
+  // Zooms, keeping the point of the image under an anchor of the viewport in place, or the top
+  // left corner if there is no anchor.
+  private void setZoom(double newZoom, Point anchor) {
+    if (decoder == null) {
+      return;
+    }
+    double minZoom = Math.min(1, fitZoom());
+    newZoom = Math.max(minZoom, Math.min(MAX_ZOOM, newZoom));
+    JViewport viewport = scrollPane.getViewport();
+    Point position = viewport.getViewPosition();
+    Point origin = canvas.imageOrigin();
+    // The point of the full-resolution image under the anchor.
+    double imageX = anchor == null ? 0 : (position.x + anchor.x - origin.x) / zoom;
+    double imageY = anchor == null ? 0 : (position.y + anchor.y - origin.y) / zoom;
+    zoom = newZoom;
+    canvas.revalidate();
+    scrollPane.validate();
+    if (anchor != null) {
+      origin = canvas.imageOrigin();
+      int x = (int) Math.round(imageX * zoom + origin.x - anchor.x);
+      int y = (int) Math.round(imageY * zoom + origin.y - anchor.y);
+      Dimension size = canvas.getPreferredSize();
+      // The view must have its new size before it can be scrolled to a point beyond the old one.
+      canvas.setSize(
+          Math.max(size.width, viewport.getWidth()), Math.max(size.height, viewport.getHeight()));
+      x = Math.max(0, Math.min(x, size.width - viewport.getWidth()));
+      y = Math.max(0, Math.min(y, size.height - viewport.getHeight()));
+      viewport.setViewPosition(new Point(x, y));
+    }
+    canvas.repaint();
+    requestResolution();
+  }
+
+  private double fitZoom() {
+    JViewport viewport = scrollPane.getViewport();
+    if (decoder == null || viewport.getWidth() <= 0 || viewport.getHeight() <= 0) {
+      return 1;
+    }
+    return Math.min(
+        1,
+        Math.min(
+            (double) viewport.getWidth() / decoder.width(),
+            (double) viewport.getHeight() / decoder.height()));
+  }
+
+  private int subsamplingForZoom() {
+    return zoom >= 1 ? 1 : (int) Math.floor(1 / zoom);
+  }
+
+  // Image pixels per pixel of the full-resolution image, of the best decode so far.
+  private double imageScale() {
+    return image == null ? 0 : (double) image.getWidth() / decoder.width();
+  }
+
+  // The least subsampling at which the whole image may be decoded.
+  private int minWholeSubsampling() {
+    int subsampling = 1;
+    while ((long) ceilDiv(decoder.width(), subsampling) * ceilDiv(decoder.height(), subsampling)
+        > MAX_WHOLE_IMAGE_PIXELS) {
+      subsampling++;
+    }
+    return subsampling;
+  }
+
+  private static int ceilDiv(int dividend, int divisor) {
+    return (dividend + divisor - 1) / divisor;
+  }
+
+  // Decodes the image again if the best decode so far has fewer pixels than the view shows, and
+  // the tiles in view if even the sharpest decode of the whole image would have too few.
+  private void requestResolution() {
+    int subsampling = subsamplingForZoom();
+    int wholeSubsampling = Math.max(subsampling, minWholeSubsampling());
+    // Subsampling rounds the size down, so a decode may be a pixel short of 1 / subsampling.
+    boolean sharpEnough = imageScale() * wholeSubsampling >= 1 - 1.0 / decoder.width();
+    if (!sharpEnough && wholeSubsampling < pendingSubsampling) {
+      decode(wholeSubsampling);
+    }
+    if (subsampling < wholeSubsampling) {
+      requestTiles(subsampling);
+    }
+    updateStatus();
+  }
+
+  // The tiles of a subsampling that are in view, as columns and rows.
+  private Rectangle visibleTiles(int subsampling) {
+    Point origin = canvas.imageOrigin();
+    Rectangle view = canvas.getVisibleRect();
+    double tileScreenSize = TILE_SIZE * subsampling * zoom;
+    int firstColumn = (int) Math.max(0, Math.floor((view.x - origin.x) / tileScreenSize));
+    int firstRow = (int) Math.max(0, Math.floor((view.y - origin.y) / tileScreenSize));
+    int lastColumn =
+        Math.min(
+            ceilDiv(decoder.width(), TILE_SIZE * subsampling) - 1,
+            (int) Math.floor((view.x + view.width - origin.x) / tileScreenSize));
+    int lastRow =
+        Math.min(
+            ceilDiv(decoder.height(), TILE_SIZE * subsampling) - 1,
+            (int) Math.floor((view.y + view.height - origin.y) / tileScreenSize));
+    return new Rectangle(
+        firstColumn, firstRow, lastColumn - firstColumn + 1, lastRow - firstRow + 1);
+  }
+
+  // Decodes the tiles in view that are neither cached nor being decoded, a row at a time, since a
+  // format that cannot be read at random reads from the top of the image for every region.
+  private void requestTiles(int subsampling) {
+    Rectangle visible = visibleTiles(subsampling);
+    if (!visible.equals(requestedTiles) || subsampling != requestedSubsampling) {
+      requestedTiles = visible;
+      requestedSubsampling = subsampling;
+      tileRequests.incrementAndGet();
+    }
+    int request = tileRequests.get();
+    for (int row = visible.y; row < visible.y + visible.height; row++) {
+      int first = -1;
+      int last = -1;
+      for (int column = visible.x; column < visible.x + visible.width; column++) {
+        TileKey key = new TileKey(subsampling, column, row);
+        if (tiles.get(key) == null && !pendingTiles.contains(key) && !failedTiles.contains(key)) {
+          first = first < 0 ? column : first;
+          last = column;
+        }
+      }
+      if (first >= 0) {
+        decodeTiles(subsampling, row, first, last, request);
+      }
+    }
+  }
+
+  private void decodeTiles(int subsampling, int row, int firstColumn, int lastColumn, int request) {
+    List<TileKey> keys = new ArrayList<>();
+    for (int column = firstColumn; column <= lastColumn; column++) {
+      keys.add(new TileKey(subsampling, column, row));
+    }
+    pendingTiles.addAll(keys);
+    int sourceTile = TILE_SIZE * subsampling;
+    Rectangle region =
+        new Rectangle(
+                firstColumn * sourceTile,
+                row * sourceTile,
+                (lastColumn - firstColumn + 1) * sourceTile,
+                sourceTile)
+            .intersection(new Rectangle(decoder.width(), decoder.height()));
+    ImageDecoder decoding = decoder;
+    DECODE_EXECUTOR.execute(
+        () -> {
+          List<BufferedImage> decoded = new ArrayList<>();
+          boolean failed = false;
+          try {
+            // If the user has scrolled or zoomed on since, or the viewer was closed, a newer
+            // request asks for what is in view.
+            if (tileRequests.get() == request) {
+              BufferedImage strip = decoding.readRegion(region, subsampling);
+              for (int x = 0; x < strip.getWidth(); x += TILE_SIZE) {
+                decoded.add(copy(strip, x, Math.min(TILE_SIZE, strip.getWidth() - x)));
+              }
+            }
+          } catch (Exception | OutOfMemoryError e) {
+            decoded.clear();
+            failed = true;
+          }
+          boolean regionFailed = failed;
+          SwingUtilities.invokeLater(() -> showTiles(keys, decoded, regionFailed));
+        });
+  }
+
+  private static BufferedImage copy(BufferedImage strip, int x, int width) {
+    BufferedImage tile =
+        new BufferedImage(width, strip.getHeight(), BufferedImage.TYPE_INT_ARGB_PRE);
+    Graphics2D g = tile.createGraphics();
+    g.drawImage(strip, -x, 0, null);
+    g.dispose();
+    return tile;
+  }
+
+  private void showTiles(List<TileKey> keys, List<BufferedImage> decoded, boolean failed) {
+    keys.forEach(pendingTiles::remove);
+    if (closed) {
+      return;
+    }
+    if (failed) {
+      // Asking for the region again would fail again, and again.
+      failedTiles.addAll(keys);
+    }
+    for (int i = 0; i < decoded.size(); i++) {
+      tiles.put(keys.get(i), decoded.get(i));
+    }
+    canvas.repaint();
+    // Asks for the tiles of skipped decodes if they are still in view.
+    requestResolution();
+  }
+
+  private void decode(int subsampling) {
+    pendingSubsampling = subsampling;
+    ImageDecoder decoding = decoder;
+    DECODE_EXECUTOR.execute(
+        () -> {
+          if (closed) {
+            return;
+          }
+          try {
+            BufferedImage decoded = decoding.read(subsampling);
+            SwingUtilities.invokeLater(() -> showDecoded(decoded, subsampling));
+          } catch (Exception | OutOfMemoryError e) {
+            SwingUtilities.invokeLater(
+                () -> {
+                  pendingSubsampling = Integer.MAX_VALUE;
+                  statusLabel.setText("Failed to decode: " + e.getMessage());
+                });
+          }
+        });
+  }
+
+  private void showDecoded(BufferedImage decoded, int subsampling) {
+    if (closed) {
+      return;
+    }
+    if (pendingSubsampling == subsampling) {
+      pendingSubsampling = Integer.MAX_VALUE;
+    }
+    // A decode that finishes after a sharper one is dropped.
+    if (decoded.getWidth() > (image == null ? 0 : image.getWidth())) {
+      image = decoded;
+      canvas.repaint();
+    }
+    // The user may have zoomed in further while this decode ran.
+    requestResolution();
+  }
+
+  private void updateStatus() {
+    String status =
+        String.format(
+            "%d × %d %s, %d%%",
+            decoder.width(), decoder.height(), decoder.formatName(), Math.round(zoom * 100));
+    boolean decoding = pendingSubsampling != Integer.MAX_VALUE || !pendingTiles.isEmpty();
+    if (decoding) {
+      status += ", decoding...";
+    } else if (!failedTiles.isEmpty()) {
+      status += ", some tiles failed to decode";
+    }
+    statusLabel.setText(status);
+  }
+
+  /** Paints the image at the zoom, centered when it is smaller than the view. */
+  private class Canvas extends JComponent {
+
+    @Override
+    public Dimension getPreferredSize() {
+      if (decoder == null) {
+        return new Dimension(1, 1);
+      }
+      return new Dimension(
+          (int) Math.round(decoder.width() * zoom), (int) Math.round(decoder.height() * zoom));
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+      Rectangle clip = g.getClipBounds();
+      g.setColor(getParent().getBackground());
+      g.fillRect(clip.x, clip.y, clip.width, clip.height);
+      if (decoder == null) {
+        return;
+      }
+      Dimension size = getPreferredSize();
+      Point origin = imageOrigin();
+      int x = origin.x;
+      int y = origin.y;
+      Rectangle imageBounds = new Rectangle(x, y, size.width, size.height).intersection(clip);
+      paintChecker(g, imageBounds);
+      if (image != null) {
+        Graphics2D g2 = (Graphics2D) g;
+        // Pixel art stays crisp when zoomed in; a smaller image is smoothed.
+        g2.setRenderingHint(
+            RenderingHints.KEY_INTERPOLATION,
+            zoom * image.getWidth() / decoder.width() >= 1
+                ? RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR
+                : RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g2.drawImage(image, x, y, size.width, size.height, null);
+      }
+      int subsampling = subsamplingForZoom();
+      if (image != null && subsampling < minWholeSubsampling()) {
+        paintTiles((Graphics2D) g, subsampling);
+      }
+    }
+
+    // Paints the decoded tiles in view over the whole image.
+    private void paintTiles(Graphics2D g, int subsampling) {
+      g.setRenderingHint(
+          RenderingHints.KEY_INTERPOLATION,
+          zoom * subsampling >= 1
+              ? RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR
+              : RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+      Point origin = imageOrigin();
+      Rectangle visible = visibleTiles(subsampling);
+      int sourceTile = TILE_SIZE * subsampling;
+      for (int row = visible.y; row < visible.y + visible.height; row++) {
+        for (int column = visible.x; column < visible.x + visible.width; column++) {
+          BufferedImage tile = tiles.get(new TileKey(subsampling, column, row));
+          if (tile != null) {
+            // Both edges are rounded from the source, so that neighbouring tiles meet exactly.
+            int sourceX = column * sourceTile;
+            int sourceY = row * sourceTile;
+            int sourceRight = Math.min(decoder.width(), sourceX + sourceTile);
+            int sourceBottom = Math.min(decoder.height(), sourceY + sourceTile);
+            int left = origin.x + (int) Math.round(sourceX * zoom);
+            int top = origin.y + (int) Math.round(sourceY * zoom);
+            int right = origin.x + (int) Math.round(sourceRight * zoom);
+            int bottom = origin.y + (int) Math.round(sourceBottom * zoom);
+            g.drawImage(tile, left, top, right - left, bottom - top, null);
+          }
+        }
+      }
+    }
+
+    // Where the image is painted: centered when it is smaller than the view. The canvas is as large
+    // as the view then, but it may not have been laid out again yet after a zoom.
+    Point imageOrigin() {
+      Dimension size = getPreferredSize();
+      JViewport viewport = scrollPane.getViewport();
+      return new Point(
+          Math.max(0, (viewport.getWidth() - size.width) / 2),
+          Math.max(0, (viewport.getHeight() - size.height) / 2));
+    }
+
+    // Paints a checkerboard behind the image, through which transparent pixels show.
+    private void paintChecker(Graphics g, Rectangle bounds) {
+      for (int row = bounds.y / CHECKER_SIZE;
+          row * CHECKER_SIZE < bounds.y + bounds.height;
+          row++) {
+        for (int column = bounds.x / CHECKER_SIZE;
+            column * CHECKER_SIZE < bounds.x + bounds.width;
+            column++) {
+          g.setColor((row + column) % 2 == 0 ? Color.LIGHT_GRAY : Color.WHITE);
+          Rectangle square =
+              new Rectangle(column * CHECKER_SIZE, row * CHECKER_SIZE, CHECKER_SIZE, CHECKER_SIZE)
+                  .intersection(bounds);
+          g.fillRect(square.x, square.y, square.width, square.height);
+        }
+      }
+    }
+  }
+
+  /** A tile of the image at a subsampling, by its column and row. */
+  private record TileKey(int subsampling, int column, int row) {}
+}
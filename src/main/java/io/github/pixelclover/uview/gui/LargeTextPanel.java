@@ -0,0 +1,363 @@
+package io.github.pixelclover.uview.gui;
+
+import io.github.pixelclover.uview.core.AssetTypes;
+import io.github.pixelclover.uview.core.LineIndex;
+import io.github.pixelclover.uview.model.UnityAsset;
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Toolkit;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import javax.swing.AbstractAction;
+import javax.swing.JButton;
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JViewport;
+import javax.swing.KeyStroke;
+import javax.swing.Scrollable;
+import javax.swing.SwingConstants;
+import javax.swing.SwingWorker;
+import javax.swing.UIManager;
+import javax.swing.text.Segment;
+import org.fife.ui.rsyntaxtextarea.SyntaxScheme;
+import org.fife.ui.rsyntaxtextarea.Theme;
+import org.fife.ui.rsyntaxtextarea.Token;
+import org.fife.ui.rsyntaxtextarea.TokenMaker;
+import org.fife.ui.rsyntaxtextarea.TokenMakerFactory;
+import org.fife.ui.rsyntaxtextarea.TokenTypes;
+import org.fife.ui.rtextarea.RTextAreaBase;
+
+/**
+ * A read-only viewer for text assets too large for {@link SyntaxTextPanel}, such as big logs or
+ * JSON dumps. The lines of the asset are indexed on a background thread by a {@link LineIndex}, and
+ * the viewer shows the lines indexed so far while that runs. Only the lines in view are decoded and
+ * syntax highlighted, each time they are painted, so the viewer opens at once and holds no more
+ * text than fits on the screen.
+ *
+ * <p>Highlighting starts afresh at the first line in view, so a construct that spans lines, like a
+ * block comment, is only highlighted correctly if it starts in view.
+ */
+public class LargeTextPanel extends JPanel {
+
+  private static final int TAB_SIZE = 4;
+  private static final int PADDING = 4;
+
+  private final ByteBuffer content;
+  private final TokenMaker tokenMaker;
+  private final SyntaxScheme scheme;
+  private final Color foreground;
+  private final Color markColor;
+  private final Font font;
+  private final FontMetrics metrics;
+  private final int rowHeight;
+  private final RowView rowView = new RowView();
+  private final Gutter gutter = new Gutter();
+  private final JScrollPane scrollPane = new JScrollPane(rowView);
+  private final JLabel statusLabel = new JLabel("Indexing lines...");
+  private LineIndex index;
+  private SwingWorker<LineIndex, LineIndex> indexer;
+  private int markedRow = -1;
+
+  /**
+   * Constructs a LargeTextPanel. The lines are indexed on a background thread.
+   *
+   * @param asset The text asset to show.
+   */
+  public LargeTextPanel(UnityAsset asset) {
+    super(new BorderLayout(0, 5));
+    this.content = asset.contentBuffer();
+    this.tokenMaker =
+        TokenMakerFactory.getDefaultInstance()
+            .getTokenMaker(
+                SyntaxTextPanel.syntaxStyleFor(AssetTypes.extensionOf(asset.assetPath())));
+
+    Theme theme = SyntaxTextPanel.loadTheme();
+    Color background = UIManager.getColor("TextArea.background");
+    Color gutterBackground = background;
+    Color lineNumberColor = Color.GRAY;
+    Color currentLine = UIManager.getColor("TextArea.selectionBackground");
+    Font baseFont = RTextAreaBase.getDefaultFont();
+    if (theme != null) {
+      background = theme.bgColor;
+      gutterBackground = theme.gutterBackgroundColor;
+      lineNumberColor = theme.lineNumberColor;
+      currentLine = theme.currentLineHighlight;
+      baseFont = theme.baseFont != null ? theme.baseFont : baseFont;
+      scheme = theme.scheme;
+    } else {
+      scheme = new SyntaxScheme(true);
+    }
+    Color identifier = scheme.getStyle(TokenTypes.IDENTIFIER).foreground;
+    foreground = identifier != null ? identifier : UIManager.getColor("TextArea.foreground");
+    markColor = currentLine;
+    font = baseFont;
+    metrics = getFontMetrics(font);
+    rowHeight = metrics.getHeight();
+
+    rowView.setBackground(background);
+    gutter.setBackground(gutterBackground);
+    gutter.setForeground(lineNumberColor);
+    scrollPane.setRowHeaderView(gutter);
+    scrollPane.getViewport().setBackground(background);
+    add(scrollPane, BorderLayout.CENTER);
+
+    JButton goToLineButton = new JButton("Go to Line...");
+    goToLineButton.addActionListener(e -> goToLine());
+    getInputMap(WHEN_IN_FOCUSED_WINDOW)
+        .put(
+            KeyStroke.getKeyStroke(
+                KeyEvent.VK_G, Toolkit.getDefaultToolkit().getMenuShortcutKeyMaskEx()),
+            "goToLine");
+    getActionMap()
+        .put(
+            "goToLine",
+            new AbstractAction() {
+              @Override
+              public void actionPerformed(ActionEvent e) {
+                goToLine();
+              }
+            });
+    JPanel statusPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+    statusPanel.add(statusLabel);
+    statusPanel.add(goToLineButton);
+    add(statusPanel, BorderLayout.SOUTH);
+
+    startIndexing();
+  }
+
+  private void startIndexing() {
+    indexer =
+        new SwingWorker<>() {
+          @Override
+          protected LineIndex doInBackground() {
+            return LineIndex.build(content, this::publish, this::isCancelled);
+          }
+
+          @Override
+          protected void process(List<LineIndex> chunks) {
+            if (!isCancelled()) {
+              showIndex(chunks.get(chunks.size() - 1));
+            }
+          }
+
+          @Override
+          protected void done() {
+            try {
+              showIndex(get());
+            } catch (CancellationException e) {
+              // The viewer was closed.
+            } catch (Exception e) {
+              statusLabel.setText("Failed to index the lines: " + e.getMessage());
+            }
+          }
+        };
+    indexer.execute();
+  }
+
+  private void showIndex(LineIndex newIndex) {
+    index = newIndex;
+    if (newIndex.isComplete()) {
+      int lines = newIndex.lineNumber(newIndex.rowCount() - 1);
+      statusLabel.setText(String.format("%,d lines. This file is too large to edit.", lines));
+    } else {
+      long percent = newIndex.indexedBytes() * 100L / Math.max(1, newIndex.contentBytes());
+      statusLabel.setText(String.format("Indexing lines... %d%%", percent));
+    }
+    rowView.revalidate();
+    gutter.revalidate();
+    rowView.repaint();
+    gutter.repaint();
+  }
+
+  private void goToLine() {
+    if (index == null) {
+      return;
+    }
+    String input =
+        JOptionPane.showInputDialog(
+            this, "Line number (1 - " + index.lineNumber(index.rowCount() - 1) + "):");
+    if (input == null) {
+      return;
+    }
+    try {
+      markedRow = index.rowOfLine(Math.max(1, Integer.parseInt(input.trim())));
+    } catch (NumberFormatException e) {
+      return;
+    }
+    Rectangle visible = scrollPane.getViewport().getViewRect();
+    // Puts the line a third of the way down the view.
+    int y = Math.max(0, markedRow * rowHeight - visible.height / 3);
+    rowView.scrollRectToVisible(new Rectangle(visible.x, y, 1, visible.height));
+    rowView.repaint();
+  }
+
+  @Override
+  public void removeNotify() {
+    super.removeNotify();
+    if (indexer != null) {
+      indexer.cancel(false);
+    }
+  }
+
+  private int rowCount() {
+    return index == null ? 0 : index.rowCount();
+  }
+
+  private int heightOfRows() {
+    return (int) Math.min(Integer.MAX_VALUE, (long) rowCount() * rowHeight);
+  }
+
+  private static void applyDesktopHints(Graphics g) {
+    if (Toolkit.getDefaultToolkit().getDesktopProperty("awt.font.desktophints")
+        instanceof Map<?, ?> hints) {
+      ((Graphics2D) g).addRenderingHints(hints);
+    } else {
+      ((Graphics2D) g)
+          .setRenderingHint(
+              RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+    }
+  }
+
+  private static char[] expandTabs(String text) {
+    if (text.indexOf('\t') < 0) {
+      return text.toCharArray();
+    }
+    StringBuilder expanded = new StringBuilder(text.length() + 16);
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (c == '\t') {
+        expanded.repeat(' ', TAB_SIZE - expanded.length() % TAB_SIZE);
+      } else {
+        expanded.append(c);
+      }
+    }
+    return expanded.toString().toCharArray();
+  }
+
+  /** Paints the rows in view, and only those. */
+  private class RowView extends JComponent implements Scrollable {
+
+    RowView() {
+      setOpaque(true);
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+      int longestRow = index == null ? 0 : index.longestRow();
+      return new Dimension(2 * PADDING + longestRow * metrics.charWidth('m'), heightOfRows());
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+      Rectangle clip = g.getClipBounds();
+      g.setColor(getBackground());
+      g.fillRect(clip.x, clip.y, clip.width, clip.height);
+      int first = clip.y / rowHeight;
+      int last = Math.min(rowCount() - 1, (clip.y + clip.height) / rowHeight);
+      if (markedRow >= first && markedRow <= last && markColor != null) {
+        g.setColor(markColor);
+        g.fillRect(clip.x, markedRow * rowHeight, clip.width, rowHeight);
+      }
+      applyDesktopHints(g);
+      g.setFont(font);
+      int tokenType = TokenTypes.NULL;
+      for (int row = first; row <= last; row++) {
+        char[] text = expandTabs(index.text(row));
+        Segment segment = new Segment(text, 0, text.length);
+        int x = PADDING;
+        int y = row * rowHeight + metrics.getAscent();
+        for (Token token = tokenMaker.getTokenList(segment, tokenType, 0);
+            token != null && token.isPaintable();
+            token = token.getNextToken()) {
+          Color color = scheme.getStyle(token.getType()).foreground;
+          g.setColor(color != null ? color : foreground);
+          g.drawChars(token.getTextArray(), token.getTextOffset(), token.length(), x, y);
+          x += metrics.charsWidth(token.getTextArray(), token.getTextOffset(), token.length());
+          if (x > clip.x + clip.width) {
+            break;
+          }
+        }
+        // Carries a construct that spans lines, like a block comment, over to the next row.
+        tokenType = tokenMaker.getLastTokenTypeOnLine(segment, tokenType);
+      }
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+      return getPreferredSize();
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+      return orientation == SwingConstants.VERTICAL ? rowHeight : metrics.charWidth('m');
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+      return orientation == SwingConstants.VERTICAL
+          ? Math.max(rowHeight, visibleRect.height - rowHeight)
+          : visibleRect.width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+      return getParent() instanceof JViewport viewport
+          && viewport.getWidth() > getPreferredSize().width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+      return getParent() instanceof JViewport viewport
+          && viewport.getHeight() > getPreferredSize().height;
+    }
+  }
+
+  /** Paints the line numbers of the rows in view; a row that continues a line has none. */
+  private class Gutter extends JComponent {
+
+    Gutter() {
+      setOpaque(true);
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+      int lines = index == null ? 1 : index.lineNumber(index.rowCount() - 1);
+      int digits = Math.max(3, String.valueOf(lines).length());
+      return new Dimension(3 * PADDING + digits * metrics.charWidth('0'), heightOfRows());
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+      Rectangle clip = g.getClipBounds();
+      g.setColor(getBackground());
+      g.fillRect(clip.x, clip.y, clip.width, clip.height);
+      applyDesktopHints(g);
+      g.setFont(font);
+      g.setColor(getForeground());
+      int first = clip.y / rowHeight;
+      int last = Math.min(rowCount() - 1, (clip.y + clip.height) / rowHeight);
+      for (int row = first; row <= last; row++) {
+        if (!index.isContinuation(row)) {
+          String number = String.valueOf(index.lineNumber(row));
+          int x = getWidth() - 2 * PADDING - metrics.stringWidth(number);
+          g.drawString(number, x, row * rowHeight + metrics.getAscent());
+        }
+      }
+    }
+  }
+}
@@ -14,8 +14,11 @@ import java.awt.Cursor;
 import java.awt.Desktop;
 import java.awt.Dimension;
 import java.awt.Font;
+import java.awt.Toolkit;
 import java.awt.datatransfer.DataFlavor;
 import java.awt.datatransfer.Transferable;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.io.File;
@@ -43,6 +46,7 @@ import javax.swing.JRadioButtonMenuItem;
 import javax.swing.JSeparator;
 import javax.swing.JTabbedPane;
 import javax.swing.JToolBar;
+import javax.swing.KeyStroke;
 import javax.swing.SwingUtilities;
 import javax.swing.SwingWorker;
 import javax.swing.Timer;
@@ -73,6 +77,10 @@ public class MainWindow extends JFrame {
   private JMenuItem saveAsMenuItem;
   private JMenuItem closeMenuItem;
   private JMenuItem extractAllMenuItem;
+  private JMenuItem undoMenuItem;
+  private JMenuItem redoMenuItem;
+  private JMenuItem quickOpenMenuItem;
+  private JMenuItem contentSearchMenuItem;
   private JMenu openRecentMenu;
   private JLabel statusLabel;
   private JLabel fileCountLabel;
@@ -242,6 +250,33 @@ public class MainWindow extends JFrame {
     exitMenuItem.addActionListener(e -> handleExit());
     fileMenu.add(exitMenuItem);
 
+    JMenu editMenu = new JMenu("Edit");
+    menuBar.add(editMenu);
+
+    int shortcutMask = Toolkit.getDefaultToolkit().getMenuShortcutKeyMaskEx();
+    undoMenuItem = new JMenuItem("Undo");
+    undoMenuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_Z, shortcutMask));
+    undoMenuItem.addActionListener(e -> undo());
+    editMenu.add(undoMenuItem);
+
+    redoMenuItem = new JMenuItem("Redo");
+    redoMenuItem.setAccelerator(
+        KeyStroke.getKeyStroke(KeyEvent.VK_Z, shortcutMask | InputEvent.SHIFT_DOWN_MASK));
+    redoMenuItem.addActionListener(e -> redo());
+    editMenu.add(redoMenuItem);
+
+    editMenu.addSeparator();
+    quickOpenMenuItem = new JMenuItem("Go to Asset...");
+    quickOpenMenuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_P, shortcutMask));
+    quickOpenMenuItem.addActionListener(e -> showQuickOpen());
+    editMenu.add(quickOpenMenuItem);
+
+    contentSearchMenuItem = new JMenuItem("Find in Contents...");
+    contentSearchMenuItem.setAccelerator(
+        KeyStroke.getKeyStroke(KeyEvent.VK_F, shortcutMask | InputEvent.SHIFT_DOWN_MASK));
+    contentSearchMenuItem.addActionListener(e -> showContentSearch());
+    editMenu.add(contentSearchMenuItem);
+
     JMenu settingsMenu = new JMenu("Settings");
     menuBar.add(settingsMenu);
 
@@ -522,6 +557,36 @@ public class MainWindow extends JFrame {
     return (PackageViewPanel) tabbedPane.getSelectedComponent();
   }
 
+  private void showQuickOpen() {
+    PackageViewPanel currentPanel = getCurrentPanel();
+    if (currentPanel != null) {
+      currentPanel.showQuickOpen();
+    }
+  }
+
+  private void showContentSearch() {
+    PackageViewPanel currentPanel = getCurrentPanel();
+    if (currentPanel != null) {
+      currentPanel.showContentSearch();
+    }
+  }
+
+  private void undo() {
+    PackageViewPanel currentPanel = getCurrentPanel();
+    if (currentPanel != null) {
+      currentPanel.undo();
+      updateState();
+    }
+  }
+
+  private void redo() {
+    PackageViewPanel currentPanel = getCurrentPanel();
+    if (currentPanel != null) {
+      currentPanel.redo();
+      updateState();
+    }
+  }
+
   private void saveFile() {
     PackageViewPanel currentPanel = getCurrentPanel();
     if (currentPanel == null) {
@@ -574,6 +639,8 @@ public class MainWindow extends JFrame {
     }
     if (result == JOptionPane.YES_OPTION) {
       saveFile();
+    } else {
+      currentPanel.close();
     }
     return true;
   }
@@ -679,6 +746,10 @@ public class MainWindow extends JFrame {
     closeMenuItem.setEnabled(hasPanel);
     extractAllMenuItem.setEnabled(hasPanel);
     extractAllButton.setEnabled(hasPanel);
+    undoMenuItem.setEnabled(hasPanel && currentPanel.getPackageManager().canUndo());
+    redoMenuItem.setEnabled(hasPanel && currentPanel.getPackageManager().canRedo());
+    quickOpenMenuItem.setEnabled(hasPanel);
+    contentSearchMenuItem.setEnabled(hasPanel);
 
     if (hasPanel) {
       cardLayout.show(contentPanel, TABBED_PANE);
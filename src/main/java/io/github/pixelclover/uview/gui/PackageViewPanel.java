@@ -1,8 +1,17 @@
 package io.github.pixelclover.uview.gui;
 
 import com.formdev.flatlaf.FlatClientProperties;
+import io.github.pixelclover.uview.core.AssetQuery;
+import io.github.pixelclover.uview.core.AssetQueryIndex;
+import io.github.pixelclover.uview.core.FuzzyPathMatcher;
+import io.github.pixelclover.uview.core.ImageHeaderCache;
+import io.github.pixelclover.uview.core.PackageChangeEvent;
 import io.github.pixelclover.uview.core.PackageManager;
+import io.github.pixelclover.uview.core.PathIndex;
+import io.github.pixelclover.uview.core.ReferenceGraph;
 import io.github.pixelclover.uview.core.SettingsManager;
+import io.github.pixelclover.uview.gui.tree.PackageTreeModel;
+import io.github.pixelclover.uview.gui.tree.PackageTreeNode;
 import io.github.pixelclover.uview.gui.tree.TreeEntry;
 import io.github.pixelclover.uview.io.PackageIO;
 import io.github.pixelclover.uview.model.UnityAsset;
@@ -14,8 +23,16 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.io.File;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Deque;
+import java.util.Enumeration;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.swing.BorderFactory;
 import javax.swing.JFileChooser;
 import javax.swing.JFrame;
@@ -25,11 +42,14 @@ import javax.swing.JPanel;
 import javax.swing.JPopupMenu;
 import javax.swing.JScrollPane;
 import javax.swing.JSeparator;
+import javax.swing.JSplitPane;
 import javax.swing.JTextField;
+import javax.swing.JToggleButton;
 import javax.swing.JTree;
 import javax.swing.SwingUtilities;
 import javax.swing.SwingWorker;
 import javax.swing.Timer;
+import javax.swing.ToolTipManager;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 import javax.swing.tree.DefaultMutableTreeNode;
@@ -42,14 +62,65 @@ import javax.swing.tree.TreePath;
  */
 public class PackageViewPanel extends JPanel {
 
+  // Searches of all panels run one at a time on a single background thread.
+  private static final ExecutorService SEARCH_EXECUTOR =
+      Executors.newSingleThreadExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "package-search");
+            thread.setDaemon(true);
+            return thread;
+          });
+  // The indexes of a loaded package are built ahead of its first searches on a thread of their own.
+  // A search that needs an index while it is being built waits for that build instead of repeating
+  // it.
+  private static final ExecutorService PREBUILD_EXECUTOR =
+      Executors.newSingleThreadExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "package-prebuild");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+          });
+  private static final int MAX_EXPANDED_RESULTS = 5000;
+
+  // Larger changes are cheaper to apply by rebuilding the tree than node by node.
+  private static final int MAX_INCREMENTAL_CHANGES = 1000;
+
   private final PackageManager packageManager;
   private final SettingsManager settingsManager;
   private final JTree tree;
-  private final DefaultTreeModel treeModel;
   private final JFrame owner;
   private final Timer searchDebounceTimer;
   private final JTextField searchField;
   private File packageFile;
+  // The model of the assets the tree shows, unless it shows a message instead.
+  private final PackageTreeModel treeModel = new PackageTreeModel(PathIndex.EMPTY);
+  // The directories that were expanded when the tree last showed the model.
+  private List<String> expandedDirectories = List.of();
+  // The latest search, if it has not finished yet, and the one the tree currently shows.
+  private Future<?> pendingSearch;
+  private volatile int searchGeneration;
+  private PathIndex.Result lastSearch;
+  private String shownQuery = "";
+  // The quick-open matcher, the query index and the reference graph of the latest index they were
+  // asked for; all are built on a background thread, each under its own lock.
+  private volatile FuzzyPathMatcher pathMatcher;
+  private volatile AssetQueryIndex queryIndex;
+  private volatile ReferenceGraph referenceGraph;
+  private final Object pathMatcherLock = new Object();
+  private final Object queryIndexLock = new Object();
+  private final Object referenceGraphLock = new Object();
+  private ContentSearchDialog contentSearchDialog;
+  // The sizes and formats of the images, read in the background after loading.
+  private final ImageHeaderCache imageHeaders = new ImageHeaderCache();
+  private final JScrollPane treeScrollPane;
+  // Shown beside the tree while the thumbnails button is selected; created when first shown.
+  private final JToggleButton thumbnailsButton;
+  private ThumbnailGridPanel thumbnailGrid;
+  private JSplitPane thumbnailSplitPane;
+  // The folder and the index or search result the grid shows the files of.
+  private String thumbnailFolder;
+  private Object thumbnailSource;
 
   /**
    * Constructs a PackageViewPanel.
@@ -63,7 +134,12 @@ public class PackageViewPanel extends JPanel {
     this.owner = owner;
     this.packageFile = packageFile;
     this.settingsManager = settingsManager;
-    this.packageManager = new PackageManager(new PackageIO());
+    this.packageManager =
+        new PackageManager(
+            new PackageIO(),
+            PackageManager.DEFAULT_MAX_ASSET_SIZE_BYTES,
+            settingsManager.getJournalDirectory());
+    packageManager.addChangeListener(this::onPackageChanged);
 
     // --- Search Bar ---
     searchDebounceTimer = new Timer(300, e -> filterTree()); // 300ms delay
@@ -71,6 +147,10 @@ public class PackageViewPanel extends JPanel {
 
     searchField = new JTextField();
     searchField.putClientProperty(FlatClientProperties.PLACEHOLDER_TEXT, "Type to search...");
+    searchField.setToolTipText(
+        "<html>Search paths, or combine terms such as<br>"
+            + "<code>ext:cs,prefab size:&gt;1mb path:Assets/Art guid:ab12* has:preview</code><br>"
+            + "Put <code>-</code> before a term to exclude what it matches.</html>");
     searchField
         .getDocument()
         .addDocumentListener(
@@ -93,14 +173,18 @@ public class PackageViewPanel extends JPanel {
     JPanel searchPanel = new JPanel(new BorderLayout());
     searchPanel.setBorder(BorderFactory.createEmptyBorder(4, 4, 4, 4));
     searchPanel.add(searchField, BorderLayout.CENTER);
+    thumbnailsButton = new JToggleButton("Thumbnails");
+    thumbnailsButton.setToolTipText(
+        "Show the files of the selected folder, or the search results, as thumbnails");
+    thumbnailsButton.addActionListener(e -> showThumbnails(thumbnailsButton.isSelected()));
+    searchPanel.add(thumbnailsButton, BorderLayout.EAST);
     add(searchPanel, BorderLayout.NORTH);
 
     // --- Tree View ---
-    DefaultMutableTreeNode root = new DefaultMutableTreeNode("Loading...");
-    this.treeModel = new DefaultTreeModel(root);
-    this.tree = new JTree(treeModel);
+    this.tree = new JTree(new DefaultTreeModel(new DefaultMutableTreeNode("Loading...")));
     tree.setRootVisible(true); // Set to true initially to show "Loading..."
-    tree.setCellRenderer(new FileTypeTreeCellRenderer());
+    tree.setCellRenderer(new FileTypeTreeCellRenderer(imageHeaders));
+    ToolTipManager.sharedInstance().registerComponent(tree);
     tree.addMouseListener(
         new MouseAdapter() {
           @Override
@@ -126,32 +210,303 @@ public class PackageViewPanel extends JPanel {
           }
         });
 
-    add(new JScrollPane(tree), BorderLayout.CENTER);
+    tree.addTreeSelectionListener(e -> updateThumbnails());
+
+    treeScrollPane = new JScrollPane(tree);
+    add(treeScrollPane, BorderLayout.CENTER);
+  }
+
+  private void showThumbnails(boolean show) {
+    if (show) {
+      if (thumbnailGrid == null) {
+        thumbnailGrid = new ThumbnailGridPanel(imageHeaders, this::openAsset);
+        thumbnailSplitPane = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT);
+        thumbnailSplitPane.setDividerLocation(300);
+      }
+      remove(treeScrollPane);
+      thumbnailSplitPane.setLeftComponent(treeScrollPane);
+      thumbnailSplitPane.setRightComponent(thumbnailGrid);
+      add(thumbnailSplitPane, BorderLayout.CENTER);
+      updateThumbnails();
+    } else {
+      thumbnailFolder = null;
+      remove(thumbnailSplitPane);
+      add(treeScrollPane, BorderLayout.CENTER);
+    }
+    revalidate();
+    repaint();
+  }
+
+  // Shows the files of the selected folder and its subfolders in the thumbnail grid, or of the
+  // whole package if nothing is selected, limited to the search results if there is a search.
+  private void updateThumbnails() {
+    if (thumbnailGrid == null || !thumbnailsButton.isSelected()) {
+      return;
+    }
+    if (tree.getModel() != treeModel) {
+      thumbnailFolder = null;
+      thumbnailGrid.setAssets(List.of());
+      return;
+    }
+    String folder = "";
+    TreeEntry entry = selectedEntry();
+    if (entry instanceof TreeEntry.DirectoryEntry directory) {
+      folder = directory.getFullPath();
+    } else if (entry instanceof TreeEntry.AssetEntry assetEntry) {
+      String path = assetEntry.asset().assetPath();
+      folder =
+          assetEntry.asset().isDirectory()
+              ? (path.endsWith("/") ? path : path + "/")
+              : path.substring(0, path.lastIndexOf('/') + 1);
+    }
+    PathIndex.Result result = lastSearch;
+    PathIndex index = result == null ? packageManager.getPathIndex() : result.index();
+    // Selecting another file of the same folder keeps the grid, and where it is scrolled to.
+    Object source = result == null ? index : result;
+    if (folder.equals(thumbnailFolder) && source == thumbnailSource) {
+      return;
+    }
+    thumbnailFolder = folder;
+    thumbnailSource = source;
+    int start = index.lowerBound(folder);
+    int end = index.prefixEnd(folder);
+    List<UnityAsset> assets = new ArrayList<>();
+    if (result == null) {
+      for (int id = start; id < end; id++) {
+        addFile(assets, index.get(id));
+      }
+    } else {
+      for (int i = 0; i < result.size(); i++) {
+        int id = result.id(i);
+        if (id >= start && id < end) {
+          addFile(assets, index.get(id));
+        }
+      }
+    }
+    thumbnailGrid.setAssets(assets);
+  }
+
+  private static void addFile(List<UnityAsset> assets, UnityAsset asset) {
+    if (!asset.isDirectory()) {
+      assets.add(asset);
+    }
   }
 
+  /**
+   * Starts filtering the tree with the current search text. The search runs on a background thread,
+   * so typing is never blocked; a newer search cancels an older one, and only the result of the
+   * latest search is shown. Showing it only changes which nodes of the tree are visible.
+   */
   private void filterTree() {
     String query = searchField.getText();
-    Collection<UnityAsset> filteredAssets = packageManager.getFilteredAssets(query);
-    DefaultMutableTreeNode root = TreeModelBuilder.build(filteredAssets);
+    PathIndex index = packageManager.getPathIndex();
+    PathIndex.Result previous = lastSearch;
+    int generation = ++searchGeneration;
+    if (pendingSearch != null) {
+      // A search that has not started is dropped; one that has finishes and its result is ignored.
+      pendingSearch.cancel(false);
+    }
+    pendingSearch =
+        SEARCH_EXECUTOR.submit(
+            () -> {
+              if (generation != searchGeneration) {
+                return;
+              }
+              PathIndex.Result result;
+              try {
+                result = search(query, index, previous);
+              } catch (IllegalArgumentException e) {
+                SwingUtilities.invokeLater(
+                    () -> {
+                      if (generation == searchGeneration) {
+                        pendingSearch = null;
+                        showMessage("Invalid search: " + e.getMessage());
+                      }
+                    });
+                return;
+              }
+              BitSet mask = result == null ? null : result.mask();
+              SwingUtilities.invokeLater(
+                  () -> {
+                    if (generation == searchGeneration) {
+                      showTree(query, index, result, mask);
+                    }
+                  });
+            });
+  }
+
+  // Searches an index with the query language of AssetQuery; returns null for a blank query.
+  private PathIndex.Result search(String query, PathIndex index, PathIndex.Result previous) {
+    AssetQuery parsed = AssetQuery.parse(query);
+    if (parsed.isBlank()) {
+      return null;
+    }
+    return queryIndexFor(index).search(parsed, previous);
+  }
+
+  private AssetQueryIndex queryIndexFor(PathIndex index) {
+    AssetQueryIndex current = queryIndex;
+    if (current == null || current.index() != index) {
+      synchronized (queryIndexLock) {
+        current = queryIndex;
+        if (current == null || current.index() != index) {
+          current = AssetQueryIndex.of(index);
+          queryIndex = current;
+        }
+      }
+    }
+    return current;
+  }
+
+  private ReferenceGraph referencesFor(PathIndex index) {
+    ReferenceGraph current = referenceGraph;
+    if (current == null || current.index() != index) {
+      synchronized (referenceGraphLock) {
+        current = referenceGraph;
+        if (current == null || current.index() != index) {
+          current = ReferenceGraph.of(index);
+          referenceGraph = current;
+        }
+      }
+    }
+    return current;
+  }
+
+  private void showTree(String query, PathIndex index, PathIndex.Result result, BitSet mask) {
+    // Changing the filter collapses the tree, so remember which directories were expanded.
+    if (tree.getModel() == treeModel) {
+      expandedDirectories = expandedDirectories();
+    }
+    pendingSearch = null;
+    lastSearch = result;
+    shownQuery = query;
+    treeModel.setFilter(index, mask);
 
-    if (root.getChildCount() == 0) {
-      String message;
+    if (treeModel.isEmpty()) {
       if (query.trim().isEmpty()) {
-        message = "Package is empty or its format could not be read.";
+        showMessage("Package is empty or its format could not be read.");
       } else {
-        message = "No assets found matching '" + query + "'";
+        showMessage("No assets found matching '" + query + "'");
+      }
+      return;
+    }
+    if (tree.getModel() != treeModel) {
+      tree.setModel(treeModel);
+    }
+    tree.setRootVisible(false); // Hide the master root for normal view
+    for (String directory : expandedDirectories) {
+      TreePath path = treeModel.pathTo(directory);
+      if (path != null && !treeModel.isLeaf(path.getLastPathComponent())) {
+        tree.expandPath(path);
+      }
+    }
+    if (result != null) {
+      expandMatches(result.size());
+    }
+    updateThumbnails();
+  }
+
+  private List<String> expandedDirectories() {
+    List<String> directories = new ArrayList<>();
+    Enumeration<TreePath> expanded = tree.getExpandedDescendants(new TreePath(treeModel.getRoot()));
+    while (expanded != null && expanded.hasMoreElements()) {
+      if (expanded.nextElement().getLastPathComponent() instanceof PackageTreeNode node
+          && node.getParent() != null) {
+        directories.add(node.getPath());
       }
-      DefaultMutableTreeNode messageNode = new DefaultMutableTreeNode(message);
-      treeModel.setRoot(messageNode);
-      tree.setRootVisible(true); // Show the message node
+    }
+    return directories;
+  }
+
+  // Expands the directories that contain matches, for better visibility. Expanding every directory
+  // of a very large result would take longer than it is useful.
+  private void expandMatches(int resultSize) {
+    Deque<PackageTreeNode> pending = new ArrayDeque<>();
+    pending.push(treeModel.getRoot());
+    while (!pending.isEmpty()) {
+      PackageTreeNode node = pending.pop();
+      for (int i = node.getChildCount() - 1; i >= 0; i--) {
+        PackageTreeNode child = node.getChildAt(i);
+        if (!child.isLeaf()) {
+          tree.expandPath(child.getTreePath());
+          if (resultSize <= MAX_EXPANDED_RESULTS) {
+            pending.push(child);
+          }
+        }
+      }
+    }
+  }
+
+  private void showMessage(String message) {
+    tree.setModel(new DefaultTreeModel(new DefaultMutableTreeNode(message)));
+    tree.setRootVisible(true); // Show the message node
+    updateThumbnails();
+  }
+
+  private void onPackageChanged(PackageChangeEvent event) {
+    if (!SwingUtilities.isEventDispatchThread()) {
+      SwingUtilities.invokeLater(() -> onPackageChanged(event));
+      return;
+    }
+    // Edits are applied to the tree in place. Only a message node or a reloaded package, or a
+    // change too large to be worth applying node by node, rebuilds the tree.
+    boolean showingAssets = tree.getModel() == treeModel;
+    // A search that is still running would show a tree without this change, so run it again.
+    if (!showingAssets || pendingSearch != null) {
+      refreshTree();
+      return;
+    }
+    List<UnityAsset> changed;
+    if (event instanceof PackageChangeEvent.AssetsAdded added) {
+      changed = added.assets();
+    } else if (event instanceof PackageChangeEvent.AssetsRemoved removed) {
+      changed = removed.assets();
+    } else if (event instanceof PackageChangeEvent.AssetsUpdated updated) {
+      changed = updated.assets();
     } else {
-      treeModel.setRoot(root);
-      tree.setRootVisible(false); // Hide the master root for normal view
-      // Expand all nodes in the filtered view for better visibility
-      for (int i = 0; i < tree.getRowCount(); i++) {
-        tree.expandRow(i);
+      changed = null;
+    }
+    if (changed == null || changed.size() > MAX_INCREMENTAL_CHANGES) {
+      refreshTree();
+      return;
+    }
+
+    PathIndex index = packageManager.getPathIndex();
+    AssetQuery query = AssetQuery.parse(shownQuery);
+    // Building the query index for the edited package takes too long for the event thread.
+    if (lastSearch != null && !query.isPathSearch()) {
+      refreshTree();
+      return;
+    }
+    // The positions of a search result belong to the index it was made from, so a filtered view
+    // needs a fresh result; an edit is rare enough to search synchronously.
+    PathIndex.Result result = lastSearch == null ? null : index.search(shownQuery);
+    lastSearch = result;
+    List<String> paths = changed.stream().map(UnityAsset::assetPath).toList();
+    treeModel.update(index, result == null ? null : result.mask(), paths);
+    if (treeModel.isEmpty()) {
+      refreshTree(); // Show the empty package message.
+      return;
+    }
+    if (event instanceof PackageChangeEvent.AssetsAdded) {
+      for (String path : paths) {
+        TreePath treePath = treeModel.pathTo(path);
+        if (treePath != null) {
+          tree.makeVisible(treePath);
+        }
       }
     }
+    updateThumbnails();
+  }
+
+  // The entry of the selected node, or null if nothing or only a message is selected.
+  private TreeEntry selectedEntry() {
+    TreePath selectionPath = tree.getSelectionPath();
+    if (selectionPath != null
+        && selectionPath.getLastPathComponent() instanceof PackageTreeNode node) {
+      return node.getEntry();
+    }
+    return null;
   }
 
   private JPopupMenu createPopupMenu() {
@@ -177,29 +532,39 @@ public class PackageViewPanel extends JPanel {
 
     popup.add(new JSeparator());
 
+    JMenuItem findUsagesMenuItem = new JMenuItem("Find Usages");
+    findUsagesMenuItem.addActionListener(e -> findSelectedUsages());
+    popup.add(findUsagesMenuItem);
+
+    popup.add(new JSeparator());
+
     JMenuItem extractSelectedMenuItem = new JMenuItem("Extract Selected");
-    extractSelectedMenuItem.addActionListener(e -> extractSelected());
+    extractSelectedMenuItem.addActionListener(e -> extractSelected(false));
     popup.add(extractSelectedMenuItem);
 
+    JMenuItem extractWithDependenciesMenuItem = new JMenuItem("Extract with Dependencies");
+    extractWithDependenciesMenuItem.addActionListener(e -> extractSelected(true));
+    popup.add(extractWithDependenciesMenuItem);
+
     // Default to disabled
     viewMenuItem.setEnabled(false);
     editMetaMenuItem.setEnabled(false);
     removeMenuItem.setEnabled(false);
+    findUsagesMenuItem.setEnabled(false);
     extractSelectedMenuItem.setEnabled(false);
+    extractWithDependenciesMenuItem.setEnabled(false);
 
-    TreePath selectionPath = tree.getSelectionPath();
-    if (selectionPath != null) {
-      DefaultMutableTreeNode selectedNode =
-          (DefaultMutableTreeNode) selectionPath.getLastPathComponent();
-      Object userObject = selectedNode.getUserObject();
-
+    TreeEntry userObject = selectedEntry();
+    if (userObject != null) {
       removeMenuItem.setEnabled(true);
       extractSelectedMenuItem.setEnabled(true);
+      extractWithDependenciesMenuItem.setEnabled(true);
 
       if (userObject instanceof TreeEntry.AssetEntry assetEntry) {
         // It's a real asset from the package (file or folder).
         // Always allow editing its meta file.
         editMetaMenuItem.setEnabled(true);
+        findUsagesMenuItem.setEnabled(true);
 
         // Only enable "View" if it's not a directory (i.e., it has content).
         viewMenuItem.setEnabled(!assetEntry.asset().isDirectory());
@@ -217,7 +582,6 @@ public class PackageViewPanel extends JPanel {
   public void loadPackage(Runnable onDone) {
     if (packageFile == null) { // New package
       packageManager.createNew();
-      refreshTree();
       onDone.run();
       return;
     }
@@ -234,11 +598,20 @@ public class PackageViewPanel extends JPanel {
           protected void done() {
             try {
               get();
-              refreshTree();
+              // Build the quick-open matcher and the search indexes ahead of time so the first
+              // searches do not wait for them.
+              PathIndex index = packageManager.getPathIndex();
+              List<UnityAsset> assets = List.copyOf(packageManager.getAssets());
+              PREBUILD_EXECUTOR.submit(
+                  () -> {
+                    queryIndexFor(index);
+                    matcherFor(index);
+                    referencesFor(index);
+                    imageHeaders.readAll(assets);
+                  });
+              offerRecovery();
             } catch (Exception ex) {
-              treeModel.setRoot(
-                  new DefaultMutableTreeNode("Error loading file: " + ex.getMessage()));
-              tree.setRootVisible(true);
+              showMessage("Error loading file: " + ex.getMessage());
             } finally {
               onDone.run();
             }
@@ -247,6 +620,34 @@ public class PackageViewPanel extends JPanel {
     worker.execute();
   }
 
+  private void offerRecovery() {
+    if (!packageManager.hasRecoverableEdits()) {
+      return;
+    }
+    int result =
+        JOptionPane.showConfirmDialog(
+            owner,
+            "The package '"
+                + packageFile.getName()
+                + "' has unsaved changes from a previous session. Do you want to recover them?",
+            "Recover Unsaved Changes",
+            JOptionPane.YES_NO_OPTION,
+            JOptionPane.QUESTION_MESSAGE);
+    if (result != JOptionPane.YES_OPTION) {
+      packageManager.discardRecoverableEdits();
+      return;
+    }
+    try {
+      packageManager.recoverEdits();
+    } catch (Exception ex) {
+      JOptionPane.showMessageDialog(
+          owner,
+          "Could not recover unsaved changes: " + ex.getMessage(),
+          "Error",
+          JOptionPane.ERROR_MESSAGE);
+    }
+  }
+
   private JFileChooser createFileChooser(String title) {
     JFileChooser chooser = new JFileChooser();
     chooser.setDialogTitle(title);
@@ -265,7 +666,6 @@ public class PackageViewPanel extends JPanel {
       if (assetPath != null && !assetPath.trim().isEmpty()) {
         try {
           packageManager.addAsset(sourceFile, assetPath);
-          refreshTree();
         } catch (Exception ex) {
           JOptionPane.showMessageDialog(
               this, "Error adding file: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
@@ -275,14 +675,7 @@ public class PackageViewPanel extends JPanel {
   }
 
   private void removeSelectedAsset() {
-    TreePath selectionPath = tree.getSelectionPath();
-    if (selectionPath == null) {
-      return;
-    }
-    DefaultMutableTreeNode selectedNode =
-        (DefaultMutableTreeNode) selectionPath.getLastPathComponent();
-    Object userObject = selectedNode.getUserObject();
-
+    TreeEntry userObject = selectedEntry();
     if (userObject instanceof TreeEntry.DirectoryEntry entry) {
       int result =
           JOptionPane.showConfirmDialog(
@@ -293,35 +686,70 @@ public class PackageViewPanel extends JPanel {
               JOptionPane.WARNING_MESSAGE);
       if (result == JOptionPane.YES_OPTION) {
         packageManager.removeDirectory(entry.getFullPath());
-        refreshTree();
       }
     } else if (userObject instanceof TreeEntry.AssetEntry entry) {
       packageManager.removeAsset(entry.getFullPath());
-      refreshTree();
     }
   }
 
-  private void extractSelected() {
-    TreePath selectionPath = tree.getSelectionPath();
-    if (selectionPath == null) {
+  private void findSelectedUsages() {
+    if (!(selectedEntry() instanceof TreeEntry.AssetEntry entry)) {
       return;
     }
-    DefaultMutableTreeNode selectedNode =
-        (DefaultMutableTreeNode) selectionPath.getLastPathComponent();
-    if (!(selectedNode.getUserObject() instanceof TreeEntry entry)) {
+    UnityAsset asset = entry.asset();
+    PathIndex index = packageManager.getPathIndex();
+    owner.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+    SEARCH_EXECUTOR.submit(
+        () -> {
+          List<UnityAsset> usages;
+          try {
+            usages = List.copyOf(referencesFor(index).usagesOf(asset));
+          } catch (RuntimeException e) {
+            SwingUtilities.invokeLater(
+                () -> {
+                  owner.setCursor(Cursor.getDefaultCursor());
+                  JOptionPane.showMessageDialog(
+                      owner,
+                      "Finding usages failed: " + e.getMessage(),
+                      "Error",
+                      JOptionPane.ERROR_MESSAGE);
+                });
+            return;
+          }
+          SwingUtilities.invokeLater(
+              () -> {
+                owner.setCursor(Cursor.getDefaultCursor());
+                String name = entry.getDisplayName();
+                new AssetListDialog(
+                        owner,
+                        "Usages of " + name,
+                        usages,
+                        "No asset in the package refers to " + name,
+                        this::openAsset)
+                    .setVisible(true);
+              });
+        });
+  }
+
+  private void extractSelected(boolean withDependencies) {
+    TreeEntry entry = selectedEntry();
+    if (entry == null) {
       return;
     }
+    // Captured here because the package may only be read on the event dispatch thread.
+    PathIndex index = withDependencies ? packageManager.getPathIndex() : null;
 
     JFileChooser chooser = createFileChooser("Select Directory for Extraction");
     chooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
     if (chooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
       Path outputDir = chooser.getSelectedFile().toPath();
       settingsManager.setLastDirectory(outputDir.toFile());
-      extractInBackground(entry, outputDir);
+      extractInBackground(entry, outputDir, index);
     }
   }
 
-  private void extractInBackground(TreeEntry entry, Path outputDir) {
+  // Extracts the selected entry, and everything it depends on if an index to find that is given.
+  private void extractInBackground(TreeEntry entry, Path outputDir, PathIndex index) {
     owner.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
     SwingWorker<Void, Void> worker =
         new SwingWorker<>() {
@@ -337,7 +765,14 @@ public class PackageViewPanel extends JPanel {
               pathPrefixToStrip = entry.getFullPath();
               assetsToExtract = packageManager.getAssetsUnderPath(pathPrefixToStrip);
             }
-            packageManager.extractAssets(assetsToExtract, outputDir, pathPrefixToStrip);
+            if (index != null) {
+              // Dependencies can be anywhere in the package, so keep the whole folder structure.
+              assetsToExtract = referencesFor(index).withDependencies(assetsToExtract);
+              pathPrefixToStrip = "Assets/";
+            }
+            // With dependencies, the .meta files keep the GUIDs the assets refer to each other by.
+            packageManager.extractAssets(
+                assetsToExtract, outputDir, pathPrefixToStrip, index != null);
             return null;
           }
 
@@ -361,46 +796,98 @@ public class PackageViewPanel extends JPanel {
   }
 
   private void handleDoubleClick() {
-    TreePath selectionPath = tree.getSelectionPath();
-    if (selectionPath == null) {
-      return;
+    if (selectedEntry() instanceof TreeEntry.AssetEntry entry) {
+      showAssetViewer(entry.asset());
     }
-    DefaultMutableTreeNode selectedNode =
-        (DefaultMutableTreeNode) selectionPath.getLastPathComponent();
-    Object userObject = selectedNode.getUserObject();
-    if (userObject instanceof TreeEntry.AssetEntry entry) {
-      Runnable onSaveCallback =
-          () -> {
-            refreshTree();
-            // The owner is always the MainWindow, so this cast is safe.
-            ((MainWindow) owner).updateState();
-          };
-      // Delegate window creation to MainWindow to manage instances.
-      ((MainWindow) owner).showAssetViewer(entry.asset(), packageManager, onSaveCallback);
+  }
+
+  private void showAssetViewer(UnityAsset asset) {
+    // The tree updates itself from package change events; only the window state needs refreshing.
+    // The owner is always the MainWindow, so this cast is safe.
+    Runnable onSaveCallback = () -> ((MainWindow) owner).updateState();
+    // Delegate window creation to MainWindow to manage instances.
+    ((MainWindow) owner).showAssetViewer(asset, packageManager, onSaveCallback);
+  }
+
+  /**
+   * Shows a dialog for finding an asset by an abbreviation of its path, and opens the chosen one.
+   */
+  public void showQuickOpen() {
+    // The package manager is only used on the event thread; the matcher is built on the dialog's.
+    PathIndex index = packageManager.getPathIndex();
+    new QuickOpenDialog(owner, () -> matcherFor(index), this::openAsset).setVisible(true);
+  }
+
+  /**
+   * Shows a dialog for finding the assets whose contents contain a text, and opens the chosen ones.
+   */
+  public void showContentSearch() {
+    if (contentSearchDialog == null || !contentSearchDialog.isDisplayable()) {
+      contentSearchDialog =
+          new ContentSearchDialog(
+              owner, packageManager::getContentIndex, packageManager::getAssets, this::openAsset);
     }
+    contentSearchDialog.setVisible(true);
+    contentSearchDialog.toFront();
   }
 
-  private void editSelectedMetaFile() {
-    TreePath selectionPath = tree.getSelectionPath();
-    if (selectionPath == null) {
-      return;
+  private FuzzyPathMatcher matcherFor(PathIndex index) {
+    FuzzyPathMatcher matcher = pathMatcher;
+    if (matcher == null || matcher.index() != index) {
+      synchronized (pathMatcherLock) {
+        matcher = pathMatcher;
+        if (matcher == null || matcher.index() != index) {
+          matcher = FuzzyPathMatcher.of(index);
+          pathMatcher = matcher;
+        }
+      }
+    }
+    return matcher;
+  }
+
+  private void openAsset(UnityAsset asset) {
+    if (tree.getModel() == treeModel) {
+      String path = asset.assetPath();
+      TreePath treePath =
+          treeModel.pathTo(path.endsWith("/") ? path.substring(0, path.length() - 1) : path);
+      if (treePath != null) {
+        tree.setSelectionPath(treePath);
+        tree.scrollPathToVisible(treePath);
+      }
+    }
+    if (!asset.isDirectory()) {
+      showAssetViewer(asset);
     }
+  }
 
-    DefaultMutableTreeNode selectedNode =
-        (DefaultMutableTreeNode) selectionPath.getLastPathComponent();
-    if (selectedNode.getUserObject() instanceof TreeEntry.AssetEntry entry) {
+  private void editSelectedMetaFile() {
+    if (selectedEntry() instanceof TreeEntry.AssetEntry entry) {
       // This callback will ask the main window to update its state (e.g., enable Save menu item)
-      Runnable onSaveCallback =
-          () -> {
-            refreshTree();
-            ((MainWindow) owner).updateState();
-          };
+      Runnable onSaveCallback = () -> ((MainWindow) owner).updateState();
 
       // Delegate window creation to MainWindow to manage instances.
       ((MainWindow) owner).showMetaEditor(entry.asset(), packageManager, onSaveCallback);
     }
   }
 
+  /** Undoes the most recent modification of the package. */
+  public void undo() {
+    packageManager.undo();
+  }
+
+  /** Redoes the most recently undone modification of the package. */
+  public void redo() {
+    packageManager.redo();
+  }
+
+  /** Closes the package, deleting any journal of its unsaved changes. */
+  public void close() {
+    packageManager.close();
+    if (contentSearchDialog != null) {
+      contentSearchDialog.dispose();
+    }
+  }
+
   /** Refreshes the tree view to reflect the current state of the package assets. */
   public void refreshTree() {
     // When refreshing, apply the current filter text
@@ -1,11 +1,20 @@
 package io.github.pixelclover.uview.gui;
 
+import io.github.pixelclover.uview.core.LruCache;
 import java.awt.BorderLayout;
 import java.awt.FlowLayout;
+import java.awt.Point;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import javax.swing.BoxLayout;
 import javax.swing.ImageIcon;
 import javax.swing.JButton;
@@ -15,38 +24,90 @@ import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTextField;
 import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
 import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.rendering.PDFRenderer;
 
-/** A panel that displays a PDF document with page navigation controls. */
+/**
+ * A panel that displays a PDF document with page navigation controls. The document is loaded, and
+ * its pages rendered, on a thread of the panel's own, since a document must not be used by two
+ * threads at once. Pages are rendered at a resolution that fits the page to the width of the view.
+ * The pages around the current one are rendered ahead, and recently shown pages are kept, so that
+ * paging back and forth is immediate.
+ *
+ * <p>The document is parsed from the asset's content in place rather than from a copy, and what
+ * PDFBox needs to hold beyond that, such as decoded streams, spills over to a scratch file once it
+ * exceeds {@link #SCRATCH_MEMORY_BYTES}, so even a very large manual takes little more heap than
+ * its asset already does.
+ */
 public class PdfViewerPanel extends JPanel {
 
-  private final PDDocument document;
-  private final PDFRenderer renderer;
+  private static final Logger LOGGER = LogManager.getLogger(PdfViewerPanel.class);
+
+  // How much memory PDFBox may use for its buffers before it moves them to a scratch file.
+  private static final long SCRATCH_MEMORY_BYTES = 16L * 1024 * 1024;
+  // A few pages at the resolution of a large screen.
+  private static final long PAGE_CACHE_BYTES = 64L * 1024 * 1024;
+  private static final int MIN_DPI = 36;
+  private static final int MAX_DPI = 300;
+  // The resolution is rounded to steps of this, so that resizing the view by a few pixels does not
+  // render every page again.
+  private static final int DPI_STEP = 12;
+  // Room for the border and the vertical scroll bar of the view, so that a page fitted to its width
+  // needs no horizontal scroll bar.
+  private static final int SCROLL_BAR_ALLOWANCE = 24;
+
+  // Only used on the render thread, once loaded.
+  private PDDocument document;
+  private PDFRenderer renderer;
+  // Set on the event thread once the document is loaded.
+  private int pageCount;
+  // The width of the first page in points; the resolution is chosen for it.
+  private float referenceWidth = PDRectangle.LETTER.getWidth();
+  private final ExecutorService renderExecutor =
+      Executors.newSingleThreadExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "pdf-render");
+            thread.setDaemon(true);
+            return thread;
+          });
+  private final LruCache<PageKey, BufferedImage> pages = pageCache(PAGE_CACHE_BYTES);
+  // The pages queued for or being rendered; only used on the event thread.
+  private final Set<PageKey> pendingPages = new HashSet<>();
   private final JLabel pageLabel = new JLabel();
+  private final JScrollPane scrollPane = new JScrollPane(pageLabel);
   private final JButton prevButton = new JButton("< Prev");
   private final JButton nextButton = new JButton("Next >");
   private final JLabel statusLabel = new JLabel();
   private final JTextField pageInputField = new JTextField(4);
-  private int currentPage = 0;
+  private final Timer resizeTimer;
+  // Read by the render thread to skip pages that were paged away from before their turn came.
+  private volatile int currentPage = 0;
+  private volatile int currentDpi;
+  private volatile boolean closed;
+  private int shownPage = -1;
 
   /**
-   * Constructs a PdfViewerPanel.
+   * Constructs a PdfViewerPanel and starts loading the document in the background. A document that
+   * cannot be loaded is reported in the panel.
    *
-   * @param pdfData The byte array containing the PDF data.
-   * @throws IOException If the PDF data cannot be loaded.
+   * @param pdfData The PDF file, from index 0 to its limit. It is read in place, so it must not
+   *     change while the panel is open.
    */
-  public PdfViewerPanel(byte[] pdfData) throws IOException {
+  public PdfViewerPanel(ByteBuffer pdfData) {
     super(new BorderLayout());
-
-    // Load the document and create a renderer
-    this.document = Loader.loadPDF(pdfData);
-    this.renderer = new PDFRenderer(document);
+    this.currentDpi = dpiFor(0);
 
     // Main display area for the rendered page
     pageLabel.setHorizontalAlignment(JLabel.CENTER);
-    add(new JScrollPane(pageLabel), BorderLayout.CENTER);
+    scrollPane.getVerticalScrollBar().setUnitIncrement(16);
+    add(scrollPane, BorderLayout.CENTER);
 
     // Navigation and status controls panel
     JPanel controlsPanel = new JPanel();
@@ -67,8 +128,75 @@ public class PdfViewerPanel extends JPanel {
     controlsPanel.add(jumpPanel);
     add(controlsPanel, BorderLayout.SOUTH);
 
+    // Render again at the resolution for the new size once the user stops resizing.
+    resizeTimer = new Timer(200, e -> updatePage(currentPage));
+    resizeTimer.setRepeats(false);
+    scrollPane.addComponentListener(
+        new ComponentAdapter() {
+          @Override
+          public void componentResized(ComponentEvent e) {
+            if (pageCount == 0) {
+              return; // Not loaded yet.
+            }
+            if (shownPage < 0 && pendingPages.isEmpty()) {
+              updatePage(currentPage); // Laid out for the first time.
+            } else if (dpiFor(scrollPane.getWidth()) != currentDpi) {
+              resizeTimer.restart();
+            }
+          }
+        });
+
     setupActionListeners();
-    updatePage(0); // Display the first page initially
+    prevButton.setEnabled(false);
+    nextButton.setEnabled(false);
+    statusLabel.setText("Loading...");
+    renderExecutor.execute(() -> load(pdfData));
+  }
+
+  // Loads the document on the render thread, and shows its first page.
+  private void load(ByteBuffer pdfData) {
+    int pages;
+    float width;
+    try {
+      document = openDocument(pdfData);
+      renderer = new PDFRenderer(document);
+      // Images in the page are read at no more than the resolution they are drawn at.
+      renderer.setSubsamplingAllowed(true);
+      pages = document.getNumberOfPages();
+      width = pages > 0 ? widthOf(0) : PDRectangle.LETTER.getWidth();
+    } catch (IOException | RuntimeException e) {
+      SwingUtilities.invokeLater(
+          () -> {
+            statusLabel.setText(" ");
+            pageLabel.setText("Failed to load PDF: " + e.getMessage());
+          });
+      return;
+    }
+    SwingUtilities.invokeLater(
+        () -> {
+          pageCount = pages;
+          referenceWidth = width;
+          if (pages == 0) {
+            statusLabel.setText("The document has no pages.");
+          } else if (!closed) {
+            updatePage(currentPage);
+          }
+        });
+  }
+
+  /**
+   * Opens a PDF document from a buffer in place, without copying it, with what PDFBox holds beyond
+   * it spilling over to a scratch file.
+   *
+   * @param pdfData The PDF file, from index 0 to its limit. It is not changed, not even its
+   *     position, and must not change while the document is open.
+   * @return The document, which the caller closes.
+   * @throws IOException if the file is not a PDF document, or cannot be read.
+   */
+  static PDDocument openDocument(ByteBuffer pdfData) throws IOException {
+    return Loader.loadPDF(
+        new RandomAccessReadBuffer(pdfData.duplicate().rewind()),
+        MemoryUsageSetting.setupMixed(SCRATCH_MEMORY_BYTES).streamCache);
   }
 
   private void setupActionListeners() {
@@ -98,38 +226,133 @@ public class PdfViewerPanel extends JPanel {
   }
 
   private void updatePage(int newPageIndex) {
-    if (newPageIndex < 0 || newPageIndex >= document.getNumberOfPages()) {
+    if (newPageIndex < 0 || newPageIndex >= pageCount) {
       return; // Page index is out of bounds
     }
     currentPage = newPageIndex;
+    currentDpi = dpiFor(scrollPane.getWidth());
+    statusLabel.setText("Page " + (currentPage + 1) + " of " + pageCount);
+    pageInputField.setText(String.valueOf(currentPage + 1));
+    prevButton.setEnabled(currentPage > 0);
+    nextButton.setEnabled(currentPage < pageCount - 1);
 
-    // Render the page in a background thread to keep the UI responsive
-    SwingUtilities.invokeLater(
+    BufferedImage image = pages.get(new PageKey(currentPage, currentDpi));
+    if (image != null) {
+      showImage(currentPage, image);
+    } else {
+      // The previous page stays in view until this one is rendered.
+      statusLabel.setText("Page " + (currentPage + 1) + " of " + pageCount + " (rendering...)");
+      requestPage(currentPage);
+    }
+    // The pages the user is likely to turn to next.
+    requestPage(currentPage + 1);
+    requestPage(currentPage - 1);
+  }
+
+  private void showImage(int page, BufferedImage image) {
+    pageLabel.setText(null);
+    pageLabel.setIcon(new ImageIcon(image));
+    if (page != shownPage) {
+      shownPage = page;
+      scrollPane.getViewport().setViewPosition(new Point(0, 0));
+    }
+  }
+
+  // Renders a page at the current resolution on the render thread, unless it is rendered already.
+  private void requestPage(int page) {
+    PageKey key = new PageKey(page, currentDpi);
+    if (page < 0 || page >= pageCount || pages.get(key) != null || !pendingPages.add(key)) {
+      return;
+    }
+    renderExecutor.execute(
         () -> {
+          BufferedImage image = null;
+          String error = null;
+          // A page that is no longer current or next to it is skipped; it is requested again if
+          // the user turns to it.
+          if (!closed && Math.abs(page - currentPage) <= 1 && key.dpi() == currentDpi) {
+            try {
+              image = renderer.renderImageWithDPI(page, key.dpi());
+              pages.put(key, image);
+            } catch (IOException | RuntimeException e) {
+              error = e.getMessage();
+            }
+          }
+          BufferedImage rendered = image;
+          String renderError = error;
+          SwingUtilities.invokeLater(
+              () -> {
+                pendingPages.remove(key);
+                if (page != currentPage || key.dpi() != currentDpi) {
+                  return;
+                }
+                statusLabel.setText("Page " + (currentPage + 1) + " of " + pageCount);
+                if (rendered != null) {
+                  showImage(page, rendered);
+                } else if (renderError != null) {
+                  pageLabel.setIcon(null);
+                  pageLabel.setText("Failed to render page: " + renderError);
+                }
+              });
+        });
+  }
+
+  // The resolution at which the first page fills the width of a view.
+  private int dpiFor(int viewWidth) {
+    if (viewWidth <= SCROLL_BAR_ALLOWANCE) {
+      return 150; // Not laid out yet; the resolution pages were always shown at.
+    }
+    float dpi = (viewWidth - SCROLL_BAR_ALLOWANCE) * 72f / referenceWidth;
+    // Rounded down, so that the page is never wider than the view.
+    int rounded = (int) (dpi / DPI_STEP) * DPI_STEP;
+    return Math.clamp(rounded, MIN_DPI, MAX_DPI);
+  }
+
+  private float widthOf(int page) {
+    PDRectangle box = document.getPage(page).getCropBox();
+    int rotation = document.getPage(page).getRotation();
+    return rotation % 180 == 0 ? box.getWidth() : box.getHeight();
+  }
+
+  /**
+   * Closes the underlying PDDocument to free up resources. This must be called when the panel is no
+   * longer needed. The document is closed on the render thread once the page being rendered, if
+   * any, is done.
+   */
+  public void close() {
+    closed = true;
+    resizeTimer.stop();
+    renderExecutor.execute(
+        () -> {
+          if (document == null) {
+            return; // It failed to load.
+          }
           try {
-            BufferedImage image = renderer.renderImageWithDPI(currentPage, 150); // 150 DPI
-            pageLabel.setIcon(new ImageIcon(image));
-            statusLabel.setText("Page " + (currentPage + 1) + " of " + document.getNumberOfPages());
-            pageInputField.setText(String.valueOf(currentPage + 1));
-
-            // Enable/disable navigation buttons
-            prevButton.setEnabled(currentPage > 0);
-            nextButton.setEnabled(currentPage < document.getNumberOfPages() - 1);
+            document.close();
           } catch (IOException e) {
-            pageLabel.setText("Failed to render page: " + e.getMessage());
+            LOGGER.error("Failed to close PDF document", e);
           }
+          pages.clear();
         });
+    renderExecutor.shutdown();
   }
 
   /**
-   * Closes the underlying PDDocument to free up resources. This must be called when the panel is no
-   * longer needed.
+   * Makes a cache of rendered pages, which holds them by page and resolution, and drops the least
+   * recently shown ones once they take more than a number of bytes.
    *
-   * @throws IOException if the document cannot be closed.
+   * @param maxBytes The most bytes the pages may take together, at four bytes a pixel.
+   * @return The empty cache.
    */
-  public void close() throws IOException {
-    if (document != null) {
-      document.close();
-    }
+  static LruCache<PageKey, BufferedImage> pageCache(long maxBytes) {
+    return new LruCache<>(maxBytes, image -> 4L * image.getWidth() * image.getHeight());
   }
+
+  /**
+   * A rendered page in the cache.
+   *
+   * @param page The number of the page, from 0.
+   * @param dpi The resolution it was rendered at.
+   */
+  record PageKey(int page, int dpi) {}
 }
@@ -0,0 +1,217 @@
+package io.github.pixelclover.uview.gui;
+
+import com.formdev.flatlaf.FlatClientProperties;
+import io.github.pixelclover.uview.core.FuzzyPathMatcher;
+import io.github.pixelclover.uview.model.UnityAsset;
+import java.awt.BorderLayout;
+import java.awt.Component;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import javax.swing.AbstractAction;
+import javax.swing.BorderFactory;
+import javax.swing.DefaultListCellRenderer;
+import javax.swing.DefaultListModel;
+import javax.swing.JComponent;
+import javax.swing.JDialog;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JScrollPane;
+import javax.swing.JTextField;
+import javax.swing.KeyStroke;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingUtilities;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+/**
+ * A dialog for finding an asset by typing an abbreviation of its path, such as {@code plctrl} for
+ * {@code PlayerController.cs}. The matches are ranked by a {@link FuzzyPathMatcher} on a background
+ * thread and shown after every keystroke.
+ */
+public class QuickOpenDialog extends JDialog {
+
+  private static final int MAX_RESULTS = 100;
+  private static final ExecutorService SEARCH_EXECUTOR =
+      Executors.newSingleThreadExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "quick-open");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  private final Supplier<FuzzyPathMatcher> matcher;
+  private final Consumer<UnityAsset> onOpen;
+  private final JTextField queryField = new JTextField();
+  private final DefaultListModel<FuzzyPathMatcher.Match> results = new DefaultListModel<>();
+  private final JList<FuzzyPathMatcher.Match> resultList = new JList<>(results);
+  private final JLabel statusLabel = new JLabel(" ");
+  // Written on the event thread and read by the search thread to skip stale searches.
+  private volatile int searchGeneration;
+  private FuzzyPathMatcher.Result lastResult;
+
+  /**
+   * Constructs a QuickOpenDialog.
+   *
+   * @param owner The parent frame.
+   * @param matcher Supplies the matcher for the package; it is called on a background thread.
+   * @param onOpen Called with the chosen asset when the user confirms a match.
+   */
+  public QuickOpenDialog(
+      JFrame owner, Supplier<FuzzyPathMatcher> matcher, Consumer<UnityAsset> onOpen) {
+    super(owner, "Go to Asset", true);
+    this.matcher = matcher;
+    this.onOpen = onOpen;
+    setLayout(new BorderLayout(0, 4));
+    getRootPane().setBorder(BorderFactory.createEmptyBorder(8, 8, 8, 8));
+
+    queryField.putClientProperty(
+        FlatClientProperties.PLACEHOLDER_TEXT, "Type part of a file name, e.g. plctrl");
+    queryField
+        .getDocument()
+        .addDocumentListener(
+            new DocumentListener() {
+              @Override
+              public void insertUpdate(DocumentEvent e) {
+                search();
+              }
+
+              @Override
+              public void removeUpdate(DocumentEvent e) {
+                search();
+              }
+
+              @Override
+              public void changedUpdate(DocumentEvent e) {
+                search();
+              }
+            });
+    add(queryField, BorderLayout.NORTH);
+
+    resultList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+    resultList.setFocusable(false);
+    resultList.setCellRenderer(new MatchRenderer());
+    resultList.addMouseListener(
+        new MouseAdapter() {
+          @Override
+          public void mouseClicked(MouseEvent e) {
+            if (e.getClickCount() == 2 && SwingUtilities.isLeftMouseButton(e)) {
+              openSelected();
+            }
+          }
+        });
+    add(new JScrollPane(resultList), BorderLayout.CENTER);
+    add(statusLabel, BorderLayout.SOUTH);
+
+    // The list keeps no focus of its own, so the keys that navigate it are bound to the field.
+    bindKey(KeyEvent.VK_UP, () -> moveSelection(-1));
+    bindKey(KeyEvent.VK_DOWN, () -> moveSelection(1));
+    bindKey(KeyEvent.VK_ENTER, this::openSelected);
+    bindKey(KeyEvent.VK_ESCAPE, this::dispose);
+
+    setSize(700, 450);
+    setLocationRelativeTo(owner);
+  }
+
+  private void bindKey(int keyCode, Runnable action) {
+    String name = "quickOpen." + keyCode;
+    queryField.getInputMap(JComponent.WHEN_FOCUSED).put(KeyStroke.getKeyStroke(keyCode, 0), name);
+    queryField
+        .getActionMap()
+        .put(
+            name,
+            new AbstractAction() {
+              @Override
+              public void actionPerformed(ActionEvent e) {
+                action.run();
+              }
+            });
+  }
+
+  private void search() {
+    String query = queryField.getText();
+    FuzzyPathMatcher.Result previous = lastResult;
+    int generation = ++searchGeneration;
+    SEARCH_EXECUTOR.submit(
+        () -> {
+          // Keystrokes that arrived while an earlier search was running make it obsolete.
+          if (generation != searchGeneration) {
+            return;
+          }
+          FuzzyPathMatcher.Result result = matcher.get().search(query, previous, MAX_RESULTS);
+          SwingUtilities.invokeLater(
+              () -> {
+                if (generation == searchGeneration) {
+                  showResult(result);
+                }
+              });
+        });
+  }
+
+  private void showResult(FuzzyPathMatcher.Result result) {
+    lastResult = result;
+    results.clear();
+    results.addAll(result.best());
+    if (!results.isEmpty()) {
+      resultList.setSelectedIndex(0);
+    }
+    if (queryField.getText().isBlank()) {
+      statusLabel.setText(" ");
+    } else if (result.matchCount() > results.size()) {
+      statusLabel.setText(
+          "Showing the best " + results.size() + " of " + result.matchCount() + " matches");
+    } else {
+      statusLabel.setText(result.matchCount() + " matches");
+    }
+  }
+
+  private void moveSelection(int delta) {
+    if (results.isEmpty()) {
+      return;
+    }
+    int index = Math.floorMod(resultList.getSelectedIndex() + delta, results.size());
+    resultList.setSelectedIndex(index);
+    resultList.ensureIndexIsVisible(index);
+  }
+
+  private void openSelected() {
+    FuzzyPathMatcher.Match match = resultList.getSelectedValue();
+    if (match != null) {
+      dispose();
+      onOpen.accept(match.asset());
+    }
+  }
+
+  /** Shows the file name of a match in bold, followed by the folder it is in. */
+  private static class MatchRenderer extends DefaultListCellRenderer {
+    @Override
+    public Component getListCellRendererComponent(
+        JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+      super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+      if (value instanceof FuzzyPathMatcher.Match match) {
+        String path = match.asset().assetPath();
+        String trimmed = path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+        int slash = trimmed.lastIndexOf('/');
+        String name = trimmed.substring(slash + 1);
+        String folder = slash < 0 ? "" : trimmed.substring(0, slash);
+        setText(
+            "<html><b>" + escape(name) + "</b>&nbsp;&nbsp;<font color='gray'>" + escape(folder));
+        setIcon(
+            match.asset().isDirectory()
+                ? IconManager.getFolderIcon()
+                : IconManager.getIconForFile(name));
+      }
+      return this;
+    }
+
+    private static String escape(String text) {
+      return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+  }
+}
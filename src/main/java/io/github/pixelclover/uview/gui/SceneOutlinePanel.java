@@ -0,0 +1,294 @@
+package io.github.pixelclover.uview.gui;
+
+import io.github.pixelclover.uview.core.AssetTypes;
+import io.github.pixelclover.uview.core.PackageManager;
+import io.github.pixelclover.uview.core.SceneOutline;
+import io.github.pixelclover.uview.model.UnityAsset;
+import java.awt.BorderLayout;
+import java.awt.Component;
+import java.awt.FlowLayout;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JSplitPane;
+import javax.swing.JTree;
+import javax.swing.SwingWorker;
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.DefaultTreeCellRenderer;
+import javax.swing.tree.TreeModel;
+import javax.swing.tree.TreePath;
+
+/**
+ * A viewer for Unity YAML files too large for a text editor, such as big scenes. It shows the
+ * {@link SceneOutline} of the file as a tree of GameObjects and their components, and opens the
+ * document the user selects, on its own, in an editor. Saving the editor replaces just that
+ * document in the asset.
+ */
+public class SceneOutlinePanel extends JPanel {
+
+  private final PackageManager packageManager;
+  private final Runnable onSaveCallback;
+  private final String assetPath;
+  private final String extension;
+  private final JTree tree = new JTree(new OutlineTreeModel(null));
+  private final JPanel editorHolder = new JPanel(new BorderLayout());
+  private final JButton saveButton = new JButton("Save");
+  private final JButton revertButton = new JButton("Revert");
+  // The content the outline was read from; the asset's content as of the latest save.
+  private ByteBuffer content;
+  private SceneOutline outline;
+  private int shownDocument = -1;
+  private SyntaxTextPanel editor;
+  private boolean dirty;
+  // Set while the outline is read; its offsets may not match the content until then.
+  private boolean reading;
+
+  /**
+   * Constructs a SceneOutlinePanel. The outline is read on a background thread.
+   *
+   * @param asset The asset to show; it must be a Unity YAML file.
+   * @param packageManager The package manager that saves edited documents.
+   * @param onSaveCallback A callback to execute when a document was saved.
+   */
+  public SceneOutlinePanel(
+      UnityAsset asset, PackageManager packageManager, Runnable onSaveCallback) {
+    super(new BorderLayout(0, 5));
+    this.packageManager = packageManager;
+    this.onSaveCallback = onSaveCallback;
+    this.assetPath = asset.assetPath();
+    this.extension = AssetTypes.extensionOf(assetPath);
+
+    tree.setRootVisible(false);
+    tree.setShowsRootHandles(true);
+    tree.setCellRenderer(new OutlineRenderer());
+    // A fixed row height lets the tree lay out only the rows it shows.
+    tree.setRowHeight(tree.getFontMetrics(tree.getFont()).getHeight() + 4);
+    tree.setLargeModel(true);
+    tree.addTreeSelectionListener(
+        e -> {
+          if (e.getNewLeadSelectionPath() != null
+              && e.getNewLeadSelectionPath().getLastPathComponent() instanceof Integer doc) {
+            showDocument(doc);
+          }
+        });
+
+    editorHolder.add(centered("Select a GameObject or component to view it."));
+    JSplitPane splitPane =
+        new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, new JScrollPane(tree), editorHolder);
+    splitPane.setDividerLocation(300);
+    add(splitPane, BorderLayout.CENTER);
+
+    saveButton.setEnabled(false);
+    revertButton.setEnabled(false);
+    saveButton.addActionListener(e -> save());
+    revertButton.addActionListener(e -> editor.revert());
+    JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+    buttonPanel.add(
+        new JLabel("This file is too large to open whole; documents open one at a time."));
+    buttonPanel.add(revertButton);
+    buttonPanel.add(saveButton);
+    add(buttonPanel, BorderLayout.SOUTH);
+
+    content = asset.contentBuffer();
+    readOutline(0);
+  }
+
+  private void readOutline(long selectedFileId) {
+    ByteBuffer read = content;
+    reading = true;
+    tree.setEnabled(false);
+    saveButton.setEnabled(false);
+    revertButton.setEnabled(false);
+    if (editor != null) {
+      editor.setEditable(false);
+    }
+    new SwingWorker<SceneOutline, Void>() {
+      @Override
+      protected SceneOutline doInBackground() {
+        return SceneOutline.parse(read);
+      }
+
+      @Override
+      protected void done() {
+        reading = false;
+        try {
+          showOutline(get(), selectedFileId);
+        } catch (Exception e) {
+          editorHolder.removeAll();
+          editorHolder.add(centered("Failed to read the outline: " + e.getMessage()));
+          editorHolder.revalidate();
+        }
+      }
+    }.execute();
+  }
+
+  private void showOutline(SceneOutline newOutline, long selectedFileId) {
+    outline = newOutline;
+    shownDocument = -1;
+    tree.setModel(new OutlineTreeModel(newOutline));
+    tree.setEnabled(true);
+    int doc = newOutline.documentOf(selectedFileId);
+    if (doc >= 0) {
+      TreePath treePath = pathTo(doc);
+      tree.setSelectionPath(treePath);
+      tree.scrollPathToVisible(treePath);
+    }
+  }
+
+  private TreePath pathTo(int doc) {
+    Deque<Object> path = new ArrayDeque<>();
+    for (int node = doc; node >= 0; node = outline.parent(node)) {
+      path.push(node);
+    }
+    path.push(outline);
+    return new TreePath(path.toArray());
+  }
+
+  private void showDocument(int doc) {
+    if (doc == shownDocument) {
+      return;
+    }
+    if (dirty
+        && JOptionPane.showConfirmDialog(
+                this,
+                "Discard the changes to the open document?",
+                "Unsaved Changes",
+                JOptionPane.YES_NO_OPTION)
+            != JOptionPane.YES_OPTION) {
+      // Keep the open document selected.
+      tree.setSelectionPath(pathTo(shownDocument));
+      return;
+    }
+    shownDocument = doc;
+    setDirty(false);
+    editor = new SyntaxTextPanel(outline.text(doc), extension, this::setDirty);
+    editorHolder.removeAll();
+    editorHolder.add(editor, BorderLayout.CENTER);
+    editorHolder.revalidate();
+    editorHolder.repaint();
+  }
+
+  private void setDirty(boolean isDirty) {
+    dirty = isDirty;
+    saveButton.setEnabled(isDirty && !reading);
+    revertButton.setEnabled(isDirty && !reading);
+  }
+
+  private void save() {
+    int start = outline.start(shownDocument);
+    int end = outline.end(shownDocument);
+    String text = editor.getText();
+    // The next document must still start on a line of its own.
+    if (end < content.limit() && !text.endsWith("\n")) {
+      text += "\n";
+    }
+    byte[] edited = text.getBytes(StandardCharsets.UTF_8);
+    byte[] updated = new byte[content.limit() - (end - start) + edited.length];
+    content.get(0, updated, 0, start);
+    System.arraycopy(edited, 0, updated, start, edited.length);
+    content.get(end, updated, start + edited.length, content.limit() - end);
+
+    packageManager.updateAssetContent(assetPath, updated);
+    editor.markAsSaved();
+    onSaveCallback.run();
+    // The offsets of all later documents have moved, so the outline is read again, and the
+    // document cannot be edited or saved until then.
+    content = ByteBuffer.wrap(updated).asReadOnlyBuffer();
+    readOutline(outline.fileId(shownDocument));
+  }
+
+  private static JLabel centered(String text) {
+    JLabel label = new JLabel(text);
+    label.setHorizontalAlignment(JLabel.CENTER);
+    return label;
+  }
+
+  /**
+   * A tree model over an outline. Its nodes are the outline itself, as the hidden root, and the
+   * numbers of the documents, whose children are looked up only when the tree asks for them.
+   */
+  private static final class OutlineTreeModel implements TreeModel {
+    private final SceneOutline outline;
+
+    OutlineTreeModel(SceneOutline outline) {
+      this.outline = outline;
+    }
+
+    @Override
+    public Object getRoot() {
+      return outline;
+    }
+
+    @Override
+    public Object getChild(Object parent, int index) {
+      return parent instanceof Integer doc ? outline.child(doc, index) : outline.roots()[index];
+    }
+
+    @Override
+    public int getChildCount(Object parent) {
+      if (outline == null) {
+        return 0;
+      }
+      return parent instanceof Integer doc ? outline.childCount(doc) : outline.roots().length;
+    }
+
+    @Override
+    public boolean isLeaf(Object node) {
+      return node instanceof Integer doc && outline.childCount(doc) == 0;
+    }
+
+    @Override
+    public int getIndexOfChild(Object parent, Object child) {
+      if (child instanceof Integer doc) {
+        int docParent = outline.parent(doc);
+        if (parent instanceof Integer ? parent.equals(docParent) : docParent < 0) {
+          return outline.indexInParent(doc);
+        }
+      }
+      return -1;
+    }
+
+    @Override
+    public void valueForPathChanged(TreePath path, Object newValue) {}
+
+    @Override
+    public void addTreeModelListener(TreeModelListener listener) {}
+
+    @Override
+    public void removeTreeModelListener(TreeModelListener listener) {}
+  }
+
+  /**
+   * Shows a GameObject by its name and other documents by their type and name, if they have one.
+   */
+  private class OutlineRenderer extends DefaultTreeCellRenderer {
+    @Override
+    public Component getTreeCellRendererComponent(
+        JTree tree,
+        Object value,
+        boolean selected,
+        boolean expanded,
+        boolean leaf,
+        int row,
+        boolean hasFocus) {
+      super.getTreeCellRendererComponent(tree, value, selected, expanded, leaf, row, hasFocus);
+      if (value instanceof Integer doc && outline != null) {
+        String name = outline.name(doc);
+        if (outline.isGameObject(doc)) {
+          setText(name.isEmpty() ? "GameObject" : name);
+          setIcon(IconManager.getFolderIcon());
+        } else {
+          setText(name.isEmpty() ? outline.typeName(doc) : outline.typeName(doc) + " " + name);
+          setIcon(IconManager.getIconForFile("component." + extension));
+        }
+      }
+      return this;
+    }
+  }
+}
@@ -1,5 +1,6 @@
 package io.github.pixelclover.uview.gui;
 
+import io.github.pixelclover.uview.core.AssetTypes;
 import io.github.pixelclover.uview.model.UnityAsset;
 import java.awt.BorderLayout;
 import java.awt.Color;
@@ -35,29 +36,40 @@ public class SyntaxTextPanel extends JPanel {
    *     true if dirty, false if clean.
    */
   public SyntaxTextPanel(UnityAsset asset, Consumer<Boolean> onDirtyStateChange) {
+    this(
+        new String(asset.content(), StandardCharsets.UTF_8),
+        AssetTypes.extensionOf(asset.assetPath()),
+        onDirtyStateChange);
+  }
+
+  /**
+   * Constructs a SyntaxTextPanel for a text that is not a whole asset, such as one document of a
+   * scene.
+   *
+   * @param text The text to display.
+   * @param extension The file extension that selects the syntax highlighting, e.g. {@code unity}.
+   * @param onDirtyStateChange A consumer that will be notified when the text is modified, passing
+   *     true if dirty, false if clean.
+   */
+  public SyntaxTextPanel(String text, String extension, Consumer<Boolean> onDirtyStateChange) {
     super(new BorderLayout());
     this.onDirtyStateChange = onDirtyStateChange;
 
     textArea = new RSyntaxTextArea();
     textArea.setEditable(true);
 
-    assert asset.content() != null;
-    this.savedContent = new String(asset.content(), StandardCharsets.UTF_8);
+    this.savedContent = text;
     textArea.setText(savedContent);
     textArea.setCaretPosition(0);
 
     textArea.discardAllEdits();
 
-    setSyntaxStyle(textArea, getFileExtension(asset.assetPath()));
+    textArea.setSyntaxEditingStyle(syntaxStyleFor(extension));
 
-    try {
-      Theme theme =
-          Theme.load(
-              getClass().getResourceAsStream("/org/fife/ui/rsyntaxtextarea/themes/dark.xml"));
+    Theme theme = loadTheme();
+    if (theme != null) {
       theme.apply(textArea);
       customizeHighlighting(textArea);
-    } catch (Exception e) {
-      // Fallback to default theme if there's an issue
     }
 
     addDirtyStateListener();
@@ -124,6 +136,15 @@ public class SyntaxTextPanel extends JPanel {
     addDirtyStateListener();
   }
 
+  /**
+   * Sets whether the user can edit the text.
+   *
+   * @param editable true to allow editing, false to make the text read-only.
+   */
+  public void setEditable(boolean editable) {
+    textArea.setEditable(editable);
+  }
+
   /** Reverts any changes made since the last save. */
   public void revert() {
     textArea.getDocument().removeDocumentListener(dirtyStateListener);
@@ -133,31 +154,42 @@ public class SyntaxTextPanel extends JPanel {
     addDirtyStateListener();
   }
 
-  private void setSyntaxStyle(RSyntaxTextArea textArea, String extension) {
-    String style =
-        switch (extension) {
-          case "cs" -> SyntaxConstants.SYNTAX_STYLE_CSHARP;
-          case "java" -> SyntaxConstants.SYNTAX_STYLE_JAVA;
-          case "js" -> SyntaxConstants.SYNTAX_STYLE_JAVASCRIPT;
-          case "json", "asmdef" -> SyntaxConstants.SYNTAX_STYLE_JSON;
-          case "unity", "asset", "prefab", "mat", "controller" -> SyntaxConstants.SYNTAX_STYLE_YAML;
-          case "html" -> SyntaxConstants.SYNTAX_STYLE_HTML;
-          case "css", "uss" -> SyntaxConstants.SYNTAX_STYLE_CSS;
-          case "sql" -> SyntaxConstants.SYNTAX_STYLE_SQL;
-          case "sh" -> SyntaxConstants.SYNTAX_STYLE_UNIX_SHELL;
-          case "shader" -> SyntaxConstants.SYNTAX_STYLE_CPLUSPLUS;
-          case "xml" -> SyntaxConstants.SYNTAX_STYLE_XML;
-          case "md" -> SyntaxConstants.SYNTAX_STYLE_MARKDOWN;
-          default -> SyntaxConstants.SYNTAX_STYLE_NONE;
-        };
-    textArea.setSyntaxEditingStyle(style);
+  /**
+   * Loads the color theme of the editors.
+   *
+   * @return The theme, or null if it cannot be loaded, in which case the default colors are used.
+   */
+  static Theme loadTheme() {
+    try {
+      return Theme.load(
+          SyntaxTextPanel.class.getResourceAsStream(
+              "/org/fife/ui/rsyntaxtextarea/themes/dark.xml"));
+    } catch (Exception e) {
+      return null;
+    }
   }
 
-  private String getFileExtension(String filename) {
-    int i = filename.lastIndexOf('.');
-    if (i > 0 && i < filename.length() - 1) {
-      return filename.substring(i + 1).toLowerCase();
-    }
-    return "";
+  /**
+   * Chooses the syntax highlighting for a file extension.
+   *
+   * @param extension The file extension, e.g. {@code cs}.
+   * @return One of the {@link SyntaxConstants} styles.
+   */
+  static String syntaxStyleFor(String extension) {
+    return switch (extension) {
+      case "cs" -> SyntaxConstants.SYNTAX_STYLE_CSHARP;
+      case "java" -> SyntaxConstants.SYNTAX_STYLE_JAVA;
+      case "js" -> SyntaxConstants.SYNTAX_STYLE_JAVASCRIPT;
+      case "json", "asmdef" -> SyntaxConstants.SYNTAX_STYLE_JSON;
+      case "unity", "asset", "prefab", "mat", "controller" -> SyntaxConstants.SYNTAX_STYLE_YAML;
+      case "html" -> SyntaxConstants.SYNTAX_STYLE_HTML;
+      case "css", "uss" -> SyntaxConstants.SYNTAX_STYLE_CSS;
+      case "sql" -> SyntaxConstants.SYNTAX_STYLE_SQL;
+      case "sh" -> SyntaxConstants.SYNTAX_STYLE_UNIX_SHELL;
+      case "shader" -> SyntaxConstants.SYNTAX_STYLE_CPLUSPLUS;
+      case "xml" -> SyntaxConstants.SYNTAX_STYLE_XML;
+      case "md" -> SyntaxConstants.SYNTAX_STYLE_MARKDOWN;
+      default -> SyntaxConstants.SYNTAX_STYLE_NONE;
+    };
   }
 }
@@ -0,0 +1,321 @@
+package io.github.pixelclover.uview.gui;
+
+import io.github.pixelclover.uview.core.AssetTypes;
+import io.github.pixelclover.uview.core.ImageHeader;
+import io.github.pixelclover.uview.core.ImageHeaderCache;
+import io.github.pixelclover.uview.core.LruCache;
+import io.github.pixelclover.uview.core.Thumbnails;
+import io.github.pixelclover.uview.core.VersionedEntry;
+import io.github.pixelclover.uview.core.Waveform;
+import io.github.pixelclover.uview.model.UnityAsset;
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import javax.swing.AbstractAction;
+import javax.swing.AbstractListModel;
+import javax.swing.BorderFactory;
+import javax.swing.DefaultListCellRenderer;
+import javax.swing.Icon;
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.KeyStroke;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
+import javax.swing.UIManager;
+
+/**
+ * A panel that shows assets as a grid of thumbnails, such as the textures of a folder. Thumbnails
+ * are made by {@link Thumbnails} on a background pool, only for the cells that are visible, and the
+ * most recently shown ones are kept in a cache that all grids share, so scrolling back and forth
+ * through thousands of assets decodes each of them only once. Audio assets show their waveform,
+ * from the {@link WaveformCache} the audio player uses as well, so a folder of sound effects can be
+ * scanned by eye.
+ */
+public class ThumbnailGridPanel extends JPanel {
+
+  private static final int THUMBNAIL_SIZE = 96;
+  private static final int CELL_WIDTH = THUMBNAIL_SIZE + 28;
+  private static final int CELL_HEIGHT = THUMBNAIL_SIZE + 30;
+  // Enough for a few thousand thumbnails, i.e. several screens full of the largest grid.
+  private static final long MAX_CACHED_BYTES = 64L * 1024 * 1024;
+
+  private static final ExecutorService DECODE_EXECUTOR =
+      Executors.newFixedThreadPool(
+          Math.max(2, Runtime.getRuntime().availableProcessors()),
+          runnable -> {
+            Thread thread = new Thread(runnable, "thumbnail-decode");
+            thread.setDaemon(true);
+            return thread;
+          });
+  // By GUID.
+  private static final LruCache<String, VersionedEntry<BufferedImage>> THUMBNAILS =
+      new LruCache<>(MAX_CACHED_BYTES, VersionedEntry::bytes);
+
+  private final AssetListModel model = new AssetListModel();
+  private final JList<UnityAsset> list = new JList<>(model);
+  private final JLabel statusLabel = new JLabel(" ");
+  private final ImageHeaderCache imageHeaders;
+  private final Consumer<UnityAsset> onOpen;
+  // The GUIDs of the assets whose thumbnails are being made; only used on the event thread.
+  private final Set<String> pending = new HashSet<>();
+  // The assets and the range of cells that are visible, read by the decoding threads to skip the
+  // thumbnails that were scrolled out of view before their turn came.
+  private volatile List<UnityAsset> shownAssets = List.of();
+  private volatile int firstVisible;
+  private volatile int lastVisible = -1;
+
+  /**
+   * Constructs an empty ThumbnailGridPanel.
+   *
+   * @param imageHeaders The headers of the images, whose size and format are shown as tooltips.
+   * @param onOpen Called with an asset when the user opens it.
+   */
+  public ThumbnailGridPanel(ImageHeaderCache imageHeaders, Consumer<UnityAsset> onOpen) {
+    super(new BorderLayout());
+    this.imageHeaders = imageHeaders;
+    this.onOpen = onOpen;
+
+    list.setLayoutOrientation(JList.HORIZONTAL_WRAP);
+    list.setVisibleRowCount(-1);
+    // With fixed cell sizes the list never asks the renderer to measure cells it does not show.
+    list.setFixedCellWidth(CELL_WIDTH);
+    list.setFixedCellHeight(CELL_HEIGHT);
+    list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+    list.setCellRenderer(new ThumbnailRenderer());
+    list.addMouseListener(
+        new MouseAdapter() {
+          @Override
+          public void mouseClicked(MouseEvent e) {
+            if (e.getClickCount() == 2 && SwingUtilities.isLeftMouseButton(e)) {
+              openSelected();
+            }
+          }
+        });
+    list.getInputMap(JComponent.WHEN_FOCUSED)
+        .put(KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0), "open");
+    list.getActionMap()
+        .put(
+            "open",
+            new AbstractAction() {
+              @Override
+              public void actionPerformed(ActionEvent e) {
+                openSelected();
+              }
+            });
+
+    JScrollPane scrollPane = new JScrollPane(list);
+    scrollPane.getVerticalScrollBar().setUnitIncrement(CELL_HEIGHT / 4);
+    scrollPane.getViewport().addChangeListener(e -> updateVisibleRange());
+    add(scrollPane, BorderLayout.CENTER);
+    statusLabel.setBorder(BorderFactory.createEmptyBorder(2, 4, 2, 4));
+    add(statusLabel, BorderLayout.SOUTH);
+  }
+
+  /**
+   * Shows the thumbnails of some assets.
+   *
+   * @param assets The assets, in the order to show them. The list is not copied, so it must not
+   *     change while it is shown.
+   */
+  public void setAssets(List<UnityAsset> assets) {
+    shownAssets = assets;
+    list.clearSelection();
+    model.setAssets(assets);
+    list.scrollRectToVisible(new Rectangle(0, 0, 1, 1));
+    updateVisibleRange();
+    statusLabel.setText(assets.size() == 1 ? "1 asset" : assets.size() + " assets");
+  }
+
+  private void updateVisibleRange() {
+    firstVisible = list.getFirstVisibleIndex();
+    lastVisible = list.getLastVisibleIndex();
+  }
+
+  private void openSelected() {
+    UnityAsset asset = list.getSelectedValue();
+    if (asset != null) {
+      onOpen.accept(asset);
+    }
+  }
+
+  // Gets the thumbnail of an asset from the cache, or starts making it. Called while painting.
+  private VersionedEntry<BufferedImage> thumbnailFor(UnityAsset asset, int index) {
+    VersionedEntry<BufferedImage> thumbnail = THUMBNAILS.get(asset.guid());
+    if (thumbnail != null && thumbnail.isOf(asset)) {
+      return thumbnail;
+    }
+    String guid = asset.guid();
+    if (pending.add(guid)) {
+      // The cell is being painted, so it is visible even if the viewport has not told so yet.
+      updateVisibleRange();
+      List<UnityAsset> assets = shownAssets;
+      DECODE_EXECUTOR.execute(
+          () -> {
+            if (shownAssets == assets && index >= firstVisible && index <= lastVisible) {
+              BufferedImage image = decode(asset);
+              long bytes = image == null ? 0 : 4L * image.getWidth() * image.getHeight();
+              THUMBNAILS.put(guid, new VersionedEntry<>(asset, image, bytes));
+            }
+            // A skipped cell that came into view again meanwhile was painted while still pending,
+            // so it is repainted to ask for its thumbnail again.
+            SwingUtilities.invokeLater(
+                () -> {
+                  pending.remove(guid);
+                  if (shownAssets == assets && index < model.getSize()) {
+                    Rectangle bounds = list.getCellBounds(index, index);
+                    if (bounds != null) {
+                      list.repaint(bounds);
+                    }
+                  }
+                });
+          });
+    }
+    return null;
+  }
+
+  private static BufferedImage decode(UnityAsset asset) {
+    if (AssetTypes.isAudio(asset)) {
+      return waveformImage(asset);
+    }
+    try {
+      return Thumbnails.of(asset, THUMBNAIL_SIZE);
+    } catch (IOException | RuntimeException e) {
+      // A broken image is shown with the icon of its file type, like any asset without an image.
+      return null;
+    }
+  }
+
+  private static BufferedImage waveformImage(UnityAsset asset) {
+    Waveform waveform = WaveformCache.get(asset);
+    if (waveform == null) {
+      return null;
+    }
+    BufferedImage image =
+        new BufferedImage(THUMBNAIL_SIZE, THUMBNAIL_SIZE / 2, BufferedImage.TYPE_INT_ARGB);
+    Graphics2D g = image.createGraphics();
+    try {
+      Color color = UIManager.getColor("Component.accentColor");
+      WaveformStrip.paintWaveform(
+          g,
+          waveform,
+          0,
+          0,
+          image.getWidth(),
+          image.getHeight(),
+          color != null ? color : UIManager.getColor("Label.foreground"));
+    } finally {
+      g.dispose();
+    }
+    return image;
+  }
+
+  /** The assets of the grid; a new list replaces the old one as a whole. */
+  private static class AssetListModel extends AbstractListModel<UnityAsset> {
+    private List<UnityAsset> assets = List.of();
+
+    void setAssets(List<UnityAsset> newAssets) {
+      int oldSize = assets.size();
+      assets = newAssets;
+      if (oldSize > 0) {
+        fireIntervalRemoved(this, 0, oldSize - 1);
+      }
+      if (!newAssets.isEmpty()) {
+        fireIntervalAdded(this, 0, newAssets.size() - 1);
+      }
+    }
+
+    @Override
+    public int getSize() {
+      return assets.size();
+    }
+
+    @Override
+    public UnityAsset getElementAt(int index) {
+      return assets.get(index);
+    }
+  }
+
+  /**
+   * Shows the thumbnail of an asset above its file name. An asset whose thumbnail is not made yet,
+   * or that has none, shows the icon of its file type instead.
+   */
+  private class ThumbnailRenderer extends DefaultListCellRenderer {
+    private final ThumbnailIcon icon = new ThumbnailIcon();
+
+    ThumbnailRenderer() {
+      setHorizontalTextPosition(SwingConstants.CENTER);
+      setVerticalTextPosition(SwingConstants.BOTTOM);
+      setHorizontalAlignment(SwingConstants.CENTER);
+    }
+
+    @Override
+    public Component getListCellRendererComponent(
+        JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+      super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+      if (value instanceof UnityAsset asset) {
+        String path = asset.assetPath();
+        String name = path.substring(path.lastIndexOf('/') + 1);
+        VersionedEntry<BufferedImage> thumbnail = thumbnailFor(asset, index);
+        icon.image = thumbnail == null ? null : thumbnail.value();
+        icon.fallback = IconManager.getIconForFile(name);
+        setIcon(icon);
+        setText(name);
+        ImageHeader header = imageHeaders.get(asset);
+        setToolTipText(header == null ? path : path + " (" + header.describe() + ")");
+      }
+      return this;
+    }
+  }
+
+  /** A square of the thumbnail size with an image, or a smaller icon, in its center. */
+  private static class ThumbnailIcon implements Icon {
+    private BufferedImage image;
+    private Icon fallback;
+
+    @Override
+    public void paintIcon(Component c, Graphics g, int x, int y) {
+      if (image != null) {
+        g.drawImage(
+            image,
+            x + (THUMBNAIL_SIZE - image.getWidth()) / 2,
+            y + (THUMBNAIL_SIZE - image.getHeight()) / 2,
+            null);
+      } else if (fallback != null) {
+        fallback.paintIcon(
+            c,
+            g,
+            x + (THUMBNAIL_SIZE - fallback.getIconWidth()) / 2,
+            y + (THUMBNAIL_SIZE - fallback.getIconHeight()) / 2);
+      }
+    }
+
+    @Override
+    public int getIconWidth() {
+      return THUMBNAIL_SIZE;
+    }
+
+    @Override
+    public int getIconHeight() {
+      return THUMBNAIL_SIZE;
+    }
+  }
+}
@@ -0,0 +1,135 @@
+package io.github.pixelclover.uview.gui;
+
+import io.github.pixelclover.uview.core.LruCache;
+import io.github.pixelclover.uview.core.VersionedEntry;
+import io.github.pixelclover.uview.core.Waveform;
+import io.github.pixelclover.uview.model.UnityAsset;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import javax.swing.SwingUtilities;
+
+/**
+ * The {@link Waveform}s of audio assets, keyed by GUID and shared by the audio player and the
+ * thumbnail grid, so that an asset is decoded for its waveform only once however often it is shown.
+ * Waveforms are made on a background pool of their own. A waveform asked for while it is being made
+ * waits for that decode rather than starting another.
+ */
+final class WaveformCache {
+
+  // Several minutes of audio take a few hundred kilobytes, a sound effect a few.
+  private static final long MAX_CACHED_BYTES = 32L * 1024 * 1024;
+
+  private static final ExecutorService WAVEFORM_EXECUTOR =
+      Executors.newFixedThreadPool(
+          Math.max(2, Runtime.getRuntime().availableProcessors() / 2),
+          runnable -> {
+            Thread thread = new Thread(runnable, "waveform");
+            thread.setDaemon(true);
+            return thread;
+          });
+  // By GUID.
+  private static final LruCache<String, VersionedEntry<Waveform>> WAVEFORMS =
+      new LruCache<>(MAX_CACHED_BYTES, VersionedEntry::bytes);
+  // The waveforms being made, by GUID; guards the check for a cached or pending waveform.
+  private static final Map<String, Decode> DECODES = new HashMap<>();
+
+  private WaveformCache() {}
+
+  /**
+   * Gets the waveform of an audio asset, making it on the calling thread if it is neither cached
+   * nor being made.
+   *
+   * @param asset The asset.
+   * @return The waveform, or null if the asset cannot be decoded.
+   */
+  static Waveform get(UnityAsset asset) {
+    CompletableFuture<Waveform> claimed = new CompletableFuture<>();
+    CompletableFuture<Waveform> waveform = find(asset, claimed);
+    if (waveform == null) {
+      make(asset, claimed);
+      waveform = claimed;
+    }
+    return waveform.join();
+  }
+
+  /**
+   * Gets the waveform of an audio asset in the background.
+   *
+   * @param asset The asset.
+   * @param onDone Called on the event thread with the waveform, or with null if the asset cannot be
+   *     decoded.
+   * @return The request; cancelling it drops the callback, but not the decode, whose waveform is
+   *     still cached for others.
+   */
+  static CompletableFuture<Void> request(UnityAsset asset, Consumer<Waveform> onDone) {
+    CompletableFuture<Waveform> claimed = new CompletableFuture<>();
+    CompletableFuture<Waveform> waveform = find(asset, claimed);
+    if (waveform == null) {
+      WAVEFORM_EXECUTOR.execute(() -> make(asset, claimed));
+      waveform = claimed;
+    }
+    return waveform.thenAcceptAsync(onDone, SwingUtilities::invokeLater);
+  }
+
+  // Gets the waveform of an asset if it is cached or being made. Otherwise returns null, and the
+  // caller makes it and completes the claimed future with it, which later callers wait for.
+  private static CompletableFuture<Waveform> find(
+      UnityAsset asset, CompletableFuture<Waveform> claimed) {
+    synchronized (DECODES) {
+      VersionedEntry<Waveform> entry = WAVEFORMS.get(asset.guid());
+      if (entry != null && entry.isOf(asset)) {
+        return CompletableFuture.completedFuture(entry.value());
+      }
+      Decode decode = DECODES.get(asset.guid());
+      if (decode != null && decode.asset() == asset) {
+        return decode.waveform();
+      }
+      DECODES.put(asset.guid(), new Decode(asset, claimed));
+      return null;
+    }
+  }
+
+  private static void make(UnityAsset asset, CompletableFuture<Waveform> claimed) {
+    Waveform waveform;
+    try {
+      waveform = Waveform.of(asset.contentBuffer());
+    } catch (UnsupportedAudioFileException | IOException | RuntimeException e) {
+      // A broken file has no waveform; it is not decoded again until it changes.
+      waveform = null;
+    } catch (OutOfMemoryError e) {
+      // Not cached, so that the waveform is tried again once there is more memory.
+      finish(asset, claimed, null, false);
+      return;
+    }
+    finish(asset, claimed, waveform, true);
+  }
+
+  private static void finish(
+      UnityAsset asset, CompletableFuture<Waveform> claimed, Waveform waveform, boolean cache) {
+    synchronized (DECODES) {
+      if (cache) {
+        long bytes = waveform == null ? 0 : waveform.bytes();
+        WAVEFORMS.put(asset.guid(), new VersionedEntry<>(asset, waveform, bytes));
+      }
+      Decode decode = DECODES.get(asset.guid());
+      if (decode != null && decode.waveform() == claimed) {
+        DECODES.remove(asset.guid());
+      }
+    }
+    claimed.complete(waveform);
+  }
+
+  /**
+   * A waveform being made.
+   *
+   * @param asset The version of the asset it is made from.
+   * @param waveform Completed with the waveform, or with null if the asset has none.
+   */
+  private record Decode(UnityAsset asset, CompletableFuture<Waveform> waveform) {}
+}
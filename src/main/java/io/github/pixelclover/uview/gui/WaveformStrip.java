@@ -0,0 +1,162 @@
+package io.github.pixelclover.uview.gui;
+
+import io.github.pixelclover.uview.core.Waveform;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.function.LongConsumer;
+import javax.swing.JComponent;
+import javax.swing.UIManager;
+
+/**
+ * A strip that shows the {@link Waveform} of a whole audio file, with a line at the playback
+ * position. Clicking in it seeks; dragging moves the line, and seeks where the mouse is released.
+ */
+public class WaveformStrip extends JComponent {
+
+  private static final int PREFERRED_HEIGHT = 64;
+
+  private final LongConsumer onSeek;
+  private Waveform waveform;
+  private String message = "Loading waveform...";
+  private long position;
+  // Set while the user drags the line, which playback then does not move.
+  private boolean dragging;
+
+  /**
+   * Constructs an empty WaveformStrip.
+   *
+   * @param onSeek Called with the sample frame the user clicked or dragged to.
+   */
+  public WaveformStrip(LongConsumer onSeek) {
+    this.onSeek = onSeek;
+    setPreferredSize(new Dimension(0, PREFERRED_HEIGHT));
+    setOpaque(true);
+    MouseAdapter seeker =
+        new MouseAdapter() {
+          @Override
+          public void mousePressed(MouseEvent e) {
+            dragging = waveform != null;
+            showFrameAt(e.getX());
+          }
+
+          @Override
+          public void mouseDragged(MouseEvent e) {
+            showFrameAt(e.getX());
+          }
+
+          @Override
+          public void mouseReleased(MouseEvent e) {
+            if (dragging) {
+              dragging = false;
+              onSeek.accept(frameAt(e.getX()));
+            }
+          }
+        };
+    addMouseListener(seeker);
+    addMouseMotionListener(seeker);
+  }
+
+  /**
+   * Shows a waveform.
+   *
+   * @param waveform The waveform, or null to show a message instead.
+   * @param message The message to show without a waveform.
+   */
+  public void setWaveform(Waveform waveform, String message) {
+    this.waveform = waveform;
+    this.message = message;
+    repaint();
+  }
+
+  /**
+   * Moves the playback position line.
+   *
+   * @param frame The sample frame being played.
+   */
+  public void setPosition(long frame) {
+    if (!dragging && frame != position) {
+      position = frame;
+      repaint();
+    }
+  }
+
+  private void showFrameAt(int x) {
+    if (dragging) {
+      position = frameAt(x);
+      repaint();
+    }
+  }
+
+  private long frameAt(int x) {
+    if (waveform == null || getWidth() <= 0) {
+      return 0;
+    }
+    int clamped = Math.max(0, Math.min(getWidth() - 1, x));
+    return clamped * waveform.frameCount() / getWidth();
+  }
+
+  @Override
+  protected void paintComponent(Graphics g) {
+    g.setColor(UIManager.getColor("TextArea.background"));
+    g.fillRect(0, 0, getWidth(), getHeight());
+    if (waveform == null) {
+      if (message != null) {
+        g.setColor(UIManager.getColor("Label.disabledForeground"));
+        FontMetrics metrics = g.getFontMetrics();
+        g.drawString(
+            message,
+            (getWidth() - metrics.stringWidth(message)) / 2,
+            (getHeight() + metrics.getAscent() - metrics.getDescent()) / 2);
+      }
+      return;
+    }
+    Color foreground = UIManager.getColor("Component.accentColor");
+    paintWaveform(
+        g,
+        waveform,
+        0,
+        0,
+        getWidth(),
+        getHeight(),
+        foreground != null ? foreground : UIManager.getColor("TextArea.foreground"));
+    if (waveform.frameCount() > 0) {
+      int x = (int) (position * getWidth() / waveform.frameCount());
+      g.setColor(UIManager.getColor("TextArea.foreground"));
+      g.drawLine(x, 0, x, getHeight() - 1);
+    }
+  }
+
+  /**
+   * Draws a waveform as one vertical line per column, from the lowest to the highest sample of the
+   * stretch of audio the column stands for.
+   *
+   * @param g The graphics to draw with.
+   * @param waveform The waveform.
+   * @param x The left of the area to draw in.
+   * @param y The top of the area to draw in.
+   * @param width The width of the area.
+   * @param height The height of the area.
+   * @param color The color of the waveform.
+   */
+  static void paintWaveform(
+      Graphics g, Waveform waveform, int x, int y, int width, int height, Color color) {
+    if (width <= 0 || height <= 0) {
+      return;
+    }
+    float[] minimum = new float[width];
+    float[] maximum = new float[width];
+    waveform.peaks(minimum, maximum);
+    float middle = y + (height - 1) / 2f;
+    float scale = (height - 1) / 2f;
+    g.setColor(color);
+    for (int c = 0; c < width; c++) {
+      int top = Math.round(middle - maximum[c] * scale);
+      int bottom = Math.round(middle - minimum[c] * scale);
+      g.drawLine(x + c, top, x + c, Math.max(top, bottom));
+    }
+  }
+}
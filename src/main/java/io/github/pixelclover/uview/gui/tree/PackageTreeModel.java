@@ -0,0 +1,441 @@
+package io.github.pixelclover.uview.gui.tree;
+
+import io.github.pixelclover.uview.core.PathIndex;
+import io.github.pixelclover.uview.model.UnityAsset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.swing.event.EventListenerList;
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.TreeModel;
+import javax.swing.tree.TreePath;
+
+/**
+ * A tree model of the assets of a package that works out the directory structure on demand from a
+ * {@link PathIndex}. Because the index keeps the assets sorted by path, the assets under a
+ * directory always form one contiguous range of it, and the children of a directory can be found by
+ * jumping over the range of each subdirectory with a binary search. Nodes are only created for the
+ * children of directories that the tree has asked about, i.e. for the visible and expanded parts of
+ * the package, so opening a large package creates no per-asset objects.
+ *
+ * <p>The model can be filtered by a mask of index positions, such as the matches of a search. A
+ * node is shown if its asset is in the mask or if its directory contains an asset that is; as the
+ * contents of a directory are a range of positions, that is a single look for the next set bit of
+ * the mask. Changing the filter keeps all nodes, so it costs no more than working out which
+ * children of the expanded directories are shown.
+ *
+ * <p>Like all Swing models, this model must only be used on the event dispatch thread once it has
+ * been set on a tree.
+ */
+public final class PackageTreeModel implements TreeModel {
+
+  private static final Comparator<PackageTreeNode> BY_NAME =
+      Comparator.comparing(node -> node.name);
+
+  private final EventListenerList listenerList = new EventListenerList();
+  private PathIndex index;
+  private BitSet mask;
+  // Incremented whenever the index or the mask changes, to invalidate the shown children.
+  private int generation;
+  private PackageTreeNode root;
+
+  /**
+   * Creates a model of all assets of an index.
+   *
+   * @param index The index of the package's assets.
+   */
+  public PackageTreeModel(PathIndex index) {
+    this.index = index;
+    this.root = newRoot();
+  }
+
+  /**
+   * Gets the index the model shows.
+   *
+   * @return The index.
+   */
+  public PathIndex getIndex() {
+    return index;
+  }
+
+  /**
+   * Sets the assets the model shows. If the index is the one the model already shows, all nodes are
+   * kept and only the filter changes; otherwise the nodes are discarded. Either way, the tree is
+   * told that its whole structure changed.
+   *
+   * @param index The index of the package's assets.
+   * @param mask The positions in the index of the assets to show, or null to show all assets.
+   */
+  public void setFilter(PathIndex index, BitSet mask) {
+    if (index != this.index) {
+      this.index = index;
+      this.root = newRoot();
+    }
+    this.mask = mask;
+    generation++;
+    fireTreeStructureChanged(new TreePath(root));
+  }
+
+  /**
+   * Brings the model up to date after some assets were added, removed or changed. Only the
+   * directories on the paths of the changed assets that have already been loaded are worked out
+   * again; the tree is notified of each shown child that appeared, disappeared or changed.
+   *
+   * @param index The index of the package's assets after the change.
+   * @param mask The positions in the new index of the assets to show, or null to show all assets.
+   * @param changedPaths The paths of the assets that were added, removed or changed.
+   */
+  public void update(PathIndex index, BitSet mask, Collection<String> changedPaths) {
+    this.index = index;
+    this.mask = mask;
+    generation++;
+    Set<PackageTreeNode> refreshed = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (String path : changedPaths) {
+      PackageTreeNode node = root;
+      int start = 0;
+      while (node != null && node.children != null) {
+        if (refreshed.add(node)) {
+          refresh(node);
+        }
+        if (start >= path.length()) {
+          break;
+        }
+        int slash = path.indexOf('/', start);
+        int end = slash < 0 ? path.length() : slash;
+        node = findChild(node.children, path.substring(start, end));
+        start = end + 1;
+      }
+    }
+  }
+
+  /**
+   * Finds the shown node of an asset or directory, loading the directories on its path as needed.
+   *
+   * @param path The path of the asset or directory.
+   * @return The tree path of the node, or null if the model does not show it.
+   */
+  public TreePath pathTo(String path) {
+    PackageTreeNode node = root;
+    int start = 0;
+    while (node != null && start < path.length()) {
+      int slash = path.indexOf('/', start);
+      int end = slash < 0 ? path.length() : slash;
+      node = findChild(shownChildren(node), path.substring(start, end));
+      start = end + 1;
+    }
+    return node == null ? null : node.getTreePath();
+  }
+
+  /**
+   * Checks if the model shows no assets at all.
+   *
+   * @return true if the root has no shown children.
+   */
+  public boolean isEmpty() {
+    return shownChildren(root).isEmpty();
+  }
+
+  @Override
+  public PackageTreeNode getRoot() {
+    return root;
+  }
+
+  @Override
+  public Object getChild(Object parent, int index) {
+    return ((PackageTreeNode) parent).getChildAt(index);
+  }
+
+  @Override
+  public int getChildCount(Object parent) {
+    return ((PackageTreeNode) parent).getChildCount();
+  }
+
+  @Override
+  public boolean isLeaf(Object node) {
+    return ((PackageTreeNode) node).isLeaf();
+  }
+
+  @Override
+  public int getIndexOfChild(Object parent, Object child) {
+    if (parent instanceof PackageTreeNode node && child instanceof PackageTreeNode childNode) {
+      return node.getIndex(childNode);
+    }
+    return -1;
+  }
+
+  @Override
+  public void valueForPathChanged(TreePath path, Object newValue) {
+    // The tree is not editable.
+  }
+
+  @Override
+  public void addTreeModelListener(TreeModelListener listener) {
+    listenerList.add(TreeModelListener.class, listener);
+  }
+
+  @Override
+  public void removeTreeModelListener(TreeModelListener listener) {
+    listenerList.remove(TreeModelListener.class, listener);
+  }
+
+  private PackageTreeNode newRoot() {
+    PackageTreeNode node = new PackageTreeNode(this, null, "", "");
+    node.directory = true;
+    return node;
+  }
+
+  /** Gets the children of a node that the current filter shows, loading the children if needed. */
+  List<PackageTreeNode> shownChildren(PackageTreeNode node) {
+    if (node.shownGeneration != generation) {
+      if (node.children == null) {
+        node.children = node.directory ? loadChildren(node) : List.of();
+      }
+      List<PackageTreeNode> shown = node.children;
+      if (mask != null) {
+        shown = new ArrayList<>();
+        for (PackageTreeNode child : node.children) {
+          if (isShown(child)) {
+            shown.add(child);
+          }
+        }
+      }
+      setShownChildren(node, shown);
+      node.shownGeneration = generation;
+    }
+    return node.shownChildren;
+  }
+
+  boolean isLeaf(PackageTreeNode node) {
+    if (node == root) {
+      return false;
+    }
+    if (!node.directory) {
+      return true;
+    }
+    return mask != null && !containsMatch(node);
+  }
+
+  private boolean isShown(PackageTreeNode node) {
+    locate(node);
+    return (node.assetId >= 0 && mask.get(node.assetId)) || containsMatch(node);
+  }
+
+  // The rolled-up "has a matching descendant" flag of a directory.
+  private boolean containsMatch(PackageTreeNode node) {
+    locate(node);
+    if (!node.directory || node.firstId >= node.endId) {
+      return false;
+    }
+    int match = mask.nextSetBit(node.firstId);
+    return match >= 0 && match < node.endId;
+  }
+
+  // Finds a node's asset and contents in the current index, if it was located in an older one.
+  private void locate(PackageTreeNode node) {
+    if (node.locatedIn == index) {
+      return;
+    }
+    node.assetId = -1;
+    if (node.asset != null) {
+      String assetPath = node.asset.assetPath();
+      int id = index.lowerBound(assetPath);
+      if (id < index.size() && index.get(id).assetPath().equals(assetPath)) {
+        node.assetId = id;
+      }
+    }
+    if (node.directory) {
+      String prefix = node.path + "/";
+      node.firstId = index.lowerBound(prefix);
+      if (node.firstId < index.size() && index.get(node.firstId).assetPath().equals(prefix)) {
+        node.firstId++; // The directory's own folder asset is not part of its contents.
+      }
+      node.endId = index.prefixEnd(prefix);
+    }
+    node.locatedIn = index;
+  }
+
+  /**
+   * Works out all children of a directory from the index. Each direct child asset is visited once;
+   * each subdirectory costs one binary search to skip over its contents.
+   */
+  private List<PackageTreeNode> loadChildren(PackageTreeNode parent) {
+    String prefix = parent.path.isEmpty() ? "" : parent.path + "/";
+    int position = index.lowerBound(prefix);
+    int end = index.prefixEnd(prefix);
+    Map<String, PackageTreeNode> byName = new LinkedHashMap<>();
+    while (position < end) {
+      UnityAsset asset = index.get(position);
+      String path = asset.assetPath();
+      int slash = path.indexOf('/', prefix.length());
+      String name = path.substring(prefix.length(), slash < 0 ? path.length() : slash);
+      if (name.isEmpty()) {
+        // The folder asset of the directory itself, or an empty path segment.
+        position++;
+        continue;
+      }
+      PackageTreeNode child =
+          byName.computeIfAbsent(name, key -> new PackageTreeNode(this, parent, prefix + key, key));
+      child.locatedIn = index;
+      if (slash >= 0 && slash < path.length() - 1) {
+        child.directory = true;
+        child.firstId = position;
+        child.endId = index.prefixEnd(path.substring(0, slash + 1));
+        position = child.endId;
+      } else {
+        child.setAsset(asset); // A file, or a folder asset given with a trailing slash.
+        child.assetId = position;
+        position++;
+      }
+    }
+    List<PackageTreeNode> children = new ArrayList<>(byName.values());
+    // Sorting by name keeps the order of the children the same when some of them come and go.
+    children.sort(BY_NAME);
+    return children;
+  }
+
+  private void refresh(PackageTreeNode node) {
+    List<PackageTreeNode> oldShown = node.shownChildren;
+    List<PackageTreeNode> fresh = node.directory ? loadChildren(node) : List.of();
+    Map<String, PackageTreeNode> existing = new HashMap<>();
+    for (PackageTreeNode child : node.children) {
+      existing.put(child.name, child);
+    }
+    List<PackageTreeNode> merged = new ArrayList<>(fresh.size());
+    Set<PackageTreeNode> changed = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (PackageTreeNode child : fresh) {
+      PackageTreeNode kept = existing.get(child.name);
+      if (kept == null) {
+        merged.add(child);
+        continue;
+      }
+      // Keep the existing node, so that the tree keeps its expansion and selection.
+      if (kept.asset != child.asset || kept.directory != child.directory) {
+        changed.add(kept);
+        kept.setAsset(child.asset);
+        kept.directory = child.directory;
+      }
+      kept.assetId = child.assetId;
+      kept.firstId = child.firstId;
+      kept.endId = child.endId;
+      kept.locatedIn = child.locatedIn;
+      merged.add(kept);
+    }
+    node.children = merged;
+    node.shownGeneration = -1;
+    List<PackageTreeNode> newShown = shownChildren(node);
+    if (oldShown == null) {
+      return; // The tree has never asked for these children.
+    }
+
+    // Removals are reported against the old children and insertions against the new ones. As both
+    // are sorted by name, the children that stay keep their order in between.
+    Set<PackageTreeNode> stillShown = Collections.newSetFromMap(new IdentityHashMap<>());
+    stillShown.addAll(newShown);
+    List<PackageTreeNode> survivors = new ArrayList<>(oldShown.size());
+    List<PackageTreeNode> removed = new ArrayList<>();
+    int[] removedIndices = new int[oldShown.size()];
+    for (int i = 0; i < oldShown.size(); i++) {
+      PackageTreeNode child = oldShown.get(i);
+      if (stillShown.contains(child)) {
+        survivors.add(child);
+      } else {
+        removedIndices[removed.size()] = i;
+        removed.add(child);
+      }
+    }
+    if (!removed.isEmpty()) {
+      setShownChildren(node, survivors);
+      fireTreeNodesRemoved(
+          node.getTreePath(), Arrays.copyOf(removedIndices, removed.size()), removed.toArray());
+      setShownChildren(node, newShown);
+    }
+
+    Set<PackageTreeNode> wasShown = Collections.newSetFromMap(new IdentityHashMap<>());
+    wasShown.addAll(oldShown);
+    List<PackageTreeNode> inserted = new ArrayList<>();
+    List<PackageTreeNode> updated = new ArrayList<>();
+    for (PackageTreeNode child : newShown) {
+      if (!wasShown.contains(child)) {
+        inserted.add(child);
+      } else if (changed.contains(child)) {
+        updated.add(child);
+      }
+    }
+    if (!inserted.isEmpty()) {
+      fireTreeNodesInserted(node.getTreePath(), indicesOf(inserted), inserted.toArray());
+    }
+    if (!updated.isEmpty()) {
+      fireTreeNodesChanged(node.getTreePath(), indicesOf(updated), updated.toArray());
+    }
+  }
+
+  private static void setShownChildren(PackageTreeNode node, List<PackageTreeNode> shown) {
+    for (int i = 0; i < shown.size(); i++) {
+      shown.get(i).index = i;
+    }
+    node.shownChildren = shown;
+  }
+
+  private static PackageTreeNode findChild(List<PackageTreeNode> children, String name) {
+    int low = 0;
+    int high = children.size() - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int comparison = children.get(middle).name.compareTo(name);
+      if (comparison < 0) {
+        low = middle + 1;
+      } else if (comparison > 0) {
+        high = middle - 1;
+      } else {
+        return children.get(middle);
+      }
+    }
+    return null;
+  }
+
+  private static int[] indicesOf(List<PackageTreeNode> nodes) {
+    int[] indices = new int[nodes.size()];
+    for (int i = 0; i < indices.length; i++) {
+      indices[i] = nodes.get(i).index;
+    }
+    return indices;
+  }
+
+  private void fireTreeNodesInserted(TreePath parent, int[] indices, Object[] children) {
+    TreeModelEvent event = new TreeModelEvent(this, parent, indices, children);
+    for (TreeModelListener listener : listenerList.getListeners(TreeModelListener.class)) {
+      listener.treeNodesInserted(event);
+    }
+  }
+
+  private void fireTreeNodesRemoved(TreePath parent, int[] indices, Object[] children) {
+    TreeModelEvent event = new TreeModelEvent(this, parent, indices, children);
+    for (TreeModelListener listener : listenerList.getListeners(TreeModelListener.class)) {
+      listener.treeNodesRemoved(event);
+    }
+  }
+
+  private void fireTreeNodesChanged(TreePath parent, int[] indices, Object[] children) {
+    TreeModelEvent event = new TreeModelEvent(this, parent, indices, children);
+    for (TreeModelListener listener : listenerList.getListeners(TreeModelListener.class)) {
+      listener.treeNodesChanged(event);
+    }
+  }
+
+  private void fireTreeStructureChanged(TreePath path) {
+    TreeModelEvent event = new TreeModelEvent(this, path);
+    for (TreeModelListener listener : listenerList.getListeners(TreeModelListener.class)) {
+      listener.treeStructureChanged(event);
+    }
+  }
+}
@@ -0,0 +1,134 @@
+package io.github.pixelclover.uview.gui.tree;
+
+import io.github.pixelclover.uview.core.PathIndex;
+import io.github.pixelclover.uview.model.UnityAsset;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import javax.swing.tree.TreeNode;
+import javax.swing.tree.TreePath;
+
+/**
+ * A node of a {@link PackageTreeModel}: an asset, an implicit directory, or both (a folder asset
+ * with contents). The children of a directory are only created when they are first asked for, and
+ * are kept when the model's filter changes; the filter only decides which of them are shown.
+ */
+public final class PackageTreeNode implements TreeNode {
+
+  private final PackageTreeModel model;
+  private final PackageTreeNode parent;
+  // The path without a trailing slash; empty for the root.
+  final String path;
+  final String name;
+  UnityAsset asset;
+  boolean directory;
+  TreeEntry entry;
+
+  // Where the node's asset and contents are in the index they were last located in. The contents
+  // of a directory are always one contiguous range of positions.
+  PathIndex locatedIn;
+  int assetId = -1;
+  int firstId;
+  int endId;
+
+  // All children, sorted by name; null until the children are first asked for.
+  List<PackageTreeNode> children;
+  // The children that the current filter shows, and the model generation they were worked out in.
+  List<PackageTreeNode> shownChildren;
+  int shownGeneration = -1;
+  // The position of this node among its parent's shown children.
+  int index = -1;
+
+  PackageTreeNode(PackageTreeModel model, PackageTreeNode parent, String path, String name) {
+    this.model = model;
+    this.parent = parent;
+    this.path = path;
+    this.name = name;
+  }
+
+  /**
+   * Gets the entry this node displays.
+   *
+   * @return An {@link TreeEntry.AssetEntry} if the package contains an asset at this node's path,
+   *     otherwise a {@link TreeEntry.DirectoryEntry}.
+   */
+  public TreeEntry getEntry() {
+    if (entry == null) {
+      entry =
+          asset != null
+              ? new TreeEntry.AssetEntry(asset)
+              : new TreeEntry.DirectoryEntry(path + "/");
+    }
+    return entry;
+  }
+
+  /**
+   * Gets the path of the asset or directory this node represents.
+   *
+   * @return The path without a trailing slash, or an empty string for the root.
+   */
+  public String getPath() {
+    return path;
+  }
+
+  /**
+   * Gets the path of this node in the tree, from the root.
+   *
+   * @return The tree path.
+   */
+  public TreePath getTreePath() {
+    return parent == null ? new TreePath(this) : parent.getTreePath().pathByAddingChild(this);
+  }
+
+  void setAsset(UnityAsset asset) {
+    this.asset = asset;
+    this.entry = null;
+  }
+
+  @Override
+  public PackageTreeNode getChildAt(int childIndex) {
+    return model.shownChildren(this).get(childIndex);
+  }
+
+  @Override
+  public int getChildCount() {
+    return model.shownChildren(this).size();
+  }
+
+  @Override
+  public PackageTreeNode getParent() {
+    return parent;
+  }
+
+  @Override
+  public int getIndex(TreeNode node) {
+    if (node instanceof PackageTreeNode child && child.parent == this) {
+      List<PackageTreeNode> shown = model.shownChildren(this);
+      if (child.index >= 0 && child.index < shown.size() && shown.get(child.index) == child) {
+        return child.index;
+      }
+    }
+    return -1;
+  }
+
+  @Override
+  public boolean getAllowsChildren() {
+    return directory;
+  }
+
+  @Override
+  public boolean isLeaf() {
+    return model.isLeaf(this);
+  }
+
+  @Override
+  public Enumeration<PackageTreeNode> children() {
+    return Collections.enumeration(model.shownChildren(this));
+  }
+
+  // The tree uses this text for keyboard navigation by typing the start of a name.
+  @Override
+  public String toString() {
+    return name;
+  }
+}
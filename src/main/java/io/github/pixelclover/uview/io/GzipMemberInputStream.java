@@ -0,0 +1,236 @@
+package io.github.pixelclover.uview.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * A GZIP input stream that transparently decompresses a sequence of concatenated GZIP members, like
+ * {@link java.util.zip.GZIPInputStream}, but additionally records where each member starts and ends
+ * in both the compressed file and the decompressed stream. This lets callers map decompressed data
+ * back to the exact compressed bytes it came from.
+ */
+final class GzipMemberInputStream extends InputStream {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final int GZIP_MAGIC = 0x8b1f;
+  private static final int FHCRC = 2;
+  private static final int FEXTRA = 4;
+  private static final int FNAME = 8;
+  private static final int FCOMMENT = 16;
+
+  private final InputStream in;
+  private final byte[] buffer = new byte[BUFFER_SIZE];
+  private final Inflater inflater = new Inflater(true);
+  private final CRC32 crc = new CRC32();
+  private final List<Member> members = new ArrayList<>();
+  private int bufferPos;
+  private int bufferLen;
+  private long bufferFileOffset;
+  private long position;
+  private long memberCompressedStart;
+  private long memberUncompressedStart;
+  private boolean inMember;
+  private boolean eof;
+
+  /**
+   * Creates a new stream reading GZIP data from the given raw input.
+   *
+   * @param in The compressed input stream. It is closed when this stream is closed.
+   */
+  GzipMemberInputStream(InputStream in) {
+    this.in = in;
+  }
+
+  /**
+   * Gets the members that have been fully read so far, in file order.
+   *
+   * @return An unmodifiable list of completed members.
+   */
+  List<Member> members() {
+    return Collections.unmodifiableList(members);
+  }
+
+  /**
+   * Gets the number of decompressed bytes returned by this stream so far.
+   *
+   * @return The current position in the decompressed stream.
+   */
+  long position() {
+    return position;
+  }
+
+  @Override
+  public int read() throws IOException {
+    byte[] single = new byte[1];
+    return read(single, 0, 1) == -1 ? -1 : single[0] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    while (!eof) {
+      if (!inMember && !startMember()) {
+        eof = true;
+        break;
+      }
+      int n;
+      try {
+        n = inflater.inflate(b, off, len);
+      } catch (DataFormatException e) {
+        throw new ZipException("Invalid GZIP data: " + e.getMessage());
+      }
+      if (n > 0) {
+        crc.update(b, off, n);
+        position += n;
+        return n;
+      }
+      if (inflater.finished()) {
+        finishMember();
+      } else if (inflater.needsDictionary()) {
+        throw new ZipException("Unsupported GZIP data: preset dictionary required");
+      } else if (inflater.needsInput()) {
+        if (!fill()) {
+          throw new EOFException("Unexpected end of GZIP stream");
+        }
+        inflater.setInput(buffer, bufferPos, bufferLen - bufferPos);
+        bufferPos = bufferLen;
+      }
+    }
+    return -1;
+  }
+
+  @Override
+  public void close() throws IOException {
+    inflater.end();
+    in.close();
+  }
+
+  private boolean startMember() throws IOException {
+    boolean first = members.isEmpty();
+    if (!fill()) {
+      if (first) {
+        throw new EOFException("Empty GZIP stream");
+      }
+      return false;
+    }
+    memberCompressedStart = bufferFileOffset + bufferPos;
+    int magic = readUnsignedByte() | (readUnsignedByteOrMinusOne() << 8);
+    if (magic != GZIP_MAGIC) {
+      if (first) {
+        throw new ZipException("Not in GZIP format");
+      }
+      return false; // Trailing garbage is ignored, like GZIPInputStream does.
+    }
+    if (readUnsignedByte() != 8) {
+      throw new ZipException("Unsupported GZIP compression method");
+    }
+    int flags = readUnsignedByte();
+    skipBytes(6); // MTIME, XFL, OS
+    if ((flags & FEXTRA) != 0) {
+      skipBytes(readUnsignedByte() | (readUnsignedByte() << 8));
+    }
+    if ((flags & FNAME) != 0) {
+      skipZeroTerminated();
+    }
+    if ((flags & FCOMMENT) != 0) {
+      skipZeroTerminated();
+    }
+    if ((flags & FHCRC) != 0) {
+      skipBytes(2);
+    }
+    inflater.reset();
+    crc.reset();
+    memberUncompressedStart = position;
+    inMember = true;
+    if (bufferPos < bufferLen) {
+      inflater.setInput(buffer, bufferPos, bufferLen - bufferPos);
+      bufferPos = bufferLen;
+    }
+    return true;
+  }
+
+  private void finishMember() throws IOException {
+    // Hand back the input the inflater did not consume; the trailer starts there.
+    bufferPos = bufferLen - inflater.getRemaining();
+    long expectedCrc = readUnsignedInt();
+    long expectedSize = readUnsignedInt();
+    if (expectedCrc != crc.getValue()
+        || expectedSize != ((position - memberUncompressedStart) & 0xffffffffL)) {
+      throw new ZipException("Corrupt GZIP trailer");
+    }
+    members.add(
+        new Member(
+            memberCompressedStart,
+            bufferFileOffset + bufferPos,
+            memberUncompressedStart,
+            position));
+    inMember = false;
+  }
+
+  private boolean fill() throws IOException {
+    if (bufferPos < bufferLen) {
+      return true;
+    }
+    bufferFileOffset += bufferLen;
+    bufferPos = 0;
+    bufferLen = 0;
+    int n = in.read(buffer, 0, buffer.length);
+    if (n <= 0) {
+      return false;
+    }
+    bufferLen = n;
+    return true;
+  }
+
+  private int readUnsignedByteOrMinusOne() throws IOException {
+    return fill() ? buffer[bufferPos++] & 0xff : -1;
+  }
+
+  private int readUnsignedByte() throws IOException {
+    if (!fill()) {
+      throw new EOFException("Unexpected end of GZIP stream");
+    }
+    return buffer[bufferPos++] & 0xff;
+  }
+
+  private long readUnsignedInt() throws IOException {
+    long value = 0;
+    for (int i = 0; i < 4; i++) {
+      value |= (long) readUnsignedByte() << (8 * i);
+    }
+    return value;
+  }
+
+  private void skipBytes(int count) throws IOException {
+    for (int i = 0; i < count; i++) {
+      readUnsignedByte();
+    }
+  }
+
+  private void skipZeroTerminated() throws IOException {
+    while (readUnsignedByte() != 0) {
+      // Skip until the terminating zero byte.
+    }
+  }
+
+  /**
+   * The location of a single GZIP member.
+   *
+   * @param compressedStart The file offset of the member's header.
+   * @param compressedEnd The file offset just past the member's trailer.
+   * @param uncompressedStart The decompressed stream offset of the member's first byte.
+   * @param uncompressedEnd The decompressed stream offset just past the member's last byte.
+   */
+  record Member(
+      long compressedStart, long compressedEnd, long uncompressedStart, long uncompressedEnd) {}
+}
@@ -5,21 +5,42 @@ import io.github.pixelclover.uview.model.UnityPackage;
 import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
-import java.util.zip.GZIPInputStream;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.zip.GZIPOutputStream;
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
 import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
-/** Handles reading from and writing to .unitypackage files. */
+/**
+ * Handles reading from and writing to .unitypackage files.
+ *
+ * <p>Packages are written with one GZIP member per asset group (the tar entries of a single GUID).
+ * Concatenated members form a regular gzipped tar archive, but they also let a later save copy the
+ * compressed bytes of unchanged assets verbatim instead of recompressing them. The member
+ * boundaries of every file this instance has loaded or saved are remembered for that purpose.
+ */
 public class PackageIO {
+  private static final Logger LOGGER = LogManager.getLogger(PackageIO.class);
+  private static final int TAR_RECORD_SIZE = 512;
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final Map<Path, PackageLayout> layouts = new ConcurrentHashMap<>();
 
   /**
    * Loads a {@link UnityPackage} from a .unitypackage file. It reads the gzipped tar archive,
@@ -32,28 +53,44 @@ public class PackageIO {
   public UnityPackage load(File packageFile) throws IOException {
     UnityPackage unityPackage = new UnityPackage();
     Map<String, Map<String, byte[]>> rawData = new HashMap<>();
+    // Decompressed byte range [start, end) of each asset group, used to find reusable members.
+    Map<String, long[]> groupRanges = new HashMap<>();
+    Set<String> scatteredGroups = new HashSet<>();
+    Map<Long, GzipMemberInputStream.Member> membersByStart = new HashMap<>();
 
     try (FileInputStream fis = new FileInputStream(packageFile);
-        GZIPInputStream gzipIn = new GZIPInputStream(fis);
+        GzipMemberInputStream gzipIn = new GzipMemberInputStream(fis);
         TarArchiveInputStream tarIn = new TarArchiveInputStream(gzipIn)) {
 
-      TarArchiveEntry entry;
-      while ((entry = tarIn.getNextEntry()) != null) {
+      String currentGroup = null;
+      long currentGroupStart = 0;
+      while (true) {
+        // Tar headers are record aligned, so the next header starts at the next record boundary.
+        long entryStart = alignToRecord(gzipIn.position());
+        TarArchiveEntry entry = tarIn.getNextEntry();
+        String group = (entry == null) ? null : groupOf(entry);
+        if (currentGroup != null && !currentGroup.equals(group)) {
+          if (groupRanges.put(currentGroup, new long[] {currentGroupStart, entryStart}) != null) {
+            scatteredGroups.add(currentGroup);
+          }
+        }
+        if (group == null || !group.equals(currentGroup)) {
+          currentGroup = group;
+          currentGroupStart = entryStart;
+        }
+        if (entry == null) {
+          break;
+        }
         if (entry.isDirectory()) {
           continue;
         }
 
         // The raw entry name from the tar header can have trailing null characters.
         // Clean it to get a proper path.
-        String entryName = entry.getName();
-        int nullIndex = entryName.indexOf(0);
-        if (nullIndex != -1) {
-          entryName = entryName.substring(0, nullIndex);
-        }
-        entryName = entryName.replace('\\', '/');
-
+        String entryName = cleanEntryName(entry.getName());
         int lastSlashIndex = entryName.lastIndexOf('/');
         if (lastSlashIndex == -1) {
+          tarIn.transferTo(OutputStream.nullOutputStream());
           continue;
         }
 
@@ -63,8 +100,29 @@ public class PackageIO {
         byte[] data = tarIn.readAllBytes();
         rawData.computeIfAbsent(guid, k -> new HashMap<>()).put(fileName, data);
       }
+      gzipIn.members().forEach(m -> membersByStart.put(m.uncompressedStart(), m));
     }
 
+    Map<String, PackageLayout.Segment> segments = new HashMap<>();
+    groupRanges.forEach(
+        (guid, range) -> {
+          GzipMemberInputStream.Member member = membersByStart.get(range[0]);
+          if (!scatteredGroups.contains(guid)
+              && member != null
+              && member.uncompressedEnd() == range[1]) {
+            segments.put(
+                guid,
+                new PackageLayout.Segment(
+                    member.compressedStart(), member.compressedEnd() - member.compressedStart()));
+          }
+        });
+    layouts.put(layoutKey(packageFile), PackageLayout.of(packageFile, segments));
+    LOGGER.debug(
+        "{} of {} asset groups in {} are stored as reusable members",
+        segments.size(),
+        groupRanges.size(),
+        packageFile.getName());
+
     unityPackage.loadFromRawData(rawData);
     return unityPackage;
   }
@@ -78,33 +136,130 @@ public class PackageIO {
    * @throws IOException If an I/O error occurs while writing the file.
    */
   public void save(UnityPackage unityPackage, File packageFile) throws IOException {
-    File tempFile = Files.createTempFile("uview-", ".unitypackage").toFile();
+    writePackage(unityPackage, packageFile, null, null, Set.of());
+  }
 
-    try (FileOutputStream fos = new FileOutputStream(tempFile);
-        BufferedOutputStream bos = new BufferedOutputStream(fos);
-        GZIPOutputStream gzipOut = new GZIPOutputStream(bos);
-        TarArchiveOutputStream tarOut = new TarArchiveOutputStream(gzipOut)) {
+  /**
+   * Saves a {@link UnityPackage}, reusing the compressed bytes of unchanged assets from the file it
+   * was loaded from or last saved to. Only assets whose GUID is in {@code changedGuids}, or that
+   * were not stored as a reusable member in the source file, are recompressed. If the source file's
+   * layout is unknown or the file changed on disk since, this falls back to {@link #save}.
+   *
+   * @param unityPackage The {@link UnityPackage} to save.
+   * @param sourceFile The file the package was last loaded from or saved to, or {@code null}.
+   * @param packageFile The destination .unitypackage file. This may be the source file itself.
+   * @param changedGuids The GUIDs of assets that differ from the source file.
+   * @throws IOException If an I/O error occurs while reading or writing the files.
+   */
+  public void saveIncremental(
+      UnityPackage unityPackage, File sourceFile, File packageFile, Set<String> changedGuids)
+      throws IOException {
+    PackageLayout layout = (sourceFile == null) ? null : layouts.get(layoutKey(sourceFile));
+    if (layout == null || !layout.isCurrent(sourceFile)) {
+      save(unityPackage, packageFile);
+      return;
+    }
+    writePackage(unityPackage, packageFile, sourceFile, layout, changedGuids);
+  }
 
-      tarOut.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+  /**
+   * Gets the remembered member layout of a file that was loaded or saved by this instance.
+   *
+   * @param packageFile The package file.
+   * @return The layout, or {@code null} if the file is unknown.
+   */
+  PackageLayout getLayout(File packageFile) {
+    return layouts.get(layoutKey(packageFile));
+  }
 
-      for (UnityAsset asset : unityPackage.getAssets().values()) {
-        String guidDir = asset.guid() + "/";
-        tarOut.putArchiveEntry(new TarArchiveEntry(guidDir));
-        tarOut.closeArchiveEntry();
+  private void writePackage(
+      UnityPackage unityPackage,
+      File packageFile,
+      File sourceFile,
+      PackageLayout layout,
+      Set<String> changedGuids)
+      throws IOException {
+    Path tempFile = Files.createTempFile("uview-", ".unitypackage");
+    Map<String, PackageLayout.Segment> segments = new HashMap<>();
+    int reused = 0;
 
-        byte[] pathnameBytes = asset.assetPath().getBytes(StandardCharsets.UTF_8);
-        writeEntry(tarOut, guidDir + "pathname", pathnameBytes);
+    try (FileChannel out = FileChannel.open(tempFile, StandardOpenOption.WRITE);
+        FileChannel in =
+            (layout != null)
+                ? FileChannel.open(sourceFile.toPath(), StandardOpenOption.READ)
+                : null) {
+      CountingOutputStream counter =
+          new CountingOutputStream(
+              new BufferedOutputStream(Channels.newOutputStream(out), BUFFER_SIZE));
 
-        if (asset.content() != null) {
-          writeEntry(tarOut, guidDir + "asset", asset.content());
-        }
-        if (asset.metaContent() != null) {
-          writeEntry(tarOut, guidDir + "asset.meta", asset.metaContent());
+      for (UnityAsset asset : unityPackage.getAssets().values()) {
+        long start = counter.count;
+        PackageLayout.Segment previous =
+            (layout == null || changedGuids.contains(asset.guid()))
+                ? null
+                : layout.segments().get(asset.guid());
+        if (previous != null) {
+          counter.flush();
+          copyRange(in, previous.offset(), previous.length(), out);
+          counter.count += previous.length();
+          reused++;
+        } else {
+          writeAssetMember(counter, asset);
         }
+        segments.put(asset.guid(), new PackageLayout.Segment(start, counter.count - start));
       }
+      writeEndOfArchiveMember(counter);
+      counter.flush();
+    } catch (IOException e) {
+      Files.deleteIfExists(tempFile);
+      throw e;
     }
 
-    Files.move(tempFile.toPath(), packageFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    Files.move(tempFile, packageFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    layouts.put(layoutKey(packageFile), PackageLayout.of(packageFile, segments));
+    LOGGER.debug(
+        "Wrote {} assets to {} ({} copied unchanged)",
+        segments.size(),
+        packageFile.getName(),
+        reused);
+  }
+
+  private void writeAssetMember(OutputStream out, UnityAsset asset) throws IOException {
+    // Closing the GZIP stream finishes the member and frees its deflater, but not the file.
+    try (GZIPOutputStream gzipOut =
+        new GZIPOutputStream(new UncloseableOutputStream(out), BUFFER_SIZE)) {
+      // A block size of one record makes every closed entry reach the GZIP stream immediately.
+      // The tar stream is deliberately not closed: that would append the end-of-archive marker.
+      TarArchiveOutputStream tarOut = new TarArchiveOutputStream(gzipOut, TAR_RECORD_SIZE);
+      tarOut.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+
+      String guidDir = asset.guid() + "/";
+      tarOut.putArchiveEntry(new TarArchiveEntry(guidDir));
+      tarOut.closeArchiveEntry();
+
+      byte[] pathnameBytes = asset.assetPath().getBytes(StandardCharsets.UTF_8);
+      writeEntry(tarOut, guidDir + "pathname", pathnameBytes);
+
+      byte[] content = asset.content();
+      if (content != null) {
+        writeEntry(tarOut, guidDir + "asset", content);
+      }
+      byte[] metaContent = asset.metaContent();
+      if (metaContent != null) {
+        writeEntry(tarOut, guidDir + "asset.meta", metaContent);
+      }
+      byte[] previewContent = asset.previewContent();
+      if (previewContent != null) {
+        writeEntry(tarOut, guidDir + "preview.png", previewContent);
+      }
+      tarOut.flush();
+    }
+  }
+
+  private void writeEndOfArchiveMember(OutputStream out) throws IOException {
+    try (GZIPOutputStream gzipOut = new GZIPOutputStream(new UncloseableOutputStream(out))) {
+      gzipOut.write(new byte[2 * TAR_RECORD_SIZE]);
+    }
   }
 
   private void writeEntry(TarArchiveOutputStream tarOut, String name, byte[] data)
@@ -115,4 +270,79 @@ public class PackageIO {
     tarOut.write(data);
     tarOut.closeArchiveEntry();
   }
+
+  private static void copyRange(FileChannel in, long offset, long length, FileChannel out)
+      throws IOException {
+    long copied = 0;
+    while (copied < length) {
+      long n = in.transferTo(offset + copied, length - copied, out);
+      if (n <= 0) {
+        throw new IOException("Source package ended unexpectedly while copying unchanged assets");
+      }
+      copied += n;
+    }
+  }
+
+  private static String groupOf(TarArchiveEntry entry) {
+    String name = cleanEntryName(entry.getName());
+    if (entry.isDirectory()) {
+      return name.endsWith("/") ? name.substring(0, name.length() - 1) : name;
+    }
+    int lastSlashIndex = name.lastIndexOf('/');
+    return (lastSlashIndex == -1) ? null : name.substring(0, lastSlashIndex);
+  }
+
+  private static String cleanEntryName(String entryName) {
+    int nullIndex = entryName.indexOf(0);
+    if (nullIndex != -1) {
+      entryName = entryName.substring(0, nullIndex);
+    }
+    return entryName.replace('\\', '/');
+  }
+
+  private static long alignToRecord(long position) {
+    return (position + TAR_RECORD_SIZE - 1) / TAR_RECORD_SIZE * TAR_RECORD_SIZE;
+  }
+
+  private static Path layoutKey(File file) {
+    return file.toPath().toAbsolutePath().normalize();
+  }
+
+  /** Counts the bytes written through it, so member offsets are known without flushing. */
+  private static final class CountingOutputStream extends FilterOutputStream {
+    private long count;
+
+    CountingOutputStream(OutputStream out) {
+      super(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      out.write(b);
+      count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+      count += len;
+    }
+  }
+
+  /** Passes writes through but only flushes on close, leaving the underlying stream open. */
+  private static final class UncloseableOutputStream extends FilterOutputStream {
+    UncloseableOutputStream(OutputStream out) {
+      super(out);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+    }
+
+    @Override
+    public void close() throws IOException {
+      flush();
+    }
+  }
 }
@@ -0,0 +1,62 @@
+package io.github.pixelclover.uview.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Records where each asset group of a .unitypackage file is stored as a self-contained GZIP member.
+ * A layout is only valid for the exact file version it was captured from, which is checked using
+ * the file's size and modification time.
+ *
+ * @param fileSize The size of the package file when the layout was captured.
+ * @param lastModified The modification time (in milliseconds) of the file when it was captured.
+ * @param segments The compressed byte range of each reusable asset group, keyed by GUID.
+ */
+record PackageLayout(long fileSize, long lastModified, Map<String, Segment> segments) {
+
+  /** Canonical constructor that makes an unmodifiable copy of the segment map. */
+  PackageLayout {
+    segments = Map.copyOf(segments);
+  }
+
+  /**
+   * Captures the layout of a package file as it currently exists on disk.
+   *
+   * @param file The package file.
+   * @param segments The reusable asset groups of the file.
+   * @return The new layout.
+   * @throws IOException If the file's attributes cannot be read.
+   */
+  static PackageLayout of(File file, Map<String, Segment> segments) throws IOException {
+    Path path = file.toPath();
+    return new PackageLayout(
+        Files.size(path), Files.getLastModifiedTime(path).toMillis(), segments);
+  }
+
+  /**
+   * Checks if the file on disk is still the version this layout was captured from.
+   *
+   * @param file The package file.
+   * @return true if the file has the recorded size and modification time.
+   */
+  boolean isCurrent(File file) {
+    try {
+      Path path = file.toPath();
+      return Files.size(path) == fileSize
+          && Files.getLastModifiedTime(path).toMillis() == lastModified;
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  /**
+   * A byte range of the package file that holds exactly one asset group as a GZIP member.
+   *
+   * @param offset The file offset of the member's first byte.
+   * @param length The length of the member in bytes.
+   */
+  record Segment(long offset, long length) {}
+}
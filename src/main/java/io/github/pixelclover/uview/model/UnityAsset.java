@@ -1,5 +1,6 @@
 package io.github.pixelclover.uview.model;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Objects;
 
@@ -92,6 +93,63 @@ public record UnityAsset(
     return content == null;
   }
 
+  /**
+   * Gets the size of the asset's content without copying it.
+   *
+   * @return The number of bytes of content, or -1 if the asset is a directory.
+   */
+  public int contentLength() {
+    return (content != null) ? content.length : -1;
+  }
+
+  /**
+   * Returns a read-only view of the asset's content, for reading it without a copy.
+   *
+   * @return A read-only buffer over the content, or {@code null} if it's a directory.
+   */
+  public ByteBuffer contentBuffer() {
+    return (content != null) ? ByteBuffer.wrap(content).asReadOnlyBuffer() : null;
+  }
+
+  /**
+   * Returns a read-only view of the asset's meta file content, for reading it without a copy.
+   *
+   * @return A read-only buffer over the meta content, or {@code null} if it doesn't exist.
+   */
+  public ByteBuffer metaBuffer() {
+    return (metaContent != null) ? ByteBuffer.wrap(metaContent).asReadOnlyBuffer() : null;
+  }
+
+  /**
+   * Checks if the asset has a preview image, without copying it.
+   *
+   * @return {@code true} if the asset has preview content.
+   */
+  public boolean hasPreview() {
+    return previewContent != null;
+  }
+
+  /**
+   * Checks if this asset has the same content as another asset, without copying either array.
+   *
+   * @param other The asset to compare against.
+   * @return {@code true} if both contents are byte-for-byte equal (or both {@code null}).
+   */
+  public boolean hasSameContent(UnityAsset other) {
+    return Arrays.equals(content, other.content);
+  }
+
+  /**
+   * Checks if this asset has the same meta file content as another asset, without copying either
+   * array.
+   *
+   * @param other The asset to compare against.
+   * @return {@code true} if both meta contents are byte-for-byte equal (or both {@code null}).
+   */
+  public boolean hasSameMeta(UnityAsset other) {
+    return Arrays.equals(metaContent, other.metaContent);
+  }
+
   /**
    * Compares this asset to another object for equality. Two assets are considered equal if their
    * GUIDs are equal, as the GUID is the asset's unique identity.
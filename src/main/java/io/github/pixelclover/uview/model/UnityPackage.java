@@ -2,19 +2,25 @@ package io.github.pixelclover.uview.model;
 
 import java.nio.charset.StandardCharsets;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.pcollections.HashTreePMap;
+import org.pcollections.PMap;
 
 /**
  * Represents the contents of a .unitypackage file. This class is a container for all the {@link
  * UnityAsset} objects within the package, providing methods to access, add, and remove them.
+ *
+ * <p>The assets are held in persistent (immutable, structurally shared) maps. Every modification
+ * produces a new {@link Snapshot} that shares all untouched entries with the previous one, so
+ * capturing and restoring the package state is O(1) and keeping old states alive only costs memory
+ * for the assets that changed between them.
  */
 public class UnityPackage {
   private static final Logger LOGGER = LogManager.getLogger(UnityPackage.class);
-  private final Map<String, UnityAsset> assetsByGuid = new HashMap<>();
-  private final Map<String, String> pathToGuid = new HashMap<>();
+  private Snapshot state = Snapshot.EMPTY;
 
   /**
    * Cleans the raw pathname string from a package's "pathname" file. Some versions of Unity or
@@ -75,17 +81,37 @@ public class UnityPackage {
 
   /** Clears all assets from the package, resetting it to an empty state. */
   public void clear() {
-    assetsByGuid.clear();
-    pathToGuid.clear();
+    state = Snapshot.EMPTY;
   }
 
   /**
-   * Gets an unmodifiable view of the assets in this package, mapped by their GUID.
+   * Gets an unmodifiable view of the assets in this package, mapped by their GUID. The returned map
+   * is a view of the current snapshot and is not affected by later modifications of the package.
    *
    * @return An unmodifiable map of GUIDs to {@link UnityAsset}s.
    */
   public Map<String, UnityAsset> getAssets() {
-    return Collections.unmodifiableMap(assetsByGuid);
+    return Collections.unmodifiableMap(state.assetsByGuid);
+  }
+
+  /**
+   * Captures the current state of the package. This is an O(1) operation; the returned snapshot is
+   * immutable and shares its structure with the live package.
+   *
+   * @return The current {@link Snapshot}.
+   */
+  public Snapshot snapshot() {
+    return state;
+  }
+
+  /**
+   * Replaces the contents of this package with a previously captured snapshot. This is an O(1)
+   * operation.
+   *
+   * @param snapshot The snapshot to restore.
+   */
+  public void restore(Snapshot snapshot) {
+    state = Objects.requireNonNull(snapshot);
   }
 
   /**
@@ -95,11 +121,7 @@ public class UnityPackage {
    * @return The {@link UnityAsset} if found, otherwise {@code null}.
    */
   public UnityAsset getAssetByPath(String assetPath) {
-    String guid = pathToGuid.get(assetPath);
-    if (guid != null) {
-      return assetsByGuid.get(guid);
-    }
-    return null;
+    return state.getAssetByPath(assetPath);
   }
 
   /**
@@ -109,8 +131,10 @@ public class UnityPackage {
    * @param asset The {@link UnityAsset} to add or update.
    */
   public void addAsset(UnityAsset asset) {
-    assetsByGuid.put(asset.guid(), asset);
-    pathToGuid.put(asset.assetPath(), asset.guid());
+    state =
+        new Snapshot(
+            state.assetsByGuid.plus(asset.guid(), asset),
+            state.pathToGuid.plus(asset.assetPath(), asset.guid()));
   }
 
   /**
@@ -119,9 +143,55 @@ public class UnityPackage {
    * @param assetPath The path of the asset to remove.
    */
   public void removeAssetByPath(String assetPath) {
-    String guid = pathToGuid.remove(assetPath);
+    String guid = state.pathToGuid.get(assetPath);
     if (guid != null) {
-      assetsByGuid.remove(guid);
+      state = new Snapshot(state.assetsByGuid.minus(guid), state.pathToGuid.minus(assetPath));
+    }
+  }
+
+  /**
+   * An immutable, structurally shared capture of a package's contents. Snapshots are compared by
+   * identity: two references to the same snapshot denote exactly the same package state.
+   */
+  public static final class Snapshot {
+    private static final Snapshot EMPTY = new Snapshot(HashTreePMap.empty(), HashTreePMap.empty());
+
+    private final PMap<String, UnityAsset> assetsByGuid;
+    private final PMap<String, String> pathToGuid;
+
+    private Snapshot(PMap<String, UnityAsset> assetsByGuid, PMap<String, String> pathToGuid) {
+      this.assetsByGuid = assetsByGuid;
+      this.pathToGuid = pathToGuid;
+    }
+
+    /**
+     * Gets the assets of this snapshot, mapped by their GUID.
+     *
+     * @return An immutable map of GUIDs to {@link UnityAsset}s.
+     */
+    public Map<String, UnityAsset> getAssets() {
+      return assetsByGuid;
+    }
+
+    /**
+     * Retrieves an asset of this snapshot by its GUID.
+     *
+     * @param guid The GUID of the asset.
+     * @return The {@link UnityAsset} if present, otherwise {@code null}.
+     */
+    public UnityAsset getAsset(String guid) {
+      return assetsByGuid.get(guid);
+    }
+
+    /**
+     * Retrieves an asset of this snapshot by its full path.
+     *
+     * @param assetPath The path of the asset.
+     * @return The {@link UnityAsset} if present, otherwise {@code null}.
+     */
+    public UnityAsset getAssetByPath(String assetPath) {
+      String guid = pathToGuid.get(assetPath);
+      return (guid != null) ? assetsByGuid.get(guid) : null;
     }
   }
 }
@@ -0,0 +1,106 @@
+package io.github.pixelclover.uview.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.github.pixelclover.uview.model.UnityAsset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class AssetQueryTest {
+
+  private static final String[] SEGMENTS = {"Assets", "Art", "Scripts", "UI", "My Folder"};
+  private static final String[] EXTENSIONS = {"cs", "png", "PNG", "prefab", "mat", ""};
+
+  @Test
+  void plainTextIsAPathSearchOfTheWholeText() {
+    assertTrue(AssetQuery.parse("my folder").isPathSearch());
+    assertTrue(AssetQuery.parse("  ").isBlank());
+    assertFalse(AssetQuery.parse("ext:cs").isPathSearch());
+    assertFalse(AssetQuery.parse("-rock").isPathSearch());
+    assertFalse(AssetQuery.parse("\"my folder\"").isPathSearch());
+  }
+
+  @Test
+  void termsParseTheirValues() {
+    assertEquals(
+        List.of(
+            new AssetQuery.Extension(List.of("cs", "png"), false),
+            new AssetQuery.Size(1024 * 1024 + 1, Long.MAX_VALUE, false),
+            new AssetQuery.PathPrefix("Assets/My Art", false),
+            new AssetQuery.Guid("ab12", true, false),
+            new AssetQuery.HasPreview(false),
+            new AssetQuery.Extension(List.of("meta"), true),
+            new AssetQuery.Text("rock", false)),
+        AssetQuery.parse(
+                "ext:.cs,PNG size:>1mb path:\"Assets/My Art\" guid:AB12* has:preview -ext:meta Rock")
+            .terms());
+    assertEquals(
+        List.of(new AssetQuery.Size(1024, 2 * 1024 * 1024, false)),
+        AssetQuery.parse("size:1kb..2mb").terms());
+  }
+
+  @Test
+  void invalidValuesAreRejected() {
+    for (String query : List.of("ext:", "size:>", "size:big", "path:", "guid:*", "has:meta")) {
+      assertThrows(IllegalArgumentException.class, () -> AssetQuery.parse(query), query);
+    }
+  }
+
+  @Test
+  void searchMatchesTestingEveryAsset() {
+    List<UnityAsset> assets = randomAssets(3000, new Random(1));
+    PathIndex index = PathIndex.of(assets);
+    AssetQueryIndex queryIndex = AssetQueryIndex.of(index);
+    String guidPrefix = assets.get(17).guid().substring(0, 2);
+
+    for (String text :
+        List.of(
+            "ext:cs",
+            "ext:png,prefab size:<100",
+            "size:>=500 -ext:png",
+            "size:0",
+            "path:Assets/Art/ -size:>200",
+            "path:Assets/Nothing",
+            "guid:" + guidPrefix + "*",
+            "guid:" + assets.get(17).guid(),
+            "has:preview ext:mat",
+            "-has:preview \"my folder\"",
+            "ui -ext:cs",
+            "my folder")) {
+      AssetQuery query = AssetQuery.parse(text);
+      assertEquals(expected(assets, query), queryIndex.search(query, null).assets(), text);
+    }
+  }
+
+  private static List<UnityAsset> expected(List<UnityAsset> assets, AssetQuery query) {
+    return assets.stream()
+        .filter(query::matches)
+        .sorted(Comparator.comparing(UnityAsset::assetPath).thenComparing(UnityAsset::guid))
+        .toList();
+  }
+
+  private static List<UnityAsset> randomAssets(int count, Random random) {
+    List<UnityAsset> assets = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      StringBuilder path = new StringBuilder("Assets");
+      int depth = 1 + random.nextInt(3);
+      for (int d = 0; d < depth; d++) {
+        path.append('/').append(SEGMENTS[random.nextInt(SEGMENTS.length)]);
+      }
+      if (random.nextInt(10) == 0) {
+        assets.add(UnityAsset.createNew(path.toString(), null, new byte[0], null));
+        continue;
+      }
+      String extension = EXTENSIONS[random.nextInt(EXTENSIONS.length)];
+      path.append("/file").append(i).append(extension.isEmpty() ? "" : "." + extension);
+      byte[] preview = random.nextBoolean() ? new byte[1] : null;
+      assets.add(
+          UnityAsset.createNew(
+              path.toString(), new byte[random.nextInt(1000)], new byte[0], preview));
+    }
+    return assets;
+  }
+}
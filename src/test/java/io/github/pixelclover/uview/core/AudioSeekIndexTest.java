@@ -0,0 +1,388 @@
+package io.github.pixelclover.uview.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import org.junit.jupiter.api.Test;
+
+class AudioSeekIndexTest {
+
+  // MPEG-1 layer III, 128 kbit/s, 44.1 kHz: frames of 417 bytes and 1152 samples.
+  private static final int MP3_HEADER = 0xFFFB9064;
+  private static final int MP3_FRAME_LENGTH = 417;
+  // 1.0 as a Vorbis codebook float: a mantissa of 2^20 and an exponent of 2^-20.
+  private static final int VORBIS_ONE = (768 << 21) | (1 << 20);
+
+  @Test
+  void mp3FramesAreIndexedAfterTheTag() {
+    int tagLength = 10 + 300;
+    int frames = 100;
+    ByteBuffer mp3 = ByteBuffer.allocate(tagLength + frames * MP3_FRAME_LENGTH + 128);
+    mp3.put(new byte[] {'I', 'D', '3', 4, 0, 0, 0, 0, 2, 44}); // A size of 2 * 128 + 44.
+    for (int i = 0; i < frames; i++) {
+      mp3.putInt(tagLength + i * MP3_FRAME_LENGTH, MP3_HEADER);
+    }
+    mp3.put(tagLength + frames * MP3_FRAME_LENGTH, (byte) 'T'); // The ID3v1 tag.
+
+    AudioSeekIndex index = AudioSeekIndex.of(mp3);
+
+    assertNotNull(index);
+    assertEquals(44100, index.sampleRate());
+    assertEquals(frames * 1152L, index.frameCount());
+    assertEquals(0, index.headerLength());
+    assertEquals(new AudioSeekIndex.Checkpoint(tagLength, 0), index.checkpointBefore(0));
+    // Checkpoints are half a second, about 20 frames, apart and start two frames early.
+    AudioSeekIndex.Checkpoint checkpoint = index.checkpointBefore(40000);
+    assertEquals(18 * 1152, checkpoint.frame());
+    assertEquals(tagLength + 18 * MP3_FRAME_LENGTH, checkpoint.offset());
+  }
+
+  @Test
+  void oggPagesAreIndexedAfterTheHeaders() {
+    // Long blocks of 2048 samples, in packets of two segments and eight packets to a page: each
+    // packet adds 1024 frames, and each page 8192.
+    int[] modes = new int[80];
+    Arrays.fill(modes, 1);
+    byte[] ogg = vorbis(modes, 16, new Random(1));
+    List<Integer> pages = pageOffsets(ogg);
+
+    AudioSeekIndex index = AudioSeekIndex.of(ByteBuffer.wrap(ogg));
+
+    assertNotNull(index);
+    assertEquals(8000, index.sampleRate());
+    assertEquals(pages.get(2), index.headerLength());
+    // The decoder gives 448 frames for the first long block, a quarter of it less a quarter of a
+    // short one, and 1024 for each after it.
+    assertEquals(448 + 79 * 1024, index.frameCount());
+    // Checkpoints are at least 4000 frames apart, so every page is one.
+    assertEquals(new AudioSeekIndex.Checkpoint(pages.get(2), 0), index.checkpointBefore(4000));
+    assertEquals(new AudioSeekIndex.Checkpoint(pages.get(2), 0), index.checkpointBefore(8191));
+    assertEquals(
+        new AudioSeekIndex.Checkpoint(pages.get(5), 3 * 8192), index.checkpointBefore(3 * 8192));
+    assertEquals(
+        new AudioSeekIndex.Checkpoint(pages.get(11), 9 * 8192), index.checkpointBefore(80000));
+  }
+
+  @Test
+  void oggWithoutModesIsNotIndexed() {
+    ByteArrayOutputStream ogg = new ByteArrayOutputStream();
+    writePage(ogg, 0, 0, new int[] {30});
+    writePage(ogg, 1, 0, new int[] {40, 255, 10});
+    writePage(ogg, 2, 5000, new int[] {100});
+
+    assertNull(AudioSeekIndex.of(ByteBuffer.wrap(ogg.toByteArray())));
+  }
+
+  @Test
+  void otherFilesAreNotIndexed() {
+    assertNull(AudioSeekIndex.of(ByteBuffer.wrap("RIFF....WAVEfmt ".getBytes())));
+    assertNull(AudioSeekIndex.of(ByteBuffer.allocate(0)));
+  }
+
+  @Test
+  void decodingStartsAtTheRequestedFrame() throws IOException, UnsupportedAudioFileException {
+    AudioFormat format = new AudioFormat(8000, 16, 1, true, false);
+    ByteBuffer samples = ByteBuffer.allocate(16000).order(ByteOrder.LITTLE_ENDIAN);
+    for (int i = 0; i < 8000; i++) {
+      samples.putShort((short) i);
+    }
+    ByteArrayOutputStream wav = new ByteArrayOutputStream();
+    AudioSystem.write(
+        new AudioInputStream(new ByteArrayInputStream(samples.array()), format, 8000),
+        AudioFileFormat.Type.WAVE,
+        wav);
+
+    try (AudioInputStream stream =
+        AudioDecoder.open(ByteBuffer.wrap(wav.toByteArray()), null, 1234)) {
+      byte[] first = stream.readNBytes(2);
+      assertEquals(1234, ByteBuffer.wrap(first).order(ByteOrder.LITTLE_ENDIAN).getShort());
+      assertEquals((8000 - 1235) * 2, stream.readAllBytes().length);
+    }
+  }
+
+  @Test
+  void mp3DecodingStartsAtTheRequestedFrame() throws IOException, UnsupportedAudioFileException {
+    // Frames without any audio data decode to silence.
+    ByteBuffer mp3 = ByteBuffer.allocate(200 * MP3_FRAME_LENGTH);
+    for (int i = 0; i < 200; i++) {
+      mp3.putInt(i * MP3_FRAME_LENGTH, MP3_HEADER);
+    }
+    AudioSeekIndex index = AudioSeekIndex.of(mp3);
+
+    try (AudioInputStream stream = AudioDecoder.open(mp3, index, 100000)) {
+      assertEquals((200 * 1152 - 100000) * 4, stream.readAllBytes().length);
+    }
+  }
+
+  @Test
+  void mp3DecodingFromACheckpointGivesWhatDecodingFromTheStartDoes()
+      throws IOException, UnsupportedAudioFileException {
+    ByteBuffer mp3 = mp3(200, new Random(1));
+    AudioSeekIndex index = AudioSeekIndex.of(mp3);
+    byte[] all = decode(mp3, null, 0);
+    assertEquals(200 * 1152 * 4, all.length);
+
+    for (long frame : new long[] {1, 30000, 100000, 229000}) {
+      byte[] part = decode(mp3, index, frame);
+      assertArrayEquals(Arrays.copyOfRange(all, (int) frame * 4, all.length), part, "at " + frame);
+    }
+    assertTrue(index.checkpointBefore(100000).frame() > 0);
+  }
+
+  @Test
+  void oggDecodingFromACheckpointGivesWhatDecodingFromTheStartDoes()
+      throws IOException, UnsupportedAudioFileException {
+    // Short and long blocks at random, and pages that end inside packets.
+    Random random = new Random(1);
+    int[] modes = new int[600];
+    for (int i = 0; i < modes.length; i++) {
+      modes[i] = random.nextInt(2);
+    }
+    ByteBuffer ogg = ByteBuffer.wrap(vorbis(modes, 13, random));
+    AudioSeekIndex index = AudioSeekIndex.of(ogg);
+    byte[] all = decode(ogg, null, 0);
+    // Also the last page, which is shorter than the decoder's reads.
+    assertEquals(index.frameCount() * 2, all.length);
+
+    for (long frame : new long[] {1, 20000, 123457, 300000, index.frameCount() - 100}) {
+      byte[] part = decode(ogg, index, frame);
+      assertArrayEquals(Arrays.copyOfRange(all, (int) frame * 2, all.length), part, "at " + frame);
+    }
+    assertTrue(index.checkpointBefore(123457).frame() > 0);
+  }
+
+  private static byte[] decode(ByteBuffer content, AudioSeekIndex index, long frame)
+      throws IOException, UnsupportedAudioFileException {
+    try (AudioInputStream stream = AudioDecoder.open(content, index, frame)) {
+      return stream.readAllBytes();
+    }
+  }
+
+  // Layer III frames whose audio does not depend on earlier frames: for each granule and
+  // channel, random values coded with the count1 table whose every code is valid.
+  private static ByteBuffer mp3(int frames, Random random) {
+    ByteBuffer mp3 = ByteBuffer.allocate(frames * MP3_FRAME_LENGTH);
+    for (int f = 0; f < frames; f++) {
+      BitWriter frame = new BitWriter(false);
+      frame.write(MP3_HEADER, 32);
+      frame.write(0, 9).write(0, 3).write(0, 8); // main_data_begin, private bits, scfsi.
+      for (int i = 0; i < 4; i++) {
+        frame.write(700, 12).write(0, 9).write(190, 8).write(0, 4).write(0, 1); // No big values.
+        frame.write(0, 15).write(0, 4).write(0, 3).write(0, 1).write(0, 1).write(1, 1);
+      }
+      for (int i = 0; i < 4 * 700; i++) {
+        frame.write(random.nextInt(2), 1);
+      }
+      mp3.put(Arrays.copyOf(frame.toByteArray(), MP3_FRAME_LENGTH));
+    }
+    return mp3.flip();
+  }
+
+  // A mono Vorbis stream at 8 kHz, with short blocks of 256 samples and long ones of 2048, one
+  // packet of random noise for each mode given, in pages of at most a number of segments.
+  private static byte[] vorbis(int[] modes, int pageSegments, Random random) {
+    ByteBuffer identification = ByteBuffer.allocate(30).order(ByteOrder.LITTLE_ENDIAN);
+    identification.put((byte) 1).put("vorbis".getBytes()).putInt(0).put((byte) 1).putInt(8000);
+    identification.putInt(0).putInt(0).putInt(0).put((byte) 0xB8).put((byte) 1);
+    BitWriter comment = new BitWriter(true);
+    comment.write(3, 8).bytes("vorbis").write(0, 32).write(0, 32).write(1, 1);
+
+    BitWriter setup = new BitWriter(true);
+    setup.write(5, 8).bytes("vorbis").write(1, 8); // Two codebooks.
+    // The classbook: two one-bit entries.
+    setup.write(0x564342, 24).write(1, 16).write(2, 24).write(0, 2).write(0, 5).write(0, 5);
+    setup.write(0, 4);
+    // The residue book: four two-bit entries for the values -1 to 2.
+    setup.write(0x564342, 24).write(1, 16).write(4, 24).write(0, 2);
+    setup.write(1, 5).write(1, 5).write(1, 5).write(1, 5);
+    setup.write(1, 4).write(0x80000000L | VORBIS_ONE, 32).write(VORBIS_ONE, 32).write(1, 4);
+    setup.write(0, 1).write(0, 2).write(1, 2).write(2, 2).write(3, 2);
+    setup.write(0, 6).write(0, 16); // The unused time domain transforms.
+    setup.write(0, 6).write(1, 16).write(0, 5).write(0, 2).write(7, 4); // A flat floor 1.
+    // A residue 1 over the first 1024 values, in partitions of 32 with one class.
+    setup.write(0, 6).write(1, 16).write(0, 24).write(1024, 24).write(31, 24);
+    setup.write(0, 6).write(0, 8).write(1, 3).write(0, 1).write(1, 8);
+    setup.write(0, 6).write(0, 16).write(0, 4).write(0, 24); // One mapping.
+    setup.write(1, 6); // Two modes, for short and long blocks.
+    setup.write(0, 1).write(0, 16).write(0, 16).write(0, 8);
+    setup.write(1, 1).write(0, 16).write(0, 16).write(0, 8);
+    setup.write(1, 1);
+
+    ByteArrayOutputStream ogg = new ByteArrayOutputStream();
+    byte[] commentPacket = comment.toByteArray();
+    byte[] setupPacket = setup.toByteArray();
+    writeOggPage(ogg, 0, 2, 0, new int[] {30}, identification.array());
+    ByteArrayOutputStream headers = new ByteArrayOutputStream();
+    headers.writeBytes(commentPacket);
+    headers.writeBytes(setupPacket);
+    writeOggPage(
+        ogg, 1, 0, 0, new int[] {commentPacket.length, setupPacket.length}, headers.toByteArray());
+
+    List<byte[]> packets = new ArrayList<>();
+    long[] granules = new long[modes.length];
+    for (int i = 0; i < modes.length; i++) {
+      int blocksize = modes[i] == 1 ? 2048 : 256;
+      BitWriter packet = new BitWriter(true);
+      packet.write(0, 1).write(modes[i], 1);
+      if (modes[i] == 1) {
+        packet.write(i > 0 ? modes[i - 1] : 0, 1).write(i + 1 < modes.length ? modes[i + 1] : 0, 1);
+      }
+      packet.write(1, 1).write(200, 8).write(200, 8);
+      for (int p = 0; p < blocksize / 2 / 32; p++) {
+        packet.write(0, 1);
+        for (int v = 0; v < 32; v++) {
+          packet.write(random.nextInt(4), 2);
+        }
+      }
+      packets.add(packet.toByteArray());
+      if (i > 0) {
+        int previous = modes[i - 1] == 1 ? 2048 : 256;
+        granules[i] = granules[i - 1] + previous / 4 + blocksize / 4;
+      }
+    }
+    // Lay the packets out in segments, and cut pages from them.
+    List<Integer> lacing = new ArrayList<>();
+    List<Integer> packetOfSegment = new ArrayList<>();
+    for (int i = 0; i < packets.size(); i++) {
+      int length = packets.get(i).length;
+      for (; length >= 255; length -= 255) {
+        lacing.add(255);
+        packetOfSegment.add(i);
+      }
+      lacing.add(length);
+      packetOfSegment.add(i);
+    }
+    ByteArrayOutputStream body = new ByteArrayOutputStream();
+    packets.forEach(body::writeBytes);
+    byte[] bodies = body.toByteArray();
+    int offset = 0;
+    for (int start = 0; start < lacing.size(); start += pageSegments) {
+      int end = Math.min(lacing.size(), start + pageSegments);
+      int[] pageLacing = new int[end - start];
+      long granule = -1; // Unless a packet ends on the page.
+      int length = 0;
+      for (int s = start; s < end; s++) {
+        pageLacing[s - start] = lacing.get(s);
+        length += lacing.get(s);
+        if (lacing.get(s) < 255) {
+          granule = granules[packetOfSegment.get(s)];
+        }
+      }
+      int flags = start > 0 && lacing.get(start - 1) == 255 ? 1 : 0; // Continued.
+      flags |= end == lacing.size() ? 4 : 0; // The last page.
+      writeOggPage(
+          ogg,
+          2 + start / pageSegments,
+          flags,
+          granule,
+          pageLacing,
+          Arrays.copyOfRange(bodies, offset, offset + length));
+      offset += length;
+    }
+    return ogg.toByteArray();
+  }
+
+  private static void writeOggPage(
+      ByteArrayOutputStream ogg, int sequence, int flags, long granule, int[] lacing, byte[] body) {
+    ByteBuffer page =
+        ByteBuffer.allocate(27 + lacing.length + body.length).order(ByteOrder.LITTLE_ENDIAN);
+    page.put("OggS".getBytes()).put((byte) 0).put((byte) flags);
+    page.putLong(granule).putInt(0x1234).putInt(sequence).putInt(0).put((byte) lacing.length);
+    for (int value : lacing) {
+      page.put((byte) value);
+    }
+    page.put(body);
+    byte[] bytes = page.array();
+    page.putInt(22, oggCrc(bytes));
+    ogg.writeBytes(bytes);
+  }
+
+  private static int oggCrc(byte[] page) {
+    int crc = 0;
+    for (byte b : page) {
+      crc ^= (b & 0xFF) << 24;
+      for (int i = 0; i < 8; i++) {
+        crc = crc < 0 ? (crc << 1) ^ 0x04C11DB7 : crc << 1;
+      }
+    }
+    return crc;
+  }
+
+  private static List<Integer> pageOffsets(byte[] ogg) {
+    List<Integer> offsets = new ArrayList<>();
+    for (int position = 0; position < ogg.length; ) {
+      offsets.add(position);
+      int segments = ogg[position + 26] & 0xFF;
+      position += 27 + segments;
+      for (int s = 0; s < segments; s++) {
+        position += ogg[offsets.get(offsets.size() - 1) + 27 + s] & 0xFF;
+      }
+    }
+    return offsets;
+  }
+
+  private static void writePage(
+      ByteArrayOutputStream ogg, int sequence, long granule, int[] lacing) {
+    int bodyLength = 0;
+    for (int value : lacing) {
+      bodyLength += value;
+    }
+    ByteBuffer body = ByteBuffer.allocate(bodyLength).order(ByteOrder.LITTLE_ENDIAN);
+    if (sequence == 0) {
+      body.put((byte) 1).put("vorbis".getBytes()).putInt(0).put((byte) 1).putInt(22050);
+    }
+    writeOggPage(ogg, sequence, sequence == 0 ? 2 : 0, granule, lacing, body.array());
+  }
+
+  /** Writes bits into bytes, from the lowest bit of each byte up as Vorbis does, or down. */
+  private static final class BitWriter {
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final boolean lowestFirst;
+    private int current;
+    private int used;
+
+    BitWriter(boolean lowestFirst) {
+      this.lowestFirst = lowestFirst;
+    }
+
+    BitWriter write(long value, int count) {
+      for (int i = 0; i < count; i++) {
+        int bit = (int) (value >>> (lowestFirst ? i : count - 1 - i)) & 1;
+        current |= bit << (lowestFirst ? used : 7 - used);
+        if (++used == 8) {
+          bytes.write(current);
+          current = 0;
+          used = 0;
+        }
+      }
+      return this;
+    }
+
+    BitWriter bytes(String text) {
+      for (byte b : text.getBytes()) {
+        write(b, 8);
+      }
+      return this;
+    }
+
+    byte[] toByteArray() {
+      if (used > 0) {
+        write(0, 8 - used);
+      }
+      return bytes.toByteArray();
+    }
+  }
+}
@@ -0,0 +1,54 @@
+package io.github.pixelclover.uview.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class BytePatternTest {
+
+  @Test
+  void patternsAreReadFromHexOrText() {
+    ByteBuffer content = ByteBuffer.wrap(new byte[] {0x00, 0x4D, 0x5A, (byte) 0x90, 'M', 'Z'});
+
+    assertEquals(1, BytePattern.ofHex("4D 5A").findNext(content, 0));
+    assertEquals(1, BytePattern.ofHex("0x4d5a90").findNext(content, 0));
+    assertEquals(1, BytePattern.ofText("MZ").findNext(content, 0));
+    assertEquals(4, BytePattern.ofText("MZ").findNext(content, 2));
+    assertEquals(3, BytePattern.ofHex("4D 5A 90").length());
+    assertThrows(IllegalArgumentException.class, () -> BytePattern.ofHex("4D 5"));
+    assertThrows(IllegalArgumentException.class, () -> BytePattern.ofHex("zz"));
+    assertThrows(IllegalArgumentException.class, () -> BytePattern.ofHex(" "));
+    assertThrows(IllegalArgumentException.class, () -> BytePattern.ofText(""));
+  }
+
+  @Test
+  void searchWrapsAroundToTheStart() {
+    ByteBuffer content = ByteBuffer.wrap("abcabc".getBytes());
+    BytePattern pattern = BytePattern.ofText("abc");
+
+    assertEquals(3, pattern.findNext(content, 1));
+    assertEquals(0, pattern.findNext(content, 4));
+    assertEquals(-1, BytePattern.ofText("cab").findNext(ByteBuffer.wrap("abc".getBytes()), 1));
+    // An occurrence that the start of the search is inside of is found after wrapping.
+    assertEquals(0, BytePattern.ofText("ab").findNext(ByteBuffer.wrap("abx".getBytes()), 1));
+  }
+
+  @Test
+  void parallelSearchFindsTheFirstOccurrenceAcrossChunks() {
+    byte[] bytes = new byte[20 * 1024 * 1024];
+    new Random(7).nextBytes(bytes);
+    byte[] needle = {0x13, 0x37, 0x42, 0x24, 0x11, 0x22, 0x33, 0x44};
+    // Straddles the boundary of the first and second chunks, and occurs again later.
+    int first = 4 * 1024 * 1024 - 3;
+    System.arraycopy(needle, 0, bytes, first, needle.length);
+    System.arraycopy(needle, 0, bytes, 15_000_000, needle.length);
+    ByteBuffer content = ByteBuffer.wrap(bytes);
+    BytePattern pattern = BytePattern.ofHex("13 37 42 24 11 22 33 44");
+
+    assertEquals(first, pattern.findNext(content, 0));
+    assertEquals(15_000_000, pattern.findNext(content, first + 1));
+    assertEquals(first, pattern.findNext(content, 15_000_001));
+  }
+}
@@ -0,0 +1,81 @@
+package io.github.pixelclover.uview.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class ByteRingBufferTest {
+
+  @Test
+  void bytesPassThroughInOrderAcrossTheEndOfTheArray() throws Exception {
+    ByteRingBuffer buffer = new ByteRingBuffer(7);
+    byte[] data = new byte[1000];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) i;
+    }
+    CompletableFuture<Boolean> producer =
+        CompletableFuture.supplyAsync(
+            () -> {
+              try {
+                for (int i = 0; i < data.length; i += 5) {
+                  if (!buffer.write(data, i, 5)) {
+                    return false;
+                  }
+                }
+                buffer.finish();
+                return true;
+              } catch (InterruptedException e) {
+                return false;
+              }
+            });
+
+    ByteArrayOutputStream received = new ByteArrayOutputStream();
+    byte[] chunk = new byte[3];
+    int count;
+    while ((count = buffer.read(chunk, 0, chunk.length)) != -1) {
+      received.write(chunk, 0, count);
+    }
+
+    assertTrue(producer.get(5, TimeUnit.SECONDS));
+    assertArrayEquals(data, received.toByteArray());
+  }
+
+  @Test
+  void finishedBufferIsDrainedBeforeItEnds() throws InterruptedException {
+    ByteRingBuffer buffer = new ByteRingBuffer(8);
+    assertTrue(buffer.write(new byte[] {1, 2, 3}, 0, 3));
+    buffer.finish();
+
+    assertTrue(buffer.awaitAvailable(8));
+    assertEquals(3, buffer.available());
+    assertEquals(3, buffer.read(new byte[8], 0, 8));
+    assertEquals(-1, buffer.read(new byte[8], 0, 8));
+  }
+
+  @Test
+  void closingWakesAWaitingProducer() throws Exception {
+    ByteRingBuffer buffer = new ByteRingBuffer(4);
+    CompletableFuture<Boolean> producer =
+        CompletableFuture.supplyAsync(
+            () -> {
+              try {
+                return buffer.write(new byte[16], 0, 16);
+              } catch (InterruptedException e) {
+                return true;
+              }
+            });
+
+    while (buffer.available() < 4) {
+      Thread.onSpinWait();
+    }
+    buffer.close();
+
+    assertFalse(producer.get(5, TimeUnit.SECONDS));
+    assertEquals(0, buffer.available());
+    assertFalse(buffer.awaitAvailable(1));
+    assertEquals(-1, buffer.read(new byte[4], 0, 4));
+  }
+}
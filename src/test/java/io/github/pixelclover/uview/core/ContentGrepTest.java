@@ -0,0 +1,151 @@
+package io.github.pixelclover.uview.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.github.pixelclover.uview.model.UnityAsset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import org.junit.jupiter.api.Test;
+
+class ContentGrepTest {
+
+  @Test
+  void scanFindsTextInAssetsOfAnyType() {
+    List<UnityAsset> assets =
+        List.of(
+            asset("Assets/Player.cs", "using UnityEngine;\nclass PlayerController {}\n"),
+            asset("Assets/Player.png", "\u0089PNG\r\n\u001aPlayerController"),
+            UnityAsset.createNew("Assets/PlayerController", null, null, null));
+
+    List<ContentIndex.Hit> hits = scan(ContentGrep.literal("playercontroller", false), assets, 10);
+
+    assertEquals(List.of("Assets/Player.cs@25", "Assets/Player.png@8"), describe(hits));
+    assertEquals(2, hits.get(0).line());
+    assertEquals("class PlayerController {}", hits.get(0).lineText());
+    assertEquals(2, hits.get(1).line());
+    assertEquals("PlayerController", hits.get(1).lineText());
+  }
+
+  @Test
+  void regexMatchesLinesAndUtf8Text() {
+    List<UnityAsset> assets =
+        List.of(asset("a.txt", "m_Name: Player\nm_Name: Ünïcode\n  m_Name: Nested\n"));
+
+    assertEquals(
+        List.of("a.txt@0", "a.txt@15"),
+        describe(scan(ContentGrep.regex("^m_name:", false), assets)));
+    assertEquals(List.of("a.txt@23"), describe(scan(ContentGrep.regex("Ünï\\w+", true), assets)));
+    assertEquals(
+        List.of(3),
+        scan(ContentGrep.regex("Nested$", true), assets).stream().map(h -> h.line()).toList());
+    assertThrows(PatternSyntaxException.class, () -> ContentGrep.regex("(", true));
+  }
+
+  @Test
+  void literalScanMatchesCheckingEveryPosition() {
+    Random random = new Random(1);
+    List<UnityAsset> assets = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      byte[] content = new byte[random.nextInt(3000)];
+      for (int j = 0; j < content.length; j++) {
+        content[j] = (byte) "aAb\nÿ".charAt(random.nextInt(5));
+      }
+      assets.add(UnityAsset.createNew("Assets/file" + i + ".bin", content, null, null));
+    }
+
+    for (String text : List.of("a", "ab\na", "AAb", "\n\n")) {
+      for (boolean matchCase : List.of(true, false)) {
+        assertEquals(
+            expected(assets, text, matchCase),
+            scan(ContentGrep.literal(text, matchCase), assets).stream()
+                .map(hit -> describe(hit) + ":" + hit.line())
+                .toList(),
+            text + " " + matchCase);
+      }
+    }
+  }
+
+  @Test
+  void scanStopsAfterMaxHits() {
+    List<UnityAsset> assets = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      assets.add(asset("Assets/file" + i + ".txt", "x".repeat(50)));
+    }
+
+    assertEquals(120, scan(ContentGrep.literal("x", true), assets, 120).size());
+  }
+
+  @Test
+  void cancellingStopsALongRegexSearch() {
+    UnityAsset large = UnityAsset.createNew("a.bin", new byte[8 * 1024 * 1024], null, null);
+    ContentGrep grep = ContentGrep.regex("[^x]*x", true);
+
+    assertThrows(CancellationException.class, () -> grep.find(large, 10, () -> true));
+    CompletableFuture<Integer> scan = grep.scan(List.of(large), 10, hits -> {});
+    scan.cancel(false);
+    assertThrows(CancellationException.class, scan::join);
+  }
+
+  private static List<ContentIndex.Hit> scan(ContentGrep grep, List<UnityAsset> assets) {
+    return scan(grep, assets, Integer.MAX_VALUE);
+  }
+
+  private static List<ContentIndex.Hit> scan(
+      ContentGrep grep, List<UnityAsset> assets, int maxHits) {
+    List<ContentIndex.Hit> hits = Collections.synchronizedList(new ArrayList<>());
+    int count = grep.scan(assets, maxHits, hits::addAll).join();
+    assertEquals(count, hits.size());
+    List<ContentIndex.Hit> sorted = new ArrayList<>(hits);
+    sorted.sort(
+        Comparator.comparing((ContentIndex.Hit hit) -> hit.asset().assetPath())
+            .thenComparingInt(ContentIndex.Hit::offset));
+    return sorted;
+  }
+
+  private static List<String> expected(List<UnityAsset> assets, String text, boolean matchCase) {
+    Pattern pattern =
+        Pattern.compile(Pattern.quote(text), matchCase ? 0 : Pattern.CASE_INSENSITIVE);
+    List<String> hits = new ArrayList<>();
+    assets.stream()
+        .sorted(Comparator.comparing(UnityAsset::assetPath))
+        .forEach(
+            asset -> {
+              String content = new String(asset.content(), StandardCharsets.ISO_8859_1);
+              Matcher matcher = pattern.matcher(content);
+              int found = 0;
+              for (int i = 0; found < 100 && matcher.find(i); i = matcher.start() + 1, found++) {
+                int line =
+                    1
+                        + (int)
+                            content
+                                .substring(0, matcher.start())
+                                .chars()
+                                .filter(c -> c == '\n')
+                                .count();
+                hits.add(asset.assetPath() + "@" + matcher.start() + ":" + line);
+              }
+            });
+    return hits;
+  }
+
+  private static List<String> describe(List<ContentIndex.Hit> hits) {
+    return hits.stream().map(ContentGrepTest::describe).toList();
+  }
+
+  private static String describe(ContentIndex.Hit hit) {
+    return hit.asset().assetPath() + "@" + hit.offset();
+  }
+
+  private static UnityAsset asset(String path, String content) {
+    return UnityAsset.createNew(path, content.getBytes(StandardCharsets.UTF_8), null, null);
+  }
+}
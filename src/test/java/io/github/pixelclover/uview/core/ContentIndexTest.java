@@ -0,0 +1,148 @@
+package io.github.pixelclover.uview.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.github.pixelclover.uview.model.UnityAsset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class ContentIndexTest {
+
+  private static final String[] WORDS = {
+    "Player", "player", "Controller", "m_Name", "guid", "fileID", "ab", "\\n", "Ünïcode", " ", "\n"
+  };
+
+  @Test
+  void searchFindsTheLinesOfTextAssetsOnly() {
+    ContentIndex index =
+        ContentIndex.build(
+            List.of(
+                asset("Assets/Player.cs", "using UnityEngine;\nclass PlayerController {}\n"),
+                asset("Assets/Player.png", "PlayerController"),
+                asset("Assets/Level.unity", "m_Script: PlayerController\nm_Name: Level")));
+
+    List<ContentIndex.Hit> hits = index.search("PlayerController", true, 10);
+
+    assertEquals(2, hits.size());
+    assertEquals("Assets/Level.unity", hits.get(0).asset().assetPath());
+    assertEquals(1, hits.get(0).line());
+    assertEquals("m_Script: PlayerController", hits.get(0).lineText());
+    assertEquals("Assets/Player.cs", hits.get(1).asset().assetPath());
+    assertEquals(2, hits.get(1).line());
+    assertEquals(25, hits.get(1).offset());
+  }
+
+  @Test
+  void caseIsIgnoredUnlessAsked() {
+    ContentIndex index = ContentIndex.build(List.of(asset("a.txt", "PLAYER player Player")));
+
+    assertEquals(3, index.search("player", false, 10).size());
+    assertEquals(1, index.search("player", true, 10).size());
+    assertEquals(1, index.search("PLAYER", true, 10).size());
+  }
+
+  @Test
+  void searchMatchesAScanOfEveryAsset() {
+    Random random = new Random(1);
+    List<UnityAsset> assets = new ArrayList<>();
+    for (int i = 0; i < 300; i++) {
+      assets.add(asset("Assets/file" + i + ".txt", randomText(random)));
+    }
+    ContentIndex index = ContentIndex.build(assets);
+
+    for (String query :
+        List.of("Player", "player", "layerCon", "ab", "a", "m_Name: ", "Ünï", "\\n", "zzz")) {
+      for (boolean matchCase : List.of(true, false)) {
+        assertEquals(
+            expected(assets, query, matchCase),
+            index.search(query, matchCase, Integer.MAX_VALUE).stream()
+                .map(ContentIndexTest::describe)
+                .toList(),
+            query + " " + matchCase);
+      }
+    }
+  }
+
+  @Test
+  void withChangesFindsEditedContentOnly() {
+    UnityAsset original = asset("Assets/a.txt", "old text");
+    UnityAsset other = asset("Assets/b.txt", "old text");
+    ContentIndex index = ContentIndex.build(List.of(original, other));
+
+    UnityAsset edited =
+        new UnityAsset(
+            original.guid(),
+            original.assetPath(),
+            "new text".getBytes(StandardCharsets.UTF_8),
+            null,
+            null);
+    ContentIndex changed = index.withChanges(List.of(original, other), List.of(edited));
+
+    assertEquals(
+        List.of(edited), changed.search("text", true, 10).stream().map(h -> h.asset()).toList());
+    assertTrue(changed.search("old", true, 10).isEmpty());
+    assertEquals(2, index.search("old", true, 10).size());
+  }
+
+  private static List<String> expected(List<UnityAsset> assets, String query, boolean matchCase) {
+    List<String> hits = new ArrayList<>();
+    byte[] pattern = fold(query.getBytes(StandardCharsets.UTF_8), !matchCase);
+    assets.stream()
+        .sorted(Comparator.comparing(UnityAsset::assetPath))
+        .forEach(
+            asset -> {
+              byte[] content = fold(asset.content(), !matchCase);
+              int found = 0;
+              for (int i = 0; i + pattern.length <= content.length && found < 100; i++) {
+                if (regionMatches(content, i, pattern)) {
+                  hits.add(asset.assetPath() + "@" + i);
+                  found++;
+                }
+              }
+            });
+    return hits;
+  }
+
+  private static boolean regionMatches(byte[] content, int offset, byte[] pattern) {
+    for (int j = 0; j < pattern.length; j++) {
+      if (content[offset + j] != pattern[j]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // Folds ASCII letters only, as the index does.
+  private static byte[] fold(byte[] bytes, boolean fold) {
+    if (fold) {
+      for (int i = 0; i < bytes.length; i++) {
+        if (bytes[i] >= 'A' && bytes[i] <= 'Z') {
+          bytes[i] += 'a' - 'A';
+        }
+      }
+    }
+    return bytes;
+  }
+
+  private static String describe(ContentIndex.Hit hit) {
+    return hit.asset().assetPath() + "@" + hit.offset();
+  }
+
+  private static String randomText(Random random) {
+    StringBuilder text = new StringBuilder();
+    int words = random.nextInt(200);
+    for (int i = 0; i < words; i++) {
+      text.append(WORDS[random.nextInt(WORDS.length)]);
+    }
+    return random.nextInt(5) == 0 ? text.toString().toUpperCase(Locale.ROOT) : text.toString();
+  }
+
+  private static UnityAsset asset(String path, String content) {
+    return UnityAsset.createNew(path, content.getBytes(StandardCharsets.UTF_8), null, null);
+  }
+}
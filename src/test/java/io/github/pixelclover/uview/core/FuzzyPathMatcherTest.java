@@ -0,0 +1,116 @@
+package io.github.pixelclover.uview.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.github.pixelclover.uview.model.UnityAsset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class FuzzyPathMatcherTest {
+
+  private static final String[] SEGMENTS = {
+    "Assets", "Prefabs", "Characters", "Scripts", "Player", "Controllers", "UI", "Textures"
+  };
+
+  @Test
+  void fileNameAbbreviationsRankTheFileFirst() {
+    FuzzyPathMatcher matcher =
+        matcherOf(
+            "Assets/Prefabs/Characters/Lancer.prefab",
+            "Assets/Scripts/PlayerController.cs",
+            "Assets/Scripts/Player/Camera.cs",
+            "Assets/Prefabs/Player/Controls.asset");
+
+    for (String query : List.of("plctrl", "PlayerController", "pc", "playercontroller.cs")) {
+      List<FuzzyPathMatcher.Match> best = matcher.search(query, null, 10).best();
+      assertEquals("Assets/Scripts/PlayerController.cs", best.get(0).asset().assetPath(), query);
+    }
+  }
+
+  @Test
+  void extensionsAndFoldersCanBePartOfTheQuery() {
+    FuzzyPathMatcher matcher =
+        matcherOf(
+            "Assets/UI/Menu.cs", "Assets/UI/Menu.prefab", "Assets/Textures/Menu.png", "Menu.txt");
+
+    assertEquals(
+        "Assets/UI/Menu.prefab",
+        matcher.search("menu.pre", null, 10).best().get(0).asset().assetPath());
+    assertEquals(
+        "Assets/Textures/Menu.png",
+        matcher.search("tex/menu", null, 10).best().get(0).asset().assetPath());
+  }
+
+  @Test
+  void assetsWithoutTheQueryAsASubsequenceAreExcluded() {
+    FuzzyPathMatcher matcher = matcherOf("Assets/abc.txt", "Assets/acb.txt", "Assets/xyz.txt");
+
+    FuzzyPathMatcher.Result result = matcher.search("abc", null, 10);
+
+    assertEquals(1, result.matchCount());
+    assertEquals("Assets/abc.txt", result.best().get(0).asset().assetPath());
+    assertEquals(0, matcher.search("q", null, 10).matchCount());
+    assertEquals(0, matcher.search("   ", null, 10).matchCount());
+  }
+
+  @Test
+  void refinedSearchMatchesFullSearch() {
+    FuzzyPathMatcher matcher =
+        FuzzyPathMatcher.of(PathIndex.of(randomAssets(10_000, new Random(1))));
+
+    FuzzyPathMatcher.Result previous = null;
+    String query = "";
+    for (char c : "playerctrl9".toCharArray()) {
+      query += c;
+      FuzzyPathMatcher.Result result = matcher.search(query, previous, 50);
+      FuzzyPathMatcher.Result fresh = matcher.search(query, null, 50);
+      assertEquals(fresh.matchCount(), result.matchCount(), query);
+      assertEquals(fresh.best(), result.best(), query);
+      previous = result;
+    }
+    // A query that does not extend the previous one must not be narrowed from it.
+    assertEquals(
+        matcher.search("ui", null, 50).matchCount(),
+        matcher.search("ui", previous, 50).matchCount());
+  }
+
+  @Test
+  void limitKeepsTheBestMatchesAndCountsAll() {
+    FuzzyPathMatcher matcher =
+        FuzzyPathMatcher.of(PathIndex.of(randomAssets(10_000, new Random(2))));
+
+    FuzzyPathMatcher.Result all = matcher.search("scr", null, Integer.MAX_VALUE);
+    FuzzyPathMatcher.Result top = matcher.search("scr", null, 20);
+
+    assertEquals(all.matchCount(), top.matchCount());
+    assertEquals(20, top.best().size());
+    assertEquals(all.best().subList(0, 20), top.best());
+    for (int i = 1; i < all.best().size(); i++) {
+      assertTrue(all.best().get(i - 1).score() >= all.best().get(i).score());
+    }
+  }
+
+  private static FuzzyPathMatcher matcherOf(String... paths) {
+    List<UnityAsset> assets = new ArrayList<>();
+    for (String path : paths) {
+      assets.add(UnityAsset.createNew(path, new byte[0], new byte[0], null));
+    }
+    return FuzzyPathMatcher.of(PathIndex.of(assets));
+  }
+
+  private static List<UnityAsset> randomAssets(int count, Random random) {
+    List<UnityAsset> assets = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      StringBuilder path = new StringBuilder("Assets");
+      int depth = 1 + random.nextInt(4);
+      for (int d = 0; d < depth; d++) {
+        path.append('/').append(SEGMENTS[random.nextInt(SEGMENTS.length)]);
+      }
+      path.append('/').append("PlayerCtrl").append(i).append(".cs");
+      assets.add(UnityAsset.createNew(path.toString(), new byte[0], new byte[0], null));
+    }
+    return assets;
+  }
+}
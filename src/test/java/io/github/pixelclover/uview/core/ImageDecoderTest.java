@@ -0,0 +1,51 @@
+package io.github.pixelclover.uview.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.Test;
+
+class ImageDecoderTest {
+
+  @Test
+  void imagesAreDecodedWithSubsampling() throws IOException {
+    BufferedImage source = new BufferedImage(300, 200, BufferedImage.TYPE_INT_RGB);
+    source.setRGB(8, 4, 0xFF0000);
+    ImageDecoder decoder = ImageDecoder.open(encode(source, "png"));
+
+    assertEquals(300, decoder.width());
+    assertEquals(200, decoder.height());
+    assertEquals("PNG", decoder.formatName());
+    BufferedImage full = decoder.read(1);
+    assertEquals(300, full.getWidth());
+    BufferedImage quarter = decoder.read(4);
+    assertEquals(75, quarter.getWidth());
+    assertEquals(50, quarter.getHeight());
+    assertEquals(0xFF0000, quarter.getRGB(2, 1) & 0xFFFFFF);
+    assertNull(decoder.readThumbnail());
+  }
+
+  @Test
+  void subsamplingKeepsAtLeastThePixelsOfTheBox() {
+    assertEquals(1, ImageDecoder.subsamplingFor(800, 600, 1000, 1000));
+    assertEquals(3, ImageDecoder.subsamplingFor(1000, 1000, 300, 600));
+    assertEquals(16, ImageDecoder.subsamplingFor(16384, 16384, 1024, 1024));
+  }
+
+  @Test
+  void unknownFormatsAreReported() {
+    ByteBuffer content = ByteBuffer.wrap("not an image".getBytes());
+
+    assertThrows(IOException.class, () -> ImageDecoder.open(content));
+  }
+
+  private static ByteBuffer encode(BufferedImage image, String format) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ImageIO.write(image, format, bytes);
+    return ByteBuffer.wrap(bytes.toByteArray());
+  }
+}
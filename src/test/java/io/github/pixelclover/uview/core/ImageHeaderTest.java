@@ -0,0 +1,89 @@
+package io.github.pixelclover.uview.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.github.pixelclover.uview.model.UnityAsset;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.Test;
+
+class ImageHeaderTest {
+
+  @Test
+  void headersOfImageIoFormatsAreRead() throws IOException {
+    BufferedImage argb = new BufferedImage(300, 200, BufferedImage.TYPE_INT_ARGB);
+    BufferedImage rgb = new BufferedImage(300, 200, BufferedImage.TYPE_INT_RGB);
+    BufferedImage gray = new BufferedImage(30, 20, BufferedImage.TYPE_USHORT_GRAY);
+
+    assertEquals(new ImageHeader("PNG", 300, 200, "RGBA"), read("png", argb));
+    assertEquals(new ImageHeader("PNG", 30, 20, "Gray 16-bit"), read("png", gray));
+    assertEquals(new ImageHeader("JPEG", 300, 200, "RGB"), read("jpeg", rgb));
+    assertEquals(new ImageHeader("GIF", 300, 200, "Indexed"), read("gif", rgb));
+    assertEquals(new ImageHeader("BMP", 300, 200, "RGB"), read("bmp", rgb));
+    assertEquals(new ImageHeader("TIFF", 300, 200, "RGBA"), read("tiff", argb));
+    assertEquals("300×200 RGBA", read("png", argb).describe());
+  }
+
+  @Test
+  void headersOfTgaAndPsdAreRead() {
+    ByteBuffer tga = ByteBuffer.allocate(18).order(ByteOrder.LITTLE_ENDIAN);
+    tga.put(2, (byte) 2).putShort(12, (short) 512).putShort(14, (short) 256);
+    tga.put(16, (byte) 32).put(17, (byte) 8);
+    ByteBuffer psd = ByteBuffer.allocate(26);
+    psd.putInt(0, 0x38425053).putShort(4, (short) 1).putShort(12, (short) 4);
+    psd.putInt(14, 1024).putInt(18, 2048).putShort(22, (short) 16).putShort(24, (short) 3);
+
+    assertEquals(
+        new ImageHeader("TGA", 512, 256, "RGBA"), ImageHeader.read(asset("Assets/a.tga", tga)));
+    assertEquals(
+        new ImageHeader("PSD", 2048, 1024, "RGBA 16-bit"),
+        ImageHeader.read(asset("Assets/a.psd", psd)));
+  }
+
+  @Test
+  void otherAssetsHaveNoHeader() {
+    ByteBuffer text = ByteBuffer.wrap("BM is a text that starts like a bitmap".getBytes());
+    ByteBuffer truncated = ByteBuffer.wrap(new byte[] {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, 0});
+
+    assertNull(ImageHeader.read(asset("Assets/notes.txt", text)));
+    assertNull(ImageHeader.read(asset("Assets/broken.png", text)));
+    assertNull(ImageHeader.read(asset("Assets/broken.jpg", truncated)));
+  }
+
+  @Test
+  void theCacheReadsAnEditedAssetAgain() throws IOException {
+    ImageHeaderCache cache = new ImageHeaderCache();
+    UnityAsset small =
+        asset("Assets/a.png", encode("png", new BufferedImage(8, 8, BufferedImage.TYPE_INT_RGB)));
+    UnityAsset large =
+        new UnityAsset(
+            small.guid(),
+            small.assetPath(),
+            encode("png", new BufferedImage(64, 32, BufferedImage.TYPE_INT_RGB)).array(),
+            null,
+            null);
+
+    cache.readAll(java.util.List.of(small));
+    assertEquals(8, cache.get(small).width());
+    assertEquals(64, cache.get(large).width());
+    assertNull(cache.get(asset("Assets/notes.txt", ByteBuffer.wrap(new byte[16]))));
+  }
+
+  private static ImageHeader read(String format, BufferedImage image) throws IOException {
+    return ImageHeader.read(asset("Assets/image." + format, encode(format, image)));
+  }
+
+  private static ByteBuffer encode(String format, BufferedImage image) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    assertTrue(ImageIO.write(image, format, bytes), format);
+    return ByteBuffer.wrap(bytes.toByteArray());
+  }
+
+  private static UnityAsset asset(String path, ByteBuffer content) {
+    return new UnityAsset("0123456789abcdef", path, content.array(), null, null);
+  }
+}
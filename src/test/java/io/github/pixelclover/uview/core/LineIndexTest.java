@@ -0,0 +1,81 @@
+package io.github.pixelclover.uview.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import org.junit.jupiter.api.Test;
+
+class LineIndexTest {
+
+  @Test
+  void linesAreSplitAtLineBreaks() {
+    LineIndex index = index("first\r\nsecond\n\nlast");
+
+    assertEquals(4, index.rowCount());
+    assertEquals("first", index.text(0));
+    assertEquals("second", index.text(1));
+    assertEquals("", index.text(2));
+    assertEquals("last", index.text(3));
+    assertEquals(7, index.start(1));
+    assertEquals(4, index.lineNumber(3));
+    assertTrue(index.isComplete());
+
+    assertEquals(2, index("line\n").rowCount());
+    assertEquals(1, index("").rowCount());
+    assertEquals("", index("").text(0));
+  }
+
+  @Test
+  void longLinesAreSplitIntoRowsBetweenCharacters() {
+    String longLine = "é".repeat(LineIndex.MAX_ROW_BYTES);
+    LineIndex index = index("short\n" + longLine + "\nafter\n");
+
+    // The line of 8192 bytes takes two full rows and a few bytes of a third, since no row
+    // ends halfway through a two-byte character.
+    assertEquals(6, index.rowCount());
+    assertEquals(longLine, index.text(1) + index.text(2) + index.text(3));
+    assertEquals(LineIndex.MAX_ROW_BYTES, index.longestRow());
+    assertFalse(index.isContinuation(1));
+    assertTrue(index.isContinuation(2));
+    assertTrue(index.isContinuation(3));
+    assertEquals(2, index.lineNumber(3));
+    assertEquals(3, index.lineNumber(4));
+    assertEquals("after", index.text(4));
+    assertEquals(0, index.rowOfLine(1));
+    assertEquals(1, index.rowOfLine(2));
+    assertEquals(4, index.rowOfLine(3));
+    assertEquals(5, index.rowOfLine(4));
+    assertEquals(5, index.rowOfLine(100));
+  }
+
+  @Test
+  void progressReportsTheLinesIndexedSoFar() {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 1_000_000; i++) {
+      text.append("line ").append(i).append('\n');
+    }
+    ByteBuffer content = ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8));
+    List<LineIndex> reports = new ArrayList<>();
+    LineIndex index = LineIndex.build(content, reports::add, () -> false);
+
+    assertEquals(1_000_001, index.rowCount());
+    assertEquals("line 999999", index.text(999_999));
+    assertFalse(reports.isEmpty());
+    LineIndex partial = reports.get(0);
+    assertFalse(partial.isComplete());
+    int last = partial.rowCount() - 1;
+    assertEquals("line " + last, partial.text(last));
+    assertEquals(partial.start(last), index.start(last));
+
+    assertThrows(
+        CancellationException.class, () -> LineIndex.build(content, report -> {}, () -> true));
+  }
+
+  private static LineIndex index(String text) {
+    return LineIndex.of(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)));
+  }
+}
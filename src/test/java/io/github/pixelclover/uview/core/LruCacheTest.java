@@ -0,0 +1,39 @@
+package io.github.pixelclover.uview.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class LruCacheTest {
+
+  @Test
+  void leastRecentlyUsedValuesAreDroppedToStayWithinTheSize() {
+    LruCache<String, byte[]> cache = new LruCache<>(100, value -> value.length);
+    cache.put("a", new byte[40]);
+    cache.put("b", new byte[40]);
+    assertNotNull(cache.get("a"));
+    cache.put("c", new byte[40]);
+
+    assertNull(cache.get("b"));
+    assertNotNull(cache.get("a"));
+    assertNotNull(cache.get("c"));
+    assertEquals(80, cache.bytes());
+
+    cache.put("a", new byte[10]);
+    assertEquals(50, cache.bytes());
+    assertEquals(2, cache.size());
+  }
+
+  @Test
+  void valueLargerThanTheCacheIsNotKept() {
+    LruCache<String, byte[]> cache = new LruCache<>(100, value -> value.length);
+    cache.put("a", new byte[40]);
+    cache.put("huge", new byte[101]);
+
+    assertEquals(0, cache.size());
+    assertEquals(0, cache.bytes());
+    cache.put("b", new byte[1]);
+    cache.clear();
+    assertNull(cache.get("b"));
+  }
+}
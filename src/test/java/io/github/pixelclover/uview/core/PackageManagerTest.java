@@ -10,8 +10,12 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Random;
+import java.util.Set;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
@@ -100,6 +104,31 @@ class PackageManagerTest {
     assertEquals("test", Files.readString(extractedFile));
   }
 
+  @Test
+  void extractAssetsWithMetaWritesTheMetaFiles() throws IOException {
+    packageManager.addAsset(sourceFile, "Assets/folder/MyFile.txt");
+    UnityAsset asset = packageManager.getAssets().iterator().next();
+    Path outputDir = tempDir.resolve("output");
+
+    packageManager.extractAssets(List.of(asset), outputDir, "Assets/", true);
+
+    assertEquals("test", Files.readString(outputDir.resolve("folder/MyFile.txt")));
+    assertArrayEquals(
+        asset.metaContent(), Files.readAllBytes(outputDir.resolve("folder/MyFile.txt.meta")));
+  }
+
+  @Test
+  void extractAssetsWithoutMetaWritesNoMetaFiles() throws IOException {
+    packageManager.addAsset(sourceFile, "Assets/folder/MyFile.txt");
+    UnityAsset asset = packageManager.getAssets().iterator().next();
+    Path outputDir = tempDir.resolve("output");
+
+    packageManager.extractAssets(List.of(asset), outputDir, "Assets/");
+
+    assertTrue(Files.exists(outputDir.resolve("folder/MyFile.txt")));
+    assertFalse(Files.exists(outputDir.resolve("folder/MyFile.txt.meta")));
+  }
+
   @Test
   void getFilteredAssetsReturnsCorrectSubset() throws IOException {
     packageManager.addAsset(sourceFile, "Assets/Textures/stone.png");
@@ -117,6 +146,21 @@ class PackageManagerTest {
         "Assets/Scripts/Player/PlayerController.cs", csResults.iterator().next().assetPath());
   }
 
+  @Test
+  void contentIndexFollowsContentUpdatesAndUndo() throws IOException {
+    packageManager.addAsset(sourceFile, "Assets/Scripts/Player.cs");
+    assertEquals(1, packageManager.getContentIndex().search("test", true, 10).size());
+
+    packageManager.updateAssetContent(
+        "Assets/Scripts/Player.cs", "class Player {}".getBytes(StandardCharsets.UTF_8));
+    assertTrue(packageManager.getContentIndex().search("test", true, 10).isEmpty());
+    assertEquals(1, packageManager.getContentIndex().search("player", false, 10).size());
+
+    packageManager.undo();
+    assertEquals(1, packageManager.getContentIndex().search("test", true, 10).size());
+    assertTrue(packageManager.getContentIndex().search("player", false, 10).isEmpty());
+  }
+
   @Test
   void addAssetThrowsExceptionForLargeFile() throws IOException {
     Path largeFile = tempDir.resolve("large-file.bin");
@@ -181,4 +225,317 @@ class PackageManagerTest {
     assertEquals(
         "Assets/Other/File3.txt", packageManager.getAssets().iterator().next().assetPath());
   }
+
+  @Test
+  void undoRevertsRemovedDirectoryAndRedoReappliesIt() throws IOException {
+    packageManager.addAsset(sourceFile, "Assets/MyDir/File1.txt");
+    packageManager.addAsset(sourceFile2, "Assets/MyDir/File2.txt");
+    packageManager.addAsset(sourceFile, "Assets/Other/File3.txt");
+
+    packageManager.removeDirectory("Assets/MyDir");
+    assertEquals(1, packageManager.getAssets().size());
+    assertTrue(packageManager.canUndo());
+    assertFalse(packageManager.canRedo());
+
+    assertTrue(packageManager.undo());
+    assertEquals(3, packageManager.getAssets().size());
+    assertTrue(packageManager.canRedo());
+
+    assertTrue(packageManager.redo());
+    assertEquals(1, packageManager.getAssets().size());
+    assertFalse(packageManager.canRedo());
+  }
+
+  @Test
+  void undoRestoresPreviousContentAndMeta() throws IOException {
+    String assetPath = "Assets/MyFile.txt";
+    packageManager.addAsset(sourceFile, assetPath);
+    packageManager.updateAssetContent(assetPath, "v2".getBytes(StandardCharsets.UTF_8));
+    packageManager.updateAssetMeta(assetPath, "meta v2".getBytes(StandardCharsets.UTF_8));
+
+    packageManager.undo();
+    UnityAsset asset = packageManager.getAssets().iterator().next();
+    assertEquals("v2", new String(asset.content(), StandardCharsets.UTF_8));
+    assertTrue(new String(asset.metaContent(), StandardCharsets.UTF_8).startsWith("fileFormat"));
+
+    packageManager.undo();
+    asset = packageManager.getAssets().iterator().next();
+    assertEquals("test", new String(asset.content(), StandardCharsets.UTF_8));
+
+    packageManager.undo();
+    assertTrue(packageManager.getAssets().isEmpty());
+    assertFalse(packageManager.undo(), "Nothing should be left to undo.");
+  }
+
+  @Test
+  void undoBackToSavedStateClearsModifiedFlag() throws IOException {
+    packageManager.addAsset(sourceFile, "Assets/MyFile.txt");
+    packageManager.savePackage(new File("dummy.unitypackage"));
+    packageManager.removeAsset("Assets/MyFile.txt");
+    assertTrue(packageManager.isModified());
+
+    packageManager.undo();
+    assertFalse(packageManager.isModified(), "Undoing to the saved state should be clean.");
+
+    packageManager.undo();
+    assertTrue(packageManager.isModified(), "Undoing past the saved state should be dirty.");
+  }
+
+  @Test
+  void newModificationClearsRedoHistory() throws IOException {
+    packageManager.addAsset(sourceFile, "Assets/MyFile.txt");
+    packageManager.undo();
+    assertTrue(packageManager.canRedo());
+
+    packageManager.addAsset(sourceFile2, "Assets/Other.txt");
+    assertFalse(packageManager.canRedo());
+  }
+
+  @Test
+  void changeSetTracksAddedRemovedAndModifiedAssets() throws IOException {
+    packageManager.addAsset(sourceFile, "Assets/Keep.txt");
+    packageManager.addAsset(sourceFile, "Assets/Content.txt");
+    packageManager.addAsset(sourceFile, "Assets/Meta.txt");
+    packageManager.addAsset(sourceFile, "Assets/Gone.txt");
+    packageManager.savePackage(new File("dummy.unitypackage"));
+    assertTrue(packageManager.getChangeSet().isEmpty());
+    String contentGuid = guidOf("Assets/Content.txt");
+    String metaGuid = guidOf("Assets/Meta.txt");
+    String goneGuid = guidOf("Assets/Gone.txt");
+
+    packageManager.updateAssetContent("Assets/Content.txt", "new".getBytes(StandardCharsets.UTF_8));
+    packageManager.updateAssetMeta("Assets/Meta.txt", "new".getBytes(StandardCharsets.UTF_8));
+    packageManager.removeAsset("Assets/Gone.txt");
+    packageManager.addAsset(sourceFile2, "Assets/New.log");
+    String newGuid = guidOf("Assets/New.log");
+
+    ChangeSet changes = packageManager.getChangeSet();
+    assertEquals(Set.of(newGuid), changes.added());
+    assertEquals(Set.of(goneGuid), changes.removed());
+    assertEquals(Set.of(contentGuid), changes.contentModified());
+    assertEquals(Set.of(metaGuid), changes.metaModified());
+    assertEquals(
+        "test", new String(changes.getOriginal(contentGuid).content(), StandardCharsets.UTF_8));
+    assertEquals("Assets/Gone.txt", changes.getOriginal(goneGuid).assetPath());
+    assertNull(changes.getOriginal(newGuid));
+    assertEquals(4, changes.changedGuids().size());
+  }
+
+  @Test
+  void changeSetDropsChangesThatWereUndone() throws IOException {
+    packageManager.addAsset(sourceFile, "Assets/MyFile.txt");
+    packageManager.savePackage(new File("dummy.unitypackage"));
+
+    packageManager.updateAssetContent("Assets/MyFile.txt", "new".getBytes(StandardCharsets.UTF_8));
+    assertEquals(1, packageManager.getChangeSet().contentModified().size());
+
+    packageManager.undo();
+    assertTrue(packageManager.getChangeSet().isEmpty());
+
+    packageManager.redo();
+    assertEquals(1, packageManager.getChangeSet().contentModified().size());
+  }
+
+  @Test
+  void changeSetIgnoresContentRewrittenWithIdenticalBytes() throws IOException {
+    packageManager.addAsset(sourceFile, "Assets/MyFile.txt");
+    packageManager.savePackage(new File("dummy.unitypackage"));
+
+    packageManager.updateAssetContent("Assets/MyFile.txt", "test".getBytes(StandardCharsets.UTF_8));
+
+    assertTrue(packageManager.getChangeSet().isEmpty());
+  }
+
+  @Test
+  void journaledEditsAreRecoveredAfterAnUnfinishedSession()
+      throws IOException, InterruptedException {
+    Path journalDir = tempDir.resolve("journal");
+    File packageFile = createSavedPackage();
+    PackageManager crashed = journaledManager(journalDir);
+    crashed.loadPackage(packageFile);
+    crashed.addAsset(sourceFile2, "Assets/Added.log");
+    crashed.updateAssetContent("Assets/MyFile.txt", "edited".getBytes(StandardCharsets.UTF_8));
+    crashed.updateAssetMeta("Assets/MyFile.txt", "meta".getBytes(StandardCharsets.UTF_8));
+    crashed.removeAsset("Assets/Added.log");
+    crashed.undo();
+    crashed.flushJournal();
+    // The session ends without saving or closing the package.
+
+    PackageManager recovered = journaledManager(journalDir);
+    recovered.loadPackage(packageFile);
+    assertTrue(recovered.hasRecoverableEdits());
+    recovered.recoverEdits();
+
+    assertFalse(recovered.hasRecoverableEdits());
+    assertTrue(recovered.isModified());
+    assertEquals(Set.copyOf(crashed.getAssets()), Set.copyOf(recovered.getAssets()));
+    assertTrue(recovered.undo());
+    assertNull(findAsset(recovered, "Assets/Added.log"));
+  }
+
+  @Test
+  void tornJournalRecordIsDiscardedOnRecovery() throws IOException, InterruptedException {
+    Path journalDir = tempDir.resolve("journal");
+    File packageFile = createSavedPackage();
+    PackageManager crashed = journaledManager(journalDir);
+    crashed.loadPackage(packageFile);
+    crashed.updateAssetContent("Assets/MyFile.txt", "first".getBytes(StandardCharsets.UTF_8));
+    crashed.updateAssetContent("Assets/MyFile.txt", "second".getBytes(StandardCharsets.UTF_8));
+    crashed.flushJournal();
+    Path journalFile = EditJournal.fileFor(journalDir, packageFile);
+    byte[] journal = Files.readAllBytes(journalFile);
+    Files.write(journalFile, Arrays.copyOf(journal, journal.length - 3));
+
+    PackageManager recovered = journaledManager(journalDir);
+    recovered.loadPackage(packageFile);
+    recovered.recoverEdits();
+
+    assertArrayEquals(
+        "first".getBytes(StandardCharsets.UTF_8),
+        findAsset(recovered, "Assets/MyFile.txt").content());
+  }
+
+  @Test
+  void journalIsIgnoredWhenThePackageFileChanged() throws IOException, InterruptedException {
+    Path journalDir = tempDir.resolve("journal");
+    File packageFile = createSavedPackage();
+    PackageManager crashed = journaledManager(journalDir);
+    crashed.loadPackage(packageFile);
+    crashed.removeAsset("Assets/MyFile.txt");
+    crashed.flushJournal();
+
+    PackageManager other = journaledManager(journalDir);
+    other.loadPackage(packageFile);
+    other.discardRecoverableEdits();
+    other.addAsset(sourceFile2, "Assets/Other.log");
+    other.savePackage(packageFile);
+
+    PackageManager reopened = journaledManager(journalDir);
+    reopened.loadPackage(packageFile);
+    assertFalse(reopened.hasRecoverableEdits());
+  }
+
+  @Test
+  void savingOrClosingDeletesTheJournal() throws IOException, InterruptedException {
+    Path journalDir = tempDir.resolve("journal");
+    File packageFile = createSavedPackage();
+    Path journalFile = EditJournal.fileFor(journalDir, packageFile);
+    PackageManager manager = journaledManager(journalDir);
+    manager.loadPackage(packageFile);
+
+    manager.addAsset(sourceFile2, "Assets/Added.log");
+    assertTrue(Files.exists(journalFile));
+    manager.savePackage(packageFile);
+    assertFalse(Files.exists(journalFile));
+
+    manager.removeAsset("Assets/Added.log");
+    assertTrue(Files.exists(journalFile));
+    manager.close();
+    assertFalse(Files.exists(journalFile));
+  }
+
+  @Test
+  void undoAndRedoDoNotJournalTheRestoredContentAgain() throws IOException, InterruptedException {
+    Path journalDir = tempDir.resolve("journal");
+    File packageFile = createSavedPackage();
+    Path largeFile = tempDir.resolve("large.bin");
+    byte[] largeContent = new byte[1024 * 1024];
+    new Random(7).nextBytes(largeContent);
+    Files.write(largeFile, largeContent);
+    PackageManager crashed = journaledManager(journalDir);
+    crashed.loadPackage(packageFile);
+    crashed.addAsset(largeFile, "Assets/Large.bin");
+    crashed.updateAssetContent("Assets/MyFile.txt", "edited".getBytes(StandardCharsets.UTF_8));
+    crashed.flushJournal();
+    Path journalFile = EditJournal.fileFor(journalDir, packageFile);
+    long journalSize = Files.size(journalFile);
+
+    crashed.undo();
+    crashed.undo();
+    crashed.redo();
+    crashed.redo();
+    crashed.undo();
+    crashed.flushJournal();
+
+    // The restores refer to the content already journaled or in the package file.
+    assertTrue(Files.size(journalFile) - journalSize < 1024);
+    PackageManager recovered = journaledManager(journalDir);
+    recovered.loadPackage(packageFile);
+    recovered.recoverEdits();
+    assertEquals(Set.copyOf(crashed.getAssets()), Set.copyOf(recovered.getAssets()));
+    assertArrayEquals(largeContent, findAsset(recovered, "Assets/Large.bin").content());
+    assertArrayEquals(
+        Files.readAllBytes(sourceFile), findAsset(recovered, "Assets/MyFile.txt").content());
+  }
+
+  @Test
+  void editsFireEventsForTheAffectedAssetsOnly() throws IOException {
+    List<PackageChangeEvent> events = new ArrayList<>();
+    packageManager.addAsset(sourceFile, "Assets/MyFile.txt");
+    packageManager.addChangeListener(events::add);
+
+    packageManager.addAsset(sourceFile2, "Assets/Logs/another.log");
+    packageManager.updateAssetContent("Assets/MyFile.txt", "new".getBytes(StandardCharsets.UTF_8));
+    packageManager.removeDirectory("Assets/Logs");
+
+    assertEquals(3, events.size());
+    var added = assertInstanceOf(PackageChangeEvent.AssetsAdded.class, events.get(0));
+    assertEquals("Assets/Logs/another.log", added.assets().get(0).assetPath());
+    var updated = assertInstanceOf(PackageChangeEvent.AssetsUpdated.class, events.get(1));
+    assertArrayEquals("new".getBytes(StandardCharsets.UTF_8), updated.assets().get(0).content());
+    var removed = assertInstanceOf(PackageChangeEvent.AssetsRemoved.class, events.get(2));
+    assertEquals("Assets/Logs/another.log", removed.assets().get(0).assetPath());
+  }
+
+  @Test
+  void undoAndRedoFireTheInverseEvents() throws IOException {
+    List<PackageChangeEvent> events = new ArrayList<>();
+    packageManager.addAsset(sourceFile, "Assets/MyFile.txt");
+    packageManager.addChangeListener(events::add);
+
+    packageManager.undo();
+    packageManager.redo();
+
+    assertEquals(2, events.size());
+    assertInstanceOf(PackageChangeEvent.AssetsRemoved.class, events.get(0));
+    assertInstanceOf(PackageChangeEvent.AssetsAdded.class, events.get(1));
+  }
+
+  @Test
+  void loadingReplacesThePackage() throws IOException {
+    List<PackageChangeEvent> events = new ArrayList<>();
+    packageManager.addChangeListener(events::add);
+
+    packageManager.loadPackage(new File("dummy.unitypackage"));
+
+    assertEquals(List.of(new PackageChangeEvent.PackageReplaced()), events);
+  }
+
+  private File createSavedPackage() throws IOException {
+    File packageFile = tempDir.resolve("journaled.unitypackage").toFile();
+    PackageManager creator = new PackageManager(new PackageIO());
+    creator.addAsset(sourceFile, "Assets/MyFile.txt");
+    creator.savePackage(packageFile);
+    return packageFile;
+  }
+
+  private PackageManager journaledManager(Path journalDir) {
+    return new PackageManager(
+        new PackageIO(), PackageManager.DEFAULT_MAX_ASSET_SIZE_BYTES, journalDir);
+  }
+
+  private static UnityAsset findAsset(PackageManager manager, String assetPath) {
+    return manager.getAssets().stream()
+        .filter(a -> a.assetPath().equals(assetPath))
+        .findFirst()
+        .orElse(null);
+  }
+
+  private String guidOf(String assetPath) {
+    return packageManager.getAssets().stream()
+        .filter(a -> a.assetPath().equals(assetPath))
+        .findFirst()
+        .orElseThrow()
+        .guid();
+  }
 }
@@ -0,0 +1,101 @@
+package io.github.pixelclover.uview.core;
+
+import io.github.pixelclover.uview.model.UnityAsset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Measures path search over a large synthetic package, comparing {@link PathIndex} with the plain
+ * lowercase-and-scan filter it replaced. It simulates a user typing a query one character at a
+ * time. This is not a unit test; run it with {@code main}, optionally passing the asset count.
+ */
+public final class PathIndexBenchmark {
+
+  private static final String[] FOLDERS = {
+    "Art", "Audio", "Characters", "Environment", "Materials", "Models", "Prefabs", "Scenes",
+    "Scripts", "Shaders", "Textures", "UI", "VFX", "Props", "Terrain", "Animations"
+  };
+  private static final String[] NAMES = {
+    "rock", "tree", "player", "enemy", "door", "wall", "floor", "crate", "barrel", "light", "sword",
+    "shield", "water", "grass", "cloud", "stone"
+  };
+  private static final String[] EXTENSIONS = {".png", ".mat", ".prefab", ".cs", ".fbx", ".wav"};
+  private static final int RUNS = 15;
+
+  private PathIndexBenchmark() {}
+
+  public static void main(String[] args) {
+    int count = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+    List<UnityAsset> assets = createAssets(count, new Random(42));
+    System.out.printf("%,d assets%n", count);
+
+    double build = median(() -> PathIndex.of(assets).size());
+    System.out.printf("Build index: %.1f ms%n", build);
+    PathIndex index = PathIndex.of(assets);
+
+    String query = "environment/props/stone";
+    System.out.printf(
+        "%-26s %10s %10s %10s %10s%n", "query", "matches", "naive", "full", "refined");
+    PathIndex.Result[] previous = new PathIndex.Result[1];
+    for (int length = 1; length <= query.length(); length++) {
+      String prefix = query.substring(0, length);
+      PathIndex.Result before = previous[0];
+      double naive = median(() -> naiveFilter(assets, prefix).size());
+      double full = median(() -> index.search(prefix).size());
+      double refined = median(() -> index.search(prefix, before).size());
+      previous[0] = index.search(prefix, before);
+      System.out.printf(
+          "%-26s %,10d %8.2fms %8.2fms %8.2fms%n",
+          prefix, previous[0].size(), naive, full, refined);
+    }
+
+    List<UnityAsset> added = createAssets(1, new Random(7));
+    double update = median(() -> index.withChanges(List.of(assets.get(0)), added).size());
+    System.out.printf("Update index for one edit: %.2f ms%n", update);
+  }
+
+  private static List<UnityAsset> naiveFilter(List<UnityAsset> assets, String query) {
+    String lowerCaseQuery = query.toLowerCase();
+    return assets.stream()
+        .filter(asset -> asset.assetPath().toLowerCase().contains(lowerCaseQuery))
+        .toList();
+  }
+
+  private static double median(Supplier<Integer> task) {
+    double[] times = new double[RUNS];
+    int sink = 0;
+    for (int i = 0; i < RUNS; i++) {
+      long start = System.nanoTime();
+      sink += task.get();
+      times[i] = (System.nanoTime() - start) / 1e6;
+    }
+    if (sink == Integer.MIN_VALUE) {
+      System.out.println(); // Keeps the work from being optimized away.
+    }
+    Arrays.sort(times);
+    return times[RUNS / 2];
+  }
+
+  private static List<UnityAsset> createAssets(int count, Random random) {
+    List<UnityAsset> assets = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      String path =
+          "Assets/"
+              + FOLDERS[random.nextInt(FOLDERS.length)]
+              + "/"
+              + FOLDERS[random.nextInt(FOLDERS.length)]
+              + "/"
+              + NAMES[random.nextInt(NAMES.length)]
+              + "_"
+              + Integer.toHexString(random.nextInt())
+              + "_Variant"
+              + i
+              + EXTENSIONS[random.nextInt(EXTENSIONS.length)];
+      assets.add(new UnityAsset(Integer.toHexString(i), path, null, null, null));
+    }
+    return assets;
+  }
+}
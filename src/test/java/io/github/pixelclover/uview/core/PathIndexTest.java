@@ -0,0 +1,145 @@
+package io.github.pixelclover.uview.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.github.pixelclover.uview.model.UnityAsset;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class PathIndexTest {
+
+  private static final String[] SEGMENTS = {
+    "Assets", "Textures", "Rock", "rocky", "ÜberShader", "Materials", "a", "ab", "Scripts", "Ä"
+  };
+
+  @Test
+  void searchMatchesCaseInsensitiveContains() {
+    List<UnityAsset> assets = randomAssets(2000, new Random(1));
+    PathIndex index = PathIndex.of(assets);
+
+    for (String query : List.of("rock", "ROCK", "s/r", "über", "ä", "a", "textures/rocky", "zzz")) {
+      assertEquals(expected(assets, query), index.search(query).assets(), query);
+    }
+  }
+
+  @Test
+  void refinedSearchMatchesFullSearch() {
+    List<UnityAsset> assets = randomAssets(2000, new Random(2));
+    PathIndex index = PathIndex.of(assets);
+
+    PathIndex.Result previous = null;
+    String query = "";
+    for (char c : "textures/rock".toCharArray()) {
+      query += c;
+      PathIndex.Result result = index.search(query, previous);
+      assertEquals(index.search(query).assets(), result.assets(), query);
+      previous = result;
+    }
+    // A query that does not extend the previous one must not be narrowed from it.
+    assertEquals(expected(assets, "scripts"), index.search("scripts", previous).assets());
+  }
+
+  @Test
+  void blankQueryMatchesAllAssetsInPathOrder() {
+    List<UnityAsset> assets = randomAssets(100, new Random(3));
+    PathIndex.Result result = PathIndex.of(assets).search("  ");
+
+    assertEquals(expected(assets, ""), result.assets());
+  }
+
+  @Test
+  void withChangesMatchesAFreshIndex() {
+    Random random = new Random(4);
+    List<UnityAsset> assets = randomAssets(1000, random);
+    PathIndex index = PathIndex.of(assets);
+
+    List<UnityAsset> removed = new ArrayList<>(assets.subList(100, 300));
+    List<UnityAsset> added = randomAssets(150, random);
+    UnityAsset old = assets.get(500);
+    UnityAsset updated =
+        new UnityAsset(old.guid(), old.assetPath(), new byte[] {1}, old.metaContent(), null);
+    removed.add(old);
+    added.add(updated);
+    PathIndex changed = index.withChanges(removed, added);
+
+    List<UnityAsset> expectedAssets = new ArrayList<>(assets);
+    expectedAssets.removeAll(removed);
+    expectedAssets.addAll(added);
+    assertEquals(expectedAssets.size(), changed.size());
+    for (String query : List.of("", "rock", "über", "a/")) {
+      assertEquals(expected(expectedAssets, query), changed.search(query).assets(), query);
+    }
+  }
+
+  @Test
+  void withChangesSplitsAndDropsBlocksOfLargeIndexes() {
+    Random random = new Random(5);
+    List<UnityAsset> assets = randomAssets(12_000, random);
+    PathIndex index = PathIndex.of(assets);
+
+    List<UnityAsset> added = new ArrayList<>();
+    for (int i = 0; i < 9000; i++) {
+      added.add(UnityAsset.createNew("Assets/Zzz/Rock" + i + ".png", new byte[0], null, null));
+    }
+    List<UnityAsset> removed = new ArrayList<>(expected(assets, "").subList(0, 5000));
+    PathIndex changed = index.withChanges(removed, added);
+
+    List<UnityAsset> expectedAssets = new ArrayList<>(assets);
+    expectedAssets.removeAll(removed);
+    expectedAssets.addAll(added);
+    assertEquals(expected(expectedAssets, ""), changed.search("").assets());
+    assertEquals(expected(expectedAssets, "rock"), changed.search("rock").assets());
+    assertEquals(expected(expectedAssets, "zzz/rock1"), changed.search("zzz/rock1").assets());
+  }
+
+  @Test
+  void prefixRangeAndMaskFindTheAssetsUnderADirectory() {
+    List<UnityAsset> assets = randomAssets(3000, new Random(6));
+    PathIndex index = PathIndex.of(assets);
+    BitSet rock = index.search("rock").mask();
+
+    for (String prefix : List.of("", "Assets/", "Assets/Rock/", "Assets/a/ab/", "Assets/zzz/")) {
+      int from = index.lowerBound(prefix);
+      int to = index.prefixEnd(prefix);
+      List<UnityAsset> under =
+          assets.stream().filter(a -> a.assetPath().startsWith(prefix)).toList();
+      assertEquals(under.size(), to - from, prefix);
+      for (int id = from; id < to; id++) {
+        assertTrue(index.get(id).assetPath().startsWith(prefix), prefix);
+      }
+      assertEquals(
+          under.stream()
+              .filter(a -> a.assetPath().toLowerCase(Locale.ROOT).contains("rock"))
+              .count(),
+          rock.get(from, to).cardinality(),
+          prefix);
+    }
+  }
+
+  private static List<UnityAsset> expected(List<UnityAsset> assets, String query) {
+    String folded = query.toLowerCase(Locale.ROOT);
+    return assets.stream()
+        .filter(a -> a.assetPath().toLowerCase(Locale.ROOT).contains(folded))
+        .sorted(Comparator.comparing(UnityAsset::assetPath).thenComparing(UnityAsset::guid))
+        .toList();
+  }
+
+  private static List<UnityAsset> randomAssets(int count, Random random) {
+    List<UnityAsset> assets = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      StringBuilder path = new StringBuilder("Assets");
+      int depth = 1 + random.nextInt(4);
+      for (int d = 0; d < depth; d++) {
+        path.append('/').append(SEGMENTS[random.nextInt(SEGMENTS.length)]);
+      }
+      path.append('/').append("file").append(i).append(".asset");
+      assets.add(UnityAsset.createNew(path.toString(), new byte[0], new byte[0], null));
+    }
+    return assets;
+  }
+}
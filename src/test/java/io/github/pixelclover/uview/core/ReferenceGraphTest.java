@@ -0,0 +1,135 @@
+package io.github.pixelclover.uview.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.github.pixelclover.uview.model.UnityAsset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class ReferenceGraphTest {
+
+  private static final String BUILT_IN = "0000000000000000f000000000000000";
+
+  @Test
+  void referencesAreFoundInYamlAssetsAndMetaFiles() {
+    UnityAsset texture = asset("Assets/Art/Rock.png", "\u0089PNG guid: " + guid(9), "");
+    UnityAsset shader = asset("Assets/Art/Rock.shader", "Shader \"Rock\" {}", "");
+    UnityAsset material =
+        asset(
+            "Assets/Art/Rock.mat",
+            yaml("m_Shader: {fileID: 4800000, guid: " + shader.guid() + ", type: 3}"),
+            "");
+    UnityAsset model =
+        asset(
+            "Assets/Art/Rock.fbx",
+            "binary guid: " + material.guid(),
+            "externalObjects:\n  - second:\n      guid: "
+                + material.guid().toUpperCase(Locale.ROOT));
+    UnityAsset prefab =
+        asset(
+            "Assets/Rock.prefab",
+            yaml(
+                "m_Mesh: {fileID: 1, guid: "
+                    + model.guid()
+                    + ", type: 3}\nm_Texture: {fileID: 2, guid: "
+                    + texture.guid()
+                    + ", type: 3}\nm_Font: {fileID: 3, guid: "
+                    + BUILT_IN
+                    + ", type: 0}"),
+            "guid: " + guid(0));
+    ReferenceGraph graph =
+        ReferenceGraph.of(PathIndex.of(List.of(texture, shader, material, model, prefab)));
+
+    assertEquals(List.of(model, texture), graph.dependenciesOf(prefab));
+    assertEquals(List.of(material), graph.dependenciesOf(model));
+    assertEquals(List.of(shader), graph.dependenciesOf(material));
+    assertEquals(List.of(), graph.dependenciesOf(texture));
+    assertEquals(List.of(prefab), graph.usagesOf(texture));
+    assertEquals(List.of(model), graph.usagesOf(material));
+    assertEquals(4, graph.referenceCount());
+    assertEquals(
+        List.of(model, material, texture, shader, prefab), graph.withDependencies(List.of(prefab)));
+  }
+
+  @Test
+  void graphMatchesReadingTheReferencesOfEveryAsset() {
+    Random random = new Random(1);
+    List<UnityAsset> assets = new ArrayList<>();
+    for (int i = 0; i < 400; i++) {
+      assets.add(new UnityAsset(guid(i), "Assets/file" + i + ".prefab", null, null, null));
+    }
+    List<Set<Integer>> references = new ArrayList<>();
+    for (int i = 0; i < assets.size(); i++) {
+      Set<Integer> targets = new TreeSet<>();
+      StringBuilder content = new StringBuilder();
+      for (int r = random.nextInt(6); r > 0; r--) {
+        int target = random.nextInt(assets.size());
+        content.append("  - {fileID: 1, guid: ").append(guid(target)).append(", type: 3}\n");
+        if (target != i) {
+          targets.add(target);
+        }
+      }
+      references.add(targets);
+      assets.set(i, asset(assets.get(i).assetPath(), yaml(content.toString()), guid(i), ""));
+    }
+    ReferenceGraph graph = ReferenceGraph.of(PathIndex.of(assets));
+
+    for (int i = 0; i < assets.size(); i++) {
+      int source = i;
+      assertEquals(
+          references.get(i).stream().map(assets::get).sorted(byPath()).toList(),
+          graph.dependenciesOf(assets.get(i)));
+      assertEquals(
+          IntStream.range(0, assets.size())
+              .filter(user -> references.get(user).contains(source))
+              .mapToObj(assets::get)
+              .sorted(byPath())
+              .toList(),
+          graph.usagesOf(assets.get(i)));
+    }
+    Set<Integer> closure = new TreeSet<>();
+    List<Integer> pending = new ArrayList<>(List.of(0, 1));
+    while (!pending.isEmpty()) {
+      int id = pending.remove(pending.size() - 1);
+      if (closure.add(id)) {
+        pending.addAll(references.get(id));
+      }
+    }
+    assertEquals(
+        closure.stream().map(assets::get).sorted(byPath()).toList(),
+        graph.withDependencies(List.of(assets.get(0), assets.get(1))));
+  }
+
+  private static Comparator<UnityAsset> byPath() {
+    return Comparator.comparing(UnityAsset::assetPath);
+  }
+
+  private static String guid(int number) {
+    return String.format("%032x", number * 0x9E3779B1L + 1);
+  }
+
+  private static String yaml(String body) {
+    return "%YAML 1.1\n%TAG !u! tag:unity3d.com,2011:\n--- !u!1 &1\n" + body;
+  }
+
+  private static UnityAsset asset(String path, String content, String meta) {
+    return asset(path, content, UnityAsset.createNew(path, null, null, null).guid(), meta);
+  }
+
+  private static UnityAsset asset(String path, String content, String guid, String meta) {
+    return new UnityAsset(
+        guid,
+        path,
+        content.getBytes(StandardCharsets.UTF_8),
+        ("fileFormatVersion: 2\nguid: " + guid + "\n" + meta).getBytes(StandardCharsets.UTF_8),
+        null);
+  }
+}
@@ -0,0 +1,111 @@
+package io.github.pixelclover.uview.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class SceneOutlineTest {
+
+  private static final String SCENE =
+      """
+      %YAML 1.1
+      %TAG !u! tag:unity3d.com,2011:
+      --- !u!29 &1
+      OcclusionCullingSettings:
+        m_ObjectHideFlags: 0
+      --- !u!1 &100
+      GameObject:
+        m_Component:
+        - component: {fileID: 101}
+        m_Name: Player
+      --- !u!4 &101
+      Transform:
+        m_GameObject: {fileID: 100}
+        m_Children:
+        - {fileID: 201}
+        m_Father: {fileID: 0}
+      --- !u!1 &200
+      GameObject:
+        m_Name: Camera
+      --- !u!4 &201
+      Transform:
+        m_GameObject: {fileID: 200}
+        m_Father: {fileID: 101}
+      --- !u!114 &-202
+      MonoBehaviour:
+        m_GameObject: {fileID: 200}
+        m_Name:\s
+        m_Script: {fileID: 11500000, guid: 0123456789abcdef0123456789abcdef, type: 3}
+      --- !u!1001 &300 stripped
+      PrefabInstance:
+        m_Modification:
+          m_TransformParent: {fileID: 101}
+      """;
+
+  @Test
+  void documentsAreSplitAtTheirHeaders() {
+    SceneOutline outline = parse(SCENE);
+
+    assertEquals(7, outline.size());
+    assertEquals(29, outline.classId(0));
+    assertEquals(-202, outline.fileId(5));
+    assertEquals(1001, outline.classId(6));
+    assertEquals(300, outline.fileId(6));
+    assertEquals("MonoBehaviour", outline.typeName(5));
+    assertEquals("Player", outline.name(1));
+    assertEquals("", outline.name(5));
+    assertTrue(outline.text(1).startsWith("--- !u!1 &100\nGameObject:\n"));
+    assertTrue(outline.text(1).endsWith("m_Name: Player\n"));
+    assertEquals(SCENE.length(), outline.end(6));
+    assertEquals(5, outline.documentOf(-202));
+    assertEquals(-1, outline.documentOf(999));
+  }
+
+  @Test
+  void outlineNestsComponentsAndChildrenUnderTheirGameObjects() {
+    SceneOutline outline = parse(SCENE);
+
+    assertArrayEquals(new int[] {1, 0, 6}, outline.roots());
+    assertArrayEquals(new int[] {2, 3}, outline.children(1));
+    assertArrayEquals(new int[] {4, 5}, outline.children(3));
+    assertEquals(1, outline.parent(3));
+    assertEquals(3, outline.parent(5));
+    assertEquals(3, outline.owner(4));
+    assertEquals(-1, outline.owner(6));
+    assertEquals(0, outline.childCount(6));
+    assertEquals(2, outline.indexInParent(6));
+    assertEquals(1, outline.indexInParent(3));
+    assertEquals(1, outline.indexInParent(5));
+  }
+
+  @Test
+  void manyDocumentsAndWindowsLineEndsAreRead() {
+    StringBuilder scene = new StringBuilder("%YAML 1.1\r\n");
+    for (int i = 1; i <= 5000; i++) {
+      scene.append("--- !u!1 &").append(i * 2L).append("\r\nGameObject:\r\n");
+      scene.append("  m_Name: Object").append(i).append("\r\n");
+      scene.append("--- !u!4 &").append(i * 2L + 1).append("\r\nTransform:\r\n");
+      scene.append("  m_GameObject: {fileID: ").append(i * 2L).append("}\r\n");
+      scene.append("  m_Father: {fileID: ").append(i == 1 ? 0 : (i / 2) * 2L + 1).append("}\r\n");
+    }
+    SceneOutline outline = parse(scene.toString());
+
+    assertEquals(10000, outline.size());
+    assertArrayEquals(new int[] {0}, outline.roots());
+    assertEquals("Object5000", outline.name(9998));
+    assertEquals("GameObject", outline.typeName(9998));
+    // Object i is the parent of objects 2i and 2i + 1, after its transform.
+    assertArrayEquals(new int[] {7, 14, 16}, outline.children(6));
+    for (int doc = 0; doc < outline.size(); doc++) {
+      int parent = outline.parent(doc);
+      int[] siblings = parent < 0 ? outline.roots() : outline.children(parent);
+      assertEquals(doc, siblings[outline.indexInParent(doc)]);
+    }
+  }
+
+  private static SceneOutline parse(String text) {
+    return SceneOutline.parse(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)));
+  }
+}
@@ -0,0 +1,53 @@
+package io.github.pixelclover.uview.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.github.pixelclover.uview.model.UnityAsset;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.Test;
+
+class ThumbnailsTest {
+
+  @Test
+  void imagesAreScaledToFitTheThumbnail() throws IOException {
+    BufferedImage source = new BufferedImage(1000, 250, BufferedImage.TYPE_INT_RGB);
+    UnityAsset asset = new UnityAsset("a1", "Assets/Wide.png", encode(source), null, null);
+
+    BufferedImage thumbnail = Thumbnails.of(asset, 100);
+
+    assertEquals(100, thumbnail.getWidth());
+    assertEquals(25, thumbnail.getHeight());
+  }
+
+  @Test
+  void thePreviewIsPreferredOverTheContent() throws IOException {
+    BufferedImage preview = new BufferedImage(64, 64, BufferedImage.TYPE_INT_RGB);
+    preview.setRGB(10, 10, 0x00FF00);
+    UnityAsset asset =
+        new UnityAsset("a2", "Assets/Model.fbx", "binary".getBytes(), null, encode(preview));
+
+    BufferedImage thumbnail = Thumbnails.of(asset, 128);
+
+    assertEquals(64, thumbnail.getWidth());
+    assertEquals(0x00FF00, thumbnail.getRGB(10, 10) & 0xFFFFFF);
+  }
+
+  @Test
+  void otherAssetsHaveNoThumbnail() throws IOException {
+    UnityAsset script =
+        new UnityAsset("a3", "Assets/Player.cs", "class Player {}".getBytes(), null, null);
+    UnityAsset folder = new UnityAsset("a4", "Assets/Textures", null, null, null);
+
+    assertNull(Thumbnails.of(script, 96));
+    assertNull(Thumbnails.of(folder, 96));
+  }
+
+  private static byte[] encode(BufferedImage image) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ImageIO.write(image, "png", bytes);
+    return bytes.toByteArray();
+  }
+}
@@ -0,0 +1,22 @@
+package io.github.pixelclover.uview.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.github.pixelclover.uview.model.UnityAsset;
+import org.junit.jupiter.api.Test;
+
+class VersionedEntryTest {
+
+  @Test
+  void entryOnlyMatchesTheVersionItWasMadeFrom() {
+    UnityAsset asset = new UnityAsset("0123456789abcdef", "Assets/a.txt", new byte[4], null, null);
+    UnityAsset edited = new UnityAsset(asset.guid(), asset.assetPath(), new byte[4], null, null);
+    VersionedEntry<String> entry = new VersionedEntry<>(asset, "a", 100);
+
+    assertTrue(entry.isOf(asset));
+    assertFalse(entry.isOf(edited));
+    assertEquals("a", entry.value());
+    assertTrue(entry.bytes() > 100);
+    assertTrue(new VersionedEntry<>(asset, null).bytes() > 0);
+  }
+}
@@ -0,0 +1,72 @@
+package io.github.pixelclover.uview.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import org.junit.jupiter.api.Test;
+
+class WaveformTest {
+
+  @Test
+  void peaksFollowTheLoudnessOfTheAudio() throws IOException, UnsupportedAudioFileException {
+    // A second of silence, then a second of a full-scale square wave, on both channels.
+    int frames = 88200;
+    ByteBuffer samples = ByteBuffer.allocate(frames * 4).order(ByteOrder.LITTLE_ENDIAN);
+    for (int i = 0; i < frames; i++) {
+      short sample = i < frames / 2 ? 0 : (i / 50) % 2 == 0 ? Short.MAX_VALUE : Short.MIN_VALUE;
+      samples.putShort(sample).putShort(sample);
+    }
+
+    Waveform waveform = Waveform.of(wav(samples.array(), 2, frames));
+
+    assertEquals(frames, waveform.frameCount());
+    assertEquals(44100, waveform.sampleRate());
+    for (int columns : new int[] {2, 100, 1000, 20000}) {
+      float[] minimum = new float[columns];
+      float[] maximum = new float[columns];
+      waveform.peaks(minimum, maximum);
+      assertEquals(0, minimum[0], 0.01, "columns " + columns);
+      assertEquals(0, maximum[columns * 4 / 10], 0.01, "columns " + columns);
+      assertEquals(-1, minimum[columns * 9 / 10], 0.01, "columns " + columns);
+      assertEquals(1, maximum[columns * 9 / 10], 0.01, "columns " + columns);
+    }
+  }
+
+  @Test
+  void shortAudioSpreadsOverAllColumns() throws IOException, UnsupportedAudioFileException {
+    // Fewer frames than a single bucket.
+    ByteBuffer samples = ByteBuffer.allocate(100).order(ByteOrder.LITTLE_ENDIAN);
+    for (int i = 0; i < 50; i++) {
+      samples.putShort((short) (i * 100));
+    }
+
+    Waveform waveform = Waveform.of(wav(samples.array(), 1, 50));
+
+    float[] minimum = new float[96];
+    float[] maximum = new float[96];
+    waveform.peaks(minimum, maximum);
+    assertEquals(50, waveform.frameCount());
+    assertTrue(waveform.bytes() > 0);
+    assertEquals(4900 / 32768f, maximum[95], 1 / 128f);
+    assertEquals(maximum[0], maximum[95]);
+  }
+
+  private static ByteBuffer wav(byte[] samples, int channels, int frames) throws IOException {
+    AudioFormat format = new AudioFormat(44100, 16, channels, true, false);
+    ByteArrayOutputStream wav = new ByteArrayOutputStream();
+    AudioSystem.write(
+        new AudioInputStream(new ByteArrayInputStream(samples), format, frames),
+        AudioFileFormat.Type.WAVE,
+        wav);
+    return ByteBuffer.wrap(wav.toByteArray());
+  }
+}
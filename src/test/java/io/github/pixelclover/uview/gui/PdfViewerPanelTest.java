@@ -0,0 +1,79 @@
+package io.github.pixelclover.uview.gui;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.github.pixelclover.uview.core.LruCache;
+import io.github.pixelclover.uview.gui.PdfViewerPanel.PageKey;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.junit.jupiter.api.Test;
+
+class PdfViewerPanelTest {
+
+  // 40,000 bytes at four bytes a pixel.
+  private static BufferedImage page() {
+    return new BufferedImage(100, 100, BufferedImage.TYPE_INT_ARGB);
+  }
+
+  @Test
+  void pagesAreCachedByPageAndResolution() {
+    LruCache<PageKey, BufferedImage> cache = PdfViewerPanel.pageCache(1024 * 1024);
+    BufferedImage image = page();
+    cache.put(new PageKey(3, 144), image);
+
+    assertSame(image, cache.get(new PageKey(3, 144)));
+    assertNull(cache.get(new PageKey(3, 156)));
+    assertNull(cache.get(new PageKey(4, 144)));
+    assertEquals(40_000, cache.bytes());
+  }
+
+  @Test
+  void leastRecentlyShownPagesAreDroppedToStayWithinTheSize() {
+    LruCache<PageKey, BufferedImage> cache = PdfViewerPanel.pageCache(3 * 40_000);
+    cache.put(new PageKey(0, 144), page());
+    cache.put(new PageKey(1, 144), page());
+    cache.put(new PageKey(2, 144), page());
+    assertNotNull(cache.get(new PageKey(0, 144)));
+    cache.put(new PageKey(3, 144), page());
+
+    assertNull(cache.get(new PageKey(1, 144)));
+    assertNotNull(cache.get(new PageKey(0, 144)));
+    assertNotNull(cache.get(new PageKey(2, 144)));
+    assertNotNull(cache.get(new PageKey(3, 144)));
+    assertEquals(3, cache.size());
+    assertEquals(3 * 40_000, cache.bytes());
+  }
+
+  @Test
+  void documentIsOpenedFromTheBufferInPlace() throws IOException {
+    ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+    try (PDDocument document = new PDDocument()) {
+      for (int i = 0; i < 3; i++) {
+        document.addPage(new PDPage());
+      }
+      document.save(pdf);
+    }
+    // A read-only view of a direct buffer, as an asset's content is, part way read and with bytes
+    // past its limit that are not part of the file.
+    ByteBuffer content = ByteBuffer.allocateDirect(pdf.size() + 100);
+    content.put(pdf.toByteArray()).put(new byte[100]).flip().limit(pdf.size());
+    ByteBuffer view = content.asReadOnlyBuffer().position(10);
+
+    try (PDDocument document = PdfViewerPanel.openDocument(view)) {
+      assertEquals(3, document.getNumberOfPages());
+    }
+    assertEquals(10, view.position());
+    assertEquals(pdf.size(), view.limit());
+  }
+
+  @Test
+  void bufferThatIsNotAPdfFailsToOpen() {
+    ByteBuffer content = ByteBuffer.wrap("not a PDF document".getBytes());
+
+    assertThrows(IOException.class, () -> PdfViewerPanel.openDocument(content));
+  }
+}
@@ -0,0 +1,195 @@
+package io.github.pixelclover.uview.gui.tree;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.github.pixelclover.uview.core.PathIndex;
+import io.github.pixelclover.uview.model.UnityAsset;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import org.junit.jupiter.api.Test;
+
+class PackageTreeModelTest {
+
+  private final UnityAsset folder = asset("Assets/A", null);
+  private final UnityAsset sibling = asset("Assets/A-b.txt", new byte[0]);
+  private final UnityAsset nested = asset("Assets/A/x.txt", new byte[0]);
+  private final UnityAsset deep = asset("Assets/B/C/y.txt", new byte[0]);
+
+  @Test
+  void childrenAreOnlyCreatedForDirectoriesThatAreAskedAbout() {
+    PathIndex index = PathIndex.of(List.of(folder, sibling, nested, deep));
+    PackageTreeModel model = new PackageTreeModel(index);
+
+    PackageTreeNode root = model.getRoot();
+    assertNull(root.children);
+    assertEquals(List.of("Assets"), names(root));
+    PackageTreeNode assets = root.getChildAt(0);
+    assertNull(assets.children);
+    assertEquals(List.of("A", "A-b.txt", "B"), names(assets));
+
+    // A folder asset with contents is both an asset and a directory.
+    PackageTreeNode a = assets.getChildAt(0);
+    assertEquals(new TreeEntry.AssetEntry(folder), a.getEntry());
+    assertFalse(model.isLeaf(a));
+    assertEquals(List.of("x.txt"), names(a));
+    assertTrue(model.isLeaf(assets.getChildAt(1)));
+
+    PackageTreeNode b = assets.getChildAt(2);
+    assertEquals(new TreeEntry.DirectoryEntry("Assets/B/"), b.getEntry());
+    assertNull(b.children);
+    assertEquals(2, model.getIndexOfChild(assets, b));
+  }
+
+  @Test
+  void filterHidesDirectoriesWithoutMatches() {
+    PathIndex index = PathIndex.of(List.of(folder, sibling, nested, deep));
+    PackageTreeModel model = new PackageTreeModel(index);
+    model.setFilter(index, index.search("y.txt").mask());
+
+    PackageTreeNode assets = model.getRoot().getChildAt(0);
+    assertEquals(List.of("B"), names(assets));
+    assertEquals("y.txt", model.pathTo("Assets/B/C/y.txt").getLastPathComponent().toString());
+    assertNull(model.pathTo("Assets/A/x.txt"));
+
+    model.setFilter(index, index.search("zzz").mask());
+    assertTrue(model.isEmpty());
+  }
+
+  @Test
+  void changingTheFilterKeepsTheNodes() {
+    PathIndex index = PathIndex.of(List.of(folder, sibling, nested, deep));
+    PackageTreeModel model = new PackageTreeModel(index);
+    PackageTreeNode assets = model.getRoot().getChildAt(0);
+    PackageTreeNode a = assets.getChildAt(0);
+    List<String> events = new ArrayList<>();
+    model.addTreeModelListener(new RecordingListener(events));
+
+    // The folder asset matches, but none of its contents do.
+    BitSet mask = new BitSet();
+    mask.set(index.lowerBound(folder.assetPath()));
+    mask.set(index.lowerBound(sibling.assetPath()));
+    model.setFilter(index, mask);
+    assertEquals(List.of("restructured [] at "), events);
+    assertSame(assets, model.getRoot().getChildAt(0));
+    assertEquals(List.of("A", "A-b.txt"), names(assets));
+    assertSame(a, assets.getChildAt(0));
+    assertTrue(model.isLeaf(a));
+    assertEquals(-1, model.getIndexOfChild(assets, assets.children.get(2)));
+
+    model.setFilter(index, null);
+    assertEquals(List.of("A", "A-b.txt", "B"), names(assets));
+    assertFalse(model.isLeaf(a));
+  }
+
+  @Test
+  void updateNotifiesTheLoadedDirectoriesOnly() {
+    PathIndex index = PathIndex.of(List.of(folder, sibling, nested, deep));
+    PackageTreeModel model = new PackageTreeModel(index);
+    PackageTreeNode assets = model.getRoot().getChildAt(0);
+    PackageTreeNode b = assets.getChildAt(2);
+    List<String> events = new ArrayList<>();
+    model.addTreeModelListener(new RecordingListener(events));
+
+    UnityAsset added = asset("Assets/D/new.txt", new byte[0]);
+    UnityAsset hidden = asset("Assets/B/C/z.txt", new byte[0]);
+    PathIndex changed = index.withChanges(List.of(sibling), List.of(added, hidden));
+    model.update(
+        changed, null, List.of(sibling.assetPath(), added.assetPath(), hidden.assetPath()));
+
+    // Assets/B/C was never loaded, so nothing is reported for the asset added inside it.
+    assertEquals(List.of("removed [A-b.txt] from Assets", "inserted [D] into Assets"), events);
+    assertEquals(List.of("A", "B", "D"), names(assets));
+    assertSame(b, assets.getChildAt(1));
+    assertEquals(1, model.getIndexOfChild(assets, b));
+    assertEquals(List.of("y.txt", "z.txt"), names(b.getChildAt(0)));
+  }
+
+  @Test
+  void updateReportsAChangedAsset() {
+    PathIndex index = PathIndex.of(List.of(folder, sibling, nested, deep));
+    PackageTreeModel model = new PackageTreeModel(index);
+    PackageTreeNode assets = model.getRoot().getChildAt(0);
+    assertEquals(3, assets.getChildCount());
+    List<String> events = new ArrayList<>();
+    model.addTreeModelListener(new RecordingListener(events));
+
+    UnityAsset edited =
+        new UnityAsset(sibling.guid(), sibling.assetPath(), new byte[1], null, null);
+    model.update(
+        index.withChanges(List.of(sibling), List.of(edited)), null, List.of(edited.assetPath()));
+
+    assertEquals(List.of("changed [A-b.txt] in Assets"), events);
+    assertEquals(new TreeEntry.AssetEntry(edited), assets.getChildAt(1).getEntry());
+  }
+
+  @Test
+  void filteredUpdateShowsAndHidesDirectoriesByTheirMatches() {
+    PathIndex index = PathIndex.of(List.of(folder, sibling, nested, deep));
+    PackageTreeModel model = new PackageTreeModel(index);
+    model.setFilter(index, index.search(".txt").mask());
+    PackageTreeNode assets = model.getRoot().getChildAt(0);
+    assertEquals(List.of("A", "A-b.txt", "B"), names(assets));
+    List<String> events = new ArrayList<>();
+    model.addTreeModelListener(new RecordingListener(events));
+
+    UnityAsset png = asset("Assets/D/new.png", new byte[0]);
+    UnityAsset txt = asset("Assets/E/new.txt", new byte[0]);
+    PathIndex changed = index.withChanges(List.of(nested), List.of(png, txt));
+    model.update(
+        changed,
+        changed.search(".txt").mask(),
+        List.of(nested.assetPath(), png.assetPath(), txt.assetPath()));
+
+    // A keeps its folder asset but no longer contains a match, so it is hidden, as is D.
+    assertEquals(List.of("removed [A] from Assets", "inserted [E] into Assets"), events);
+    assertEquals(List.of("A-b.txt", "B", "E"), names(assets));
+  }
+
+  private static List<String> names(PackageTreeNode node) {
+    List<String> names = new ArrayList<>();
+    for (int i = 0; i < node.getChildCount(); i++) {
+      names.add(node.getChildAt(i).toString());
+    }
+    return names;
+  }
+
+  private static UnityAsset asset(String path, byte[] content) {
+    return UnityAsset.createNew(path, content, new byte[0], null);
+  }
+
+  private record RecordingListener(List<String> events) implements TreeModelListener {
+    @Override
+    public void treeNodesChanged(TreeModelEvent e) {
+      record("changed", "in", e);
+    }
+
+    @Override
+    public void treeNodesInserted(TreeModelEvent e) {
+      record("inserted", "into", e);
+    }
+
+    @Override
+    public void treeNodesRemoved(TreeModelEvent e) {
+      record("removed", "from", e);
+    }
+
+    @Override
+    public void treeStructureChanged(TreeModelEvent e) {
+      record("restructured", "at", e);
+    }
+
+    private void record(String kind, String preposition, TreeModelEvent e) {
+      events.add(
+          kind
+              + " "
+              + (e.getChildren() == null ? List.of() : List.of(e.getChildren()))
+              + " "
+              + preposition
+              + " "
+              + e.getTreePath().getLastPathComponent());
+    }
+  }
+}
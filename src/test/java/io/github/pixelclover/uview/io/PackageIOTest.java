@@ -8,7 +8,10 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Set;
 import java.util.zip.GZIPOutputStream;
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
@@ -123,4 +126,101 @@ class PackageIOTest {
     UnityPackage loadedPackage = packageIO.load(testPackageFile);
     assertTrue(loadedPackage.getAssets().isEmpty());
   }
+
+  @Test
+  void saveAndLoad_shouldPreservePreview() throws IOException {
+    UnityPackage originalPackage = new UnityPackage();
+    byte[] preview = new byte[] {9, 8, 7};
+    originalPackage.addAsset(
+        new UnityAsset("a1b2", "Assets/Textures/stone.png", new byte[] {1}, null, preview));
+
+    packageIO.save(originalPackage, testPackageFile);
+
+    UnityAsset loadedAsset =
+        packageIO.load(testPackageFile).getAssetByPath("Assets/Textures/stone.png");
+    assertArrayEquals(preview, loadedAsset.previewContent());
+  }
+
+  @Test
+  void load_shouldRecordOneReusableMemberPerAssetOfSavedPackage() throws IOException {
+    UnityPackage originalPackage = createPackage(3);
+    packageIO.save(originalPackage, testPackageFile);
+
+    PackageIO freshIo = new PackageIO();
+    freshIo.load(testPackageFile);
+
+    PackageLayout layout = freshIo.getLayout(testPackageFile);
+    assertNotNull(layout);
+    assertEquals(packageIO.getLayout(testPackageFile).segments(), layout.segments());
+    assertEquals(Set.of("guid0", "guid1", "guid2"), layout.segments().keySet());
+  }
+
+  @Test
+  void load_ofSingleMemberArchive_shouldRecordNoReusableMembers() throws IOException {
+    createTestTarGz("abc123", "Assets/a.txt", "content", "meta", testPackageFile);
+
+    packageIO.load(testPackageFile);
+
+    assertTrue(packageIO.getLayout(testPackageFile).segments().isEmpty());
+  }
+
+  @Test
+  void saveIncremental_shouldCopyUnchangedMembersVerbatim() throws IOException {
+    packageIO.save(createPackage(3), testPackageFile);
+    byte[] originalBytes = Files.readAllBytes(testPackageFile.toPath());
+    PackageLayout.Segment unchanged = packageIO.getLayout(testPackageFile).segments().get("guid2");
+
+    UnityPackage loaded = packageIO.load(testPackageFile);
+    UnityAsset changed = loaded.getAssetByPath("Assets/File1.txt");
+    loaded.addAsset(
+        new UnityAsset(
+            changed.guid(), changed.assetPath(), changed.content(), "new meta".getBytes(), null));
+    packageIO.saveIncremental(loaded, testPackageFile, testPackageFile, Set.of(changed.guid()));
+
+    byte[] savedBytes = Files.readAllBytes(testPackageFile.toPath());
+    PackageLayout.Segment copied = packageIO.getLayout(testPackageFile).segments().get("guid2");
+    assertArrayEquals(
+        slice(originalBytes, unchanged), slice(savedBytes, copied), "Member should be reused.");
+
+    UnityPackage reloaded = new PackageIO().load(testPackageFile);
+    assertEquals(3, reloaded.getAssets().size());
+    assertEquals("new meta", new String(reloaded.getAssetByPath("Assets/File1.txt").metaContent()));
+    assertArrayEquals(
+        "content 2".getBytes(StandardCharsets.UTF_8),
+        reloaded.getAssetByPath("Assets/File2.txt").content());
+  }
+
+  @Test
+  void saveIncremental_shouldDropRemovedAssetsAndWriteToNewFile() throws IOException {
+    packageIO.save(createPackage(3), testPackageFile);
+    UnityPackage loaded = packageIO.load(testPackageFile);
+    loaded.removeAssetByPath("Assets/File0.txt");
+    File copyFile = tempDir.resolve("copy.unitypackage").toFile();
+
+    packageIO.saveIncremental(loaded, testPackageFile, copyFile, Set.of("guid0"));
+
+    UnityPackage reloaded = new PackageIO().load(copyFile);
+    assertEquals(2, reloaded.getAssets().size());
+    assertNull(reloaded.getAssetByPath("Assets/File0.txt"));
+    assertEquals(3, new PackageIO().load(testPackageFile).getAssets().size());
+  }
+
+  private static UnityPackage createPackage(int assetCount) {
+    UnityPackage unityPackage = new UnityPackage();
+    for (int i = 0; i < assetCount; i++) {
+      unityPackage.addAsset(
+          new UnityAsset(
+              "guid" + i,
+              "Assets/File" + i + ".txt",
+              ("content " + i).getBytes(StandardCharsets.UTF_8),
+              ("meta " + i).getBytes(StandardCharsets.UTF_8),
+              null));
+    }
+    return unityPackage;
+  }
+
+  private static byte[] slice(byte[] bytes, PackageLayout.Segment segment) {
+    return Arrays.copyOfRange(
+        bytes, (int) segment.offset(), (int) (segment.offset() + segment.length()));
+  }
 }
@@ -113,4 +113,14 @@ class UnityAssetTest {
     UnityAsset asset = new UnityAsset("guid", "path", null, null, null);
     assertEquals("UnityAsset{assetPath='path', guid='guid'}", asset.toString());
   }
+
+  @Test
+  void contentLengthAndHasPreview_shouldDescribeTheContent() {
+    UnityAsset file = new UnityAsset("guid", "path", new byte[3], null, new byte[1]);
+    UnityAsset directory = new UnityAsset("guid", "path", null, null, null);
+    assertEquals(3, file.contentLength());
+    assertTrue(file.hasPreview());
+    assertEquals(-1, directory.contentLength());
+    assertFalse(directory.hasPreview());
+  }
 }
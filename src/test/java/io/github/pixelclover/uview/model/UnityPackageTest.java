@@ -67,4 +67,21 @@ class UnityPackageTest {
     assertTrue(pkg.getAssets().isEmpty());
     assertNull(pkg.getAssetByPath("Assets/test.txt"));
   }
+
+  @Test
+  void restore_shouldReturnToSnapshotState() {
+    UnityPackage pkg = new UnityPackage();
+    UnityAsset asset =
+        UnityAsset.createNew("Assets/test.txt", new byte[0], new byte[0], new byte[0]);
+    pkg.addAsset(asset);
+    UnityPackage.Snapshot snapshot = pkg.snapshot();
+
+    pkg.removeAssetByPath("Assets/test.txt");
+    assertTrue(pkg.getAssets().isEmpty());
+    assertEquals(1, snapshot.getAssets().size(), "Snapshots must not see later changes.");
+
+    pkg.restore(snapshot);
+    assertSame(snapshot, pkg.snapshot());
+    assertEquals(asset, pkg.getAssetByPath("Assets/test.txt"));
+  }
 }